@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark;
+
+import com.opcooc.storage.args.CreateBucketArgs;
+import com.opcooc.storage.drivers.DefaultMemoryClientDriver;
+import com.opcooc.storage.enums.DefaultDriverType;
+import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+
+/**
+ * 基准测试的公共方法
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+final class BenchmarkSupport {
+
+    /**
+     * 基准测试使用的存储空间(主目录)名称
+     */
+    static final String BUCKET = "bench";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 创建内存驱动, 并创建默认存储空间(主目录)
+     *
+     * @param driverName 驱动名称
+     * @return 内存驱动
+     */
+    static DefaultMemoryClientDriver memoryDriver(String driverName) {
+        ClientDriverProperty property = new ClientDriverProperty();
+        property.setDriverName(driverName);
+        property.setType(DefaultDriverType.MEMORY);
+        property.setDefaultBucket(BUCKET);
+        DefaultMemoryClientDriver driver = new DefaultMemoryClientDriver(property);
+        driver.connect().createBucket(CreateBucketArgs.builder().bucketName(BUCKET).build());
+        return driver;
+    }
+}
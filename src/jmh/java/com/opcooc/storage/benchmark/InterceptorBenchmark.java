@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.opcooc.storage.annotation.OS;
+import com.opcooc.storage.aop.DynamicClientAnnotationInterceptor;
+import com.opcooc.storage.holder.DynamicClientContextHolder;
+import com.opcooc.storage.processor.OsHeaderProcessor;
+import com.opcooc.storage.processor.OsSessionProcessor;
+import com.opcooc.storage.processor.OsSpelExpressionProcessor;
+
+/**
+ * DynamicClientAnnotationInterceptor 切换驱动的开销, 处理器链与自动配置一致(header -> session -> spel)
+ * 1.fixed: 注解中直接指定驱动名称, 不经过处理器
+ * 2.header: 从请求头获取驱动名称
+ * 3.session: 从会话属性获取驱动名称
+ * 4.spel: 从方法参数中解析驱动名称(经过 header、session 处理器后由 spel 处理器解析)
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InterceptorBenchmark {
+
+    private static final String DRIVER_NAME = "memory";
+
+    @Param({"fixed", "header", "session", "spel"})
+    private String processor;
+
+    private DynamicClientAnnotationInterceptor interceptor;
+
+    private MethodInvocation invocation;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        OsHeaderProcessor headerProcessor = new OsHeaderProcessor();
+        OsSessionProcessor sessionProcessor = new OsSessionProcessor();
+        headerProcessor.setNextProcessor(sessionProcessor);
+        sessionProcessor.setNextProcessor(new OsSpelExpressionProcessor());
+        interceptor = new DynamicClientAnnotationInterceptor(true, headerProcessor);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("driver", DRIVER_NAME);
+        request.getSession().setAttribute("driver", DRIVER_NAME);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        Method method = AnnotatedService.class.getMethod(processor, String.class);
+        invocation = new SimpleMethodInvocation(new AnnotatedService(), method, new Object[]{DRIVER_NAME});
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        DynamicClientContextHolder.clear();
+    }
+
+    @Benchmark
+    public Object invoke() throws Throwable {
+        return interceptor.invoke(invocation);
+    }
+
+    /**
+     * 使用各种切换方式的服务
+     */
+    public static class AnnotatedService {
+
+        @OS(DRIVER_NAME)
+        public String fixed(String name) {
+            return name;
+        }
+
+        @OS("#header.driver")
+        public String header(String name) {
+            return name;
+        }
+
+        @OS("#session.driver")
+        public String session(String name) {
+            return name;
+        }
+
+        @OS("#name")
+        public String spel(String name) {
+            return name;
+        }
+    }
+
+    /**
+     * 方法调用, proceed 返回当前切换到的驱动名称
+     */
+    private static final class SimpleMethodInvocation implements MethodInvocation {
+
+        private final Object target;
+
+        private final Method method;
+
+        private final Object[] arguments;
+
+        private SimpleMethodInvocation(Object target, Method method, Object[] arguments) {
+            this.target = target;
+            this.method = method;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return arguments;
+        }
+
+        @Override
+        public Object proceed() {
+            return DynamicClientContextHolder.peek();
+        }
+
+        @Override
+        public Object getThis() {
+            return target;
+        }
+
+        @Override
+        public AccessibleObject getStaticPart() {
+            return method;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.toolkit.StorageUtil;
+
+/**
+ * 获取列表时将一页 S3ObjectSummary 转换为 FileBasicInfo 的开销
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListingConversionBenchmark {
+
+    @Param({"1000"})
+    private int pageSize;
+
+    private final ListObjectsArgs args = ListObjectsArgs.builder().bucketName(BenchmarkSupport.BUCKET).prefix("").build();
+
+    private List<S3ObjectSummary> summaries;
+
+    @Setup
+    public void setup() {
+        summaries = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            S3ObjectSummary summary = new S3ObjectSummary();
+            summary.setBucketName(BenchmarkSupport.BUCKET);
+            summary.setKey(String.format("logs/2020/12/%08d.log", i));
+            summary.setSize(1024L * i);
+            summary.setLastModified(new Date());
+            summary.setETag("d41d8cd98f00b204e9800998ecf8427e");
+            summaries.add(summary);
+        }
+    }
+
+    @Benchmark
+    public List<FileBasicInfo> convertPage() {
+        List<FileBasicInfo> infos = new ArrayList<>(summaries.size());
+        for (S3ObjectSummary summary : summaries) {
+            infos.add(StorageUtil.createFileBasicInfo(summary, args));
+        }
+        return infos;
+    }
+}
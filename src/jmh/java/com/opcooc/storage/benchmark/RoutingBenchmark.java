@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.support.StaticApplicationContext;
+
+import com.opcooc.storage.drivers.ClientDriver;
+import com.opcooc.storage.drivers.DynamicRoutingClientDriver;
+import com.opcooc.storage.holder.DynamicClientContextHolder;
+
+/**
+ * DynamicRoutingClientDriver.determineClientDriver 的开销
+ * 1.primary: 没有切换驱动, 使用默认驱动
+ * 2.named: 切换到指定驱动(包含切换上下文的 push/poll, 与切面的用法一致)
+ * 3.fallback: 切换到不存在的驱动, 非严格模式下回退到默认驱动
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoutingBenchmark {
+
+    @Param({"1", "32"})
+    private int drivers;
+
+    private DynamicRoutingClientDriver routing;
+
+    private StaticApplicationContext context;
+
+    private String lastDriver;
+
+    @Setup
+    public void setup() {
+        context = new StaticApplicationContext();
+        context.refresh();
+        routing = new DynamicRoutingClientDriver();
+        routing.setApplicationContext(context);
+        routing.setPrimary("driver0");
+        for (int i = 0; i < drivers; i++) {
+            routing.addClientDriver("driver" + i, BenchmarkSupport.memoryDriver("driver" + i));
+        }
+        lastDriver = "driver" + (drivers - 1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        DynamicClientContextHolder.clear();
+        routing.close();
+        context.close();
+    }
+
+    @Benchmark
+    public ClientDriver primary() {
+        return routing.determineClientDriver();
+    }
+
+    @Benchmark
+    public ClientDriver named() {
+        DynamicClientContextHolder.push(lastDriver);
+        try {
+            return routing.determineClientDriver();
+        } finally {
+            DynamicClientContextHolder.poll();
+        }
+    }
+
+    @Benchmark
+    public ClientDriver fallback() {
+        DynamicClientContextHolder.push("missing");
+        try {
+            return routing.determineClientDriver();
+        } finally {
+            DynamicClientContextHolder.poll();
+        }
+    }
+}
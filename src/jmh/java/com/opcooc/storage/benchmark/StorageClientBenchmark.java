@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.support.StaticApplicationContext;
+
+import com.opcooc.storage.StorageClient;
+import com.opcooc.storage.args.DoesObjectExistArgs;
+import com.opcooc.storage.args.GetUrlArgs;
+import com.opcooc.storage.drivers.DynamicRoutingClientDriver;
+
+/**
+ * StorageClient 在驱动之上增加的开销(determineInfoAndValidate: 确定存储空间、对象名称及参数校验)
+ * 使用内存驱动, 结果只包含本项目的开销
+ * 1.direct: 直接调用驱动的客户端, 作为对照
+ * 2.explicitBucket: 参数中指定了存储空间, 参数对象不需要重建
+ * 3.defaultBucket: 使用驱动的默认存储空间, 需要通过 toBuilder 重建参数对象
+ * 4.objectExist: 默认存储空间, 包含内存驱动的一次查找
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StorageClientBenchmark {
+
+    private static final String OBJECT_NAME = "a/b/c.txt";
+
+    private StaticApplicationContext context;
+
+    private DynamicRoutingClientDriver routing;
+
+    private StorageClient storageClient;
+
+    private final GetUrlArgs explicitBucketArgs = GetUrlArgs.builder().bucketName(BenchmarkSupport.BUCKET).objectName(OBJECT_NAME).build();
+
+    private final GetUrlArgs defaultBucketArgs = GetUrlArgs.builder().objectName(OBJECT_NAME).build();
+
+    private final DoesObjectExistArgs existArgs = DoesObjectExistArgs.builder().objectName(OBJECT_NAME).build();
+
+    @Setup
+    public void setup() {
+        context = new StaticApplicationContext();
+        context.refresh();
+        routing = new DynamicRoutingClientDriver();
+        routing.setApplicationContext(context);
+        routing.setPrimary("memory");
+        routing.addClientDriver("memory", BenchmarkSupport.memoryDriver("memory"));
+        storageClient = new StorageClient(routing);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        routing.close();
+        context.close();
+    }
+
+    @Benchmark
+    public String direct() {
+        return routing.connect().getUrl(explicitBucketArgs);
+    }
+
+    @Benchmark
+    public String explicitBucket() {
+        return storageClient.getUrl(explicitBucketArgs);
+    }
+
+    @Benchmark
+    public String defaultBucket() {
+        return storageClient.getUrl(defaultBucketArgs);
+    }
+
+    @Benchmark
+    public boolean objectExist() {
+        return storageClient.objectExist(existArgs);
+    }
+}
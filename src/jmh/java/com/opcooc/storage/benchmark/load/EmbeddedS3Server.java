@@ -0,0 +1,1015 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark.load;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 内嵌的 S3 兼容服务(只用于压测, 数据保存在内存中)
+ * 1.只支持 path-style 访问(pathStyle: true), 不校验签名, 任意 accessKey/secretKey 都可以访问
+ * 2.存储空间: 创建、删除、是否存在(GET ?acl)、列表
+ * 3.对象: PUT(支持 aws-chunked 编码)、服务端复制、GET(支持 Range 及 If-Match/If-None-Match)、HEAD、DELETE
+ * 4.列表: ListObjectsV2(prefix、delimiter、max-keys、continuation-token、start-after、encoding-type=url)
+ * 5.分片上传: 初始化、上传分片、复制分片(UploadPartCopy)、合并、取消, 除最后一个分片外分片不能小于5MB
+ * 6.批量删除: DeleteObjects(支持 quiet 模式)
+ * 7.可以设置每个请求的额外延迟, 模拟网络往返时间
+ * 8.可以设置单次复制(CopyObject)的最大源对象大小, 超过时与 S3 一样返回 400 InvalidRequest
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class EmbeddedS3Server implements Closeable {
+
+    /**
+     * 除最后一个分片外每个分片的最小大小
+     */
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private static final int MAX_DELETE_OBJECTS = 1000;
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+
+    private static final String XMLNS = " xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\"";
+
+    private static final String OWNER_ID = "opcooc";
+
+    private static final DateTimeFormatter ISO_8601 = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private static final DateTimeFormatter RFC_1123 = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    static {
+        // HttpServer 分开发送响应头与响应体, 开启 Nagle 算法时与客户端的延迟确认叠加, 每个响应增加约40ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private volatile long latencyNanos;
+
+    private volatile long maxCopySize = Long.MAX_VALUE;
+
+    /**
+     * @param port    监听端口, 为0时使用随机端口
+     * @param threads 处理请求的线程数
+     * @throws IOException 监听端口失败
+     */
+    public EmbeddedS3Server(int port, int threads) throws IOException {
+        AtomicInteger index = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "embedded-s3-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * 启动服务
+     *
+     * @return 当前服务
+     */
+    public EmbeddedS3Server start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * 服务地址, 可以直接作为客户端驱动的 endPoint
+     *
+     * @return 服务地址
+     */
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * 设置每个请求的额外延迟
+     *
+     * @param latency 延迟时间
+     */
+    public void setLatency(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * 设置单次复制(CopyObject)的最大源对象大小(S3 为5GB), 分片复制(UploadPartCopy)不受限制
+     *
+     * @param maxCopySize 最大源对象大小
+     */
+    public void setMaxCopySize(long maxCopySize) {
+        this.maxCopySize = maxCopySize;
+    }
+
+    /**
+     * 已处理的请求数
+     *
+     * @return 请求数
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * 创建存储空间(主目录), 已存在时忽略
+     *
+     * @param bucketName 存储空间(主目录)名称
+     */
+    public void createBucket(String bucketName) {
+        buckets.putIfAbsent(bucketName, new Bucket(bucketName));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            delay();
+            dispatch(exchange);
+        } catch (S3Error e) {
+            sendError(exchange, e);
+        } catch (Exception e) {
+            sendError(exchange, new S3Error(500, "InternalError", String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getRawPath();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String method = exchange.getRequestMethod();
+        if (!"PUT".equals(method) && !"POST".equals(method)) {
+            drain(exchange);
+        }
+        int slash = path.indexOf('/', 1);
+        String bucketName = decode(slash < 0 ? path.substring(1) : path.substring(1, slash));
+        String key = slash < 0 ? "" : decode(path.substring(slash + 1));
+
+        if (bucketName.isEmpty()) {
+            if ("GET".equals(method)) {
+                listBuckets(exchange);
+                return;
+            }
+            throw new S3Error(405, "MethodNotAllowed", "The specified method is not allowed against this resource.");
+        }
+        if (key.isEmpty()) {
+            dispatchBucket(exchange, method, bucketName, query);
+        } else {
+            dispatchObject(exchange, method, bucket(bucketName), key, query);
+        }
+    }
+
+    private void dispatchBucket(HttpExchange exchange, String method, String bucketName, Map<String, String> query) throws IOException {
+        switch (method) {
+            case "PUT":
+                drain(exchange);
+                if (buckets.putIfAbsent(bucketName, new Bucket(bucketName)) != null) {
+                    throw new S3Error(409, "BucketAlreadyOwnedByYou", "Your previous request to create the named bucket succeeded and you already own it.");
+                }
+                exchange.getResponseHeaders().set("Location", "/" + bucketName);
+                sendEmpty(exchange, 200);
+                return;
+            case "HEAD":
+                bucket(bucketName);
+                sendEmpty(exchange, 200);
+                return;
+            case "DELETE":
+                Bucket bucket = bucket(bucketName);
+                if (!bucket.objects.isEmpty()) {
+                    throw new S3Error(409, "BucketNotEmpty", "The bucket you tried to delete is not empty.");
+                }
+                buckets.remove(bucketName, bucket);
+                sendEmpty(exchange, 204);
+                return;
+            case "GET":
+                if (query.containsKey("acl")) {
+                    bucket(bucketName);
+                    sendXml(exchange, 200, accessControlPolicy());
+                } else if ("2".equals(query.get("list-type"))) {
+                    listObjectsV2(exchange, bucket(bucketName), query);
+                } else {
+                    throw new S3Error(501, "NotImplemented", "Only ListObjectsV2 is supported.");
+                }
+                return;
+            case "POST":
+                if (query.containsKey("delete")) {
+                    deleteObjects(exchange, bucket(bucketName));
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new S3Error(501, "NotImplemented", "A header you provided implies functionality that is not implemented.");
+    }
+
+    private void dispatchObject(HttpExchange exchange, String method, Bucket bucket, String key, Map<String, String> query) throws IOException {
+        String uploadId = query.get("uploadId");
+        switch (method) {
+            case "PUT":
+                if (uploadId != null) {
+                    uploadPart(exchange, bucket, key, uploadId, query.get("partNumber"));
+                } else if (exchange.getRequestHeaders().containsKey("x-amz-copy-source")) {
+                    copyObject(exchange, bucket, key);
+                } else {
+                    putObject(exchange, bucket, key);
+                }
+                return;
+            case "POST":
+                if (query.containsKey("uploads")) {
+                    initiateMultipartUpload(exchange, bucket, key);
+                    return;
+                }
+                if (uploadId != null) {
+                    completeMultipartUpload(exchange, bucket, key, uploadId);
+                    return;
+                }
+                break;
+            case "GET":
+                if (query.containsKey("acl")) {
+                    object(bucket, key);
+                    sendXml(exchange, 200, accessControlPolicy());
+                } else {
+                    getObject(exchange, bucket, key, true);
+                }
+                return;
+            case "HEAD":
+                getObject(exchange, bucket, key, false);
+                return;
+            case "DELETE":
+                if (uploadId != null) {
+                    drain(exchange);
+                    if (uploads.remove(uploadId) == null) {
+                        throw noSuchUpload(uploadId);
+                    }
+                } else {
+                    bucket.objects.remove(key);
+                }
+                sendEmpty(exchange, 204);
+                return;
+            default:
+                break;
+        }
+        throw new S3Error(501, "NotImplemented", "A header you provided implies functionality that is not implemented.");
+    }
+
+    private void listBuckets(HttpExchange exchange) throws IOException {
+        StringBuilder xml = new StringBuilder("<ListAllMyBucketsResult").append(XMLNS).append('>');
+        appendOwner(xml);
+        xml.append("<Buckets>");
+        for (Bucket bucket : buckets.values()) {
+            xml.append("<Bucket>");
+            element(xml, "Name", bucket.name);
+            element(xml, "CreationDate", ISO_8601.format(bucket.creationDate));
+            xml.append("</Bucket>");
+        }
+        xml.append("</Buckets></ListAllMyBucketsResult>");
+        sendXml(exchange, 200, xml.toString());
+    }
+
+    /**
+     * ListObjectsV2, 续传标记为上一页返回的最后一个对象名称或公共前缀
+     */
+    private void listObjectsV2(HttpExchange exchange, Bucket bucket, Map<String, String> query) throws IOException {
+        String prefix = query.getOrDefault("prefix", "");
+        String delimiter = emptyToNull(query.get("delimiter"));
+        String token = emptyToNull(query.get("continuation-token"));
+        String startAfter = emptyToNull(query.get("start-after"));
+        boolean urlEncoding = "url".equals(query.get("encoding-type"));
+        int maxKeys = Math.min(1000, parseInt(query.getOrDefault("max-keys", "1000"), "max-keys"));
+        String marker = token != null ? token : startAfter;
+        // 上一页以公共前缀结束时, 需要跳过该前缀下的对象
+        boolean skipMarkerPrefix = token != null && delimiter != null && token.endsWith(delimiter);
+
+        NavigableMap<String, StoredObject> candidates = marker != null && marker.compareTo(prefix) >= 0
+                ? bucket.objects.tailMap(marker, false) : bucket.objects.tailMap(prefix, true);
+        List<Map.Entry<String, StoredObject>> contents = new ArrayList<>();
+        List<String> commonPrefixes = new ArrayList<>();
+        String last = null;
+        boolean truncated = false;
+        for (Map.Entry<String, StoredObject> entry : candidates.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            if (skipMarkerPrefix && key.startsWith(token)) {
+                continue;
+            }
+            int index = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+            String commonPrefix = index < 0 ? null : key.substring(0, index + delimiter.length());
+            if (commonPrefix != null && commonPrefix.equals(last)) {
+                continue;
+            }
+            if (contents.size() + commonPrefixes.size() >= maxKeys) {
+                truncated = true;
+                break;
+            }
+            if (commonPrefix != null) {
+                commonPrefixes.add(commonPrefix);
+                last = commonPrefix;
+            } else {
+                contents.add(entry);
+                last = key;
+            }
+        }
+
+        StringBuilder xml = new StringBuilder("<ListBucketResult").append(XMLNS).append('>');
+        element(xml, "Name", bucket.name);
+        element(xml, "Prefix", encodeKey(prefix, urlEncoding));
+        if (delimiter != null) {
+            element(xml, "Delimiter", encodeKey(delimiter, urlEncoding));
+        }
+        element(xml, "MaxKeys", String.valueOf(maxKeys));
+        element(xml, "KeyCount", String.valueOf(contents.size() + commonPrefixes.size()));
+        element(xml, "IsTruncated", String.valueOf(truncated));
+        if (urlEncoding) {
+            element(xml, "EncodingType", "url");
+        }
+        if (token != null) {
+            element(xml, "ContinuationToken", token);
+        }
+        if (startAfter != null) {
+            element(xml, "StartAfter", encodeKey(startAfter, urlEncoding));
+        }
+        if (truncated) {
+            element(xml, "NextContinuationToken", last);
+        }
+        for (Map.Entry<String, StoredObject> entry : contents) {
+            StoredObject object = entry.getValue();
+            xml.append("<Contents>");
+            element(xml, "Key", encodeKey(entry.getKey(), urlEncoding));
+            element(xml, "LastModified", ISO_8601.format(object.lastModified));
+            element(xml, "ETag", quote(object.etag));
+            element(xml, "Size", String.valueOf(object.data.length));
+            element(xml, "StorageClass", "STANDARD");
+            xml.append("</Contents>");
+        }
+        for (String commonPrefix : commonPrefixes) {
+            xml.append("<CommonPrefixes>");
+            element(xml, "Prefix", encodeKey(commonPrefix, urlEncoding));
+            xml.append("</CommonPrefixes>");
+        }
+        xml.append("</ListBucketResult>");
+        sendXml(exchange, 200, xml.toString());
+    }
+
+    private void putObject(HttpExchange exchange, Bucket bucket, String key) throws IOException {
+        byte[] data = readBody(exchange);
+        StoredObject object = new StoredObject(data, md5Hex(data), contentType(exchange.getRequestHeaders()), userMetadata(exchange.getRequestHeaders()));
+        bucket.objects.put(key, object);
+        exchange.getResponseHeaders().set("ETag", quote(object.etag));
+        sendEmpty(exchange, 200);
+    }
+
+    private void copyObject(HttpExchange exchange, Bucket bucket, String key) throws IOException {
+        drain(exchange);
+        Headers headers = exchange.getRequestHeaders();
+        StoredObject source = copySource(headers);
+        if (source.data.length > maxCopySize) {
+            throw new S3Error(400, "InvalidRequest", "The specified copy source is larger than the maximum allowable size for a copy source: " + maxCopySize);
+        }
+        StoredObject object = "REPLACE".equals(headers.getFirst("x-amz-metadata-directive"))
+                ? new StoredObject(source.data, source.etag, contentType(headers), userMetadata(headers))
+                : new StoredObject(source.data, source.etag, source.contentType, source.userMetadata);
+        bucket.objects.put(key, object);
+        StringBuilder xml = new StringBuilder("<CopyObjectResult").append(XMLNS).append('>');
+        element(xml, "LastModified", ISO_8601.format(object.lastModified));
+        element(xml, "ETag", quote(object.etag));
+        xml.append("</CopyObjectResult>");
+        sendXml(exchange, 200, xml.toString());
+    }
+
+    private void getObject(HttpExchange exchange, Bucket bucket, String key, boolean withBody) throws IOException {
+        StoredObject object = object(bucket, key);
+        Headers request = exchange.getRequestHeaders();
+        String ifMatch = request.getFirst("If-Match");
+        if (ifMatch != null && !etagMatches(ifMatch, object.etag)) {
+            throw new S3Error(412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+        }
+        String ifNoneMatch = request.getFirst("If-None-Match");
+        Headers response = exchange.getResponseHeaders();
+        response.set("ETag", quote(object.etag));
+        response.set("Last-Modified", RFC_1123.format(object.lastModified));
+        if (ifNoneMatch != null && etagMatches(ifNoneMatch, object.etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        response.set("Content-Type", object.contentType);
+        response.set("Accept-Ranges", "bytes");
+        object.userMetadata.forEach((name, value) -> response.set("x-amz-meta-" + name, value));
+
+        int length = object.data.length;
+        if (!withBody) {
+            response.set("Content-Length", String.valueOf(length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        long[] range = parseRange(request.getFirst("Range"), length);
+        int start = 0;
+        int end = length - 1;
+        int status = 200;
+        if (range != null) {
+            start = (int) range[0];
+            end = (int) range[1];
+            status = 206;
+            response.set("Content-Range", "bytes " + start + "-" + end + "/" + length);
+        }
+        int count = end - start + 1;
+        exchange.sendResponseHeaders(status, count == 0 ? -1 : count);
+        if (count > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(object.data, start, count);
+            }
+        }
+    }
+
+    private void initiateMultipartUpload(HttpExchange exchange, Bucket bucket, String key) throws IOException {
+        drain(exchange);
+        Headers headers = exchange.getRequestHeaders();
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new Upload(bucket.name, key, contentType(headers), userMetadata(headers)));
+        StringBuilder xml = new StringBuilder("<InitiateMultipartUploadResult").append(XMLNS).append('>');
+        element(xml, "Bucket", bucket.name);
+        element(xml, "Key", key);
+        element(xml, "UploadId", uploadId);
+        xml.append("</InitiateMultipartUploadResult>");
+        sendXml(exchange, 200, xml.toString());
+    }
+
+    private void uploadPart(HttpExchange exchange, Bucket bucket, String key, String uploadId, String partNumber) throws IOException {
+        Upload upload = upload(uploadId, bucket, key);
+        int number = parseInt(partNumber, "partNumber");
+        if (number < 1 || number > 10000) {
+            throw new S3Error(400, "InvalidArgument", "Part number must be an integer between 1 and 10000, inclusive");
+        }
+        Headers headers = exchange.getRequestHeaders();
+        if (headers.containsKey("x-amz-copy-source")) {
+            drain(exchange);
+            StoredObject source = copySource(headers);
+            byte[] data = source.data;
+            long[] range = parseRange(headers.getFirst("x-amz-copy-source-range"), data.length);
+            if (range != null) {
+                data = Arrays.copyOfRange(data, (int) range[0], (int) range[1] + 1);
+            }
+            StoredObject part = new StoredObject(data, md5Hex(data), null, Collections.emptyMap());
+            upload.parts.put(number, part);
+            StringBuilder xml = new StringBuilder("<CopyPartResult").append(XMLNS).append('>');
+            element(xml, "LastModified", ISO_8601.format(part.lastModified));
+            element(xml, "ETag", quote(part.etag));
+            xml.append("</CopyPartResult>");
+            sendXml(exchange, 200, xml.toString());
+            return;
+        }
+        byte[] data = readBody(exchange);
+        StoredObject part = new StoredObject(data, md5Hex(data), null, Collections.emptyMap());
+        upload.parts.put(number, part);
+        exchange.getResponseHeaders().set("ETag", quote(part.etag));
+        sendEmpty(exchange, 200);
+    }
+
+    /**
+     * 合并分片, ETag 与 S3 一致: 各分片 MD5 拼接后的 MD5 加上分片数量
+     */
+    private void completeMultipartUpload(HttpExchange exchange, Bucket bucket, String key, String uploadId) throws IOException {
+        Upload upload = upload(uploadId, bucket, key);
+        Document document = parseXml(readBody(exchange));
+        NodeList nodes = document.getElementsByTagName("Part");
+        if (nodes.getLength() == 0) {
+            throw new S3Error(400, "MalformedXML", "The XML you provided was not well-formed or did not validate against our published schema.");
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ByteArrayOutputStream digests = new ByteArrayOutputStream();
+        int previous = 0;
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Element node = (Element) nodes.item(i);
+            int number = parseInt(childText(node, "PartNumber"), "PartNumber");
+            if (number <= previous) {
+                throw new S3Error(400, "InvalidPartOrder", "The list of parts was not in ascending order.");
+            }
+            previous = number;
+            StoredObject part = upload.parts.get(number);
+            if (part == null || !etagMatches(childText(node, "ETag"), part.etag)) {
+                throw new S3Error(400, "InvalidPart", "One or more of the specified parts could not be found.");
+            }
+            if (i < nodes.getLength() - 1 && part.data.length < MIN_PART_SIZE) {
+                throw new S3Error(400, "EntityTooSmall", "Your proposed upload is smaller than the minimum allowed object size.");
+            }
+            content.write(part.data);
+            digests.write(hexToBytes(part.etag));
+        }
+        String etag = md5Hex(digests.toByteArray()) + "-" + nodes.getLength();
+        if (!uploads.remove(uploadId, upload)) {
+            throw noSuchUpload(uploadId);
+        }
+        bucket.objects.put(key, new StoredObject(content.toByteArray(), etag, upload.contentType, upload.userMetadata));
+        StringBuilder xml = new StringBuilder("<CompleteMultipartUploadResult").append(XMLNS).append('>');
+        element(xml, "Location", getEndpoint() + "/" + bucket.name + "/" + key);
+        element(xml, "Bucket", bucket.name);
+        element(xml, "Key", key);
+        element(xml, "ETag", quote(etag));
+        xml.append("</CompleteMultipartUploadResult>");
+        sendXml(exchange, 200, xml.toString());
+    }
+
+    private void deleteObjects(HttpExchange exchange, Bucket bucket) throws IOException {
+        Document document = parseXml(readBody(exchange));
+        Element root = document.getDocumentElement();
+        boolean quiet = "true".equalsIgnoreCase(childText(root, "Quiet"));
+        NodeList nodes = root.getElementsByTagName("Object");
+        if (nodes.getLength() > MAX_DELETE_OBJECTS) {
+            throw new S3Error(400, "MalformedXML", "The request must contain no more than 1000 keys.");
+        }
+        StringBuilder xml = new StringBuilder("<DeleteResult").append(XMLNS).append('>');
+        for (int i = 0; i < nodes.getLength(); i++) {
+            String key = childText((Element) nodes.item(i), "Key");
+            bucket.objects.remove(key);
+            if (!quiet) {
+                xml.append("<Deleted>");
+                element(xml, "Key", key);
+                xml.append("</Deleted>");
+            }
+        }
+        xml.append("</DeleteResult>");
+        sendXml(exchange, 200, xml.toString());
+    }
+
+    private StoredObject copySource(Headers headers) {
+        String source = decode(headers.getFirst("x-amz-copy-source"));
+        int query = source.indexOf('?');
+        if (query >= 0) {
+            source = source.substring(0, query);
+        }
+        if (source.startsWith("/")) {
+            source = source.substring(1);
+        }
+        int slash = source.indexOf('/');
+        if (slash <= 0) {
+            throw new S3Error(400, "InvalidArgument", "Copy Source must mention the source bucket and key: sourcebucket/sourcekey");
+        }
+        StoredObject object = object(bucket(source.substring(0, slash)), source.substring(slash + 1));
+        String ifMatch = headers.getFirst("x-amz-copy-source-if-match");
+        if (ifMatch != null && !etagMatches(ifMatch, object.etag)) {
+            throw new S3Error(412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+        }
+        return object;
+    }
+
+    private Bucket bucket(String bucketName) {
+        Bucket bucket = buckets.get(bucketName);
+        if (bucket == null) {
+            throw new S3Error(404, "NoSuchBucket", "The specified bucket does not exist");
+        }
+        return bucket;
+    }
+
+    private static StoredObject object(Bucket bucket, String key) {
+        StoredObject object = bucket.objects.get(key);
+        if (object == null) {
+            throw new S3Error(404, "NoSuchKey", "The specified key does not exist.");
+        }
+        return object;
+    }
+
+    private Upload upload(String uploadId, Bucket bucket, String key) {
+        Upload upload = uploads.get(uploadId);
+        if (upload == null || !upload.bucketName.equals(bucket.name) || !upload.key.equals(key)) {
+            throw noSuchUpload(uploadId);
+        }
+        return upload;
+    }
+
+    private static S3Error noSuchUpload(String uploadId) {
+        return new S3Error(404, "NoSuchUpload", "The specified upload does not exist: " + uploadId);
+    }
+
+    /**
+     * 解析 Range 请求头
+     *
+     * @param header Range 请求头, 格式为 bytes=start-end、bytes=start- 或 bytes=-suffix
+     * @param length 对象长度
+     * @return [起始位置, 结束位置(包含)], 没有 Range 时返回null
+     */
+    private static long[] parseRange(String header, int length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        long start;
+        long end;
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+                if (suffix == 0) {
+                    throw invalidRange();
+                }
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? length - 1 : Math.min(length - 1, Long.parseLong(spec.substring(dash + 1)));
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (start >= length || start > end) {
+            throw invalidRange();
+        }
+        return new long[]{start, end};
+    }
+
+    private static S3Error invalidRange() {
+        return new S3Error(416, "InvalidRange", "The requested range is not satisfiable");
+    }
+
+    /**
+     * 读取请求体, aws-chunked 编码(STREAMING-AWS4-HMAC-SHA256-PAYLOAD)时去掉分块签名
+     */
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        String sha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (sha256 == null || !sha256.startsWith("STREAMING-")) {
+            return body;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+        int position = 0;
+        while (position < body.length) {
+            int lineEnd = indexOfCrlf(body, position);
+            String header = new String(body, position, lineEnd - position, StandardCharsets.US_ASCII);
+            int semicolon = header.indexOf(';');
+            int size = Integer.parseInt(semicolon < 0 ? header : header.substring(0, semicolon), 16);
+            position = lineEnd + 2;
+            if (size == 0) {
+                break;
+            }
+            out.write(body, position, size);
+            position += size + 2;
+        }
+        return out.toByteArray();
+    }
+
+    private static int indexOfCrlf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length - 1; i++) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+                return i;
+            }
+        }
+        throw new S3Error(400, "IncompleteBody", "You did not provide the number of bytes specified by the Content-Length HTTP header");
+    }
+
+    /**
+     * 读取剩余的请求体, 请求体没有读完时 HttpServer 会在响应后关闭连接
+     */
+    private static void drain(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+    }
+
+    private static Document parseXml(byte[] body) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder().parse(new ByteArrayInputStream(body));
+        } catch (Exception e) {
+            throw new S3Error(400, "MalformedXML", "The XML you provided was not well-formed or did not validate against our published schema.");
+        }
+    }
+
+    private static String childText(Element element, String name) {
+        NodeList nodes = element.getElementsByTagName(name);
+        return nodes.getLength() == 0 ? null : nodes.item(0).getTextContent();
+    }
+
+    private static String contentType(Headers headers) {
+        String contentType = headers.getFirst("Content-Type");
+        return contentType == null ? "binary/octet-stream" : contentType;
+    }
+
+    private static Map<String, String> userMetadata(Headers headers) {
+        Map<String, String> metadata = new TreeMap<>();
+        headers.forEach((name, values) -> {
+            String lower = name.toLowerCase();
+            if (lower.startsWith("x-amz-meta-") && !values.isEmpty()) {
+                metadata.put(lower.substring(11), values.get(0));
+            }
+        });
+        return metadata;
+    }
+
+    private static boolean etagMatches(String condition, String etag) {
+        if (condition == null) {
+            return false;
+        }
+        String value = condition.trim();
+        return "*".equals(value) || unquote(value).equals(etag);
+    }
+
+    private void delay() {
+        long nanos = latencyNanos;
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] bytes = (XML_HEADER + xml).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, S3Error error) throws IOException {
+        drain(exchange);
+        exchange.getResponseHeaders().set("x-amz-request-id", Long.toHexString(System.nanoTime()));
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(error.status, -1);
+            return;
+        }
+        StringBuilder xml = new StringBuilder("<Error>");
+        element(xml, "Code", error.code);
+        element(xml, "Message", error.getMessage());
+        element(xml, "Resource", exchange.getRequestURI().getRawPath());
+        xml.append("</Error>");
+        sendXml(exchange, error.status, xml.toString());
+    }
+
+    private static String accessControlPolicy() {
+        StringBuilder xml = new StringBuilder("<AccessControlPolicy").append(XMLNS).append('>');
+        appendOwner(xml);
+        xml.append("<AccessControlList><Grant><Grantee xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:type=\"CanonicalUser\">");
+        element(xml, "ID", OWNER_ID);
+        element(xml, "DisplayName", OWNER_ID);
+        xml.append("</Grantee><Permission>FULL_CONTROL</Permission></Grant></AccessControlList></AccessControlPolicy>");
+        return xml.toString();
+    }
+
+    private static void appendOwner(StringBuilder xml) {
+        xml.append("<Owner>");
+        element(xml, "ID", OWNER_ID);
+        element(xml, "DisplayName", OWNER_ID);
+        xml.append("</Owner>");
+    }
+
+    private static void element(StringBuilder xml, String name, String value) {
+        xml.append('<').append(name).append('>');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    xml.append("&lt;");
+                    break;
+                case '>':
+                    xml.append("&gt;");
+                    break;
+                case '&':
+                    xml.append("&amp;");
+                    break;
+                case '"':
+                    xml.append("&quot;");
+                    break;
+                default:
+                    xml.append(c);
+            }
+        }
+        xml.append("</").append(name).append('>');
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            query.put(decode(eq < 0 ? pair : pair.substring(0, eq)), eq < 0 ? "" : decode(pair.substring(eq + 1)));
+        }
+        return query;
+    }
+
+    private static String decode(String value) {
+        try {
+            // 路径中的 '+' 是字面量, 不能解码为空格
+            return URLDecoder.decode(value.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            throw new S3Error(400, "InvalidURI", "Couldn't parse the specified URI.");
+        }
+    }
+
+    private static String encodeKey(String value, boolean urlEncoding) {
+        if (!urlEncoding) {
+            return value;
+        }
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new S3Error(400, "InvalidArgument", "Invalid " + name + ": " + value);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static String quote(String etag) {
+        return "\"" + etag + "\"";
+    }
+
+    private static String unquote(String etag) {
+        return etag.startsWith("\"") && etag.endsWith("\"") && etag.length() > 1 ? etag.substring(1, etag.length() - 1) : etag;
+    }
+
+    private static String md5Hex(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    /**
+     * 存储空间(主目录)
+     */
+    private static final class Bucket {
+
+        private final String name;
+
+        private final Instant creationDate = Instant.now();
+
+        private final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+
+        private Bucket(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * 不可变的对象(或分片)
+     */
+    private static final class StoredObject {
+
+        private final byte[] data;
+
+        private final String etag;
+
+        private final String contentType;
+
+        private final Map<String, String> userMetadata;
+
+        private final Instant lastModified = Instant.now();
+
+        private StoredObject(byte[] data, String etag, String contentType, Map<String, String> userMetadata) {
+            this.data = data;
+            this.etag = etag;
+            this.contentType = contentType;
+            this.userMetadata = userMetadata;
+        }
+    }
+
+    /**
+     * 未完成的分片上传
+     */
+    private static final class Upload {
+
+        private final String bucketName;
+
+        private final String key;
+
+        private final String contentType;
+
+        private final Map<String, String> userMetadata;
+
+        private final ConcurrentSkipListMap<Integer, StoredObject> parts = new ConcurrentSkipListMap<>();
+
+        private Upload(String bucketName, String key, String contentType, Map<String, String> userMetadata) {
+            this.bucketName = bucketName;
+            this.key = key;
+            this.contentType = contentType;
+            this.userMetadata = userMetadata;
+        }
+    }
+
+    /**
+     * S3 错误响应
+     */
+    private static final class S3Error extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private final String code;
+
+        private S3Error(int status, String code, String message) {
+            super(message, null, false, false);
+            this.status = status;
+            this.code = code;
+        }
+    }
+}
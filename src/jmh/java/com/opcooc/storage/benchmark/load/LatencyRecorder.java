@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark.load;
+
+import java.util.Arrays;
+
+/**
+ * 记录单个操作的延迟样本, 报告时排序计算百分位(压测时长有限, 直接保存全部样本)
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+
+    private int count;
+
+    private long errors;
+
+    /**
+     * 记录一次成功的操作
+     *
+     * @param nanos 延迟(纳秒)
+     */
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    /**
+     * 记录一次失败的操作
+     */
+    synchronized void recordError() {
+        errors++;
+    }
+
+    /**
+     * 当前记录的快照
+     *
+     * @return 快照
+     */
+    synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted, errors);
+    }
+
+    /**
+     * 排序后的延迟样本
+     */
+    static final class Snapshot {
+
+        private final long[] sorted;
+
+        private final long errors;
+
+        private Snapshot(long[] sorted, long errors) {
+            this.sorted = sorted;
+            this.errors = errors;
+        }
+
+        int getCount() {
+            return sorted.length;
+        }
+
+        long getErrors() {
+            return errors;
+        }
+
+        /**
+         * 百分位延迟(nearest-rank)
+         *
+         * @param percentile 百分位, 取值 (0, 1]
+         * @return 延迟(纳秒), 没有样本时返回0
+         */
+        long percentile(double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+        }
+
+        long max() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark.load;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.opcooc.storage.StorageClient;
+import com.opcooc.storage.args.CreateBucketArgs;
+import com.opcooc.storage.args.DoesBucketExistArgs;
+import com.opcooc.storage.drivers.DefaultS3ClientDriver;
+import com.opcooc.storage.drivers.DynamicRoutingClientDriver;
+import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+
+/**
+ * 端到端压测: 按目标速率通过 StorageClient 发起混合操作, 报告每种操作的吞吐量及 p50/p99/p999 延迟
+ * 1.开环调度: 按固定间隔计算每个操作的计划开始时间, 延迟从计划开始时间算起,
+ * 服务端变慢导致的排队时间也计入延迟(避免协调遗漏 coordinated omission)
+ * 2.未指定 endpoint 时启动内嵌的 S3 兼容服务(EmbeddedS3Server), 不需要网络
+ * 3.参数格式为 key=value, 例如: rate=500 duration=60s mix=get:70,upload:20,delete:10 object-size=64KB
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class LoadGenerator {
+
+    private static final String DRIVER_NAME = "load";
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("endpoint", "");
+        DEFAULTS.put("access-key", "load-test");
+        DEFAULTS.put("secret-key", "load-test");
+        DEFAULTS.put("region", "us-east-1");
+        DEFAULTS.put("bucket", "load");
+        DEFAULTS.put("rate", "200");
+        DEFAULTS.put("duration", "30s");
+        DEFAULTS.put("warmup", "5s");
+        DEFAULTS.put("concurrency", "32");
+        DEFAULTS.put("mix", "upload:15,get:40,range:10,head:15,list:10,delete:10");
+        DEFAULTS.put("object-size", "16KB");
+        DEFAULTS.put("objects", "1000");
+        DEFAULTS.put("server-latency", "0ms");
+        DEFAULTS.put("server-threads", "64");
+    }
+
+    private final Map<String, String> options;
+
+    private final Map<Operation, Integer> mix;
+
+    private final Map<String, Throwable> firstErrors = new ConcurrentHashMap<>();
+
+    public LoadGenerator(Map<String, String> options) {
+        this.options = new LinkedHashMap<>(DEFAULTS);
+        options.forEach((key, value) -> {
+            if (!DEFAULTS.containsKey(key)) {
+                throw new IllegalArgumentException("unknown option [" + key + "], supported options: " + DEFAULTS.keySet());
+            }
+            this.options.put(key, value);
+        });
+        this.mix = parseMix(this.options.get("mix"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("option must be key=value: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new LoadGenerator(options).run();
+    }
+
+    /**
+     * 执行压测并输出报告
+     *
+     * @throws IOException 关闭驱动失败
+     */
+    public void run() throws IOException {
+        String endpoint = options.get("endpoint");
+        EmbeddedS3Server server = null;
+        if (!StringUtils.hasText(endpoint)) {
+            server = new EmbeddedS3Server(0, integer("server-threads")).start();
+            server.setLatency(duration("server-latency"));
+            server.createBucket(options.get("bucket"));
+            endpoint = server.getEndpoint();
+        }
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.refresh();
+        DynamicRoutingClientDriver routing = new DynamicRoutingClientDriver();
+        try {
+            routing.setApplicationContext(context);
+            routing.setPrimary(DRIVER_NAME);
+            routing.addClientDriver(DRIVER_NAME, new DefaultS3ClientDriver(property(endpoint)));
+            StorageClient client = new StorageClient(routing);
+            String bucketName = options.get("bucket");
+            if (!client.doesBucketExist(DoesBucketExistArgs.builder().bucketName(bucketName).build())) {
+                client.createBucket(CreateBucketArgs.builder().bucketName(bucketName).build());
+            }
+
+            Workload workload = new Workload((int) DataSize.parse(options.get("object-size")).toBytes(), integer("objects"));
+            System.out.printf("opcooc-storage load test: endpoint=%s%s%n", endpoint, server != null ? " (embedded)" : "");
+            System.out.printf("options: %s%n", options);
+            workload.prepare(client);
+
+            Duration warmup = duration("warmup");
+            if (!warmup.isZero()) {
+                runPhase(client, workload, warmup);
+            }
+            firstErrors.clear();
+            Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+            for (Operation operation : mix.keySet()) {
+                recorders.put(operation, new LatencyRecorder());
+            }
+            long elapsed = runPhase(client, workload, duration("duration"), recorders);
+            report(recorders, elapsed);
+        } finally {
+            routing.close();
+            context.close();
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private long runPhase(StorageClient client, Workload workload, Duration duration) {
+        Map<Operation, LatencyRecorder> discarded = new EnumMap<>(Operation.class);
+        for (Operation operation : mix.keySet()) {
+            discarded.put(operation, new LatencyRecorder());
+        }
+        return runPhase(client, workload, duration, discarded);
+    }
+
+    /**
+     * 按目标速率发起操作, 等待所有操作结束
+     *
+     * @return 从第一个操作的计划开始时间到最后一个操作结束的时间(纳秒)
+     */
+    private long runPhase(StorageClient client, Workload workload, Duration duration, Map<Operation, LatencyRecorder> recorders) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, integer("rate"));
+        int weightSum = mix.values().stream().mapToInt(Integer::intValue).sum();
+        AtomicInteger index = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(integer("concurrency"), r -> {
+            Thread thread = new Thread(r, "load-generator-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try {
+            for (long i = 0; ; i++) {
+                long intended = start + i * interval;
+                if (intended >= end) {
+                    break;
+                }
+                parkUntil(intended);
+                Operation operation = pick(weightSum);
+                LatencyRecorder recorder = recorders.get(operation);
+                executor.execute(() -> {
+                    try {
+                        operation.execute(client, workload);
+                        recorder.record(System.nanoTime() - intended);
+                    } catch (Exception e) {
+                        recorder.recordError();
+                        firstErrors.putIfAbsent(operation.name(), e);
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+                System.out.println("WARN: operations still running after 5 minutes, results are incomplete");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void report(Map<Operation, LatencyRecorder> recorders, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nmeasured %.1f s, target rate %s ops/s%n", seconds, options.get("rate"));
+        System.out.printf("%-10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "ops/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        long totalCount = 0;
+        long totalErrors = 0;
+        for (Map.Entry<Operation, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder.Snapshot snapshot = entry.getValue().snapshot();
+            printRow(entry.getKey().name().toLowerCase(Locale.ROOT), snapshot, seconds);
+            totalCount += snapshot.getCount();
+            totalErrors += snapshot.getErrors();
+        }
+        System.out.printf("%-10s %10d %8d %10.1f%n", "total", totalCount, totalErrors, totalCount / seconds);
+        firstErrors.forEach((operation, error) -> System.out.printf("first %s error: %s%n", operation.toLowerCase(Locale.ROOT), error));
+    }
+
+    private static void printRow(String name, LatencyRecorder.Snapshot snapshot, double seconds) {
+        System.out.printf("%-10s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                name, snapshot.getCount(), snapshot.getErrors(), snapshot.getCount() / seconds,
+                millis(snapshot.percentile(0.50)), millis(snapshot.percentile(0.99)),
+                millis(snapshot.percentile(0.999)), millis(snapshot.max()));
+    }
+
+    private Operation pick(int weightSum) {
+        int value = ThreadLocalRandom.current().nextInt(weightSum);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    private ClientDriverProperty property(String endpoint) {
+        ClientDriverProperty property = new ClientDriverProperty();
+        property.setDriverName(DRIVER_NAME);
+        property.setEndPoint(endpoint);
+        property.setRegion(options.get("region"));
+        property.setAccessKey(options.get("access-key"));
+        property.setSecretKey(options.get("secret-key"));
+        property.setDefaultBucket(options.get("bucket"));
+        return property;
+    }
+
+    private int integer(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private Duration duration(String name) {
+        return DurationStyle.detectAndParse(options.get(name));
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String item : StringUtils.commaDelimitedListToStringArray(value)) {
+            String[] pair = item.trim().split(":");
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+            if (weight > 0) {
+                mix.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("mix must contain at least one operation");
+        }
+        return mix;
+    }
+
+    private static void parkUntil(long deadline) {
+        for (long remaining = deadline - System.nanoTime(); remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
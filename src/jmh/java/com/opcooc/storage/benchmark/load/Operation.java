@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark.load;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.opcooc.storage.StorageClient;
+import com.opcooc.storage.args.DeleteObjectArgs;
+import com.opcooc.storage.args.GetObjectToStreamArgs;
+import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.UploadObjectArgs;
+
+/**
+ * 压测中的操作, 都通过 StorageClient 调用
+ * 1.upload: 上传新对象到 tmp/ 目录, 对象名称加入待删除队列
+ * 2.get: 下载 data/ 目录下的一个对象
+ * 3.range: 读取 data/ 目录下一个对象的 4KB 区间
+ * 4.head: 获取 data/ 目录下一个对象的元数据
+ * 5.list: 获取 data/ 下一个子目录的一页列表
+ * 6.delete: 删除一个之前上传到 tmp/ 的对象, 队列为空时删除不存在的对象
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+enum Operation {
+
+    UPLOAD {
+        @Override
+        void execute(StorageClient client, Workload workload) {
+            String objectName = workload.nextTemporaryName();
+            byte[] payload = workload.getPayload();
+            client.uploadObject(UploadObjectArgs.builder()
+                    .objectName(objectName)
+                    .objectSize(payload.length)
+                    .stream(new ByteArrayInputStream(payload))
+                    .build());
+            workload.uploaded(objectName);
+        }
+    },
+
+    GET {
+        @Override
+        void execute(StorageClient client, Workload workload) {
+            drain(client.getObjectToStream(GetObjectToStreamArgs.builder().objectName(workload.randomDataName()).build()));
+        }
+    },
+
+    RANGE {
+        @Override
+        void execute(StorageClient client, Workload workload) {
+            int size = workload.getPayload().length;
+            long length = Math.min(RANGE_LENGTH, size);
+            long offset = ThreadLocalRandom.current().nextLong(size - length + 1);
+            drain(client.getObjectToStream(GetObjectToStreamArgs.builder()
+                    .objectName(workload.randomDataName())
+                    .offset(offset)
+                    .length(length)
+                    .build()));
+        }
+    },
+
+    HEAD {
+        @Override
+        void execute(StorageClient client, Workload workload) {
+            client.getObjectMetadata(ObjectMetadataArgs.builder().objectName(workload.randomDataName()).build());
+        }
+    },
+
+    LIST {
+        @Override
+        void execute(StorageClient client, Workload workload) {
+            client.listFolderPage(ListObjectsArgs.builder()
+                    .prefix(workload.randomDataFolder())
+                    .recursive(false)
+                    .maxKeys(100)
+                    .build());
+        }
+    },
+
+    DELETE {
+        @Override
+        void execute(StorageClient client, Workload workload) {
+            String objectName = workload.nextDeletableName();
+            client.deleteObject(DeleteObjectArgs.builder().objectName(objectName).build());
+        }
+    };
+
+    private static final long RANGE_LENGTH = 4096;
+
+    /**
+     * 执行一次操作, 失败时抛出异常
+     *
+     * @param client   客户端
+     * @param workload 压测数据
+     */
+    abstract void execute(StorageClient client, Workload workload);
+
+    private static void drain(InputStream stream) {
+        try (InputStream in = stream) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark.load;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.opcooc.storage.args.GetObjectToFileArgs;
+import com.opcooc.storage.args.GetObjectToPathArgs;
+import com.opcooc.storage.args.GetObjectToStreamArgs;
+import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.UploadObjectArgs;
+import com.opcooc.storage.client.Client;
+import com.opcooc.storage.drivers.DefaultS3ClientDriver;
+import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+
+/**
+ * 读取操作的请求数: 对内嵌的 S3 兼容服务(EmbeddedS3Server)分别以 optimistic-read=false 及 true 执行读取操作,
+ * 按服务端收到的请求数计算每次操作发出的请求数
+ * 参数为每种操作的执行次数(默认100), 例如: ./gradlew readRequestCount -PreadRequestCountArgs=1000
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class ReadRequestCount {
+
+    private static final String BUCKET_NAME = "request-count";
+
+    private static final String OBJECT_NAME = "data/small.txt";
+
+    private static final byte[] PAYLOAD = "hello".getBytes();
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        Path directory = Files.createTempDirectory("opcooc-request-count");
+        try {
+            Map<String, double[]> results = new LinkedHashMap<>();
+            boolean[] modes = {false, true};
+            for (int i = 0; i < modes.length; i++) {
+                int column = i;
+                measure(modes[i], iterations, directory).forEach((operation, requests) ->
+                        results.computeIfAbsent(operation, o -> new double[modes.length])[column] = requests);
+            }
+            System.out.printf("requests per operation (%d operations each, object size %d bytes)%n", iterations, PAYLOAD.length);
+            System.out.printf("%-20s %24s %24s%n", "operation", "optimistic-read=false", "optimistic-read=true");
+            results.forEach((operation, requests) ->
+                    System.out.printf("%-20s %24.2f %24.2f%n", operation, requests[0], requests[1]));
+        } finally {
+            Files.walk(directory).map(Path::toFile).sorted((a, b) -> b.compareTo(a)).forEach(File::delete);
+        }
+    }
+
+    /**
+     * 以指定的读取模式执行每种读取操作
+     *
+     * @return 操作名称及每次操作的请求数
+     */
+    private static Map<String, Double> measure(boolean optimisticRead, int iterations, Path directory) throws IOException {
+        // 下载的目标文件需要已经存在
+        Files.write(directory.resolve("file.txt"), new byte[0]);
+        Files.write(directory.resolve("path.txt"), new byte[0]);
+        Map<String, Consumer<Client>> operations = new LinkedHashMap<>();
+        operations.put("getObjectMetadata", client ->
+                client.getObjectMetadata(ObjectMetadataArgs.builder().bucketName(BUCKET_NAME).objectName(OBJECT_NAME).build()));
+        operations.put("getObjectToStream", client ->
+                drain(client.getObjectToStream(GetObjectToStreamArgs.builder().bucketName(BUCKET_NAME).objectName(OBJECT_NAME).build())));
+        operations.put("geObjectToFile", client ->
+                client.geObjectToFile(GetObjectToFileArgs.builder().bucketName(BUCKET_NAME).objectName(OBJECT_NAME)
+                        .file(directory.resolve("file.txt").toFile()).build()));
+        operations.put("getObjectToPath", client ->
+                client.getObjectToPath(GetObjectToPathArgs.builder().bucketName(BUCKET_NAME).objectName(OBJECT_NAME)
+                        .path(directory.resolve("path.txt").toString()).build()));
+
+        Map<String, Double> requests = new LinkedHashMap<>();
+        try (EmbeddedS3Server server = new EmbeddedS3Server(0, 4).start()) {
+            server.createBucket(BUCKET_NAME);
+            DefaultS3ClientDriver driver = new DefaultS3ClientDriver(property(server.getEndpoint(), optimisticRead));
+            try {
+                Client client = driver.connect();
+                client.uploadObject(UploadObjectArgs.builder().bucketName(BUCKET_NAME).objectName(OBJECT_NAME)
+                        .objectSize(PAYLOAD.length).stream(new ByteArrayInputStream(PAYLOAD)).build());
+                for (Map.Entry<String, Consumer<Client>> entry : operations.entrySet()) {
+                    // 预热一次, 建立连接
+                    entry.getValue().accept(client);
+                    long before = server.getRequestCount();
+                    for (int i = 0; i < iterations; i++) {
+                        entry.getValue().accept(client);
+                    }
+                    requests.put(entry.getKey(), (server.getRequestCount() - before) / (double) iterations);
+                }
+            } finally {
+                driver.close();
+            }
+        }
+        return requests;
+    }
+
+    private static ClientDriverProperty property(String endpoint, boolean optimisticRead) {
+        ClientDriverProperty property = new ClientDriverProperty();
+        property.setDriverName("request-count");
+        property.setEndPoint(endpoint);
+        property.setRegion("us-east-1");
+        property.setAccessKey("request-count");
+        property.setSecretKey("request-count");
+        property.setOptimisticRead(optimisticRead);
+        return property;
+    }
+
+    private static void drain(InputStream stream) {
+        try (InputStream in = stream) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
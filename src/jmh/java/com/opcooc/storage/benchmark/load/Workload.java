@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.benchmark.load;
+
+import java.io.ByteArrayInputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.opcooc.storage.StorageClient;
+import com.opcooc.storage.args.UploadObjectArgs;
+
+/**
+ * 压测数据
+ * 1.data/ 目录下预先上传的对象供读取操作使用, 压测期间不会被修改
+ * 2.tmp/ 目录下的对象由上传操作创建, 由删除操作删除
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+final class Workload {
+
+    private static final int OBJECTS_PER_FOLDER = 100;
+
+    private final byte[] payload;
+
+    private final int dataObjects;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Queue<String> deletable = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param objectSize  对象大小
+     * @param dataObjects data/ 目录下的对象数量
+     */
+    Workload(int objectSize, int dataObjects) {
+        this.payload = new byte[objectSize];
+        ThreadLocalRandom.current().nextBytes(payload);
+        this.dataObjects = Math.max(1, dataObjects);
+    }
+
+    /**
+     * 预先上传 data/ 目录下的对象
+     *
+     * @param client 客户端
+     */
+    void prepare(StorageClient client) {
+        for (int i = 0; i < dataObjects; i++) {
+            client.uploadObject(UploadObjectArgs.builder()
+                    .objectName(dataName(i))
+                    .objectSize(payload.length)
+                    .stream(new ByteArrayInputStream(payload))
+                    .build());
+        }
+    }
+
+    byte[] getPayload() {
+        return payload;
+    }
+
+    String randomDataName() {
+        return dataName(ThreadLocalRandom.current().nextInt(dataObjects));
+    }
+
+    String randomDataFolder() {
+        return folder(ThreadLocalRandom.current().nextInt(dataObjects));
+    }
+
+    String nextTemporaryName() {
+        return "tmp/" + sequence.incrementAndGet() + ".bin";
+    }
+
+    void uploaded(String objectName) {
+        deletable.offer(objectName);
+    }
+
+    String nextDeletableName() {
+        String objectName = deletable.poll();
+        return objectName != null ? objectName : "tmp/missing-" + sequence.incrementAndGet() + ".bin";
+    }
+
+    private static String dataName(int index) {
+        return folder(index) + index + ".bin";
+    }
+
+    private static String folder(int index) {
+        return "data/" + index / OBJECTS_PER_FOLDER + "/";
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationListener;
+import org.springframework.util.StringUtils;
+
+import com.amazonaws.services.s3.model.AccessControlList;
+import com.amazonaws.services.s3.model.BucketPolicy;
+import com.opcooc.storage.args.CopyObjectArgs;
+import com.opcooc.storage.args.CopyPrefixArgs;
+import com.opcooc.storage.args.CreateBucketArgs;
+import com.opcooc.storage.args.DeleteBucketArgs;
+import com.opcooc.storage.args.DeleteBucketPolicyArgs;
+import com.opcooc.storage.args.DeleteObjectArgs;
+import com.opcooc.storage.args.DeleteObjectsArgs;
+import com.opcooc.storage.args.DeletePrefixArgs;
+import com.opcooc.storage.args.DoesBucketExistArgs;
+import com.opcooc.storage.args.DoesObjectExistArgs;
+import com.opcooc.storage.args.GetBucketAclArgs;
+import com.opcooc.storage.args.GetBucketPolicyArgs;
+import com.opcooc.storage.args.GetObjectAclArgs;
+import com.opcooc.storage.args.GetObjectToFileArgs;
+import com.opcooc.storage.args.GetObjectToPathArgs;
+import com.opcooc.storage.args.GetObjectToStreamArgs;
+import com.opcooc.storage.args.GetPresignedObjectUrlArgs;
+import com.opcooc.storage.args.GetUrlArgs;
+import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.OpenChannelArgs;
+import com.opcooc.storage.args.ReadVectoredArgs;
+import com.opcooc.storage.args.SetBucketAclArgs;
+import com.opcooc.storage.args.SetBucketPolicyArgs;
+import com.opcooc.storage.args.SetFolderArgs;
+import com.opcooc.storage.args.SetObjectAclArgs;
+import com.opcooc.storage.args.TransferArgs;
+import com.opcooc.storage.args.UploadFileArgs;
+import com.opcooc.storage.args.UploadObjectArgs;
+import com.opcooc.storage.args.UploadUrlArgs;
+import com.opcooc.storage.args.UploadUrlsArgs;
+import com.opcooc.storage.event.ClientDriverEvent;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.holder.DynamicClientContextHolder;
+import com.opcooc.storage.model.CopyPrefixResult;
+import com.opcooc.storage.model.DeleteResult;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.model.FolderListing;
+import com.opcooc.storage.model.UploadUrlsResult;
+import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+import com.opcooc.storage.toolkit.StorageConstant;
+import com.opcooc.storage.toolkit.StorageUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 异步存储客户端对外调用类, 方法与 StorageClient 一一对应, 返回 CompletableFuture
+ * 1.调用时确定当前线程的客户端驱动(DynamicClientContextHolder), 在执行线程中切换到该驱动后调用 StorageClient
+ * 2.每个客户端驱动使用独立的有界线程池(asyncConcurrency), 一个驱动变慢不会占满其他驱动的线程
+ * 3.取消未开始的任务时任务不再执行; 取消执行中的任务时中断执行线程, SDK 在发送请求前及读写请求体时检查中断并中止 HTTP 请求
+ * 4.返回流式结果(Stream, 输出流)的方法没有异步版本, 请使用 StorageClient
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class AsyncStorageClient implements DisposableBean, ApplicationListener<ClientDriverEvent> {
+
+    private final Supplier<StorageClient> storageClientSupplier;
+
+    private volatile StorageClient storageClient;
+
+    /**
+     * 客户端驱动名称 -> 线程池
+     */
+    private final Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    public AsyncStorageClient(StorageClient storageClient) {
+        this(() -> storageClient);
+    }
+
+    /**
+     * 存储客户端在第一次调用时获取
+     * 自动配置时本类作为事件监听器, 可能在客户端驱动初始化并发布事件时创建, 此时不能依赖正在创建的 StorageClient
+     *
+     * @param storageClient 获取存储客户端
+     */
+    public AsyncStorageClient(Supplier<StorageClient> storageClient) {
+        this.storageClientSupplier = storageClient;
+    }
+
+    public CompletableFuture<Void> createFolder(SetFolderArgs args) {
+        return run(c -> c.createFolder(args));
+    }
+
+    public CompletableFuture<Void> setBucketAcl(SetBucketAclArgs args) {
+        return run(c -> c.setBucketAcl(args));
+    }
+
+    public CompletableFuture<AccessControlList> getBucketAcl(GetBucketAclArgs args) {
+        return submit(c -> c.getBucketAcl(args));
+    }
+
+    public CompletableFuture<Void> setBucketPolicy(SetBucketPolicyArgs args) {
+        return run(c -> c.setBucketPolicy(args));
+    }
+
+    public CompletableFuture<BucketPolicy> getBucketPolicy(GetBucketPolicyArgs args) {
+        return submit(c -> c.getBucketPolicy(args));
+    }
+
+    public CompletableFuture<Void> deleteBucketPolicy(DeleteBucketPolicyArgs args) {
+        return run(c -> c.deleteBucketPolicy(args));
+    }
+
+    public CompletableFuture<String> createBucket(CreateBucketArgs args) {
+        return submit(c -> c.createBucket(args));
+    }
+
+    public CompletableFuture<Void> deleteBucket(DeleteBucketArgs args) {
+        return run(c -> c.deleteBucket(args));
+    }
+
+    public CompletableFuture<List<String>> listBuckets() {
+        return submit(StorageClient::listBuckets);
+    }
+
+    public CompletableFuture<Boolean> doesBucketExist(DoesBucketExistArgs args) {
+        return submit(c -> c.doesBucketExist(args));
+    }
+
+    public CompletableFuture<Void> setObjectAcl(SetObjectAclArgs args) {
+        return run(c -> c.setObjectAcl(args));
+    }
+
+    public CompletableFuture<AccessControlList> getObjectAcl(GetObjectAclArgs args) {
+        return submit(c -> c.getObjectAcl(args));
+    }
+
+    public CompletableFuture<FileBasicInfo> uploadObject(UploadObjectArgs args) {
+        return submit(c -> c.uploadObject(args));
+    }
+
+    public CompletableFuture<FileBasicInfo> uploadFile(UploadFileArgs args) {
+        return submit(c -> c.uploadFile(args));
+    }
+
+    public CompletableFuture<FileBasicInfo> uploadUrl(UploadUrlArgs args) {
+        return submit(c -> c.uploadUrl(args));
+    }
+
+    public CompletableFuture<UploadUrlsResult> uploadUrls(UploadUrlsArgs args) {
+        return submit(c -> c.uploadUrls(args));
+    }
+
+    public CompletableFuture<Void> copyObject(CopyObjectArgs args) {
+        return run(c -> c.copyObject(args));
+    }
+
+    public CompletableFuture<CopyPrefixResult> copyPrefix(CopyPrefixArgs args) {
+        return submit(c -> c.copyPrefix(args));
+    }
+
+    public CompletableFuture<CopyPrefixResult> movePrefix(CopyPrefixArgs args) {
+        return submit(c -> c.movePrefix(args));
+    }
+
+    public CompletableFuture<CopyPrefixResult> transfer(TransferArgs args) {
+        return submit(c -> c.transfer(args));
+    }
+
+    public CompletableFuture<List<FileBasicInfo>> listObjects(ListObjectsArgs args) {
+        return submit(c -> c.listObjects(args));
+    }
+
+    public CompletableFuture<FolderListing> listFolder(ListObjectsArgs args) {
+        return submit(c -> c.listFolder(args));
+    }
+
+    public CompletableFuture<FolderListing> listFolderPage(ListObjectsArgs args) {
+        return submit(c -> c.listFolderPage(args));
+    }
+
+    public CompletableFuture<FileBasicInfo> getObjectMetadata(ObjectMetadataArgs args) {
+        return submit(c -> c.getObjectMetadata(args));
+    }
+
+    public CompletableFuture<Boolean> objectExist(DoesObjectExistArgs args) {
+        return submit(c -> c.objectExist(args));
+    }
+
+    public CompletableFuture<InputStream> getObjectToStream(GetObjectToStreamArgs args) {
+        return submit(c -> c.getObjectToStream(args));
+    }
+
+    public CompletableFuture<File> geObjectToFile(GetObjectToFileArgs args) {
+        return submit(c -> c.geObjectToFile(args));
+    }
+
+    public CompletableFuture<Path> getObjectToPath(GetObjectToPathArgs args) {
+        return submit(c -> c.getObjectToPath(args));
+    }
+
+    public CompletableFuture<SeekableByteChannel> openChannel(OpenChannelArgs args) {
+        return submit(c -> c.openChannel(args));
+    }
+
+    public CompletableFuture<List<ByteBuffer>> readVectored(ReadVectoredArgs args) {
+        return submit(c -> c.readVectored(args));
+    }
+
+    public CompletableFuture<Void> deleteObject(DeleteObjectArgs args) {
+        return run(c -> c.deleteObject(args));
+    }
+
+    public CompletableFuture<DeleteResult> deleteObjects(DeleteObjectsArgs args) {
+        return submit(c -> c.deleteObjects(args));
+    }
+
+    public CompletableFuture<DeleteResult> deletePrefix(DeletePrefixArgs args) {
+        return submit(c -> c.deletePrefix(args));
+    }
+
+    public CompletableFuture<String> generatePresignedUrl(GetPresignedObjectUrlArgs args) {
+        return submit(c -> c.generatePresignedUrl(args));
+    }
+
+    public CompletableFuture<String> getUrl(GetUrlArgs args) {
+        return submit(c -> c.getUrl(args));
+    }
+
+    private CompletableFuture<Void> run(Consumer<StorageClient> operation) {
+        return submit(c -> {
+            operation.accept(c);
+            return null;
+        });
+    }
+
+    /**
+     * 在调用线程中确定客户端驱动, 提交到该驱动的线程池执行
+     *
+     * @param operation 操作
+     * @param <T>       结果类型
+     * @return 异步结果
+     */
+    private <T> CompletableFuture<T> submit(Function<StorageClient, T> operation) {
+        String driverName = DynamicClientContextHolder.peek();
+        AsyncTask<T> task = new AsyncTask<>(driverName, operation);
+        try {
+            executor(driverName).execute(task);
+        } catch (RuntimeException e) {
+            task.completeExceptionally(e);
+        }
+        return task;
+    }
+
+    private ExecutorService executor(String driverName) {
+        if (closed) {
+            throw new StorageException("opcooc-storage - async storage client is closed");
+        }
+        ClientDriverProperty config = withDriver(driverName, storageClient().getClientDriver()::getConfiguration);
+        String name = StringUtils.hasText(config.getDriverName()) ? config.getDriverName() : "";
+        ExecutorService executor = executors.computeIfAbsent(name, n -> StorageUtil.createExecutor(
+                "opcooc-storage-async-" + (n.isEmpty() ? "s3" : n) + "-", config.getAsyncConcurrency()));
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("opcooc-storage - async executor of client driver [" + name + "] is shutdown");
+        }
+        return executor;
+    }
+
+    private StorageClient storageClient() {
+        StorageClient client = storageClient;
+        if (client == null) {
+            client = storageClientSupplier.get();
+            storageClient = client;
+        }
+        return client;
+    }
+
+    /**
+     * 切换到指定的客户端驱动后执行
+     *
+     * @param driverName 客户端驱动名称, 为null时不切换
+     * @param operation  操作
+     * @param <T>        结果类型
+     * @return 结果
+     */
+    static <T> T withDriver(String driverName, Supplier<T> operation) {
+        if (driverName == null) {
+            return operation.get();
+        }
+        DynamicClientContextHolder.push(driverName);
+        try {
+            return operation.get();
+        } finally {
+            DynamicClientContextHolder.poll();
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ClientDriverEvent event) {
+        if (StorageConstant.EVENT_DELETE.equals(event.getType())) {
+            ExecutorService executor = executors.remove(event.getDriverName());
+            if (executor != null) {
+                log.debug("opcooc-storage - shutdown async executor of client driver [{}]", event.getDriverName());
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        closed = true;
+        executors.values().forEach(ExecutorService::shutdownNow);
+        executors.clear();
+    }
+
+    /**
+     * 可以中断执行线程的异步任务
+     */
+    private final class AsyncTask<T> extends CompletableFuture<T> implements Runnable {
+
+        private final String driverName;
+
+        private final Function<StorageClient, T> operation;
+
+        private final Object lock = new Object();
+
+        private Thread runner;
+
+        private AsyncTask(String driverName, Function<StorageClient, T> operation) {
+            this.driverName = driverName;
+            this.operation = operation;
+        }
+
+        @Override
+        public void run() {
+            synchronized (lock) {
+                if (isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                T result = withDriver(driverName, () -> operation.apply(storageClient()));
+                if (!complete(result)) {
+                    // 任务已经取消, 释放结果占用的连接
+                    closeQuietly(result);
+                }
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            } finally {
+                synchronized (lock) {
+                    runner = null;
+                    // 清除取消时的中断状态, 避免影响线程池中的下一个任务
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                synchronized (lock) {
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
+
+    private static void closeQuietly(Object result) {
+        if (result instanceof Closeable) {
+            try {
+                ((Closeable) result).close();
+            } catch (IOException e) {
+                log.debug("opcooc-storage - close result of cancelled task failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import com.opcooc.storage.args.DeleteObjectArgs;
+import com.opcooc.storage.args.GetObjectToStreamArgs;
+import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.OpenOutputStreamArgs;
+import com.opcooc.storage.holder.DynamicClientContextHolder;
+import com.opcooc.storage.io.MultipartOutputStream;
+import com.opcooc.storage.io.SpoolFileOutputStream;
+import com.opcooc.storage.model.FileBasicInfo;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 响应式(Reactor)存储客户端, 需要引入 reactor-core
+ * 1.调用时确定当前线程的客户端驱动(DynamicClientContextHolder), 订阅后在调度器线程中切换到该驱动后调用 StorageClient
+ * 2.上传: 每次只请求一个 DataBuffer, 写入分片输出流后才请求下一个, 分片缓冲区写满时交给后台上传, 上传跟不上时停止请求(背压)
+ * 3.下载: 按下游请求读取对象内容, 没有请求时不再读取, 取消时关闭输入流并中止 HTTP 请求
+ * 4.列表: 按下游请求分页获取
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class ReactiveStorageClient {
+
+    /**
+     * 下载时每个 DataBuffer 的默认大小
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final StorageClient storageClient;
+
+    private final DataBufferFactory bufferFactory;
+
+    private final Scheduler scheduler;
+
+    private final int bufferSize;
+
+    public ReactiveStorageClient(StorageClient storageClient) {
+        this(storageClient, new DefaultDataBufferFactory(), Schedulers.boundedElastic(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param storageClient 存储客户端
+     * @param bufferFactory 下载时创建 DataBuffer 的工厂
+     * @param scheduler     执行阻塞调用的调度器
+     * @param bufferSize    下载时每个 DataBuffer 的大小
+     */
+    public ReactiveStorageClient(StorageClient storageClient, DataBufferFactory bufferFactory, Scheduler scheduler, int bufferSize) {
+        this.storageClient = storageClient;
+        this.bufferFactory = bufferFactory;
+        this.scheduler = scheduler;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * 上传对象内容(无需预先知道对象大小), 内容结束后完成上传, 出错或取消时取消上传
+     * 写入后的 DataBuffer 会被释放
+     *
+     * @param args    参数
+     * @param content 对象内容
+     * @return 文件上传后的信息
+     */
+    public Mono<FileBasicInfo> uploadObject(OpenOutputStreamArgs args, Publisher<DataBuffer> content) {
+        String driverName = DynamicClientContextHolder.peek();
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> AsyncStorageClient.withDriver(driverName, () -> storageClient.openOutputStream(args)))
+                        .subscribeOn(scheduler),
+                out -> Flux.from(content)
+                        // 每次只请求一个 DataBuffer, 写入完成后才请求下一个
+                        .publishOn(scheduler, 1)
+                        .doOnNext(buffer -> write(out, buffer))
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                        .then(Mono.fromCallable(() -> {
+                            out.close();
+                            return uploadResult(out, args, driverName);
+                        }).subscribeOn(scheduler)),
+                out -> Mono.empty(),
+                (out, e) -> Mono.fromRunnable(() -> abortQuietly(out)).subscribeOn(scheduler),
+                out -> Mono.fromRunnable(() -> abortQuietly(out)).subscribeOn(scheduler));
+    }
+
+    /**
+     * 下载对象内容, 按下游请求读取
+     *
+     * @param args 参数
+     * @return 对象内容
+     */
+    public Flux<DataBuffer> getObject(GetObjectToStreamArgs args) {
+        String driverName = DynamicClientContextHolder.peek();
+        return DataBufferUtils.readInputStream(
+                () -> AsyncStorageClient.withDriver(driverName, () -> storageClient.getObjectToStream(args)), bufferFactory, bufferSize)
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * 获取文件元数据
+     *
+     * @param args 参数
+     * @return 文件信息
+     */
+    public Mono<FileBasicInfo> getObjectMetadata(ObjectMetadataArgs args) {
+        String driverName = DynamicClientContextHolder.peek();
+        return Mono.fromCallable(() -> AsyncStorageClient.withDriver(driverName, () -> storageClient.getObjectMetadata(args)))
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * 删除文件
+     *
+     * @param args 参数
+     * @return 删除完成
+     */
+    public Mono<Void> deleteObject(DeleteObjectArgs args) {
+        String driverName = DynamicClientContextHolder.peek();
+        return Mono.<Void>fromRunnable(() -> AsyncStorageClient.withDriver(driverName, () -> {
+            storageClient.deleteObject(args);
+            return null;
+        })).subscribeOn(scheduler);
+    }
+
+    /**
+     * 获取指定前缀下的所有文件, 按下游请求分页获取
+     *
+     * @param args 参数
+     * @return 文件信息
+     */
+    public Flux<FileBasicInfo> listObjects(ListObjectsArgs args) {
+        String driverName = DynamicClientContextHolder.peek();
+        return Flux.fromStream(() -> AsyncStorageClient.withDriver(driverName, () -> storageClient.listObjectsStream(args)))
+                .subscribeOn(scheduler);
+    }
+
+    private static void write(OutputStream out, DataBuffer buffer) {
+        try {
+            ByteBuffer byteBuffer = buffer.asByteBuffer();
+            if (byteBuffer.hasArray()) {
+                out.write(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+            } else {
+                byte[] bytes = new byte[byteBuffer.remaining()];
+                byteBuffer.get(bytes);
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * 使用输出流关闭后的上传结果(ETag及大小), 避免再次读取对象元数据
+     * 其他输出流(例如内存驱动)没有上传结果, 读取对象元数据
+     */
+    private FileBasicInfo uploadResult(OutputStream out, OpenOutputStreamArgs args, String driverName) {
+        FileBasicInfo result = null;
+        if (out instanceof MultipartOutputStream) {
+            result = ((MultipartOutputStream) out).getResult();
+        } else if (out instanceof SpoolFileOutputStream) {
+            result = ((SpoolFileOutputStream) out).getResult();
+        }
+        if (result != null) {
+            return result;
+        }
+        return AsyncStorageClient.withDriver(driverName, () -> storageClient.getObjectMetadata(ObjectMetadataArgs.builder()
+                .bucketName(args.getBucketName())
+                .objectName(args.getObjectName())
+                .build()));
+    }
+
+    private static void abortQuietly(OutputStream out) {
+        if (out instanceof MultipartOutputStream) {
+            ((MultipartOutputStream) out).abort();
+        } else if (out instanceof SpoolFileOutputStream) {
+            ((SpoolFileOutputStream) out).abort();
+        } else {
+            log.debug("opcooc-storage - output stream [{}] does not support abort", out.getClass().getName());
+        }
+    }
+}
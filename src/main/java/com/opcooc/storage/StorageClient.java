@@ -17,7 +17,16 @@ package com.opcooc.storage;
 
 import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.StringUtils;
@@ -27,39 +36,58 @@ import com.amazonaws.services.s3.model.BucketPolicy;
 import com.opcooc.storage.args.BaseArgs;
 import com.opcooc.storage.args.BucketArgs;
 import com.opcooc.storage.args.CopyObjectArgs;
+import com.opcooc.storage.args.CopyPrefixArgs;
 import com.opcooc.storage.args.CreateBucketArgs;
 import com.opcooc.storage.args.DeleteBucketArgs;
 import com.opcooc.storage.args.DeleteBucketPolicyArgs;
 import com.opcooc.storage.args.DeleteObjectArgs;
 import com.opcooc.storage.args.DeleteObjectsArgs;
+import com.opcooc.storage.args.DeletePrefixArgs;
 import com.opcooc.storage.args.DoesBucketExistArgs;
 import com.opcooc.storage.args.DoesObjectExistArgs;
 import com.opcooc.storage.args.GetBucketAclArgs;
 import com.opcooc.storage.args.GetBucketPolicyArgs;
 import com.opcooc.storage.args.GetObjectAclArgs;
 import com.opcooc.storage.args.GetObjectToFileArgs;
+import com.opcooc.storage.args.GetObjectToPathArgs;
 import com.opcooc.storage.args.GetObjectToStreamArgs;
 import com.opcooc.storage.args.GetPresignedObjectUrlArgs;
 import com.opcooc.storage.args.GetUrlArgs;
 import com.opcooc.storage.args.ListObjectsArgs;
 import com.opcooc.storage.args.ObjectArgs;
 import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.OpenChannelArgs;
+import com.opcooc.storage.args.OpenOutputStreamArgs;
+import com.opcooc.storage.args.ParallelListObjectsArgs;
+import com.opcooc.storage.args.ReadVectoredArgs;
 import com.opcooc.storage.args.SetBucketAclArgs;
 import com.opcooc.storage.args.SetBucketPolicyArgs;
 import com.opcooc.storage.args.SetFolderArgs;
 import com.opcooc.storage.args.SetObjectAclArgs;
+import com.opcooc.storage.args.TransferArgs;
 import com.opcooc.storage.args.UploadFileArgs;
 import com.opcooc.storage.args.UploadObjectArgs;
 import com.opcooc.storage.args.UploadUrlArgs;
+import com.opcooc.storage.args.UploadUrlsArgs;
 import com.opcooc.storage.client.Client;
 import com.opcooc.storage.drivers.ClientDriver;
 import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.holder.DynamicClientContextHolder;
+import com.opcooc.storage.io.CountingInputStream;
+import com.opcooc.storage.metrics.StorageMetrics;
+import com.opcooc.storage.model.CopyPrefixResult;
+import com.opcooc.storage.model.DeleteResult;
 import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.model.FolderListing;
+import com.opcooc.storage.model.UploadUrlsResult;
 import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
 import com.opcooc.storage.support.BucketConverter;
+import com.opcooc.storage.support.BucketExistenceCache;
 import com.opcooc.storage.support.ObjectConverter;
 import com.opcooc.storage.toolkit.StorageChecker;
+import com.opcooc.storage.transfer.CrossDriverTransfer;
 
+import lombok.AllArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -68,6 +96,8 @@ import lombok.extern.slf4j.Slf4j;
  * 1.clientDriver 当前driver
  * 2.bucketConverter bucketName 自定义转换器
  * 2.objectConverter objectName 自定义转换器
+ * 3.bucketCaches 每个客户端驱动的 bucket 是否存在缓存
+ * 4.metrics 操作指标记录(耗时, 结果, 传输字节数), 默认不记录
  *
  * @author shenqicheng
  * @since 1.2.0
@@ -75,18 +105,31 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class StorageClient implements InitializingBean, Client {
 
+    private static final String UNKNOWN_DRIVER = "unknown";
+
     private final ClientDriver clientDriver;
 
+    /**
+     * bucket 是否存在缓存(按客户端驱动配置区分, 驱动移除后随配置一起回收)
+     */
+    private final Map<ClientDriverProperty, BucketExistenceCache> bucketCaches = Collections.synchronizedMap(new WeakHashMap<>());
+
     @Setter
     private BucketConverter bucketConverter = (config, bucket) -> StringUtils.isEmpty(bucket.getBucketName()) && config != null
             ? config.getDefaultBucket() : bucket.getBucketName();
     @Setter
     private ObjectConverter objectConverter = (config, object) -> object.getObjectName();
+    @Setter
+    private StorageMetrics metrics = StorageMetrics.NOOP;
 
     public StorageClient(ClientDriver clientDriver) {
         this.clientDriver = clientDriver;
     }
 
+    ClientDriver getClientDriver() {
+        return clientDriver;
+    }
+
     private Client getConnect() {
         return clientDriver.connect();
     }
@@ -95,6 +138,10 @@ public class StorageClient implements InitializingBean, Client {
         return clientDriver.getConfiguration();
     }
 
+    private BucketExistenceCache getBucketCache(ClientDriverProperty config) {
+        return bucketCaches.computeIfAbsent(config, c -> new BucketExistenceCache(c.getBucketCacheTtl(), c.getBucketCacheNegativeTtl()));
+    }
+
     /**
      * 确定 bucket
      *
@@ -113,15 +160,23 @@ public class StorageClient implements InitializingBean, Client {
             throw new StorageException("opcooc-storage - bucketName cannot be empty");
         }
 
-        boolean doesExist = doesBucketExist(DoesBucketExistArgs.builder().bucketName(bucketName).build());
-
-        if (!config.getAutoCreateBucket() && !doesExist) {
+        // 并发请求同一个不存在的 bucket 时只会有一个线程执行判断及创建
+        boolean doesExist = getBucketCache(config).get(bucketName, () -> {
+            Client connect = getConnect();
+            boolean exist = connect.doesBucketExist(DoesBucketExistArgs.builder().bucketName(bucketName).build());
+            //create bucket
+            if (!exist && config.getAutoCreateBucket()) {
+                CreateBucketArgs createArgs = CreateBucketArgs.builder().bucketName(bucketName).build();
+                createArgs.validate();
+                connect.createBucket(createArgs);
+                exist = true;
+            }
+            return exist;
+        });
+
+        if (!doesExist) {
             throw new StorageException("opcooc-storage - there is no bucket named [%s] ", bucketName);
         }
-        //create bucket
-        if (config.getAutoCreateBucket() && !doesExist) {
-            createBucket(CreateBucketArgs.builder().bucketName(bucketName).build());
-        }
 
         return StorageChecker.equals(args.getBucketName(), bucketName) ? args : args.toBuilder().bucketName(bucketName).build();
     }
@@ -162,142 +217,328 @@ public class StorageClient implements InitializingBean, Client {
 
     @Override
     public void createFolder(SetFolderArgs args) {
-        getConnect().createFolder(determineInfoAndValidate(args));
+        observeRun("createFolder", () -> getConnect().createFolder(determineInfoAndValidate(args)));
     }
 
     @Override
     public void setBucketAcl(SetBucketAclArgs args) {
         args.validate();
-        getConnect().setBucketAcl(args);
+        observeRun("setBucketAcl", () -> getConnect().setBucketAcl(args));
     }
 
     @Override
     public AccessControlList getBucketAcl(GetBucketAclArgs args) {
         args.validate();
-        return getConnect().getBucketAcl(args);
+        return observe("getBucketAcl", () -> getConnect().getBucketAcl(args));
     }
 
     @Override
     public void setBucketPolicy(SetBucketPolicyArgs args) {
         args.validate();
-        getConnect().setBucketPolicy(args);
+        observeRun("setBucketPolicy", () -> getConnect().setBucketPolicy(args));
     }
 
     @Override
     public BucketPolicy getBucketPolicy(GetBucketPolicyArgs args) {
         args.validate();
-        return getConnect().getBucketPolicy(args);
+        return observe("getBucketPolicy", () -> getConnect().getBucketPolicy(args));
     }
 
     @Override
     public void deleteBucketPolicy(DeleteBucketPolicyArgs args) {
         args.validate();
-        getConnect().deleteBucketPolicy(args);
+        observeRun("deleteBucketPolicy", () -> getConnect().deleteBucketPolicy(args));
     }
 
     @Override
     public String createBucket(CreateBucketArgs args) {
         args.validate();
-        return getConnect().createBucket(args);
+        String bucketName = observe("createBucket", () -> getConnect().createBucket(args));
+        getBucketCache(getConfiguration()).put(args.getBucketName(), true);
+        return bucketName;
     }
 
     @Override
     public void deleteBucket(DeleteBucketArgs args) {
         args.validate();
-        getConnect().deleteBucket(args);
+        BucketExistenceCache cache = getBucketCache(getConfiguration());
+        try {
+            observeRun("deleteBucket", () -> getConnect().deleteBucket(args));
+        } finally {
+            cache.invalidate(args.getBucketName());
+        }
     }
 
     @Override
     public List<String> listBuckets() {
-        return getConnect().listBuckets();
+        return observe("listBuckets", () -> getConnect().listBuckets());
     }
 
     @Override
     public boolean doesBucketExist(DoesBucketExistArgs args) {
         args.validate();
-        return getConnect().doesBucketExist(args);
+        boolean exist = observe("doesBucketExist", () -> getConnect().doesBucketExist(args));
+        getBucketCache(getConfiguration()).put(args.getBucketName(), exist);
+        return exist;
     }
 
     @Override
     public void setObjectAcl(SetObjectAclArgs args) {
         args.validate();
-        getConnect().setObjectAcl(args);
+        observeRun("setObjectAcl", () -> getConnect().setObjectAcl(args));
     }
 
     @Override
     public AccessControlList getObjectAcl(GetObjectAclArgs args) {
         args.validate();
-        return getConnect().getObjectAcl(args);
+        return observe("getObjectAcl", () -> getConnect().getObjectAcl(args));
     }
 
     @Override
     public FileBasicInfo uploadObject(UploadObjectArgs args) {
-        return getConnect().uploadObject(determineInfoAndValidate(args));
+        FileBasicInfo info = observe("uploadObject", () -> getConnect().uploadObject(determineInfoAndValidate(args)));
+        recordBytes("uploadObject", args.getObjectSize() > 0 ? args.getObjectSize() : info.getContentLength());
+        return info;
     }
 
     @Override
     public FileBasicInfo uploadFile(UploadFileArgs args) {
-        return getConnect().uploadFile(determineInfoAndValidate(args));
+        FileBasicInfo info = observe("uploadFile", () -> getConnect().uploadFile(determineInfoAndValidate(args)));
+        recordBytes("uploadFile", args.getFile().length());
+        return info;
     }
 
     @Override
     public FileBasicInfo uploadUrl(UploadUrlArgs args) {
-        return getConnect().uploadUrl(determineInfoAndValidate(args));
+        FileBasicInfo info = observe("uploadUrl", () -> getConnect().uploadUrl(determineInfoAndValidate(args)));
+        recordBytes("uploadUrl", info.getContentLength());
+        return info;
+    }
+
+    @Override
+    public UploadUrlsResult uploadUrls(UploadUrlsArgs args) {
+        return observe("uploadUrls", () -> getConnect().uploadUrls(determineInfoAndValidate(args)));
+    }
+
+    @Override
+    public OutputStream openOutputStream(OpenOutputStreamArgs args) {
+        return observe("openOutputStream", () -> getConnect().openOutputStream(determineInfoAndValidate(args)));
     }
 
     @Override
     public void copyObject(CopyObjectArgs args) {
-        getConnect().copyObject(determineInfoAndValidate(args));
+        observeRun("copyObject", () -> getConnect().copyObject(determineInfoAndValidate(args)));
+    }
+
+    @Override
+    public CopyPrefixResult copyPrefix(CopyPrefixArgs args) {
+        return observe("copyPrefix", () -> getConnect().copyPrefix(determineInfoAndValidate(args)));
+    }
+
+    @Override
+    public CopyPrefixResult movePrefix(CopyPrefixArgs args) {
+        return observe("movePrefix", () -> getConnect().movePrefix(determineInfoAndValidate(args)));
     }
 
     @Override
     public List<FileBasicInfo> listObjects(ListObjectsArgs args) {
-        return getConnect().listObjects(determineInfoAndValidate(args));
+        return observe("listObjects", () -> getConnect().listObjects(determineInfoAndValidate(args)));
+    }
+
+    @Override
+    public Stream<FileBasicInfo> listObjectsStream(ListObjectsArgs args) {
+        return observe("listObjectsStream", () -> getConnect().listObjectsStream(determineInfoAndValidate(args)));
+    }
+
+    @Override
+    public FolderListing listFolder(ListObjectsArgs args) {
+        return observe("listFolder", () -> getConnect().listFolder(determineInfoAndValidate(args)));
+    }
+
+    @Override
+    public FolderListing listFolderPage(ListObjectsArgs args) {
+        return observe("listFolderPage", () -> getConnect().listFolderPage(determineInfoAndValidate(args)));
+    }
+
+    @Override
+    public Stream<FileBasicInfo> listObjectsParallel(ParallelListObjectsArgs args) {
+        return observe("listObjectsParallel", () -> getConnect().listObjectsParallel(determineInfoAndValidate(args)));
     }
 
     @Override
     public FileBasicInfo getObjectMetadata(ObjectMetadataArgs args) {
-        return getConnect().getObjectMetadata(determineInfoAndValidate(args));
+        return observe("getObjectMetadata", () -> getConnect().getObjectMetadata(determineInfoAndValidate(args)));
     }
 
     @Override
     public boolean objectExist(DoesObjectExistArgs args) {
-        return getConnect().objectExist(determineInfoAndValidate(args));
+        return observe("objectExist", () -> getConnect().objectExist(determineInfoAndValidate(args)));
     }
 
     @Override
     public InputStream getObjectToStream(GetObjectToStreamArgs args) {
-        return getConnect().getObjectToStream(determineInfoAndValidate(args));
+        InputStream stream = observe("getObjectToStream", () -> getConnect().getObjectToStream(determineInfoAndValidate(args)));
+        if (metrics == StorageMetrics.NOOP) {
+            return stream;
+        }
+        // 流式读取的字节数在关闭时记录
+        String driverName = getDriverName();
+        return new CountingInputStream(stream, count -> metrics.recordBytes(driverName, "getObjectToStream", count));
     }
 
     @Override
     public File geObjectToFile(GetObjectToFileArgs args) {
-        return getConnect().geObjectToFile(determineInfoAndValidate(args));
+        File file = observe("geObjectToFile", () -> getConnect().geObjectToFile(determineInfoAndValidate(args)));
+        recordBytes("geObjectToFile", file.length());
+        return file;
+    }
+
+    @Override
+    public SeekableByteChannel openChannel(OpenChannelArgs args) {
+        return observe("openChannel", () -> getConnect().openChannel(determineInfoAndValidate(args)));
+    }
+
+    @Override
+    public List<ByteBuffer> readVectored(ReadVectoredArgs args) {
+        List<ByteBuffer> buffers = observe("readVectored", () -> getConnect().readVectored(determineInfoAndValidate(args)));
+        recordBytes("readVectored", buffers.stream().mapToLong(ByteBuffer::remaining).sum());
+        return buffers;
+    }
+
+    @Override
+    public Path getObjectToPath(GetObjectToPathArgs args) {
+        Path path = observe("getObjectToPath", () -> getConnect().getObjectToPath(determineInfoAndValidate(args)));
+        recordBytes("getObjectToPath", path.toFile().length());
+        return path;
     }
 
     @Override
     public void deleteObject(DeleteObjectArgs args) {
-        getConnect().deleteObject(determineInfoAndValidate(args));
+        observeRun("deleteObject", () -> getConnect().deleteObject(determineInfoAndValidate(args)));
+    }
+
+    @Override
+    public DeleteResult deleteObjects(DeleteObjectsArgs args) {
+        return observe("deleteObjects", () -> getConnect().deleteObjects(determineInfoAndValidate(args)));
     }
 
     @Override
-    public void deleteObjects(DeleteObjectsArgs args) {
-        getConnect().deleteObjects(determineInfoAndValidate(args));
+    public DeleteResult deletePrefix(DeletePrefixArgs args) {
+        return observe("deletePrefix", () -> getConnect().deletePrefix(determineInfoAndValidate(args)));
     }
 
     @Override
     public String generatePresignedUrl(GetPresignedObjectUrlArgs args) {
-        return getConnect().generatePresignedUrl(determineInfoAndValidate(args));
+        return observe("generatePresignedUrl", () -> getConnect().generatePresignedUrl(determineInfoAndValidate(args)));
     }
 
     @Override
     public String getUrl(GetUrlArgs args) {
-        return getConnect().getUrl(determineInfoAndValidate(args));
+        return observe("getUrl", () -> getConnect().getUrl(determineInfoAndValidate(args)));
     }
 
     @Override
     public Boolean httpUploadFile(String url, File file) {
-        return getConnect().httpUploadFile(url, file);
+        return observe("httpUploadFile", () -> getConnect().httpUploadFile(url, file));
+    }
+
+    /**
+     * 在两个客户端驱动之间传输对象(单个对象或前缀下的所有对象)
+     * 两个驱动的服务地址及访问凭证相同时使用服务端复制, 否则流式下载并直接上传到目标驱动, 不落地到本地磁盘
+     *
+     * @param args 参数
+     * @return 传输结果
+     */
+    public CopyPrefixResult transfer(TransferArgs args) {
+        return observe("transfer", () -> doTransfer(args));
+    }
+
+    private CopyPrefixResult doTransfer(TransferArgs args) {
+        args.validate();
+        TransferEndpoint source = determineEndpoint(args.getSourceDriverName(), args.getSourceBucketName());
+        TransferEndpoint target = determineEndpoint(args.getTargetDriverName(), args.getTargetBucketName() == null
+                ? args.getSourceBucketName() : args.getTargetBucketName());
+        boolean serverSide = args.isServerSideCopy() && CrossDriverTransfer.supportsServerSideCopy(source.config, target.config);
+        log.debug("opcooc-storage - transfer from [{}] to [{}], server side copy [{}]", args.getSourceDriverName(), args.getTargetDriverName(), serverSide);
+        CrossDriverTransfer transfer = new CrossDriverTransfer(source.client, target.client, serverSide, args.getConcurrency(), args.getMaxInFlightBytes());
+        if (args.getObjectName() != null) {
+            return transfer.transferObject(source.bucketName, args.getObjectName(), target.bucketName, args.getTargetObjectName());
+        }
+        return transfer.transferPrefix(source.bucketName, args.getPrefix(), target.bucketName, args.getTargetPrefix());
+    }
+
+    /**
+     * 切换到指定驱动后确定客户端, 配置及存储空间名称
+     *
+     * @param driverName 驱动名称
+     * @param bucketName 存储空间名称
+     * @return 传输端
+     */
+    private TransferEndpoint determineEndpoint(String driverName, String bucketName) {
+        DynamicClientContextHolder.push(driverName);
+        try {
+            BucketArgs bucket = determineBucket(BucketArgs.builder().bucketName(bucketName).build());
+            return new TransferEndpoint(getConnect(), getConfiguration(), bucket.getBucketName());
+        } finally {
+            DynamicClientContextHolder.poll();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class TransferEndpoint {
+
+        private final Client client;
+
+        private final ClientDriverProperty config;
+
+        private final String bucketName;
+    }
+
+    /**
+     * 记录一次操作的耗时及结果
+     *
+     * @param operation 操作名称
+     * @param action    操作
+     * @param <T>       返回值类型
+     * @return 操作的返回值
+     */
+    private <T> T observe(String operation, Supplier<T> action) {
+        StorageMetrics.Sample sample = metrics.start(getDriverName(), operation);
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            sample.stop(e);
+            throw e;
+        }
+        sample.stop(null);
+        return result;
+    }
+
+    private void observeRun(String operation, Runnable action) {
+        observe(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void recordBytes(String operation, long bytes) {
+        if (metrics != StorageMetrics.NOOP && bytes > 0) {
+            metrics.recordBytes(getDriverName(), operation, bytes);
+        }
+    }
+
+    /**
+     * 当前客户端驱动名称(指标的 driver 标签)
+     *
+     * @return 驱动名称
+     */
+    private String getDriverName() {
+        if (metrics == StorageMetrics.NOOP) {
+            return null;
+        }
+        ClientDriverProperty config = getConfiguration();
+        return config == null || StringUtils.isEmpty(config.getDriverName()) ? UNKNOWN_DRIVER : config.getDriverName();
     }
 
     @Override
@@ -313,5 +554,9 @@ public class StorageClient implements InitializingBean, Client {
         if (objectConverter == null) {
             throw new RuntimeException("opcooc-storage - objectConverter must not be null");
         }
+
+        if (metrics == null) {
+            throw new RuntimeException("opcooc-storage - metrics must not be null");
+        }
     }
 }
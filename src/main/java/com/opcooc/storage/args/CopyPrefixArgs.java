@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.args;
+
+import static com.opcooc.storage.toolkit.StorageChecker.validateNotNull;
+
+import com.opcooc.storage.exception.StorageException;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * 前缀复制(移动)参数, 源前缀下的对象复制到目标前缀下, 对象名称中前缀之后的部分保持不变
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Getter
+@SuperBuilder(toBuilder = true)
+public class CopyPrefixArgs extends BucketArgs {
+
+    /**
+     * 源前缀
+     */
+    private String prefix;
+
+    /**
+     * 目标存储空间(主目录)名称, 为空时与源存储空间相同
+     */
+    private String destinationBucketName;
+
+    /**
+     * 目标前缀
+     */
+    @Builder.Default
+    private String destinationPrefix = "";
+
+    public String getDestinationBucketName() {
+        return destinationBucketName == null || destinationBucketName.isEmpty() ? getBucketName() : destinationBucketName;
+    }
+
+    @Override
+    public void validate() {
+        super.validate();
+        validateNotNull(prefix, "prefix");
+        validateNotNull(destinationPrefix, "destination prefix");
+        // 目标前缀在源前缀下时, 新复制的对象会再次出现在源对象列表中
+        if (getBucketName().equals(getDestinationBucketName()) && destinationPrefix.startsWith(prefix)) {
+            throw new StorageException("opcooc-storage - destination prefix [%s] can not be inside source prefix [%s]", destinationPrefix, prefix);
+        }
+    }
+}
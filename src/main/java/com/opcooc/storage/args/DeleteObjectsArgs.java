@@ -19,6 +19,7 @@ import static com.opcooc.storage.toolkit.StorageChecker.validateNotNull;
 
 import java.util.Collection;
 
+import lombok.Builder;
 import lombok.Getter;
 import lombok.Singular;
 import lombok.experimental.SuperBuilder;
@@ -36,6 +37,12 @@ public class DeleteObjectsArgs extends BucketArgs {
     @Singular
     private Collection<String> objects;
 
+    /**
+     * 是否在删除结果中返回删除成功的对象名称
+     */
+    @Builder.Default
+    private boolean reportDeletedKeys = false;
+
     @Override
     public void validate() {
         log.debug("opcooc-storage - DeleteObjectsArgs, objects: [{}]", this.objects);
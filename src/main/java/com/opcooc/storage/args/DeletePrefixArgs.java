@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.args;
+
+import static com.opcooc.storage.toolkit.StorageChecker.validateNotEmptyString;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Getter
+@SuperBuilder(toBuilder = true)
+public class DeletePrefixArgs extends BucketArgs {
+
+    /**
+     * 需要删除的前缀(不能为空, 清空存储空间请使用 deleteBucket)
+     */
+    private String prefix;
+
+    /**
+     * 是否同时删除所有历史版本
+     */
+    @Builder.Default
+    private boolean allVersions = false;
+
+    /**
+     * 是否同时取消该前缀下未完成的分片上传
+     */
+    @Builder.Default
+    private boolean abortMultipartUploads = false;
+
+    /**
+     * 是否在删除结果中返回删除成功的对象名称(前缀下对象很多时会占用大量内存)
+     */
+    @Builder.Default
+    private boolean reportDeletedKeys = false;
+
+    @Override
+    public void validate() {
+        super.validate();
+        validateNotEmptyString(prefix, "prefix");
+    }
+}
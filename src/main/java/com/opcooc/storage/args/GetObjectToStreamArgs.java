@@ -15,16 +15,65 @@
  */
 package com.opcooc.storage.args;
 
+import lombok.Builder;
+import lombok.Getter;
 import lombok.experimental.SuperBuilder;
 
 /**
  * @author shenqicheng
  * @since 1.2.0
  */
+@Getter
 @SuperBuilder(toBuilder = true)
 public class GetObjectToStreamArgs extends ObjectArgs {
+
+    /**
+     * 读取的起始位置(默认从0开始)
+     */
+    @Builder.Default
+    private long offset = 0L;
+
+    /**
+     * 读取的长度(默认-1, 读取到对象末尾)
+     */
+    @Builder.Default
+    private long length = -1L;
+
+    /**
+     * 只读取对象最后的字节数(默认-1, 不使用; 与 offset/length 不能同时使用)
+     */
+    @Builder.Default
+    private long suffixLength = -1L;
+
+    /**
+     * 是否开启预读, 开启后在后台按块并发获取后续内容
+     */
+    @Builder.Default
+    private boolean readAhead = false;
+
+    /**
+     * 是否指定了读取范围
+     *
+     * @return 是否为范围读取
+     */
+    public boolean isRanged() {
+        return offset > 0 || length >= 0 || suffixLength >= 0;
+    }
+
     @Override
     public void validate() {
         super.validate();
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        if (length < -1) {
+            throw new IllegalArgumentException("length must not be negative (-1 reads to the end of object)");
+        }
+        if (suffixLength < -1) {
+            throw new IllegalArgumentException("suffix length must not be negative (-1 disables it)");
+        }
+        if (suffixLength >= 0 && (offset > 0 || length >= 0)) {
+            throw new IllegalArgumentException("suffix length can not be used with offset or length");
+        }
     }
 }
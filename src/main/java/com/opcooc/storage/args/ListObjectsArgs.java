@@ -15,6 +15,7 @@
  */
 package com.opcooc.storage.args;
 
+import static com.opcooc.storage.toolkit.StorageChecker.validateNotEmptyString;
 import static com.opcooc.storage.toolkit.StorageChecker.validateNotNull;
 
 import lombok.Builder;
@@ -31,15 +32,36 @@ public class ListObjectsArgs extends BucketArgs {
 
     private String prefix;
 
+    /**
+     * 是否获取所有下级文件, 为false时只获取当前目录下的文件(使用分隔符)
+     */
     @Builder.Default
     private boolean recursive = true;
 
+    /**
+     * 目录分隔符
+     */
+    @Builder.Default
+    private String delimiter = "/";
+
     @Builder.Default
     private int maxKeys = 1000;
 
+    /**
+     * 流式获取时是否在后台预读下一页
+     */
+    @Builder.Default
+    private boolean prefetch = false;
+
+    /**
+     * 分页获取目录时的续传标记(上一页返回的 nextContinuationToken), 为null时从第一页开始
+     */
+    private String continuationToken;
+
     @Override
     public void validate() {
         super.validate();
         validateNotNull(prefix, "prefix");
+        validateNotEmptyString(delimiter, "delimiter");
     }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.args;
+
+import lombok.experimental.SuperBuilder;
+
+/**
+ * 打开对象输出流参数(对象大小未知, 关闭输出流时完成上传)
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@SuperBuilder(toBuilder = true)
+public class OpenOutputStreamArgs extends ObjectArgs {
+    @Override
+    public void validate() {
+        super.validate();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.args;
+
+import com.opcooc.storage.exception.StorageException;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Getter
+@SuperBuilder(toBuilder = true)
+public class ParallelListObjectsArgs extends ListObjectsArgs {
+
+    /**
+     * 是否按 key 的字典序输出(默认为false, 无序输出吞吐量最高)
+     */
+    @Builder.Default
+    private boolean ordered = false;
+
+    /**
+     * 前缀最大拆分层级, 超过该层级的前缀不再拆分直接分页获取
+     */
+    @Builder.Default
+    private int splitDepth = 3;
+
+    /**
+     * 无序输出时的缓冲队列大小
+     */
+    @Builder.Default
+    private int bufferSize = 10000;
+
+    @Override
+    public void validate() {
+        super.validate();
+        if (splitDepth < 0) {
+            throw new StorageException("opcooc-storage - split depth must not be negative");
+        }
+        if (bufferSize <= 0) {
+            throw new StorageException("opcooc-storage - buffer size must be greater than 0");
+        }
+    }
+}
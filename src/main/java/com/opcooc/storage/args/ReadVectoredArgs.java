@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.args;
+
+import static com.opcooc.storage.toolkit.StorageChecker.validateNotNull;
+
+import java.util.List;
+
+import com.opcooc.storage.model.ByteRange;
+
+import lombok.Getter;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * 批量读取对象多个区间参数
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Getter
+@SuperBuilder(toBuilder = true)
+public class ReadVectoredArgs extends ObjectArgs {
+
+    /**
+     * 需要读取的区间(可以重叠, 不要求有序)
+     */
+    private List<ByteRange> ranges;
+
+    @Override
+    public void validate() {
+        super.validate();
+        validateNotNull(ranges, "ranges");
+        for (ByteRange range : ranges) {
+            validateNotNull(range, "range");
+            if (range.getOffset() < 0 || range.getLength() < 0) {
+                throw new IllegalArgumentException("range offset and length must not be negative");
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.args;
+
+import static com.opcooc.storage.toolkit.StorageChecker.validateNotEmptyString;
+
+import com.opcooc.storage.exception.StorageException;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * 跨客户端驱动传输参数
+ * 1.设置 objectName 时传输单个对象, 设置 prefix 时传输前缀下的所有对象, 两者只能设置一个
+ * 2.存储空间名称为空时使用对应驱动的 bucketConverter 确定(默认为驱动的 defaultBucket)
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Getter
+@SuperBuilder(toBuilder = true)
+public class TransferArgs extends BaseArgs {
+
+    /**
+     * 源客户端驱动名称
+     */
+    private String sourceDriverName;
+
+    /**
+     * 源存储空间(主目录)名称
+     */
+    private String sourceBucketName;
+
+    /**
+     * 目标客户端驱动名称
+     */
+    private String targetDriverName;
+
+    /**
+     * 目标存储空间(主目录)名称
+     */
+    private String targetBucketName;
+
+    /**
+     * 源对象名称(传输单个对象)
+     */
+    private String objectName;
+
+    /**
+     * 目标对象名称, 为空时与源对象名称相同
+     */
+    private String targetObjectName;
+
+    /**
+     * 源前缀(传输前缀下的所有对象)
+     */
+    private String prefix;
+
+    /**
+     * 目标前缀, 为空时与源前缀相同
+     */
+    private String targetPrefix;
+
+    /**
+     * 同时传输的最大对象数
+     */
+    @Builder.Default
+    private int concurrency = 8;
+
+    /**
+     * 同时传输中的对象总字节数上限(默认256MB), 单个对象超过上限时独占
+     */
+    @Builder.Default
+    private long maxInFlightBytes = 256L * 1024 * 1024;
+
+    /**
+     * 两个驱动的服务地址及访问凭证相同时是否使用服务端复制
+     */
+    @Builder.Default
+    private boolean serverSideCopy = true;
+
+    public String getTargetObjectName() {
+        return targetObjectName == null || targetObjectName.isEmpty() ? objectName : targetObjectName;
+    }
+
+    public String getTargetPrefix() {
+        return targetPrefix == null ? prefix : targetPrefix;
+    }
+
+    @Override
+    public void validate() {
+        validateNotEmptyString(sourceDriverName, "source driver name");
+        validateNotEmptyString(targetDriverName, "target driver name");
+        if ((objectName == null) == (prefix == null)) {
+            throw new StorageException("opcooc-storage - exactly one of object name and prefix must be set");
+        }
+        if (objectName != null) {
+            validateNotEmptyString(objectName, "object name");
+        }
+        if (concurrency <= 0 || maxInFlightBytes <= 0) {
+            throw new StorageException("opcooc-storage - concurrency and max in flight bytes must be positive");
+        }
+    }
+}
@@ -18,6 +18,7 @@ package com.opcooc.storage.args;
 import static com.opcooc.storage.toolkit.StorageChecker.validateNotNull;
 
 import java.io.InputStream;
+import java.util.Map;
 
 import lombok.Getter;
 import lombok.experimental.SuperBuilder;
@@ -32,6 +33,11 @@ public class UploadObjectArgs extends ObjectArgs {
 
     private InputStream stream;
 
+    /**
+     * 用户元数据(名称不包含 x-amz-meta- 前缀), 为null时不设置
+     */
+    private Map<String, String> userMetadata;
+
     @Override
     public void validate() {
         super.validate();
@@ -16,7 +16,6 @@
 package com.opcooc.storage.args;
 
 import static com.opcooc.storage.toolkit.StorageChecker.validateNotEmptyString;
-import static com.opcooc.storage.toolkit.StorageChecker.validateNotNull;
 
 import java.io.File;
 
@@ -37,6 +36,9 @@ public class UploadUrlArgs extends ObjectArgs {
     @Getter
     private String url;
 
+    /**
+     * 下载使用的本地文件, 为null时将响应体直接以流的方式上传, 不写入本地磁盘
+     */
     @Getter
     private File file;
 
@@ -44,8 +46,7 @@ public class UploadUrlArgs extends ObjectArgs {
     public void validate() {
         super.validate();
         validateNotEmptyString(this.url, "url");
-        validateNotNull(file, "file");
-        if (!file.exists()) {
+        if (file != null && !file.exists()) {
             throw new StorageException("opcooc-storage - [%s] the file does not exist", file);
         }
     }
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.args;
+
+import static com.opcooc.storage.toolkit.StorageChecker.validateNotNull;
+
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 批量导入网络文件参数
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+@Getter
+@SuperBuilder(toBuilder = true)
+public class UploadUrlsArgs extends BucketArgs {
+
+    /**
+     * 对象名称 -> 网络文件地址
+     */
+    @Singular
+    private Map<String, String> urls;
+
+    /**
+     * 同时导入的最大文件数(不超过客户端驱动的 maxConcurrency)
+     */
+    @Builder.Default
+    private int concurrency = 4;
+
+    @Override
+    public void validate() {
+        log.debug("opcooc-storage - UploadUrlsArgs, urls: [{}]", this.urls);
+        super.validate();
+        validateNotNull(this.urls, "urls");
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be greater than 0");
+        }
+    }
+}
@@ -17,27 +17,45 @@ package com.opcooc.storage.client;
 
 import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import com.amazonaws.services.s3.model.AccessControlList;
 import com.amazonaws.services.s3.model.BucketPolicy;
 import com.opcooc.storage.args.CopyObjectArgs;
+import com.opcooc.storage.args.CopyPrefixArgs;
+import com.opcooc.storage.args.CopySource;
 import com.opcooc.storage.args.CreateBucketArgs;
 import com.opcooc.storage.args.DeleteBucketArgs;
 import com.opcooc.storage.args.DeleteBucketPolicyArgs;
 import com.opcooc.storage.args.DeleteObjectArgs;
 import com.opcooc.storage.args.DeleteObjectsArgs;
+import com.opcooc.storage.args.DeletePrefixArgs;
 import com.opcooc.storage.args.DoesBucketExistArgs;
 import com.opcooc.storage.args.DoesObjectExistArgs;
 import com.opcooc.storage.args.GetBucketAclArgs;
 import com.opcooc.storage.args.GetBucketPolicyArgs;
 import com.opcooc.storage.args.GetObjectAclArgs;
 import com.opcooc.storage.args.GetObjectToFileArgs;
+import com.opcooc.storage.args.GetObjectToPathArgs;
 import com.opcooc.storage.args.GetObjectToStreamArgs;
 import com.opcooc.storage.args.GetPresignedObjectUrlArgs;
 import com.opcooc.storage.args.GetUrlArgs;
 import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.args.ObjectArgs;
 import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.OpenChannelArgs;
+import com.opcooc.storage.args.OpenOutputStreamArgs;
+import com.opcooc.storage.args.ParallelListObjectsArgs;
+import com.opcooc.storage.args.ReadVectoredArgs;
 import com.opcooc.storage.args.SetBucketAclArgs;
 import com.opcooc.storage.args.SetBucketPolicyArgs;
 import com.opcooc.storage.args.SetFolderArgs;
@@ -45,8 +63,20 @@ import com.opcooc.storage.args.SetObjectAclArgs;
 import com.opcooc.storage.args.UploadFileArgs;
 import com.opcooc.storage.args.UploadObjectArgs;
 import com.opcooc.storage.args.UploadUrlArgs;
+import com.opcooc.storage.args.UploadUrlsArgs;
+import com.opcooc.storage.io.RangeReader;
+import com.opcooc.storage.io.RangeSeekableByteChannel;
+import com.opcooc.storage.io.SpoolFileOutputStream;
+import com.opcooc.storage.io.VectoredReader;
+import com.opcooc.storage.model.CopyError;
+import com.opcooc.storage.model.CopyPrefixResult;
+import com.opcooc.storage.model.DeleteResult;
 import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.model.FolderListing;
+import com.opcooc.storage.model.UploadUrlsResult;
 import com.opcooc.storage.toolkit.HttpUtils;
+import com.opcooc.storage.transfer.BulkDeleter;
+import com.opcooc.storage.transfer.UrlImporter;
 
 /**
  * @author shenqicheng
@@ -159,13 +189,47 @@ public interface Client {
     FileBasicInfo uploadFile(UploadFileArgs args);
 
     /**
-     * 上传文件到服务器
+     * 上传网络文件到服务器
+     * 指定 file 时先下载到该文件再上传, 否则将响应体直接以流的方式上传
      *
      * @param args 参数
      * @return 文件上传后的信息
      */
     FileBasicInfo uploadUrl(UploadUrlArgs args);
 
+    /**
+     * 批量上传网络文件到服务器, 单个文件失败不影响其他文件
+     * 默认实现为逐个以流的方式上传
+     *
+     * @param args 参数
+     * @return 导入结果
+     */
+    default UploadUrlsResult uploadUrls(UploadUrlsArgs args) {
+        UploadUrlsResult result = new UrlImporter(null, 1, (objectName, url) -> uploadUrl(UploadUrlArgs.builder()
+                .bucketName(args.getBucketName())
+                .objectName(objectName)
+                .url(url)
+                .build())).upload(args.getUrls());
+        result.setBucketName(args.getBucketName());
+        return result;
+    }
+
+    /**
+     * 打开写入对象的输出流(无需预先知道对象大小), 关闭输出流时完成上传
+     * 默认实现为先写入临时文件, 关闭时调用 uploadFile 上传
+     *
+     * @param args 参数
+     * @return 输出流
+     */
+    default OutputStream openOutputStream(OpenOutputStreamArgs args) {
+        return new SpoolFileOutputStream(file -> uploadFile(UploadFileArgs.builder()
+                .bucketName(args.getBucketName())
+                .objectName(args.getObjectName())
+                .contentType(args.getContentType())
+                .file(file)
+                .build()));
+    }
+
     /**
      * 复制文件
      *
@@ -173,6 +237,65 @@ public interface Client {
      */
     void copyObject(CopyObjectArgs args);
 
+    /**
+     * 复制指定前缀下的所有文件到目标前缀下
+     * 默认实现为逐个复制
+     *
+     * @param args 参数
+     * @return 复制结果
+     */
+    default CopyPrefixResult copyPrefix(CopyPrefixArgs args) {
+        return copyPrefix(args, false);
+    }
+
+    /**
+     * 移动指定前缀下的所有文件到目标前缀下(复制成功后删除源文件)
+     * 默认实现为逐个复制后分批删除
+     *
+     * @param args 参数
+     * @return 移动结果
+     */
+    default CopyPrefixResult movePrefix(CopyPrefixArgs args) {
+        return copyPrefix(args, true);
+    }
+
+    private CopyPrefixResult copyPrefix(CopyPrefixArgs args, boolean move) {
+        long start = System.nanoTime();
+        CopyPrefixResult result = new CopyPrefixResult();
+        result.setSourceBucketName(args.getBucketName());
+        result.setDestinationBucketName(args.getDestinationBucketName());
+        ListObjectsArgs listArgs = ListObjectsArgs.builder().bucketName(args.getBucketName()).prefix(args.getPrefix()).build();
+        List<String> copied = new ArrayList<>();
+        try (Stream<FileBasicInfo> stream = listObjectsStream(listArgs)) {
+            Iterator<FileBasicInfo> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                FileBasicInfo info = iterator.next();
+                try {
+                    copyObject(CopyObjectArgs.builder()
+                            .bucketName(args.getDestinationBucketName())
+                            .objectName(args.getDestinationPrefix() + info.getKey().substring(args.getPrefix().length()))
+                            .source(CopySource.builder().bucketName(args.getBucketName()).objectName(info.getKey()).objectSize(info.getContentLength()).build())
+                            .build());
+                    result.setCopiedCount(result.getCopiedCount() + 1);
+                    result.setCopiedBytes(result.getCopiedBytes() + info.getContentLength());
+                    if (move) {
+                        copied.add(info.getKey());
+                    }
+                } catch (RuntimeException e) {
+                    result.getErrors().add(new CopyError(info.getKey(), e.getClass().getSimpleName(), e.getMessage()));
+                }
+                if (copied.size() == BulkDeleter.MAX_BATCH_SIZE || (!iterator.hasNext() && !copied.isEmpty())) {
+                    DeleteResult deleted = deleteObjects(DeleteObjectsArgs.builder().bucketName(args.getBucketName()).objects(copied).build());
+                    result.setDeletedCount(result.getDeletedCount() + deleted.getDeletedCount());
+                    result.getDeleteErrors().addAll(deleted.getErrors());
+                    copied = new ArrayList<>();
+                }
+            }
+        }
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
     /**
      * 获取指定存储空间(主目录)名称 指定前缀 的下级所有文件
      *
@@ -181,6 +304,66 @@ public interface Client {
      */
     List<FileBasicInfo> listObjects(ListObjectsArgs args);
 
+    /**
+     * 流式获取指定存储空间(主目录)名称 指定前缀 的下级所有文件
+     * 按需分页请求, 使用完毕后需要关闭流(关闭后不再请求剩余分页)
+     *
+     * @param args 参数
+     * @return 文件信息流
+     */
+    default Stream<FileBasicInfo> listObjectsStream(ListObjectsArgs args) {
+        return listObjects(args).stream();
+    }
+
+    /**
+     * 获取指定存储空间(主目录)名称 指定前缀 的当前目录下的文件及子目录(不获取子目录下的文件)
+     * 默认实现为获取所有下级文件后在本地按分隔符归类
+     *
+     * @param args 参数
+     * @return 目录列表信息
+     */
+    default FolderListing listFolder(ListObjectsArgs args) {
+        FolderListing listing = new FolderListing();
+        listing.setBucketName(args.getBucketName());
+        listing.setPrefix(args.getPrefix());
+        Set<String> folders = new LinkedHashSet<>();
+        try (Stream<FileBasicInfo> stream = listObjectsStream(args.toBuilder().recursive(true).build())) {
+            stream.forEach(info -> {
+                String rest = info.getKey().substring(args.getPrefix().length());
+                int index = rest.indexOf(args.getDelimiter());
+                if (index < 0) {
+                    listing.getObjects().add(info);
+                } else {
+                    folders.add(args.getPrefix() + rest.substring(0, index + args.getDelimiter().length()));
+                }
+            });
+        }
+        listing.getFolders().addAll(folders);
+        return listing;
+    }
+
+    /**
+     * 分页获取指定存储空间(主目录)名称 指定前缀 的当前目录下的文件及子目录
+     * 每次只请求一页, 通过 continuationToken 获取下一页, 默认实现为一次返回全部内容
+     *
+     * @param args 参数
+     * @return 目录列表信息(一页)
+     */
+    default FolderListing listFolderPage(ListObjectsArgs args) {
+        return listFolder(args);
+    }
+
+    /**
+     * 按前缀分片并发获取指定存储空间(主目录)名称 指定前缀 的下级所有文件
+     * 默认实现为顺序获取(结果有序), 使用完毕后需要关闭流
+     *
+     * @param args 参数
+     * @return 文件信息流
+     */
+    default Stream<FileBasicInfo> listObjectsParallel(ParallelListObjectsArgs args) {
+        return listObjectsStream(args);
+    }
+
     /**
      * 获取对象元数据
      *
@@ -205,6 +388,61 @@ public interface Client {
      */
     InputStream getObjectToStream(GetObjectToStreamArgs args);
 
+    /**
+     * 打开对象的只读随机读取通道(按块读取并缓存, 适用于读取 ZIP/Parquet/MP4 等文件的索引)
+     * 默认实现为通过 getObjectToStream 按区间读取
+     *
+     * @param args 参数
+     * @return 只读通道
+     */
+    default SeekableByteChannel openChannel(OpenChannelArgs args) {
+        ObjectMetadataArgs metadataArgs = ObjectMetadataArgs.builder()
+                .bucketName(args.getBucketName())
+                .objectName(args.getObjectName())
+                .build();
+        long size = getObjectMetadata(metadataArgs).getContentLength();
+        return new RangeSeekableByteChannel(rangeReader(args), size, RangeSeekableByteChannel.DEFAULT_BLOCK_SIZE,
+                RangeSeekableByteChannel.DEFAULT_CACHE_BLOCKS, 0);
+    }
+
+    /**
+     * 批量读取对象的多个区间, 相邻区间合并为一次请求, 按输入顺序返回各区间内容
+     * 默认实现为通过 getObjectToStream 顺序读取合并后的区间
+     *
+     * @param args 参数
+     * @return 区间内容(合并区间缓冲区的切片)
+     */
+    default List<ByteBuffer> readVectored(ReadVectoredArgs args) {
+        return new VectoredReader(rangeReader(args), null, VectoredReader.DEFAULT_MAX_GAP,
+                VectoredReader.DEFAULT_MAX_MERGED_SIZE, 0).read(args.getRanges());
+    }
+
+    /**
+     * 通过 getObjectToStream 实现的区间读取
+     *
+     * @param args 对象参数
+     * @return 区间读取
+     */
+    private RangeReader rangeReader(ObjectArgs args) {
+        return (position, length) -> {
+            GetObjectToStreamArgs rangeArgs = GetObjectToStreamArgs.builder()
+                    .bucketName(args.getBucketName())
+                    .objectName(args.getObjectName())
+                    .offset(position)
+                    .length(length)
+                    .build();
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            try (InputStream in = getObjectToStream(rangeArgs)) {
+                int n;
+                while (buffer.hasRemaining() && (n = in.read(buffer.array(), buffer.position(), buffer.remaining())) >= 0) {
+                    buffer.position(buffer.position() + n);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        };
+    }
+
     /**
      * 获得文件
      *
@@ -213,6 +451,22 @@ public interface Client {
      */
     File geObjectToFile(GetObjectToFileArgs args);
 
+    /**
+     * 下载文件到指定路径
+     * 默认实现为调用 geObjectToFile
+     *
+     * @param args 参数
+     * @return 文件路径
+     */
+    default Path getObjectToPath(GetObjectToPathArgs args) {
+        File file = geObjectToFile(GetObjectToFileArgs.builder()
+                .bucketName(args.getBucketName())
+                .objectName(args.getObjectName())
+                .file(new File(args.getPath()))
+                .build());
+        return file.toPath();
+    }
+
     /**
      * 删除单个文件
      *
@@ -221,11 +475,41 @@ public interface Client {
     void deleteObject(DeleteObjectArgs args);
 
     /**
-     * 删除文件集合
+     * 删除文件集合(超过1000个时自动拆分为多批并发删除)
+     *
+     * @param args 参数
+     * @return 删除结果(包含删除失败的对象)
+     */
+    DeleteResult deleteObjects(DeleteObjectsArgs args);
+
+    /**
+     * 删除指定前缀下的所有文件
+     * 默认实现为分页获取文件后按每批1000个调用 deleteObjects
      *
      * @param args 参数
+     * @return 删除结果
      */
-    void deleteObjects(DeleteObjectsArgs args);
+    default DeleteResult deletePrefix(DeletePrefixArgs args) {
+        DeleteResult result = new DeleteResult();
+        result.setBucketName(args.getBucketName());
+        ListObjectsArgs listArgs = ListObjectsArgs.builder().bucketName(args.getBucketName()).prefix(args.getPrefix()).build();
+        List<String> batch = new ArrayList<>();
+        try (Stream<FileBasicInfo> stream = listObjectsStream(listArgs)) {
+            Iterator<FileBasicInfo> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next().getKey());
+                if (batch.size() == BulkDeleter.MAX_BATCH_SIZE || !iterator.hasNext()) {
+                    DeleteResult batchResult = deleteObjects(DeleteObjectsArgs.builder().bucketName(args.getBucketName()).objects(batch)
+                            .reportDeletedKeys(args.isReportDeletedKeys()).build());
+                    result.setDeletedCount(result.getDeletedCount() + batchResult.getDeletedCount());
+                    result.getDeletedKeys().addAll(batchResult.getDeletedKeys());
+                    result.getErrors().addAll(batchResult.getErrors());
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        return result;
+    }
 
     /**
      * 生成签名的URL，以使用get的HTTP方法访问文件
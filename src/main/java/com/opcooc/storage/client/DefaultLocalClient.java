@@ -0,0 +1,1020 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.client;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AccessControlList;
+import com.amazonaws.services.s3.model.BucketPolicy;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.opcooc.storage.args.BucketArgs;
+import com.opcooc.storage.args.CopyObjectArgs;
+import com.opcooc.storage.args.CopySource;
+import com.opcooc.storage.args.CreateBucketArgs;
+import com.opcooc.storage.args.DeleteBucketArgs;
+import com.opcooc.storage.args.DeleteBucketPolicyArgs;
+import com.opcooc.storage.args.DeleteObjectArgs;
+import com.opcooc.storage.args.DeleteObjectsArgs;
+import com.opcooc.storage.args.DoesBucketExistArgs;
+import com.opcooc.storage.args.DoesObjectExistArgs;
+import com.opcooc.storage.args.GetBucketAclArgs;
+import com.opcooc.storage.args.GetBucketPolicyArgs;
+import com.opcooc.storage.args.GetObjectAclArgs;
+import com.opcooc.storage.args.GetObjectToFileArgs;
+import com.opcooc.storage.args.GetObjectToPathArgs;
+import com.opcooc.storage.args.GetObjectToStreamArgs;
+import com.opcooc.storage.args.GetPresignedObjectUrlArgs;
+import com.opcooc.storage.args.GetUrlArgs;
+import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.args.ObjectArgs;
+import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.OpenChannelArgs;
+import com.opcooc.storage.args.OpenOutputStreamArgs;
+import com.opcooc.storage.args.ReadVectoredArgs;
+import com.opcooc.storage.args.SetBucketAclArgs;
+import com.opcooc.storage.args.SetBucketPolicyArgs;
+import com.opcooc.storage.args.SetFolderArgs;
+import com.opcooc.storage.args.SetObjectAclArgs;
+import com.opcooc.storage.args.UploadFileArgs;
+import com.opcooc.storage.args.UploadObjectArgs;
+import com.opcooc.storage.args.UploadUrlArgs;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.io.FileRegionInputStream;
+import com.opcooc.storage.io.SpoolFileOutputStream;
+import com.opcooc.storage.model.ByteRange;
+import com.opcooc.storage.model.DeleteError;
+import com.opcooc.storage.model.DeleteResult;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.model.FolderListing;
+import com.opcooc.storage.toolkit.ContentTypeUtils;
+import com.opcooc.storage.toolkit.HttpUtils;
+import com.opcooc.storage.toolkit.StorageUtil;
+import com.opcooc.storage.transfer.ParallelDownloader;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 本地文件系统客户端
+ * 1.存储空间(主目录)对应根目录下的子目录, 对象名称中的"/"对应子目录
+ * 2.写入先落到根目录下的临时文件, 完成后原子重命名为目标文件, 读取方不会看到写了一半的对象
+ * 3.文件之间通过 FileChannel.transferTo 传输(由内核完成拷贝), 读取区间时使用定位读取
+ * 4.Content-Type 与推断结果不同或存在用户元数据时, 写入根目录下对应的元数据文件(Properties)
+ * 5.ETag 由文件大小、修改时间及文件标识生成, 对象被替换后发生变化, 不需要计算内容摘要
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class DefaultLocalClient implements Client {
+
+    /**
+     * 临时文件目录, 与对象位于同一文件系统, 保证重命名是原子的
+     */
+    private static final String TEMP_DIR = ".tmp";
+
+    /**
+     * 元数据文件目录
+     */
+    private static final String METADATA_DIR = ".metadata";
+
+    private static final String METADATA_SUFFIX = ".meta";
+
+    private static final String DELIMITER = "/";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 目标目录在创建后被并发删除(清理空目录)时提交的最大重试次数
+     */
+    private static final int COMMIT_RETRIES = 3;
+
+    private final Path root;
+
+    private final Path tempDir;
+
+    private final Path metadataDir;
+
+    /**
+     * @param root 根目录(绝对路径)
+     */
+    public DefaultLocalClient(Path root) {
+        this.root = root;
+        this.tempDir = root.resolve(TEMP_DIR);
+        this.metadataDir = root.resolve(METADATA_DIR);
+    }
+
+    @Override
+    public void createFolder(SetFolderArgs args) {
+        try {
+            Files.createDirectories(objectPath(args.getBucketName(), args.getFolderName()));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void setBucketAcl(SetBucketAclArgs args) {
+        throw unsupported("setBucketAcl");
+    }
+
+    @Override
+    public AccessControlList getBucketAcl(GetBucketAclArgs args) {
+        throw unsupported("getBucketAcl");
+    }
+
+    @Override
+    public void setBucketPolicy(SetBucketPolicyArgs args) {
+        throw unsupported("setBucketPolicy");
+    }
+
+    @Override
+    public BucketPolicy getBucketPolicy(GetBucketPolicyArgs args) {
+        throw unsupported("getBucketPolicy");
+    }
+
+    @Override
+    public void deleteBucketPolicy(DeleteBucketPolicyArgs args) {
+        throw unsupported("deleteBucketPolicy");
+    }
+
+    @Override
+    public String createBucket(CreateBucketArgs args) {
+        try {
+            Files.createDirectories(bucketPath(args.getBucketName()));
+            return args.getBucketName();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void deleteBucket(DeleteBucketArgs args) {
+        try {
+            deleteTree(bucketPath(args.getBucketName()));
+            deleteTree(metadataDir.resolve(args.getBucketName()));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public List<String> listBuckets() {
+        try (Stream<Path> stream = Files.list(root)) {
+            return stream.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> !name.startsWith("."))
+                    .sorted()
+                    .collect(toList());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public boolean doesBucketExist(DoesBucketExistArgs args) {
+        try {
+            return Files.isDirectory(bucketPath(args.getBucketName()));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void setObjectAcl(SetObjectAclArgs args) {
+        throw unsupported("setObjectAcl");
+    }
+
+    @Override
+    public AccessControlList getObjectAcl(GetObjectAclArgs args) {
+        throw unsupported("getObjectAcl");
+    }
+
+    @Override
+    public FileBasicInfo uploadObject(UploadObjectArgs args) {
+        try {
+            Properties metadata = contentMetadata(args);
+            if (args.getUserMetadata() != null) {
+                args.getUserMetadata().forEach((name, value) -> metadata.setProperty(Headers.S3_USER_METADATA_PREFIX + name, value));
+            }
+            return put(args, metadata, temp -> writeStream(temp, args.getStream(), args.getObjectSize(), args.getObjectName()));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public FileBasicInfo uploadFile(UploadFileArgs args) {
+        try {
+            return put(args, contentMetadata(args), temp -> writeFile(temp, args.getFile().toPath()));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public FileBasicInfo uploadUrl(UploadUrlArgs args) {
+        try {
+            File file = args.getFile();
+            if (file != null) {
+                HttpUtils.downloadToFile(args.getUrl(), file);
+                return put(args, contentMetadata(args), temp -> writeFile(temp, file.toPath()));
+            }
+            HttpURLConnection connection = HttpUtils.openStream(args.getUrl());
+            try (InputStream stream = connection.getInputStream()) {
+                long size = connection.getContentLengthLong();
+                return put(args, contentMetadata(args), temp -> writeStream(temp, stream, size, args.getObjectName()));
+            } finally {
+                connection.disconnect();
+            }
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public OutputStream openOutputStream(OpenOutputStreamArgs args) {
+        try {
+            Path target = objectPath(args.getBucketName(), args.getObjectName());
+            Properties metadata = contentMetadata(args);
+            // 关闭时将临时文件重命名为目标文件, 重命名后临时文件不再存在, 不会被删除
+            return new SpoolFileOutputStream(createTempFile().toFile(), file -> {
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                    commit(file.toPath(), target);
+                    writeMetadata(args.getBucketName(), args.getObjectName(), metadata);
+                    return StorageUtil.createFileBasicInfo(etagOf(attrs), args, attrs.size());
+                } catch (IOException e) {
+                    throw new StorageException(e);
+                }
+            });
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void copyObject(CopyObjectArgs args) {
+        CopySource source = args.getSource();
+        try {
+            Path sourcePath = objectPath(source.getBucketName(), source.getObjectName());
+            attributes(source, sourcePath);
+            Properties metadata = readMetadata(source.getBucketName(), source.getObjectName());
+            put(args, metadata, temp -> writeFile(temp, sourcePath));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 写入临时文件后原子替换目标文件, 再写入元数据文件
+     *
+     * @param args     参数
+     * @param metadata 元数据, 为空时删除已有的元数据文件
+     * @param writer   临时文件的写入
+     * @return 文件信息
+     * @throws IOException 写入失败
+     */
+    private FileBasicInfo put(ObjectArgs args, Properties metadata, TempFileWriter writer) throws IOException {
+        Path target = objectPath(args.getBucketName(), args.getObjectName());
+        Path temp = createTempFile();
+        try {
+            writer.write(temp);
+            // 同一文件系统内重命名会保留大小及修改时间, 提交前读取属性避免提交后被其他写入替换
+            BasicFileAttributes attrs = Files.readAttributes(temp, BasicFileAttributes.class);
+            commit(temp, target);
+            writeMetadata(args.getBucketName(), args.getObjectName(), metadata);
+            return StorageUtil.createFileBasicInfo(etagOf(attrs), args, attrs.size());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 将流写入临时文件, 文件流直接在通道之间传输
+     *
+     * @param temp       临时文件
+     * @param stream     输入流
+     * @param size       流的长度, 未知时小于等于0
+     * @param objectName 对象名称
+     * @throws IOException 读写失败
+     */
+    private static void writeStream(Path temp, InputStream stream, long size, String objectName) throws IOException {
+        long written = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            if (stream instanceof FileInputStream) {
+                FileChannel in = ((FileInputStream) stream).getChannel();
+                long position = in.position();
+                written = transfer(in, position, size > 0 ? size : in.size() - position, out);
+                in.position(position + written);
+            } else {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((size <= 0 || written < size)
+                        && (n = stream.read(buffer, 0, size > 0 ? (int) Math.min(buffer.length, size - written) : buffer.length)) >= 0) {
+                    out.write(ByteBuffer.wrap(buffer, 0, n));
+                    written += n;
+                }
+            }
+        }
+        if (size > 0 && written < size) {
+            throw new StorageException("opcooc-storage - object name: [%s], stream ended before the declared size [%s]", objectName, size);
+        }
+    }
+
+    private static void writeFile(Path temp, Path source) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            transfer(in, 0, in.size(), out);
+        }
+    }
+
+    /**
+     * 通道之间传输, transferTo 单次可能只传输部分内容
+     *
+     * @param in       源通道
+     * @param position 源通道起始位置
+     * @param count    传输的长度
+     * @param out      目标通道(从当前位置写入)
+     * @return 实际传输的长度
+     * @throws IOException 读写失败
+     */
+    private static long transfer(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        long written = 0;
+        while (written < count) {
+            long n = in.transferTo(position + written, count - written, out);
+            if (n <= 0) {
+                break;
+            }
+            written += n;
+        }
+        return written;
+    }
+
+    private Path createTempFile() throws IOException {
+        Files.createDirectories(tempDir);
+        return Files.createTempFile(tempDir, "upload-", ".tmp");
+    }
+
+    /**
+     * 将临时文件原子重命名为目标文件
+     *
+     * @param temp   临时文件
+     * @param target 目标文件
+     * @throws IOException 重命名失败
+     */
+    private static void commit(Path temp, Path target) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            Files.createDirectories(target.getParent());
+            try {
+                move(temp, target);
+                return;
+            } catch (NoSuchFileException e) {
+                // 目标目录在创建后被并发的删除操作清理
+                if (attempt >= COMMIT_RETRIES || !Files.exists(temp)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public List<FileBasicInfo> listObjects(ListObjectsArgs args) {
+        try (Stream<FileBasicInfo> stream = listObjectsStream(args)) {
+            return stream.collect(toList());
+        }
+    }
+
+    @Override
+    public Stream<FileBasicInfo> listObjectsStream(ListObjectsArgs args) {
+        String prefix = args.getPrefix();
+        String delimiter = args.getDelimiter();
+        // 非递归且分隔符为"/"时不进入子目录, 其他分隔符需要遍历所有文件后按分隔符过滤
+        boolean descend = args.isRecursive() || !DELIMITER.equals(delimiter);
+        boolean filter = !args.isRecursive() && !DELIMITER.equals(delimiter);
+        Walker walker = new Walker(bucketPath(args.getBucketName()), prefix, descend, null);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(walker, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .filter(entry -> !entry.isDirectory())
+                .filter(entry -> !filter || !entry.key.substring(prefix.length()).contains(delimiter))
+                .map(entry -> toFileBasicInfo(entry, args));
+    }
+
+    @Override
+    public FolderListing listFolder(ListObjectsArgs args) {
+        if (!DELIMITER.equals(args.getDelimiter())) {
+            return Client.super.listFolder(args);
+        }
+        return listFolderPage(args.toBuilder().maxKeys(Integer.MAX_VALUE).build());
+    }
+
+    @Override
+    public FolderListing listFolderPage(ListObjectsArgs args) {
+        if (!DELIMITER.equals(args.getDelimiter())) {
+            return Client.super.listFolderPage(args);
+        }
+        FolderListing listing = new FolderListing();
+        listing.setBucketName(args.getBucketName());
+        listing.setPrefix(args.getPrefix());
+        try {
+            // 子目录即为公共前缀, 续传标记为上一页的最后一个对象名称或前缀
+            Walker walker = new Walker(bucketPath(args.getBucketName()), args.getPrefix(), false, args.getContinuationToken());
+            int maxKeys = Math.max(1, args.getMaxKeys());
+            String last = null;
+            for (int count = 0; count < maxKeys && walker.hasNext(); count++) {
+                Entry entry = walker.next();
+                if (entry.isDirectory()) {
+                    listing.getFolders().add(entry.key);
+                } else {
+                    listing.getObjects().add(toFileBasicInfo(entry, args));
+                }
+                last = entry.key;
+            }
+            listing.setTruncated(walker.hasNext());
+            listing.setNextContinuationToken(listing.isTruncated() ? last : null);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+        return listing;
+    }
+
+    private static FileBasicInfo toFileBasicInfo(Entry entry, BucketArgs args) {
+        S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setBucketName(args.getBucketName());
+        summary.setKey(entry.key);
+        summary.setSize(entry.attrs.size());
+        summary.setLastModified(new Date(entry.attrs.lastModifiedTime().toMillis()));
+        summary.setETag(etagOf(entry.attrs));
+        return StorageUtil.createFileBasicInfo(summary, args);
+    }
+
+    @Override
+    public FileBasicInfo getObjectMetadata(ObjectMetadataArgs args) {
+        try {
+            BasicFileAttributes attrs = attributes(args, objectPath(args.getBucketName(), args.getObjectName()));
+            Properties properties = readMetadata(args.getBucketName(), args.getObjectName());
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(attrs.size());
+            metadata.setLastModified(new Date(attrs.lastModifiedTime().toMillis()));
+            metadata.setHeader(Headers.ETAG, etagOf(attrs));
+            metadata.setContentType(properties.getProperty(Headers.CONTENT_TYPE, defaultContentType(args.getObjectName())));
+            for (String name : properties.stringPropertyNames()) {
+                if (name.startsWith(Headers.S3_USER_METADATA_PREFIX)) {
+                    metadata.addUserMetadata(name.substring(Headers.S3_USER_METADATA_PREFIX.length()), properties.getProperty(name));
+                }
+            }
+            return StorageUtil.createFileBasicInfo(metadata, args);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public boolean objectExist(DoesObjectExistArgs args) {
+        try {
+            return Files.isRegularFile(objectPath(args.getBucketName(), args.getObjectName()));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 读取对象属性, 对象不存在或是目录时抛出对象不存在异常
+     *
+     * @param args 参数
+     * @param path 对象路径
+     * @return 文件属性
+     * @throws IOException 读取失败
+     */
+    private static BasicFileAttributes attributes(ObjectArgs args, Path path) throws IOException {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attrs.isRegularFile()) {
+                return attrs;
+            }
+        } catch (NoSuchFileException e) {
+            // 与目录一样按对象不存在处理
+        }
+        throw objectNotExist(args);
+    }
+
+    private static FileChannel openRead(ObjectArgs args, Path path) throws IOException {
+        attributes(args, path);
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw objectNotExist(args);
+        }
+    }
+
+    private static StorageException objectNotExist(ObjectArgs args) {
+        return new StorageException("opcooc-storage - bucket name: [%s], object name [%s] does not exist", args.getBucketName(), args.getObjectName());
+    }
+
+    @Override
+    public InputStream getObjectToStream(GetObjectToStreamArgs args) {
+        try {
+            // 本地文件由操作系统的页缓存预读, 忽略 readAhead
+            FileChannel channel = openRead(args, objectPath(args.getBucketName(), args.getObjectName()));
+            try {
+                long size = channel.size();
+                long start;
+                long end;
+                if (args.getSuffixLength() >= 0) {
+                    start = Math.max(0, size - args.getSuffixLength());
+                    end = size;
+                } else {
+                    start = Math.min(args.getOffset(), size);
+                    end = args.getLength() >= 0 ? Math.min(size, start + args.getLength()) : size;
+                }
+                if (start >= end) {
+                    channel.close();
+                    return new ByteArrayInputStream(new byte[0]);
+                }
+                return new ChannelRegionInputStream(channel, start, end - start);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public SeekableByteChannel openChannel(OpenChannelArgs args) {
+        try {
+            return openRead(args, objectPath(args.getBucketName(), args.getObjectName()));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public List<ByteBuffer> readVectored(ReadVectoredArgs args) {
+        try (FileChannel channel = openRead(args, objectPath(args.getBucketName(), args.getObjectName()))) {
+            List<ByteBuffer> buffers = new ArrayList<>(args.getRanges().size());
+            for (ByteRange range : args.getRanges()) {
+                ByteBuffer buffer = ByteBuffer.allocate(range.getLength());
+                long position = range.getOffset();
+                int n;
+                while (buffer.hasRemaining() && (n = channel.read(buffer, position)) >= 0) {
+                    position += n;
+                }
+                buffer.flip();
+                buffers.add(buffer);
+            }
+            return buffers;
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public File geObjectToFile(GetObjectToFileArgs args) {
+        try {
+            download(args, args.getFile().toPath());
+            return args.getFile();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public Path getObjectToPath(GetObjectToPathArgs args) {
+        Path path = Paths.get(args.getPath());
+        try {
+            download(args, path);
+            return path;
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 复制对象到文件, 先写入目标文件旁的临时文件, 完成后替换目标文件
+     *
+     * @param args   参数
+     * @param target 目标文件
+     * @throws IOException 读写失败
+     */
+    private void download(ObjectArgs args, Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ParallelDownloader.TEMP_SUFFIX);
+        try (FileChannel in = openRead(args, objectPath(args.getBucketName(), args.getObjectName()))) {
+            Path parent = target.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                transfer(in, 0, in.size(), out);
+            }
+            move(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void deleteObject(DeleteObjectArgs args) {
+        try {
+            delete(args.getBucketName(), args.getObjectName());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public DeleteResult deleteObjects(DeleteObjectsArgs args) {
+        DeleteResult result = new DeleteResult();
+        result.setBucketName(args.getBucketName());
+        for (String objectName : args.getObjects()) {
+            try {
+                delete(args.getBucketName(), objectName);
+                result.setDeletedCount(result.getDeletedCount() + 1);
+                if (args.isReportDeletedKeys()) {
+                    result.getDeletedKeys().add(objectName);
+                }
+            } catch (Exception e) {
+                result.getErrors().add(new DeleteError(objectName, null, e.getClass().getSimpleName(), e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 删除对象及其元数据文件, 并清理删除后为空的上级目录, 对象不存在时不做处理
+     *
+     * @param bucketName 存储空间(主目录)名称
+     * @param objectName 对象名称
+     * @throws IOException 删除失败
+     */
+    private void delete(String bucketName, String objectName) throws IOException {
+        Path path = objectPath(bucketName, objectName);
+        if (Files.isDirectory(path)) {
+            // 只有空目录(createFolder 创建的目录)可以作为对象删除
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+                if (entries.iterator().hasNext()) {
+                    return;
+                }
+            }
+        }
+        Path metadata = metadataPath(bucketName, objectName);
+        Files.deleteIfExists(metadata);
+        if (Files.deleteIfExists(path)) {
+            prune(path.getParent(), bucketPath(bucketName));
+            prune(metadata.getParent(), metadataDir.resolve(bucketName));
+        }
+    }
+
+    /**
+     * 自下而上删除空目录, 直到遇到非空目录或终止目录
+     *
+     * @param dir  起始目录
+     * @param stop 终止目录(不删除)
+     */
+    private static void prune(Path dir, Path stop) {
+        while (dir != null && !dir.equals(stop) && dir.startsWith(stop)) {
+            try {
+                Files.delete(dir);
+            } catch (IOException e) {
+                // 目录非空或已被删除
+                return;
+            }
+            dir = dir.getParent();
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) stream.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Override
+    public String generatePresignedUrl(GetPresignedObjectUrlArgs args) {
+        throw unsupported("generatePresignedUrl");
+    }
+
+    @Override
+    public String getUrl(GetUrlArgs args) {
+        try {
+            return objectPath(args.getBucketName(), args.getObjectName()).toUri().toString();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 存储空间(主目录)对应的目录, 名称不能包含路径分隔符, 不能以"."开头(与临时文件目录、元数据目录区分)
+     *
+     * @param bucketName 存储空间(主目录)名称
+     * @return 目录
+     */
+    private Path bucketPath(String bucketName) {
+        if (bucketName == null || bucketName.isEmpty() || bucketName.startsWith(".")
+                || bucketName.contains(DELIMITER) || bucketName.contains("\\")) {
+            throw new StorageException("opcooc-storage - invalid bucket name [%s] for the local client driver", bucketName);
+        }
+        return root.resolve(bucketName);
+    }
+
+    /**
+     * 对象对应的文件, 规范化后必须位于存储空间目录下(拒绝"../"等路径穿越)
+     *
+     * @param bucketName 存储空间(主目录)名称
+     * @param objectName 对象名称
+     * @return 文件
+     */
+    private Path objectPath(String bucketName, String objectName) {
+        Path bucket = bucketPath(bucketName);
+        Path path = bucket.resolve(objectName).normalize();
+        if (!path.startsWith(bucket) || path.equals(bucket)) {
+            throw new StorageException("opcooc-storage - bucket name: [%s], invalid object name [%s]", bucketName, objectName);
+        }
+        return path;
+    }
+
+    private Path metadataPath(String bucketName, String objectName) {
+        Path bucket = metadataDir.resolve(bucketName);
+        Path path = bucket.resolve(objectName + METADATA_SUFFIX).normalize();
+        if (!path.startsWith(bucket)) {
+            throw new StorageException("opcooc-storage - bucket name: [%s], invalid object name [%s]", bucketName, objectName);
+        }
+        return path;
+    }
+
+    private Properties readMetadata(String bucketName, String objectName) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(metadataPath(bucketName, objectName), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            // 没有元数据文件, 使用推断的 Content-Type
+        }
+        return properties;
+    }
+
+    private void writeMetadata(String bucketName, String objectName, Properties properties) throws IOException {
+        Path path = metadataPath(bucketName, objectName);
+        if (properties.isEmpty()) {
+            Files.deleteIfExists(path);
+            return;
+        }
+        Path temp = createTempFile();
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            commit(temp, path);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 需要写入元数据文件的内容, Content-Type 与按对象名称推断的结果相同时不需要元数据文件
+     *
+     * @param args 参数
+     * @return 元数据
+     */
+    private static Properties contentMetadata(ObjectArgs args) {
+        Properties properties = new Properties();
+        String contentType = args.getContentType();
+        if (!contentType.equals(defaultContentType(args.getObjectName()))) {
+            properties.setProperty(Headers.CONTENT_TYPE, contentType);
+        }
+        return properties;
+    }
+
+    private static String defaultContentType(String objectName) {
+        String contentType = ContentTypeUtils.getContentType(objectName);
+        return contentType != null && !contentType.isEmpty() ? contentType : ContentTypeUtils.DEFAULT_CONTENT_TYPE;
+    }
+
+    /**
+     * 由文件大小、修改时间及文件标识生成 ETag(弱校验值), 原子替换后文件标识及修改时间都会变化
+     *
+     * @param attrs 文件属性
+     * @return ETag
+     */
+    private static String etagOf(BasicFileAttributes attrs) {
+        Object fileKey = attrs.fileKey();
+        return Long.toHexString(attrs.size()) + "-" + Long.toHexString(attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS))
+                + (fileKey != null ? "-" + Integer.toHexString(fileKey.hashCode()) : "");
+    }
+
+    private static StorageException unsupported(String operation) {
+        return new StorageException("opcooc-storage - [%s] is not supported by the local client driver", operation);
+    }
+
+    /**
+     * 临时文件的写入
+     */
+    @FunctionalInterface
+    private interface TempFileWriter {
+
+        void write(Path temp) throws IOException;
+    }
+
+    /**
+     * 读取文件区间的输入流, 关闭时同时关闭文件通道
+     */
+    private static final class ChannelRegionInputStream extends FileRegionInputStream {
+
+        private final FileChannel channel;
+
+        private ChannelRegionInputStream(FileChannel channel, long position, long length) {
+            super(channel, position, length);
+            this.channel = channel;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("opcooc-storage - close file channel failed", e);
+            }
+        }
+    }
+
+    /**
+     * 目录遍历中的一项(文件或子目录), 子目录的名称以"/"结尾
+     */
+    private static final class Entry {
+
+        private final String key;
+
+        private final Path path;
+
+        private final BasicFileAttributes attrs;
+
+        private Entry(String key, Path path, BasicFileAttributes attrs) {
+            this.key = key;
+            this.path = path;
+            this.attrs = attrs;
+        }
+
+        private boolean isDirectory() {
+            return attrs.isDirectory();
+        }
+    }
+
+    /**
+     * 按对象名称字典序惰性遍历存储空间目录
+     * 1.每个目录的内容在进入时读取并排序, 子目录按"名称/"参与排序, 深度优先遍历的结果即为全局字典序
+     * 2.前缀拆分为起始目录及名称前缀, 只读取前缀所在的目录
+     * 3.续传标记之前的文件及整个子目录直接跳过, 不进入
+     * 4.不进入子目录时, 子目录作为一项返回(对应公共前缀)
+     */
+    private static final class Walker implements Iterator<Entry> {
+
+        private final boolean descend;
+
+        private final String startAfter;
+
+        private final Deque<Iterator<Entry>> stack = new ArrayDeque<>();
+
+        private Entry next;
+
+        private Walker(Path bucket, String prefix, boolean descend, String startAfter) {
+            this.descend = descend;
+            this.startAfter = startAfter;
+            String base = prefix.substring(0, prefix.lastIndexOf('/') + 1);
+            Path dir = bucket.resolve(base).normalize();
+            if (dir.startsWith(bucket)) {
+                stack.push(list(dir, base, prefix));
+            }
+        }
+
+        private Iterator<Entry> list(Path dir, String keyPrefix, String prefix) {
+            List<Entry> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path path : stream) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        // 遍历过程中被删除
+                        continue;
+                    }
+                    String key = keyPrefix + path.getFileName() + (attrs.isDirectory() ? DELIMITER : "");
+                    if (key.startsWith(prefix) && !skip(key, attrs.isDirectory())) {
+                        entries.add(new Entry(key, path, attrs));
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                return Collections.emptyIterator();
+            } catch (IOException e) {
+                throw new StorageException("opcooc-storage - list directory [%s] failed", e, dir);
+            }
+            entries.sort(Comparator.comparing(entry -> entry.key));
+            return entries.iterator();
+        }
+
+        /**
+         * 是否跳过续传标记之前的项, 续传标记位于子目录内时需要进入子目录
+         */
+        private boolean skip(String key, boolean directory) {
+            if (startAfter == null) {
+                return false;
+            }
+            if (directory && descend) {
+                return key.compareTo(startAfter) < 0 && !startAfter.startsWith(key);
+            }
+            return key.compareTo(startAfter) <= 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !stack.isEmpty()) {
+                Iterator<Entry> entries = stack.peek();
+                if (!entries.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                Entry entry = entries.next();
+                if (entry.isDirectory() && descend) {
+                    stack.push(list(entry.path, entry.key, entry.key));
+                    continue;
+                }
+                next = entry;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry entry = next;
+            next = null;
+            return entry;
+        }
+    }
+}
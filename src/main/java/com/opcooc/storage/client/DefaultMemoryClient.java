@@ -0,0 +1,772 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.client;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AccessControlList;
+import com.amazonaws.services.s3.model.BucketPolicy;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CanonicalGrantee;
+import com.amazonaws.services.s3.model.GroupGrantee;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.Owner;
+import com.amazonaws.services.s3.model.Permission;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+import com.opcooc.storage.args.BucketArgs;
+import com.opcooc.storage.args.CopyObjectArgs;
+import com.opcooc.storage.args.CopySource;
+import com.opcooc.storage.args.CreateBucketArgs;
+import com.opcooc.storage.args.DeleteBucketArgs;
+import com.opcooc.storage.args.DeleteBucketPolicyArgs;
+import com.opcooc.storage.args.DeleteObjectArgs;
+import com.opcooc.storage.args.DeleteObjectsArgs;
+import com.opcooc.storage.args.DeletePrefixArgs;
+import com.opcooc.storage.args.DoesBucketExistArgs;
+import com.opcooc.storage.args.DoesObjectExistArgs;
+import com.opcooc.storage.args.GetBucketAclArgs;
+import com.opcooc.storage.args.GetBucketPolicyArgs;
+import com.opcooc.storage.args.GetObjectAclArgs;
+import com.opcooc.storage.args.GetObjectToFileArgs;
+import com.opcooc.storage.args.GetObjectToPathArgs;
+import com.opcooc.storage.args.GetObjectToStreamArgs;
+import com.opcooc.storage.args.GetPresignedObjectUrlArgs;
+import com.opcooc.storage.args.GetUrlArgs;
+import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.args.ObjectArgs;
+import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.OpenChannelArgs;
+import com.opcooc.storage.args.OpenOutputStreamArgs;
+import com.opcooc.storage.args.ReadVectoredArgs;
+import com.opcooc.storage.args.SetBucketAclArgs;
+import com.opcooc.storage.args.SetBucketPolicyArgs;
+import com.opcooc.storage.args.SetFolderArgs;
+import com.opcooc.storage.args.SetObjectAclArgs;
+import com.opcooc.storage.args.UploadFileArgs;
+import com.opcooc.storage.args.UploadObjectArgs;
+import com.opcooc.storage.args.UploadUrlArgs;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.ByteRange;
+import com.opcooc.storage.model.DeleteResult;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.model.FolderListing;
+import com.opcooc.storage.toolkit.ContentTypeUtils;
+import com.opcooc.storage.toolkit.HttpUtils;
+import com.opcooc.storage.toolkit.StorageUtil;
+import com.opcooc.storage.transfer.ParallelDownloader;
+
+/**
+ * 内存客户端, 用于测试及基准测试
+ * 1.存储空间(主目录)及对象保存在并发有序映射中, 对象内容不可变, 覆盖写入时整体替换
+ * 2.ETag 为内容的 MD5(十六进制), 与 S3 单次上传的 ETag 一致
+ * 3.分页获取目录时按 S3 的规则合并公共前缀, 续传标记为上一页的最后一个对象名称或公共前缀
+ * 4.每次调用(分页获取时每页)可以附加固定的模拟延迟, 用于模拟网络往返
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class DefaultMemoryClient implements Client {
+
+    private static final String URL_PREFIX = "memory://";
+
+    private static final Owner OWNER = new Owner("memory", "memory");
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ConcurrentSkipListMap<String, MemoryBucket> buckets = new ConcurrentSkipListMap<>();
+
+    private final long latencyNanos;
+
+    /**
+     * @param latency 每次调用的模拟延迟, 为null或0时不延迟
+     */
+    public DefaultMemoryClient(Duration latency) {
+        this.latencyNanos = latency == null ? 0 : latency.toNanos();
+    }
+
+    /**
+     * 清空所有存储空间(主目录)及对象
+     */
+    public void clear() {
+        buckets.clear();
+    }
+
+    @Override
+    public void createFolder(SetFolderArgs args) {
+        delay();
+        put(args.getBucketName(), args.getFolderName(), EMPTY, ContentTypeUtils.DEFAULT_CONTENT_TYPE, Collections.emptyMap());
+    }
+
+    @Override
+    public void setBucketAcl(SetBucketAclArgs args) {
+        delay();
+        bucket(args.getBucketName()).acl = args.getCannedAcl();
+    }
+
+    @Override
+    public AccessControlList getBucketAcl(GetBucketAclArgs args) {
+        delay();
+        return toAcl(bucket(args.getBucketName()).acl);
+    }
+
+    @Override
+    public void setBucketPolicy(SetBucketPolicyArgs args) {
+        delay();
+        bucket(args.getBucketName()).policy = args.getPolicyText();
+    }
+
+    @Override
+    public BucketPolicy getBucketPolicy(GetBucketPolicyArgs args) {
+        delay();
+        BucketPolicy policy = new BucketPolicy();
+        policy.setPolicyText(bucket(args.getBucketName()).policy);
+        return policy;
+    }
+
+    @Override
+    public void deleteBucketPolicy(DeleteBucketPolicyArgs args) {
+        delay();
+        bucket(args.getBucketName()).policy = null;
+    }
+
+    @Override
+    public String createBucket(CreateBucketArgs args) {
+        delay();
+        buckets.putIfAbsent(args.getBucketName(), new MemoryBucket());
+        return args.getBucketName();
+    }
+
+    @Override
+    public void deleteBucket(DeleteBucketArgs args) {
+        delay();
+        if (buckets.remove(args.getBucketName()) == null) {
+            throw bucketNotExist(args.getBucketName());
+        }
+    }
+
+    @Override
+    public List<String> listBuckets() {
+        delay();
+        return new ArrayList<>(buckets.keySet());
+    }
+
+    @Override
+    public boolean doesBucketExist(DoesBucketExistArgs args) {
+        delay();
+        return buckets.containsKey(args.getBucketName());
+    }
+
+    @Override
+    public void setObjectAcl(SetObjectAclArgs args) {
+        delay();
+        MemoryObject object = bucket(args.getBucketName()).objects.computeIfPresent(args.getObjectName(),
+                (key, current) -> current.withAcl(args.getCannedAcl()));
+        if (object == null) {
+            throw objectNotExist(args.getBucketName(), args.getObjectName());
+        }
+    }
+
+    @Override
+    public AccessControlList getObjectAcl(GetObjectAclArgs args) {
+        delay();
+        return toAcl(object(args.getBucketName(), args.getObjectName()).acl);
+    }
+
+    @Override
+    public FileBasicInfo uploadObject(UploadObjectArgs args) {
+        delay();
+        try {
+            byte[] data = readBytes(args.getStream(), args.getObjectSize(), args.getObjectName());
+            Map<String, String> userMetadata = args.getUserMetadata() == null ? Collections.emptyMap() : new TreeMap<>(args.getUserMetadata());
+            MemoryObject object = put(args.getBucketName(), args.getObjectName(), data, args.getContentType(), userMetadata);
+            return StorageUtil.createFileBasicInfo(object.eTag, args, (long) data.length);
+        } catch (IOException e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public FileBasicInfo uploadFile(UploadFileArgs args) {
+        delay();
+        try {
+            return put(args, Files.readAllBytes(args.getFile().toPath()));
+        } catch (IOException e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public FileBasicInfo uploadUrl(UploadUrlArgs args) {
+        delay();
+        try {
+            File file = args.getFile();
+            if (file != null) {
+                HttpUtils.downloadToFile(args.getUrl(), file);
+                return put(args, Files.readAllBytes(file.toPath()));
+            }
+            HttpURLConnection connection = HttpUtils.openStream(args.getUrl());
+            try (InputStream stream = connection.getInputStream()) {
+                return put(args, readBytes(stream, connection.getContentLengthLong(), args.getObjectName()));
+            } finally {
+                connection.disconnect();
+            }
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public OutputStream openOutputStream(OpenOutputStreamArgs args) {
+        delay();
+        bucket(args.getBucketName());
+        return new MemoryOutputStream(args);
+    }
+
+    @Override
+    public void copyObject(CopyObjectArgs args) {
+        delay();
+        CopySource source = args.getSource();
+        MemoryObject object = object(source.getBucketName(), source.getObjectName());
+        // 对象内容不可变, 复制时共享同一份数据
+        bucket(args.getBucketName()).objects.put(args.getObjectName(),
+                new MemoryObject(object.data, object.eTag, object.contentType, System.currentTimeMillis(), object.userMetadata, null));
+    }
+
+    private FileBasicInfo put(ObjectArgs args, byte[] data) {
+        MemoryObject object = put(args.getBucketName(), args.getObjectName(), data, args.getContentType(), Collections.emptyMap());
+        return StorageUtil.createFileBasicInfo(object.eTag, args, (long) data.length);
+    }
+
+    private MemoryObject put(String bucketName, String objectName, byte[] data, String contentType, Map<String, String> userMetadata) {
+        MemoryObject object = new MemoryObject(data, BinaryUtils.toHex(Md5Utils.computeMD5Hash(data)), contentType,
+                System.currentTimeMillis(), userMetadata, null);
+        bucket(bucketName).objects.put(objectName, object);
+        return object;
+    }
+
+    /**
+     * 读取流的内容, 大小已知时只读取声明的长度
+     *
+     * @param stream     输入流
+     * @param size       流的长度, 未知时小于等于0
+     * @param objectName 对象名称
+     * @return 内容
+     * @throws IOException 读取失败
+     */
+    private static byte[] readBytes(InputStream stream, long size, String objectName) throws IOException {
+        if (size <= 0) {
+            return stream.readAllBytes();
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new StorageException("opcooc-storage - object name: [%s], size [%s] is too large for the memory client driver", objectName, size);
+        }
+        byte[] data = stream.readNBytes((int) size);
+        if (data.length < size) {
+            throw new StorageException("opcooc-storage - object name: [%s], stream ended before the declared size [%s]", objectName, size);
+        }
+        return data;
+    }
+
+    @Override
+    public List<FileBasicInfo> listObjects(ListObjectsArgs args) {
+        try (Stream<FileBasicInfo> stream = listObjectsStream(args)) {
+            return stream.collect(toList());
+        }
+    }
+
+    @Override
+    public Stream<FileBasicInfo> listObjectsStream(ListObjectsArgs args) {
+        delay();
+        String prefix = args.getPrefix();
+        String delimiter = args.getDelimiter();
+        return bucket(args.getBucketName()).objects.tailMap(prefix, true).entrySet().stream()
+                .takeWhile(entry -> entry.getKey().startsWith(prefix))
+                .filter(entry -> args.isRecursive() || entry.getKey().indexOf(delimiter, prefix.length()) < 0)
+                .map(entry -> toFileBasicInfo(entry.getKey(), entry.getValue(), args));
+    }
+
+    @Override
+    public FolderListing listFolder(ListObjectsArgs args) {
+        FolderListing listing = new FolderListing();
+        listing.setBucketName(args.getBucketName());
+        listing.setPrefix(args.getPrefix());
+        FolderListing page;
+        String token = args.getContinuationToken();
+        do {
+            page = listFolderPage(args.toBuilder().continuationToken(token).build());
+            listing.getObjects().addAll(page.getObjects());
+            listing.getFolders().addAll(page.getFolders());
+            token = page.getNextContinuationToken();
+        } while (page.isTruncated());
+        return listing;
+    }
+
+    @Override
+    public FolderListing listFolderPage(ListObjectsArgs args) {
+        delay();
+        ConcurrentNavigableMap<String, MemoryObject> objects = bucket(args.getBucketName()).objects;
+        String prefix = args.getPrefix();
+        String delimiter = args.getDelimiter();
+        String token = args.getContinuationToken();
+        FolderListing listing = new FolderListing();
+        listing.setBucketName(args.getBucketName());
+        listing.setPrefix(prefix);
+        Map.Entry<String, MemoryObject> entry;
+        if (token == null || token.compareTo(prefix) < 0) {
+            entry = objects.ceilingEntry(prefix);
+        } else if (token.startsWith(prefix) && token.indexOf(delimiter, prefix.length()) >= 0) {
+            // 上一页以公共前缀结束, 跳过该前缀下的所有对象
+            entry = objects.ceilingEntry(successor(token));
+        } else {
+            entry = objects.higherEntry(token);
+        }
+        int maxKeys = Math.max(1, args.getMaxKeys());
+        int count = 0;
+        String last = null;
+        while (entry != null && entry.getKey().startsWith(prefix)) {
+            if (count == maxKeys) {
+                listing.setTruncated(true);
+                listing.setNextContinuationToken(last);
+                break;
+            }
+            String key = entry.getKey();
+            int index = key.indexOf(delimiter, prefix.length());
+            if (index >= 0) {
+                String folder = key.substring(0, index + delimiter.length());
+                listing.getFolders().add(folder);
+                last = folder;
+                entry = objects.ceilingEntry(successor(folder));
+            } else {
+                listing.getObjects().add(toFileBasicInfo(key, entry.getValue(), args));
+                last = key;
+                entry = objects.higherEntry(key);
+            }
+            count++;
+        }
+        return listing;
+    }
+
+    /**
+     * 大于所有以 prefix 开头的字符串的最小字符串
+     *
+     * @param prefix 前缀(不能为空)
+     * @return 后继字符串
+     */
+    private static String successor(String prefix) {
+        int last = prefix.length() - 1;
+        return prefix.substring(0, last) + (char) (prefix.charAt(last) + 1);
+    }
+
+    private static FileBasicInfo toFileBasicInfo(String key, MemoryObject object, BucketArgs args) {
+        S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setBucketName(args.getBucketName());
+        summary.setKey(key);
+        summary.setSize(object.data.length);
+        summary.setLastModified(new Date(object.lastModified));
+        summary.setETag(object.eTag);
+        return StorageUtil.createFileBasicInfo(summary, args);
+    }
+
+    @Override
+    public FileBasicInfo getObjectMetadata(ObjectMetadataArgs args) {
+        delay();
+        MemoryObject object = object(args.getBucketName(), args.getObjectName());
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(object.data.length);
+        metadata.setContentType(object.contentType);
+        metadata.setLastModified(new Date(object.lastModified));
+        metadata.setHeader(Headers.ETAG, object.eTag);
+        metadata.setUserMetadata(object.userMetadata);
+        return StorageUtil.createFileBasicInfo(metadata, args);
+    }
+
+    @Override
+    public boolean objectExist(DoesObjectExistArgs args) {
+        delay();
+        MemoryBucket bucket = buckets.get(args.getBucketName());
+        return bucket != null && bucket.objects.containsKey(args.getObjectName());
+    }
+
+    @Override
+    public InputStream getObjectToStream(GetObjectToStreamArgs args) {
+        delay();
+        byte[] data = object(args.getBucketName(), args.getObjectName()).data;
+        int start;
+        int end;
+        if (args.getSuffixLength() >= 0) {
+            start = (int) Math.max(0, data.length - args.getSuffixLength());
+            end = data.length;
+        } else {
+            start = (int) Math.min(args.getOffset(), data.length);
+            end = args.getLength() >= 0 ? (int) Math.min(data.length, start + args.getLength()) : data.length;
+        }
+        return new ByteArrayInputStream(data, start, Math.max(0, end - start));
+    }
+
+    @Override
+    public SeekableByteChannel openChannel(OpenChannelArgs args) {
+        delay();
+        return new MemoryChannel(object(args.getBucketName(), args.getObjectName()).data);
+    }
+
+    @Override
+    public List<ByteBuffer> readVectored(ReadVectoredArgs args) {
+        delay();
+        byte[] data = object(args.getBucketName(), args.getObjectName()).data;
+        List<ByteBuffer> buffers = new ArrayList<>(args.getRanges().size());
+        for (ByteRange range : args.getRanges()) {
+            int start = (int) Math.min(range.getOffset(), data.length);
+            int end = (int) Math.min(data.length, range.getOffset() + range.getLength());
+            // 返回副本, 调用方修改缓冲区不影响对象内容
+            buffers.add(ByteBuffer.wrap(Arrays.copyOfRange(data, start, Math.max(start, end))));
+        }
+        return buffers;
+    }
+
+    @Override
+    public File geObjectToFile(GetObjectToFileArgs args) {
+        delay();
+        download(args, args.getFile().toPath());
+        return args.getFile();
+    }
+
+    @Override
+    public Path getObjectToPath(GetObjectToPathArgs args) {
+        delay();
+        Path path = Paths.get(args.getPath());
+        download(args, path);
+        return path;
+    }
+
+    private void download(ObjectArgs args, Path target) {
+        byte[] data = object(args.getBucketName(), args.getObjectName()).data;
+        Path temp = target.resolveSibling(target.getFileName() + ParallelDownloader.TEMP_SUFFIX);
+        try {
+            Path parent = target.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(temp, data);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new StorageException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                // 临时文件已被移动或无法删除, 不影响结果
+            }
+        }
+    }
+
+    @Override
+    public void deleteObject(DeleteObjectArgs args) {
+        delay();
+        bucket(args.getBucketName()).objects.remove(args.getObjectName());
+    }
+
+    @Override
+    public DeleteResult deleteObjects(DeleteObjectsArgs args) {
+        delay();
+        MemoryBucket bucket = bucket(args.getBucketName());
+        // 与 S3 一致, 不存在的对象也按删除成功计数
+        for (String objectName : args.getObjects()) {
+            bucket.objects.remove(objectName);
+        }
+        DeleteResult result = new DeleteResult();
+        result.setBucketName(args.getBucketName());
+        result.setDeletedCount(args.getObjects().size());
+        if (args.isReportDeletedKeys()) {
+            result.getDeletedKeys().addAll(args.getObjects());
+        }
+        return result;
+    }
+
+    @Override
+    public DeleteResult deletePrefix(DeletePrefixArgs args) {
+        delay();
+        String prefix = args.getPrefix() == null ? "" : args.getPrefix();
+        Iterator<String> keys = bucket(args.getBucketName()).objects.tailMap(prefix, true).keySet().iterator();
+        DeleteResult result = new DeleteResult();
+        long count = 0;
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            keys.remove();
+            count++;
+            if (args.isReportDeletedKeys()) {
+                result.getDeletedKeys().add(key);
+            }
+        }
+        result.setBucketName(args.getBucketName());
+        result.setDeletedCount(count);
+        return result;
+    }
+
+    @Override
+    public String generatePresignedUrl(GetPresignedObjectUrlArgs args) {
+        delay();
+        long expires = System.currentTimeMillis() / 1000 + TimeUnit.MINUTES.toSeconds(args.getExpiry());
+        return url(args.getBucketName(), args.getObjectName()) + "?method=" + args.getMethod() + "&expires=" + expires;
+    }
+
+    @Override
+    public String getUrl(GetUrlArgs args) {
+        return url(args.getBucketName(), args.getObjectName());
+    }
+
+    private static String url(String bucketName, String objectName) {
+        return URL_PREFIX + bucketName + "/" + objectName;
+    }
+
+    private MemoryBucket bucket(String bucketName) {
+        MemoryBucket bucket = buckets.get(bucketName);
+        if (bucket == null) {
+            throw bucketNotExist(bucketName);
+        }
+        return bucket;
+    }
+
+    private MemoryObject object(String bucketName, String objectName) {
+        MemoryObject object = bucket(bucketName).objects.get(objectName);
+        if (object == null) {
+            throw objectNotExist(bucketName, objectName);
+        }
+        return object;
+    }
+
+    private static StorageException bucketNotExist(String bucketName) {
+        return new StorageException("opcooc-storage - bucket name: [%s] does not exist", bucketName);
+    }
+
+    private static StorageException objectNotExist(String bucketName, String objectName) {
+        return new StorageException("opcooc-storage - bucket name: [%s], object name [%s] does not exist", bucketName, objectName);
+    }
+
+    private static AccessControlList toAcl(CannedAccessControlList cannedAcl) {
+        AccessControlList acl = new AccessControlList();
+        acl.setOwner(OWNER);
+        acl.grantPermission(new CanonicalGrantee(OWNER.getId()), Permission.FullControl);
+        if (cannedAcl == CannedAccessControlList.PublicRead || cannedAcl == CannedAccessControlList.PublicReadWrite) {
+            acl.grantPermission(GroupGrantee.AllUsers, Permission.Read);
+        }
+        if (cannedAcl == CannedAccessControlList.PublicReadWrite) {
+            acl.grantPermission(GroupGrantee.AllUsers, Permission.Write);
+        }
+        if (cannedAcl == CannedAccessControlList.AuthenticatedRead) {
+            acl.grantPermission(GroupGrantee.AuthenticatedUsers, Permission.Read);
+        }
+        return acl;
+    }
+
+    /**
+     * 模拟一次网络往返
+     */
+    private void delay() {
+        if (latencyNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(latencyNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("opcooc-storage - memory client interrupted", e);
+        }
+    }
+
+    /**
+     * 存储空间(主目录)
+     */
+    private static final class MemoryBucket {
+
+        private final ConcurrentSkipListMap<String, MemoryObject> objects = new ConcurrentSkipListMap<>();
+
+        private volatile CannedAccessControlList acl;
+
+        private volatile String policy;
+    }
+
+    /**
+     * 对象(不可变)
+     */
+    private static final class MemoryObject {
+
+        private final byte[] data;
+
+        private final String eTag;
+
+        private final String contentType;
+
+        private final long lastModified;
+
+        private final Map<String, String> userMetadata;
+
+        private final CannedAccessControlList acl;
+
+        private MemoryObject(byte[] data, String eTag, String contentType, long lastModified,
+                             Map<String, String> userMetadata, CannedAccessControlList acl) {
+            this.data = data;
+            this.eTag = eTag;
+            this.contentType = contentType;
+            this.lastModified = lastModified;
+            this.userMetadata = userMetadata;
+            this.acl = acl;
+        }
+
+        private MemoryObject withAcl(CannedAccessControlList acl) {
+            return new MemoryObject(data, eTag, contentType, lastModified, userMetadata, acl);
+        }
+    }
+
+    /**
+     * 写入内存的输出流, 关闭时作为一个对象提交
+     */
+    private final class MemoryOutputStream extends ByteArrayOutputStream {
+
+        private final ObjectArgs args;
+
+        private boolean closed;
+
+        private MemoryOutputStream(ObjectArgs args) {
+            this.args = args;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            delay();
+            put(args, toByteArray());
+        }
+    }
+
+    /**
+     * 对象内容的只读通道, 打开后对象被覆盖不影响读取
+     */
+    private static final class MemoryChannel implements SeekableByteChannel {
+
+        private final byte[] data;
+
+        private long position;
+
+        private boolean open = true;
+
+        private MemoryChannel(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            ensureOpen();
+            if (position >= data.length) {
+                return -1;
+            }
+            int n = (int) Math.min(dst.remaining(), data.length - position);
+            dst.put(data, (int) position, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            ensureOpen();
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException {
+            ensureOpen();
+            if (newPosition < 0) {
+                throw new IllegalArgumentException("position must not be negative");
+            }
+            position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            ensureOpen();
+            return data.length;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        private void ensureOpen() throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+        }
+    }
+}
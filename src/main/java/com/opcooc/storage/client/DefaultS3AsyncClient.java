@@ -0,0 +1,1433 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.client;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.amazonaws.HttpMethod;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AccessControlList;
+import com.amazonaws.services.s3.model.BucketPolicy;
+import com.amazonaws.services.s3.model.CanonicalGrantee;
+import com.amazonaws.services.s3.model.EmailAddressGrantee;
+import com.amazonaws.services.s3.model.GroupGrantee;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.Owner;
+import com.amazonaws.services.s3.model.Permission;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.opcooc.storage.args.CopyObjectArgs;
+import com.opcooc.storage.args.CopyPrefixArgs;
+import com.opcooc.storage.args.CopySource;
+import com.opcooc.storage.args.CreateBucketArgs;
+import com.opcooc.storage.args.DeleteBucketArgs;
+import com.opcooc.storage.args.DeleteBucketPolicyArgs;
+import com.opcooc.storage.args.DeleteObjectArgs;
+import com.opcooc.storage.args.DeleteObjectsArgs;
+import com.opcooc.storage.args.DeletePrefixArgs;
+import com.opcooc.storage.args.DoesBucketExistArgs;
+import com.opcooc.storage.args.DoesObjectExistArgs;
+import com.opcooc.storage.args.GetBucketAclArgs;
+import com.opcooc.storage.args.GetBucketPolicyArgs;
+import com.opcooc.storage.args.GetObjectAclArgs;
+import com.opcooc.storage.args.GetObjectToFileArgs;
+import com.opcooc.storage.args.GetObjectToStreamArgs;
+import com.opcooc.storage.args.GetPresignedObjectUrlArgs;
+import com.opcooc.storage.args.GetUrlArgs;
+import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.args.ObjectArgs;
+import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.OpenChannelArgs;
+import com.opcooc.storage.args.ReadVectoredArgs;
+import com.opcooc.storage.args.SetBucketAclArgs;
+import com.opcooc.storage.args.SetBucketPolicyArgs;
+import com.opcooc.storage.args.SetFolderArgs;
+import com.opcooc.storage.args.SetObjectAclArgs;
+import com.opcooc.storage.args.UploadFileArgs;
+import com.opcooc.storage.args.UploadObjectArgs;
+import com.opcooc.storage.args.UploadUrlArgs;
+import com.opcooc.storage.args.UploadUrlsArgs;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.io.InputStreamRequestBody;
+import com.opcooc.storage.io.PublisherInputStream;
+import com.opcooc.storage.io.RangeReader;
+import com.opcooc.storage.io.RangeSeekableByteChannel;
+import com.opcooc.storage.io.ReadAheadInputStream;
+import com.opcooc.storage.io.VectoredReader;
+import com.opcooc.storage.model.CopyPrefixResult;
+import com.opcooc.storage.model.DeleteError;
+import com.opcooc.storage.model.DeleteResult;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.model.FolderListing;
+import com.opcooc.storage.model.UploadUrlsResult;
+import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+import com.opcooc.storage.toolkit.ContentTypeUtils;
+import com.opcooc.storage.toolkit.HttpUtils;
+import com.opcooc.storage.toolkit.StorageUtil;
+import com.opcooc.storage.transfer.BulkDeleter;
+import com.opcooc.storage.transfer.MultipartUploadSession;
+import com.opcooc.storage.transfer.ParallelDownloader;
+import com.opcooc.storage.transfer.PrefixCopier;
+import com.opcooc.storage.transfer.UrlImporter;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.BucketCannedACL;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.Grant;
+import software.amazon.awssdk.services.s3.model.Grantee;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectVersionsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.utils.http.SdkHttpUtils;
+
+/**
+ * 基于 AWS SDK v2 S3AsyncClient 的客户端
+ * 1.对外仍是阻塞的 Client 接口, 单个请求在调用线程中等待结果
+ * 2.内部的扇出请求(批量删除, 分片上传/复制, 下一页预读)直接以 CompletableFuture 并发发送, 不占用线程
+ * 3.SDK v2 的模型转换为 v1 模型(ACL, 策略, 元数据), 与 DefaultS3Client 的返回值保持一致
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class DefaultS3AsyncClient implements Client {
+
+    /**
+     * 输入流请求体每次读取的块大小
+     */
+    private static final int STREAM_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * client
+     */
+    private final S3AsyncClient client;
+
+    /**
+     * 签名URL生成器
+     */
+    private final S3Presigner presigner;
+
+    /**
+     * 访问地址
+     */
+    private final URI endpoint;
+
+    /**
+     * 客户端驱动配置
+     */
+    private final ClientDriverProperty configuration;
+
+    /**
+     * 阻塞任务执行器(读取上传的输入流, 预读, 并发导入等)
+     */
+    private final ExecutorService executor;
+
+    public DefaultS3AsyncClient(S3AsyncClient client, S3Presigner presigner, URI endpoint,
+                                ClientDriverProperty configuration, ExecutorService executor) {
+        this.client = client;
+        this.presigner = presigner;
+        this.endpoint = endpoint;
+        this.configuration = configuration;
+        this.executor = executor;
+    }
+
+    @Override
+    public void createFolder(SetFolderArgs args) {
+        try {
+            join(client.putObject(b -> b.bucket(args.getBucketName()).key(args.getFolderName()).contentLength(0L),
+                    AsyncRequestBody.empty()));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void setBucketAcl(SetBucketAclArgs args) {
+        try {
+            join(client.putBucketAcl(b -> b.bucket(args.getBucketName()).acl(BucketCannedACL.fromValue(args.getCannedAcl().toString()))));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public AccessControlList getBucketAcl(GetBucketAclArgs args) {
+        try {
+            return join(client.getBucketAcl(b -> b.bucket(args.getBucketName())).thenApply(r -> toAcl(r.owner(), r.grants())));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void setBucketPolicy(SetBucketPolicyArgs args) {
+        try {
+            join(client.putBucketPolicy(b -> b.bucket(args.getBucketName()).policy(args.getPolicyText())));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public BucketPolicy getBucketPolicy(GetBucketPolicyArgs args) {
+        BucketPolicy policy = new BucketPolicy();
+        try {
+            policy.setPolicyText(join(client.getBucketPolicy(b -> b.bucket(args.getBucketName()))).policy());
+        } catch (Exception e) {
+            // 与 v1 一致, 未设置策略时返回空策略
+            if (statusCode(e) != HttpURLConnection.HTTP_NOT_FOUND || !"NoSuchBucketPolicy".equals(errorCode(e))) {
+                throw new StorageException(e);
+            }
+        }
+        return policy;
+    }
+
+    @Override
+    public void deleteBucketPolicy(DeleteBucketPolicyArgs args) {
+        try {
+            join(client.deleteBucketPolicy(b -> b.bucket(args.getBucketName())));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public String createBucket(CreateBucketArgs args) {
+        String region = configuration.getRegion();
+        try {
+            join(client.createBucket(b -> {
+                b.bucket(args.getBucketName());
+                // 与 v1 一致, us-east-1 以外的区域需要指定位置
+                if (StringUtils.hasText(region) && !"us-east-1".equals(region)) {
+                    b.createBucketConfiguration(c -> c.locationConstraint(region));
+                }
+            }));
+            return args.getBucketName();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void deleteBucket(DeleteBucketArgs args) {
+        try {
+            Deleter deleter = new Deleter(args.getBucketName());
+            deleter.abortMultipartUploads(null);
+            deleter.submitPrefix(null, true);
+            DeleteResult result = deleter.await();
+            if (!result.isSuccess()) {
+                throw new StorageException("opcooc-storage - bucket name: [%s], [%s] objects could not be deleted", args.getBucketName(), result.getErrors().size());
+            }
+            join(client.deleteBucket(b -> b.bucket(args.getBucketName())));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public List<String> listBuckets() {
+        try {
+            return join(client.listBuckets()).buckets().stream().map(software.amazon.awssdk.services.s3.model.Bucket::name).collect(toList());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public boolean doesBucketExist(DoesBucketExistArgs args) {
+        try {
+            join(client.headBucket(b -> b.bucket(args.getBucketName())));
+            return true;
+        } catch (Exception e) {
+            int status = statusCode(e);
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                return false;
+            }
+            // 与 v1 doesBucketExistV2 一致, 无权限访问时视为存在
+            if (status == HttpURLConnection.HTTP_FORBIDDEN) {
+                return true;
+            }
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void setObjectAcl(SetObjectAclArgs args) {
+        try {
+            join(client.putObjectAcl(b -> b.bucket(args.getBucketName()).key(args.getObjectName())
+                    .acl(ObjectCannedACL.fromValue(args.getCannedAcl().toString()))));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public AccessControlList getObjectAcl(GetObjectAclArgs args) {
+        try {
+            return join(client.getObjectAcl(b -> b.bucket(args.getBucketName()).key(args.getObjectName()))
+                    .thenApply(r -> toAcl(r.owner(), r.grants())));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public FileBasicInfo uploadObject(UploadObjectArgs args) {
+        try {
+            return putStream(args, args.getStream(), args.getObjectSize(), args.getUserMetadata());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 上传流
+     * 1.已知大小且小于分片阈值时一次上传, 请求体按需从流中读取
+     * 2.否则按分片读取到内存后并发上传, 同时上传的分片数不超过 multipartConcurrency
+     * 3.大小未知且不足一个分片时退化为一次上传
+     *
+     * @param args         参数
+     * @param stream       输入流
+     * @param size         流的长度, 未知时小于等于0
+     * @param userMetadata 用户元数据, 为null时不设置
+     * @return 文件信息
+     * @throws IOException 读取流失败
+     */
+    private FileBasicInfo putStream(ObjectArgs args, InputStream stream, long size, Map<String, String> userMetadata) throws IOException {
+        if (size > 0 && !isMultipart(size)) {
+            PutObjectResponse response = join(client.putObject(b -> b.bucket(args.getBucketName()).key(args.getObjectName())
+                    .contentType(args.getContentType()).metadata(userMetadata).contentLength(size), new InputStreamRequestBody(stream, size, executor, STREAM_CHUNK_SIZE)));
+            return StorageUtil.createFileBasicInfo(unquote(response.eTag()), args, size);
+        }
+        long partSize = Math.min(MultipartUploadSession.partSize(Math.max(size, 0), configuration.getMultipartPartSize().toBytes()), Integer.MAX_VALUE - 8);
+        byte[] part = readPart(stream, size > 0 ? Math.min(partSize, size) : partSize);
+        if (size <= 0 && part.length < partSize) {
+            byte[] content = part;
+            PutObjectResponse response = join(client.putObject(b -> b.bucket(args.getBucketName()).key(args.getObjectName())
+                    .contentType(args.getContentType()).metadata(userMetadata).contentLength((long) content.length), AsyncRequestBody.fromBytes(content)));
+            return StorageUtil.createFileBasicInfo(unquote(response.eTag()), args, (long) content.length);
+        }
+        Upload upload = new Upload(args.getBucketName(), args.getObjectName(), args.getContentType(), userMetadata);
+        try {
+            long total = 0;
+            while (part.length > 0) {
+                upload.uploadPart(part);
+                total += part.length;
+                if (part.length < partSize || (size > 0 && total >= size)) {
+                    break;
+                }
+                part = readPart(stream, size > 0 ? Math.min(partSize, size - total) : partSize);
+            }
+            if (size > 0 && total < size) {
+                throw new StorageException("opcooc-storage - object name: [%s], stream ended before the declared size [%s]", args.getObjectName(), size);
+            }
+            return StorageUtil.createFileBasicInfo(upload.complete(), args, total);
+        } catch (IOException | RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+    }
+
+    @Override
+    public FileBasicInfo uploadFile(UploadFileArgs args) {
+        try {
+            return putFile(args, args.getFile());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 上传文件, 小于分片阈值时由 SDK 异步读取文件, 否则按分片上传
+     *
+     * @param args 参数
+     * @param file 文件
+     * @return 文件信息
+     * @throws IOException 读取文件失败
+     */
+    private FileBasicInfo putFile(ObjectArgs args, File file) throws IOException {
+        long size = file.length();
+        if (isMultipart(size)) {
+            try (InputStream stream = new FileInputStream(file)) {
+                return putStream(args, stream, size, null);
+            }
+        }
+        PutObjectResponse response = join(client.putObject(b -> b.bucket(args.getBucketName()).key(args.getObjectName())
+                .contentType(args.getContentType()), AsyncRequestBody.fromFile(file)));
+        return StorageUtil.createFileBasicInfo(unquote(response.eTag()), args, size);
+    }
+
+    @Override
+    public FileBasicInfo uploadUrl(UploadUrlArgs args) {
+        try {
+            File file = args.getFile();
+            if (file == null) {
+                return putUrl(args, args.getUrl());
+            }
+            HttpUtils.downloadToFile(args.getUrl(), file);
+            return putFile(args, file);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public UploadUrlsResult uploadUrls(UploadUrlsArgs args) {
+        UrlImporter importer = new UrlImporter(executor, Math.min(args.getConcurrency(), configuration.getMaxConcurrency()),
+                (objectName, url) -> {
+                    ObjectArgs objectArgs = ObjectArgs.builder().bucketName(args.getBucketName()).objectName(objectName).build();
+                    try {
+                        return putUrl(objectArgs, url);
+                    } catch (IOException e) {
+                        throw new StorageException(e);
+                    }
+                });
+        UploadUrlsResult result = importer.upload(args.getUrls());
+        result.setBucketName(args.getBucketName());
+        return result;
+    }
+
+    /**
+     * 将网络文件的响应体直接以流的方式上传, 响应没有 Content-Length 时按未知大小上传
+     *
+     * @param args 参数
+     * @param url  网络文件地址
+     * @return 文件信息
+     * @throws IOException 下载失败
+     */
+    private FileBasicInfo putUrl(ObjectArgs args, String url) throws IOException {
+        HttpURLConnection connection = HttpUtils.openStream(url);
+        try (InputStream stream = connection.getInputStream()) {
+            return putStream(args, stream, connection.getContentLengthLong(), null);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private boolean isMultipart(long size) {
+        DataSize threshold = configuration.getMultipartThreshold();
+        return threshold != null && size > 0 && size >= threshold.toBytes();
+    }
+
+    private static byte[] readPart(InputStream stream, long length) throws IOException {
+        byte[] buffer = new byte[(int) length];
+        int offset = 0;
+        while (offset < buffer.length) {
+            int n = stream.read(buffer, offset, buffer.length - offset);
+            if (n < 0) {
+                byte[] part = new byte[offset];
+                System.arraycopy(buffer, 0, part, 0, offset);
+                return part;
+            }
+            offset += n;
+        }
+        return buffer;
+    }
+
+    @Override
+    public void copyObject(CopyObjectArgs args) {
+        CopySource source = args.getSource();
+        try {
+            copy(source.getBucketName(), source.getObjectName(), source.getObjectSize() > 0 ? source.getObjectSize() : -1,
+                    args.getBucketName(), args.getObjectName());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 复制对象
+     * 1.源对象大小已知且不小于分片复制阈值时获取源对象元数据后并发发送 UploadPartCopy
+     * 2.否则直接使用一次 CopyObject, 源对象大小未知且服务端因源对象过大拒绝时, 获取源对象元数据, 不小于分片复制阈值时改为分片复制
+     *
+     * @param sourceBucketName 源存储空间(主目录)名称
+     * @param sourceObjectName 源对象名称
+     * @param size             源对象大小, 未知时为-1
+     * @param bucketName       目标存储空间(主目录)名称
+     * @param objectName       目标对象名称
+     */
+    private void copy(String sourceBucketName, String sourceObjectName, long size, String bucketName, String objectName) {
+        String copySource = SdkHttpUtils.urlEncodeIgnoreSlashes(sourceBucketName + "/" + sourceObjectName);
+        DataSize threshold = configuration.getMultipartCopyThreshold();
+        if (threshold != null && size >= threshold.toBytes()) {
+            copyParts(copySource, join(client.headObject(b -> b.bucket(sourceBucketName).key(sourceObjectName))), bucketName, objectName);
+            return;
+        }
+        try {
+            join(client.copyObject(b -> b.copySource(copySource).destinationBucket(bucketName).destinationKey(objectName)));
+        } catch (RuntimeException e) {
+            if (threshold == null || size >= 0 || !isCopySourceTooLarge(e)) {
+                throw e;
+            }
+            HeadObjectResponse source = join(client.headObject(b -> b.bucket(sourceBucketName).key(sourceObjectName)));
+            if (source.contentLength() < threshold.toBytes()) {
+                throw e;
+            }
+            copyParts(copySource, source, bucketName, objectName);
+        }
+    }
+
+    private void copyParts(String copySource, HeadObjectResponse source, String bucketName, String objectName) {
+        long partSize = MultipartUploadSession.partSize(source.contentLength(), configuration.getMultipartCopyPartSize().toBytes());
+        Upload upload = new Upload(bucketName, objectName, source.contentType(), source.metadata());
+        try {
+            for (long position = 0; position < source.contentLength(); position += partSize) {
+                upload.copyPart(copySource, source.eTag(), position, Math.min(position + partSize, source.contentLength()) - 1);
+            }
+            upload.complete();
+        } catch (RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 服务端是否因源对象过大拒绝单次复制(S3 返回 400 InvalidRequest, 部分兼容服务返回 EntityTooLarge)
+     *
+     * @param e 异常
+     * @return 是否因源对象过大拒绝
+     */
+    private static boolean isCopySourceTooLarge(Throwable e) {
+        String code = errorCode(e);
+        return "EntityTooLarge".equals(code) || statusCode(e) == HttpURLConnection.HTTP_BAD_REQUEST && "InvalidRequest".equals(code);
+    }
+
+    @Override
+    public CopyPrefixResult copyPrefix(CopyPrefixArgs args) {
+        String destinationBucketName = args.getDestinationBucketName();
+        PrefixCopier copier = new PrefixCopier(executor, configuration.getMaxConcurrency(),
+                (key, size, objectName) -> copy(args.getBucketName(), key, size, destinationBucketName, objectName), null);
+        ListObjectsArgs listArgs = ListObjectsArgs.builder()
+                .bucketName(args.getBucketName())
+                .prefix(args.getPrefix())
+                .prefetch(true)
+                .build();
+        try (Stream<FileBasicInfo> stream = listObjectsStream(listArgs)) {
+            CopyPrefixResult result = copier.copy(stream.iterator(), args.getPrefix(), args.getDestinationPrefix());
+            result.setSourceBucketName(args.getBucketName());
+            result.setDestinationBucketName(destinationBucketName);
+            return result;
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public List<FileBasicInfo> listObjects(ListObjectsArgs args) {
+        try (Stream<FileBasicInfo> stream = listObjectsStream(args)) {
+            return stream.collect(toList());
+        }
+    }
+
+    @Override
+    public Stream<FileBasicInfo> listObjectsStream(ListObjectsArgs args) {
+        ObjectPages pages = new ObjectPages(args);
+        Spliterator<FileBasicInfo> spliterator = Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(pages::close);
+    }
+
+    @Override
+    public FolderListing listFolder(ListObjectsArgs args) {
+        FolderListing listing = new FolderListing();
+        listing.setBucketName(args.getBucketName());
+        listing.setPrefix(args.getPrefix());
+        FolderListing page;
+        String token = args.getContinuationToken();
+        do {
+            page = listFolderPage(args.toBuilder().continuationToken(token).build());
+            listing.getObjects().addAll(page.getObjects());
+            listing.getFolders().addAll(page.getFolders());
+            token = page.getNextContinuationToken();
+        } while (page.isTruncated());
+        return listing;
+    }
+
+    @Override
+    public FolderListing listFolderPage(ListObjectsArgs args) {
+        FolderListing listing = new FolderListing();
+        listing.setBucketName(args.getBucketName());
+        listing.setPrefix(args.getPrefix());
+        try {
+            ListObjectsV2Response result = join(client.listObjectsV2(b -> b.bucket(args.getBucketName())
+                    .prefix(args.getPrefix())
+                    .delimiter(args.getDelimiter())
+                    .maxKeys(args.getMaxKeys())
+                    .continuationToken(args.getContinuationToken())));
+            for (S3Object object : result.contents()) {
+                listing.getObjects().add(StorageUtil.createFileBasicInfo(toSummary(args.getBucketName(), object), args));
+            }
+            result.commonPrefixes().forEach(prefix -> listing.getFolders().add(prefix.prefix()));
+            listing.setTruncated(Boolean.TRUE.equals(result.isTruncated()));
+            listing.setNextContinuationToken(result.nextContinuationToken());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+        return listing;
+    }
+
+    @Override
+    public boolean objectExist(DoesObjectExistArgs args) {
+        try {
+            return exists(args);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    private boolean exists(ObjectArgs args) {
+        try {
+            join(client.headObject(b -> b.bucket(args.getBucketName()).key(args.getObjectName())));
+            return true;
+        } catch (RuntimeException e) {
+            if (statusCode(e) == HttpURLConnection.HTTP_NOT_FOUND) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private StorageException objectNotExist(ObjectArgs args) {
+        return new StorageException("opcooc-storage - bucket name: [%s], object name [%s] does not exist", args.getBucketName(), args.getObjectName());
+    }
+
+    /**
+     * 读取对象
+     * 1.乐观读模式: 直接发起请求, 将404转换为对象不存在异常(只有一次请求)
+     * 2.非乐观读模式: 先判断对象是否存在再发起请求
+     *
+     * @param args    参数
+     * @param request 实际请求
+     * @param <T>     返回类型
+     * @return 请求结果
+     */
+    private <T> T readObject(ObjectArgs args, Supplier<T> request) {
+        if (!Boolean.TRUE.equals(configuration.getOptimisticRead())) {
+            if (!exists(args)) {
+                throw objectNotExist(args);
+            }
+            return request.get();
+        }
+        try {
+            return request.get();
+        } catch (RuntimeException e) {
+            if (statusCode(e) == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw objectNotExist(args);
+            }
+            throw e;
+        }
+    }
+
+    private HeadObjectResponse head(ObjectArgs args) {
+        return join(client.headObject(b -> b.bucket(args.getBucketName()).key(args.getObjectName())));
+    }
+
+    @Override
+    public FileBasicInfo getObjectMetadata(ObjectMetadataArgs args) {
+        try {
+            HeadObjectResponse response = readObject(args, () -> head(args));
+            return StorageUtil.createFileBasicInfo(toMetadata(response), args);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public InputStream getObjectToStream(GetObjectToStreamArgs args) {
+        try {
+            if (args.isReadAhead() || args.getSuffixLength() >= 0) {
+                // 预读及后缀范围需要先获取对象大小
+                return readObject(args, () -> openRangeStream(args));
+            }
+            if (args.getLength() == 0) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            String range = null;
+            if (args.getLength() > 0) {
+                range = range(args.getOffset(), args.getOffset() + args.getLength() - 1);
+            } else if (args.getOffset() > 0) {
+                range = "bytes=" + args.getOffset() + "-";
+            }
+            String requestRange = range;
+            return readObject(args, () -> join(client.getObject(b -> b.bucket(args.getBucketName()).key(args.getObjectName()).range(requestRange),
+                    new StreamTransformer())));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    private InputStream openRangeStream(GetObjectToStreamArgs args) {
+        HeadObjectResponse metadata = head(args);
+        long size = metadata.contentLength();
+        long start;
+        long end;
+        if (args.getSuffixLength() >= 0) {
+            start = Math.max(0, size - args.getSuffixLength());
+            end = size;
+        } else {
+            start = Math.min(args.getOffset(), size);
+            end = args.getLength() >= 0 ? Math.min(size, start + args.getLength()) : size;
+        }
+        if (start >= end) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        if (!args.isReadAhead()) {
+            return join(client.getObject(b -> b.bucket(args.getBucketName()).key(args.getObjectName()).range(range(start, end - 1))
+                    .ifMatch(metadata.eTag()), new StreamTransformer()));
+        }
+        RangeReader reader = rangeReader(args.getBucketName(), args.getObjectName(), metadata.eTag());
+        int chunkSize = (int) Math.min(configuration.getReadAheadChunkSize().toBytes(), Integer.MAX_VALUE - 8);
+        return new ReadAheadInputStream(reader, executor, start, end, chunkSize, configuration.getReadAheadChunks(), configuration.getMultipartRetries());
+    }
+
+    @Override
+    public SeekableByteChannel openChannel(OpenChannelArgs args) {
+        try {
+            HeadObjectResponse metadata = readObject(args, () -> head(args));
+            RangeReader reader = rangeReader(args.getBucketName(), args.getObjectName(), metadata.eTag());
+            int blockSize = (int) Math.min(configuration.getChannelBlockSize().toBytes(), Integer.MAX_VALUE - 8);
+            return new RangeSeekableByteChannel(reader, metadata.contentLength(), blockSize,
+                    configuration.getChannelCacheBlocks(), configuration.getMultipartRetries());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public List<ByteBuffer> readVectored(ReadVectoredArgs args) {
+        try {
+            HeadObjectResponse metadata = readObject(args, () -> head(args));
+            RangeReader reader = rangeReader(args.getBucketName(), args.getObjectName(), metadata.eTag());
+            return new VectoredReader(reader, executor, configuration.getVectoredReadMaxGap().toBytes(),
+                    configuration.getVectoredReadMaxMergedSize().toBytes(), configuration.getMultipartRetries()).read(args.getRanges());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 对象区间读取(带 If-Match 条件, 对象被修改时失败), 响应体由 SDK 直接聚合为字节数组
+     *
+     * @param bucketName 存储空间(主目录)名称
+     * @param objectName 对象名称
+     * @param eTag       对象 ETag
+     * @return 区间读取
+     */
+    private RangeReader rangeReader(String bucketName, String objectName, String eTag) {
+        return (position, length) -> {
+            ResponseBytes<GetObjectResponse> bytes;
+            try {
+                bytes = join(client.getObject(b -> b.bucket(bucketName).key(objectName).range(range(position, position + length - 1)).ifMatch(eTag),
+                        AsyncResponseTransformer.toBytes()));
+            } catch (RuntimeException e) {
+                if (statusCode(e) == HttpURLConnection.HTTP_PRECON_FAILED) {
+                    throw new StorageException("opcooc-storage - object name: [%s], object was modified during read", objectName);
+                }
+                throw e;
+            }
+            return ByteBuffer.wrap(bytes.asByteArrayUnsafe());
+        };
+    }
+
+    private static String range(long first, long last) {
+        return "bytes=" + first + "-" + last;
+    }
+
+    @Override
+    public File geObjectToFile(GetObjectToFileArgs args) {
+        try {
+            readObject(args, () -> download(args.getBucketName(), args.getObjectName(), args.getFile().toPath()));
+            return args.getFile();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 下载对象到文件, 响应体由 SDK 异步写入临时文件, 完成后替换目标文件
+     *
+     * @param bucketName 存储空间(主目录)名称
+     * @param objectName 对象名称
+     * @param target     目标文件
+     * @return 响应
+     */
+    private GetObjectResponse download(String bucketName, String objectName, Path target) {
+        Path temp = target.resolveSibling(target.getFileName() + ParallelDownloader.TEMP_SUFFIX);
+        try {
+            Path parent = target.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.deleteIfExists(temp);
+            GetObjectResponse response = join(client.getObject(b -> b.bucket(bucketName).key(objectName), AsyncResponseTransformer.toFile(temp)));
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return response;
+        } catch (IOException e) {
+            throw new StorageException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.warn("opcooc-storage - delete temp file [{}] failed", temp, e);
+            }
+        }
+    }
+
+    @Override
+    public void deleteObject(DeleteObjectArgs args) {
+        try {
+            join(client.deleteObject(b -> b.bucket(args.getBucketName()).key(args.getObjectName())));
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public DeleteResult deleteObjects(DeleteObjectsArgs args) {
+        try {
+            Deleter deleter = new Deleter(args.getBucketName(), args.isReportDeletedKeys());
+            deleter.submit(args.getObjects().stream().map(key -> ObjectIdentifier.builder().key(key).build()).collect(toList()));
+            return deleter.await();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public DeleteResult deletePrefix(DeletePrefixArgs args) {
+        try {
+            Deleter deleter = new Deleter(args.getBucketName(), args.isReportDeletedKeys());
+            if (args.isAbortMultipartUploads()) {
+                deleter.abortMultipartUploads(args.getPrefix());
+            }
+            deleter.submitPrefix(args.getPrefix(), args.isAllVersions());
+            return deleter.await();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public String getUrl(GetUrlArgs args) {
+        try {
+            return client.utilities().getUrl(b -> b.bucket(args.getBucketName()).key(args.getObjectName()).endpoint(endpoint)).toExternalForm();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public String generatePresignedUrl(GetPresignedObjectUrlArgs args) {
+        try {
+            //过期时间
+            Duration expiry = Duration.ofMinutes(args.getExpiry());
+            if (args.getMethod() == null || args.getMethod() == HttpMethod.GET) {
+                return presigner.presignGetObject(b -> b.signatureDuration(expiry)
+                        .getObjectRequest(r -> r.bucket(args.getBucketName()).key(args.getObjectName()))).url().toExternalForm();
+            }
+            if (args.getMethod() != HttpMethod.PUT) {
+                throw new StorageException("opcooc-storage - presigned url method [%s] is not supported by the async client", args.getMethod());
+            }
+            //强制前端需要在的上传方法添加对应的 Request Header( key: Content-Type, value: {fileType} )
+            String fileType = args.isSpecType() ? ContentTypeUtils.getContentType(args.getObjectName()) : null;
+            return presigner.presignPutObject(b -> b.signatureDuration(expiry)
+                    .putObjectRequest(r -> r.bucket(args.getBucketName()).key(args.getObjectName()).contentType(fileType))).url().toExternalForm();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 等待请求结果, 调用线程被中断时取消请求
+     *
+     * @param future 请求
+     * @param <T>    返回类型
+     * @return 请求结果
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new StorageException("opcooc-storage - request interrupted", e);
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    private static RuntimeException propagate(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new StorageException("opcooc-storage - request failed", cause);
+    }
+
+    private static int statusCode(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SdkServiceException) {
+                return ((SdkServiceException) t).statusCode();
+            }
+        }
+        return -1;
+    }
+
+    private static String errorCode(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof AwsServiceException && ((AwsServiceException) t).awsErrorDetails() != null) {
+                return ((AwsServiceException) t).awsErrorDetails().errorCode();
+            }
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    /**
+     * 服务端是否不支持该接口(501, 405 或 NotImplemented 错误码), 其他400错误不能当作不支持而跳过
+     */
+    private static boolean isNotSupported(Throwable e) {
+        int status = statusCode(e);
+        return status == HttpURLConnection.HTTP_NOT_IMPLEMENTED || status == HttpURLConnection.HTTP_BAD_METHOD
+                || "NotImplemented".equals(errorCode(e));
+    }
+
+    /**
+     * v1 的 ETag 不包含引号
+     */
+    private static String unquote(String eTag) {
+        if (eTag != null && eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            return eTag.substring(1, eTag.length() - 1);
+        }
+        return eTag;
+    }
+
+    private static ObjectMetadata toMetadata(HeadObjectResponse response) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setHeader(Headers.ETAG, unquote(response.eTag()));
+        if (response.contentLength() != null) {
+            metadata.setContentLength(response.contentLength());
+        }
+        if (response.contentType() != null) {
+            metadata.setContentType(response.contentType());
+        }
+        if (response.lastModified() != null) {
+            metadata.setLastModified(Date.from(response.lastModified()));
+        }
+        metadata.setUserMetadata(response.metadata());
+        return metadata;
+    }
+
+    private static S3ObjectSummary toSummary(String bucketName, S3Object object) {
+        S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setBucketName(bucketName);
+        summary.setKey(object.key());
+        summary.setETag(unquote(object.eTag()));
+        summary.setSize(object.size() == null ? 0 : object.size());
+        if (object.lastModified() != null) {
+            summary.setLastModified(Date.from(object.lastModified()));
+        }
+        return summary;
+    }
+
+    private static AccessControlList toAcl(software.amazon.awssdk.services.s3.model.Owner owner, List<Grant> grants) {
+        AccessControlList acl = new AccessControlList();
+        if (owner != null) {
+            acl.setOwner(new Owner(owner.id(), owner.displayName()));
+        }
+        for (Grant grant : grants) {
+            Grantee grantee = grant.grantee();
+            Permission permission = Permission.parsePermission(grant.permissionAsString());
+            if (grantee == null || permission == null) {
+                continue;
+            }
+            if (grantee.uri() != null) {
+                GroupGrantee group = GroupGrantee.parseGroupGrantee(grantee.uri());
+                if (group != null) {
+                    acl.grantPermission(group, permission);
+                }
+            } else if (grantee.emailAddress() != null) {
+                acl.grantPermission(new EmailAddressGrantee(grantee.emailAddress()), permission);
+            } else if (grantee.id() != null) {
+                CanonicalGrantee canonical = new CanonicalGrantee(grantee.id());
+                canonical.setDisplayName(grantee.displayName());
+                acl.grantPermission(canonical, permission);
+            }
+        }
+        return acl;
+    }
+
+    /**
+     * 将 GetObject 的响应体转换为阻塞输入流
+     */
+    private static class StreamTransformer implements AsyncResponseTransformer<GetObjectResponse, InputStream> {
+
+        private CompletableFuture<InputStream> future;
+
+        @Override
+        public CompletableFuture<InputStream> prepare() {
+            future = new CompletableFuture<>();
+            return future;
+        }
+
+        @Override
+        public void onResponse(GetObjectResponse response) {
+        }
+
+        @Override
+        public void onStream(SdkPublisher<ByteBuffer> publisher) {
+            PublisherInputStream stream = new PublisherInputStream();
+            publisher.subscribe(stream);
+            future.complete(stream);
+        }
+
+        @Override
+        public void exceptionOccurred(Throwable error) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * 一次分片上传(或分片复制)
+     * 分片请求直接异步发送, 同时进行的分片数不超过 multipartConcurrency, 达到上限时提交线程等待
+     */
+    private final class Upload {
+
+        private final String bucketName;
+
+        private final String objectName;
+
+        private final String uploadId;
+
+        private final Semaphore permits = new Semaphore(Math.max(1, configuration.getMultipartConcurrency()));
+
+        private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+
+        private volatile Throwable failure;
+
+        private boolean finished;
+
+        Upload(String bucketName, String objectName, String contentType, Map<String, String> metadata) {
+            this.bucketName = bucketName;
+            this.objectName = objectName;
+            this.uploadId = join(client.createMultipartUpload(b -> b.bucket(bucketName).key(objectName).contentType(contentType).metadata(metadata))).uploadId();
+        }
+
+        void uploadPart(byte[] content) {
+            submit(partNumber -> client.uploadPart(b -> b.bucket(bucketName).key(objectName).uploadId(uploadId)
+                    .partNumber(partNumber).contentLength((long) content.length), AsyncRequestBody.fromBytes(content))
+                    .thenApply(r -> r.eTag()));
+        }
+
+        void copyPart(String copySource, String sourceETag, long firstByte, long lastByte) {
+            submit(partNumber -> client.uploadPartCopy(b -> b.bucket(bucketName).key(objectName).uploadId(uploadId).partNumber(partNumber)
+                    .copySource(copySource).copySourceIfMatch(sourceETag).copySourceRange(range(firstByte, lastByte)))
+                    .thenApply(r -> r.copyPartResult().eTag()));
+        }
+
+        private void submit(IntFunction<CompletableFuture<String>> request) {
+            if (failure != null) {
+                throw new StorageException("opcooc-storage - object name: [%s], multipart upload failed", failure, objectName);
+            }
+            if (parts.size() >= MultipartUploadSession.MAX_PARTS) {
+                throw new StorageException("opcooc-storage - object name: [%s], the number of parts exceeds %s", objectName, MultipartUploadSession.MAX_PARTS);
+            }
+            acquire(permits, 1);
+            int partNumber = parts.size() + 1;
+            CompletableFuture<String> future;
+            try {
+                future = request.apply(partNumber);
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            parts.add(future.handle((eTag, e) -> {
+                permits.release();
+                if (e != null) {
+                    if (failure == null) {
+                        failure = propagate(e);
+                    }
+                    return null;
+                }
+                return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+            }));
+        }
+
+        /**
+         * 等待所有分片结束并合并分片, 失败时取消分片上传
+         *
+         * @return 对象 ETag
+         */
+        String complete() {
+            List<CompletedPart> completed = awaitParts();
+            if (failure != null) {
+                abort();
+                throw new StorageException("opcooc-storage - object name: [%s], multipart upload failed", failure, objectName);
+            }
+            try {
+                CompleteMultipartUploadResponse response = join(client.completeMultipartUpload(b -> b.bucket(bucketName).key(objectName)
+                        .uploadId(uploadId).multipartUpload(m -> m.parts(completed))));
+                finished = true;
+                return unquote(response.eTag());
+            } catch (RuntimeException e) {
+                abort();
+                throw e;
+            }
+        }
+
+        /**
+         * 取消分片上传, 等待正在上传的分片结束后删除已上传的分片
+         */
+        void abort() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            awaitParts();
+            try {
+                join(client.abortMultipartUpload(b -> b.bucket(bucketName).key(objectName).uploadId(uploadId)));
+            } catch (Exception e) {
+                log.warn("opcooc-storage - abort multipart upload [{}] of object [{}] failed", uploadId, objectName, e);
+            }
+        }
+
+        private List<CompletedPart> awaitParts() {
+            List<CompletedPart> completed = new ArrayList<>(parts.size());
+            for (CompletableFuture<CompletedPart> part : parts) {
+                CompletedPart result = join(part);
+                if (result != null) {
+                    completed.add(result);
+                }
+            }
+            return completed;
+        }
+    }
+
+    /**
+     * 批量删除(一次删除操作使用一个实例)
+     * 每批最多1000个对象, 批次直接异步发送, 同时进行的批次数不超过 maxConcurrency
+     */
+    private final class Deleter {
+
+        private final String bucketName;
+
+        private final int concurrency = Math.max(1, configuration.getMaxConcurrency());
+
+        private final Semaphore permits = new Semaphore(concurrency);
+
+        private final AtomicLong deletedCount = new AtomicLong();
+
+        private final Queue<DeleteError> errors = new ConcurrentLinkedQueue<>();
+
+        private final Queue<String> deletedKeys = new ConcurrentLinkedQueue<>();
+
+        private final boolean reportDeletedKeys;
+
+        Deleter(String bucketName) {
+            this(bucketName, false);
+        }
+
+        /**
+         * @param bucketName        存储空间(主目录)名称
+         * @param reportDeletedKeys 是否记录删除成功的对象名称
+         */
+        Deleter(String bucketName, boolean reportDeletedKeys) {
+            this.bucketName = bucketName;
+            this.reportDeletedKeys = reportDeletedKeys;
+        }
+
+        void submit(List<ObjectIdentifier> keys) {
+            for (int from = 0; from < keys.size(); from += BulkDeleter.MAX_BATCH_SIZE) {
+                submitBatch(keys.subList(from, Math.min(keys.size(), from + BulkDeleter.MAX_BATCH_SIZE)));
+            }
+        }
+
+        /**
+         * 分页获取前缀下的所有对象并删除, 处理当前页的同时请求下一页
+         *
+         * @param prefix      前缀
+         * @param allVersions 是否删除所有历史版本
+         */
+        void submitPrefix(String prefix, boolean allVersions) {
+            if (allVersions && submitVersions(prefix)) {
+                return;
+            }
+            CompletableFuture<ListObjectsV2Response> next = listObjects(prefix, null);
+            while (next != null) {
+                ListObjectsV2Response page = join(next);
+                next = Boolean.TRUE.equals(page.isTruncated()) ? listObjects(prefix, page.nextContinuationToken()) : null;
+                submit(page.contents().stream().map(o -> ObjectIdentifier.builder().key(o.key()).build()).collect(toList()));
+            }
+        }
+
+        private CompletableFuture<ListObjectsV2Response> listObjects(String prefix, String token) {
+            return client.listObjectsV2(b -> b.bucket(bucketName).prefix(prefix).maxKeys(BulkDeleter.MAX_BATCH_SIZE).continuationToken(token));
+        }
+
+        private boolean submitVersions(String prefix) {
+            ListObjectVersionsResponse page;
+            try {
+                page = join(client.listObjectVersions(b -> b.bucket(bucketName).prefix(prefix).maxKeys(BulkDeleter.MAX_BATCH_SIZE)));
+            } catch (RuntimeException e) {
+                if (isNotSupported(e)) {
+                    log.debug("opcooc-storage - bucket [{}] does not support list versions, fall back to list objects", bucketName);
+                    return false;
+                }
+                throw e;
+            }
+            while (true) {
+                CompletableFuture<ListObjectVersionsResponse> next = null;
+                if (Boolean.TRUE.equals(page.isTruncated())) {
+                    String keyMarker = page.nextKeyMarker();
+                    String versionIdMarker = page.nextVersionIdMarker();
+                    next = client.listObjectVersions(b -> b.bucket(bucketName).prefix(prefix).maxKeys(BulkDeleter.MAX_BATCH_SIZE)
+                            .keyMarker(keyMarker).versionIdMarker(versionIdMarker));
+                }
+                List<ObjectIdentifier> keys = new ArrayList<>();
+                page.versions().forEach(v -> keys.add(ObjectIdentifier.builder().key(v.key()).versionId(v.versionId()).build()));
+                page.deleteMarkers().forEach(m -> keys.add(ObjectIdentifier.builder().key(m.key()).versionId(m.versionId()).build()));
+                submit(keys);
+                if (next == null) {
+                    return true;
+                }
+                page = join(next);
+            }
+        }
+
+        /**
+         * 取消前缀下所有未完成的分片上传
+         *
+         * @param prefix 前缀, 为null时取消整个存储空间的分片上传
+         */
+        void abortMultipartUploads(String prefix) {
+            String keyMarker = null;
+            String uploadIdMarker = null;
+            ListMultipartUploadsResponse page;
+            do {
+                String key = keyMarker;
+                String uploadId = uploadIdMarker;
+                try {
+                    page = join(client.listMultipartUploads(b -> b.bucket(bucketName).prefix(prefix).keyMarker(key).uploadIdMarker(uploadId)));
+                } catch (RuntimeException e) {
+                    if (isNotSupported(e)) {
+                        log.debug("opcooc-storage - bucket [{}] does not support list multipart uploads, skip abort", bucketName);
+                        return;
+                    }
+                    throw e;
+                }
+                List<CompletableFuture<?>> futures = new ArrayList<>();
+                for (MultipartUpload upload : page.uploads()) {
+                    futures.add(client.abortMultipartUpload(b -> b.bucket(bucketName).key(upload.key()).uploadId(upload.uploadId())));
+                }
+                join(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])));
+                keyMarker = page.nextKeyMarker();
+                uploadIdMarker = page.nextUploadIdMarker();
+            } while (Boolean.TRUE.equals(page.isTruncated()));
+        }
+
+        /**
+         * 等待所有批次执行完毕
+         *
+         * @return 删除结果
+         */
+        DeleteResult await() {
+            acquire(permits, concurrency);
+            permits.release(concurrency);
+            DeleteResult result = new DeleteResult();
+            result.setBucketName(bucketName);
+            result.setDeletedCount(deletedCount.get());
+            result.getDeletedKeys().addAll(deletedKeys);
+            result.getErrors().addAll(errors);
+            return result;
+        }
+
+        private void submitBatch(List<ObjectIdentifier> batch) {
+            acquire(permits, 1);
+            CompletableFuture<DeleteObjectsResponse> future;
+            try {
+                // quiet 模式下响应只包含删除失败的对象
+                future = client.deleteObjects(b -> b.bucket(bucketName).delete(d -> d.objects(batch).quiet(true)));
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            future.whenComplete((response, e) -> {
+                try {
+                    if (e == null) {
+                        deletedCount.addAndGet(batch.size() - response.errors().size());
+                        Set<String> failed = new HashSet<>();
+                        for (S3Error error : response.errors()) {
+                            errors.add(new DeleteError(error.key(), error.versionId(), error.code(), error.message()));
+                            failed.add(error.key() + '\0' + error.versionId());
+                        }
+                        if (reportDeletedKeys) {
+                            batch.stream().filter(key -> !failed.contains(key.key() + '\0' + key.versionId()))
+                                    .forEach(key -> deletedKeys.add(key.key()));
+                        }
+                    } else {
+                        String code = errorCode(e);
+                        for (ObjectIdentifier key : batch) {
+                            errors.add(new DeleteError(key.key(), key.versionId(), code, propagate(e).getMessage()));
+                        }
+                    }
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * 按需分页获取对象列表, 开启预读时处理当前页的同时已经在请求下一页
+     */
+    private final class ObjectPages implements Iterator<FileBasicInfo> {
+
+        private final ListObjectsArgs args;
+
+        private Iterator<S3Object> current = Collections.emptyIterator();
+
+        private String continuationToken;
+
+        private boolean lastPage;
+
+        private CompletableFuture<ListObjectsV2Response> prefetch;
+
+        private volatile boolean closed;
+
+        ObjectPages(ListObjectsArgs args) {
+            this.args = args;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (closed || lastPage) {
+                    return false;
+                }
+                CompletableFuture<ListObjectsV2Response> future = prefetch != null ? prefetch : request(continuationToken);
+                prefetch = null;
+                ListObjectsV2Response page;
+                try {
+                    page = join(future);
+                } catch (RuntimeException e) {
+                    throw e instanceof StorageException ? e : new StorageException(e);
+                }
+                continuationToken = page.nextContinuationToken();
+                lastPage = !Boolean.TRUE.equals(page.isTruncated());
+                current = page.contents().iterator();
+                if (!lastPage && args.isPrefetch()) {
+                    prefetch = request(continuationToken);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public FileBasicInfo next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return StorageUtil.createFileBasicInfo(toSummary(args.getBucketName(), current.next()), args);
+        }
+
+        private CompletableFuture<ListObjectsV2Response> request(String token) {
+            ListObjectsV2Request request = ListObjectsV2Request.builder()
+                    .bucket(args.getBucketName())
+                    .prefix(args.getPrefix())
+                    .delimiter(args.isRecursive() ? null : args.getDelimiter())
+                    .maxKeys(args.getMaxKeys())
+                    .continuationToken(token)
+                    .build();
+            return client.listObjectsV2(request);
+        }
+
+        void close() {
+            closed = true;
+            current = Collections.emptyIterator();
+            if (prefetch != null) {
+                prefetch.cancel(true);
+                prefetch = null;
+            }
+        }
+    }
+
+    private static void acquire(Semaphore permits, int count) {
+        try {
+            permits.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("opcooc-storage - request interrupted", e);
+        }
+    }
+}
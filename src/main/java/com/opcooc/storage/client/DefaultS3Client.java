@@ -19,49 +19,72 @@ import static java.util.stream.Collectors.toList;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.util.unit.DataSize;
 
 import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AccessControlList;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
 import com.amazonaws.services.s3.model.BucketPolicy;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
 import com.amazonaws.services.s3.model.DeleteObjectsRequest;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListObjectsV2Request;
 import com.amazonaws.services.s3.model.ListObjectsV2Result;
-import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.opcooc.storage.args.CopyObjectArgs;
+import com.opcooc.storage.args.CopyPrefixArgs;
 import com.opcooc.storage.args.CopySource;
 import com.opcooc.storage.args.CreateBucketArgs;
 import com.opcooc.storage.args.DeleteBucketArgs;
 import com.opcooc.storage.args.DeleteBucketPolicyArgs;
 import com.opcooc.storage.args.DeleteObjectArgs;
 import com.opcooc.storage.args.DeleteObjectsArgs;
+import com.opcooc.storage.args.DeletePrefixArgs;
 import com.opcooc.storage.args.DoesBucketExistArgs;
 import com.opcooc.storage.args.DoesObjectExistArgs;
 import com.opcooc.storage.args.GetBucketAclArgs;
 import com.opcooc.storage.args.GetBucketPolicyArgs;
 import com.opcooc.storage.args.GetObjectAclArgs;
 import com.opcooc.storage.args.GetObjectToFileArgs;
+import com.opcooc.storage.args.GetObjectToPathArgs;
 import com.opcooc.storage.args.GetObjectToStreamArgs;
 import com.opcooc.storage.args.GetPresignedObjectUrlArgs;
 import com.opcooc.storage.args.GetUrlArgs;
 import com.opcooc.storage.args.ListObjectsArgs;
 import com.opcooc.storage.args.ObjectArgs;
 import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.OpenChannelArgs;
+import com.opcooc.storage.args.OpenOutputStreamArgs;
+import com.opcooc.storage.args.ParallelListObjectsArgs;
+import com.opcooc.storage.args.ReadVectoredArgs;
 import com.opcooc.storage.args.SetBucketAclArgs;
 import com.opcooc.storage.args.SetBucketPolicyArgs;
 import com.opcooc.storage.args.SetFolderArgs;
@@ -69,11 +92,32 @@ import com.opcooc.storage.args.SetObjectAclArgs;
 import com.opcooc.storage.args.UploadFileArgs;
 import com.opcooc.storage.args.UploadObjectArgs;
 import com.opcooc.storage.args.UploadUrlArgs;
+import com.opcooc.storage.args.UploadUrlsArgs;
 import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.io.BufferPool;
+import com.opcooc.storage.io.MultipartOutputStream;
+import com.opcooc.storage.io.RangeReader;
+import com.opcooc.storage.io.RangeSeekableByteChannel;
+import com.opcooc.storage.io.ReadAheadInputStream;
+import com.opcooc.storage.io.VectoredReader;
+import com.opcooc.storage.model.CopyPrefixResult;
+import com.opcooc.storage.model.DeleteResult;
 import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.model.FolderListing;
+import com.opcooc.storage.model.UploadUrlsResult;
+import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+import com.opcooc.storage.support.ListObjectsIterator;
+import com.opcooc.storage.support.ParallelObjectLister;
 import com.opcooc.storage.toolkit.ContentTypeUtils;
 import com.opcooc.storage.toolkit.HttpUtils;
 import com.opcooc.storage.toolkit.StorageUtil;
+import com.opcooc.storage.transfer.BulkDeleter;
+import com.opcooc.storage.transfer.MultipartUploadSession;
+import com.opcooc.storage.transfer.ParallelCopier;
+import com.opcooc.storage.transfer.ParallelDownloader;
+import com.opcooc.storage.transfer.ParallelUploader;
+import com.opcooc.storage.transfer.PrefixCopier;
+import com.opcooc.storage.transfer.UrlImporter;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -89,8 +133,38 @@ public class DefaultS3Client implements Client {
      */
     private final AmazonS3 client;
 
+    /**
+     * 客户端驱动配置
+     */
+    private final ClientDriverProperty configuration;
+
+    /**
+     * 后台任务执行器(预读, 并发请求等), 为null时在调用线程中执行
+     */
+    private final ExecutorService executor;
+
+    /**
+     * 并发获取文件列表使用的 ForkJoinPool, 为null时使用顺序获取
+     */
+    private final ForkJoinPool listPool;
+
+    /**
+     * 未知大小上传使用的分片缓冲区池
+     */
+    private final BufferPool bufferPool;
+
     public DefaultS3Client(AmazonS3 client) {
+        this(client, new ClientDriverProperty(), null, null);
+    }
+
+    public DefaultS3Client(AmazonS3 client, ClientDriverProperty configuration, ExecutorService executor, ForkJoinPool listPool) {
         this.client = client;
+        this.configuration = configuration;
+        this.executor = executor;
+        this.listPool = listPool;
+        long partSize = Math.max(configuration.getMultipartPartSize().toBytes(), MultipartUploadSession.MIN_PART_SIZE);
+        this.bufferPool = new BufferPool((int) Math.min(partSize, Integer.MAX_VALUE - 8), configuration.getMultipartBufferCount(),
+                Boolean.TRUE.equals(configuration.getMultipartDirectBuffer()));
     }
 
     @Override
@@ -164,17 +238,12 @@ public class DefaultS3Client implements Client {
     @Override
     public void deleteBucket(DeleteBucketArgs args) {
         try {
-            ObjectListing objectListing = client.listObjects(args.getBucketName());
-            while (true) {
-                for (S3ObjectSummary s3ObjectSummary : objectListing.getObjectSummaries()) {
-                    client.deleteObject(args.getBucketName(), s3ObjectSummary.getKey());
-                }
-
-                if (objectListing.isTruncated()) {
-                    objectListing = client.listNextBatchOfObjects(objectListing);
-                } else {
-                    break;
-                }
+            BulkDeleter deleter = newBulkDeleter(args.getBucketName());
+            deleter.abortMultipartUploads(null);
+            deleter.submitPrefix(null, true);
+            DeleteResult result = deleter.await();
+            if (!result.isSuccess()) {
+                throw new StorageException("opcooc-storage - bucket name: [%s], [%s] objects could not be deleted", args.getBucketName(), result.getErrors().size());
             }
             client.deleteBucket(args.getBucketName());
         } catch (Exception e) {
@@ -183,6 +252,25 @@ public class DefaultS3Client implements Client {
 
     }
 
+    @Override
+    public DeleteResult deletePrefix(DeletePrefixArgs args) {
+        try {
+            BulkDeleter deleter = newBulkDeleter(args.getBucketName());
+            deleter.setReportDeletedKeys(args.isReportDeletedKeys());
+            if (args.isAbortMultipartUploads()) {
+                deleter.abortMultipartUploads(args.getPrefix());
+            }
+            deleter.submitPrefix(args.getPrefix(), args.isAllVersions());
+            return deleter.await();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    private BulkDeleter newBulkDeleter(String bucketName) {
+        return new BulkDeleter(client, bucketName, executor, configuration.getMaxConcurrency());
+    }
+
     @Override
     public List<String> listBuckets() {
         try {
@@ -223,21 +311,57 @@ public class DefaultS3Client implements Client {
     @Override
     public FileBasicInfo uploadObject(UploadObjectArgs args) {
         try {
-            ObjectMetadata metadata = new ObjectMetadata();
-            metadata.setContentLength(args.getObjectSize());
-            metadata.setContentType(args.getContentType());
-            PutObjectResult result = client.putObject(args.getBucketName(), args.getObjectName(), args.getStream(), metadata);
-            return StorageUtil.createFileBasicInfo(result, args, args.getObjectSize());
+            return putStream(args, args.getStream(), args.getObjectSize(), args.getUserMetadata(), executor);
         } catch (Exception e) {
             throw new StorageException(e);
         }
     }
 
+    /**
+     * 上传流
+     * 1.大小未知时按缓冲区分片上传, 避免 SDK 将整个流缓存在内存中
+     * 2.超过分片阈值时并发分片上传, 读取下一个分片的同时上传之前的分片
+     *
+     * @param args         参数
+     * @param stream       输入流
+     * @param size         流的长度, 未知时小于等于0
+     * @param userMetadata 用户元数据, 为null时不设置
+     * @param partExecutor 分片上传的执行器, 为null时在调用线程中上传
+     * @return 文件信息
+     * @throws IOException 读取流失败
+     */
+    private FileBasicInfo putStream(ObjectArgs args, InputStream stream, long size, Map<String, String> userMetadata,
+                                    Executor partExecutor) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(args.getContentType());
+        if (userMetadata != null) {
+            metadata.setUserMetadata(userMetadata);
+        }
+        if (size <= 0) {
+            MultipartOutputStream out = newOutputStream(args, metadata, partExecutor);
+            try {
+                out.transferFrom(stream);
+            } catch (IOException e) {
+                out.abort();
+                throw e;
+            }
+            out.close();
+            return StorageUtil.createFileBasicInfo(out.getETag(), args, out.getSize());
+        }
+        if (isMultipart(size)) {
+            CompleteMultipartUploadResult result = newUploader(partExecutor)
+                    .uploadStream(args.getBucketName(), args.getObjectName(), stream, size, metadata);
+            return StorageUtil.createFileBasicInfo(result.getETag(), args, size);
+        }
+        metadata.setContentLength(size);
+        PutObjectResult result = client.putObject(args.getBucketName(), args.getObjectName(), stream, metadata);
+        return StorageUtil.createFileBasicInfo(result, args, size);
+    }
+
     @Override
     public FileBasicInfo uploadFile(UploadFileArgs args) {
         try {
-            PutObjectResult result = client.putObject(args.getBucketName(), args.getObjectName(), args.getFile());
-            return StorageUtil.createFileBasicInfo(result, args, args.getObjectSize());
+            return putFile(args, args.getFile());
         } catch (Exception e) {
             throw new StorageException(e);
         }
@@ -247,19 +371,188 @@ public class DefaultS3Client implements Client {
     public FileBasicInfo uploadUrl(UploadUrlArgs args) {
         try {
             File file = args.getFile();
+            if (file == null) {
+                return putUrl(args, args.getUrl(), executor);
+            }
             HttpUtils.downloadToFile(args.getUrl(), file);
-            PutObjectResult result = client.putObject(args.getBucketName(), args.getObjectName(), file);
-            return StorageUtil.createFileBasicInfo(result, args, file.length());
+            return putFile(args, file);
         } catch (Exception e) {
             throw new StorageException(e);
         }
     }
 
+    @Override
+    public UploadUrlsResult uploadUrls(UploadUrlsArgs args) {
+        // 并发导入的文件已经占用了执行器, 单个大文件的分片在导入任务中顺序上传
+        UrlImporter importer = new UrlImporter(executor, Math.min(args.getConcurrency(), configuration.getMaxConcurrency()),
+                (objectName, url) -> {
+                    ObjectArgs objectArgs = ObjectArgs.builder().bucketName(args.getBucketName()).objectName(objectName).build();
+                    try {
+                        return putUrl(objectArgs, url, null);
+                    } catch (IOException e) {
+                        throw new StorageException(e);
+                    }
+                });
+        UploadUrlsResult result = importer.upload(args.getUrls());
+        result.setBucketName(args.getBucketName());
+        return result;
+    }
+
+    /**
+     * 将网络文件的响应体直接以流的方式上传, 响应没有 Content-Length 时按未知大小上传
+     *
+     * @param args         参数
+     * @param url          网络文件地址
+     * @param partExecutor 分片上传的执行器, 为null时在调用线程中上传
+     * @return 文件信息
+     * @throws IOException 下载失败
+     */
+    private FileBasicInfo putUrl(ObjectArgs args, String url, Executor partExecutor) throws IOException {
+        HttpURLConnection connection = HttpUtils.openStream(url);
+        try (InputStream stream = connection.getInputStream()) {
+            return putStream(args, stream, connection.getContentLengthLong(), null, partExecutor);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * 上传文件, 超过分片阈值时使用并发分片上传
+     *
+     * @param args 参数
+     * @param file 文件
+     * @return 文件信息
+     */
+    private FileBasicInfo putFile(ObjectArgs args, File file) {
+        long size = file.length();
+        if (isMultipart(size)) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(args.getContentType());
+            CompleteMultipartUploadResult result = newUploader().uploadFile(args.getBucketName(), args.getObjectName(), file, metadata);
+            return StorageUtil.createFileBasicInfo(result.getETag(), args, size);
+        }
+        PutObjectResult result = client.putObject(args.getBucketName(), args.getObjectName(), file);
+        return StorageUtil.createFileBasicInfo(result, args, size);
+    }
+
+    @Override
+    public OutputStream openOutputStream(OpenOutputStreamArgs args) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(args.getContentType());
+        return newOutputStream(args, metadata);
+    }
+
+    private MultipartOutputStream newOutputStream(ObjectArgs args, ObjectMetadata metadata) {
+        return newOutputStream(args, metadata, executor);
+    }
+
+    private MultipartOutputStream newOutputStream(ObjectArgs args, ObjectMetadata metadata, Executor partExecutor) {
+        return new MultipartOutputStream(client, args.getBucketName(), args.getObjectName(), metadata, bufferPool, partExecutor,
+                configuration.getMultipartConcurrency(), configuration.getMultipartRetries());
+    }
+
+    private boolean isMultipart(long size) {
+        DataSize threshold = configuration.getMultipartThreshold();
+        return threshold != null && size > 0 && size >= threshold.toBytes();
+    }
+
+    private ParallelUploader newUploader() {
+        return newUploader(executor);
+    }
+
+    private ParallelUploader newUploader(Executor partExecutor) {
+        return new ParallelUploader(client, partExecutor, configuration.getMultipartPartSize().toBytes(),
+                configuration.getMultipartConcurrency(), configuration.getMultipartRetries());
+    }
+
     @Override
     public void copyObject(CopyObjectArgs args) {
         CopySource source = args.getSource();
         try {
-            client.copyObject(new CopyObjectRequest(source.getBucketName(), source.getObjectName(), args.getBucketName(), args.getObjectName()));
+            copy(source.getBucketName(), source.getObjectName(), source.getObjectSize() > 0 ? source.getObjectSize() : -1,
+                    args.getBucketName(), args.getObjectName(), executor);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 复制对象
+     * 1.源对象大小已知且不小于分片复制阈值时获取源对象元数据后使用分片复制
+     * 2.否则直接使用一次 CopyObject, 源对象大小未知且服务端因源对象过大拒绝时, 获取源对象元数据, 不小于分片复制阈值时改为分片复制
+     *
+     * @param sourceBucketName 源存储空间(主目录)名称
+     * @param sourceObjectName 源对象名称
+     * @param size             源对象大小, 未知时为-1
+     * @param bucketName       目标存储空间(主目录)名称
+     * @param objectName       目标对象名称
+     * @param partExecutor     分片复制的执行器, 为null时在调用线程中复制
+     */
+    private void copy(String sourceBucketName, String sourceObjectName, long size, String bucketName, String objectName, Executor partExecutor) {
+        DataSize threshold = configuration.getMultipartCopyThreshold();
+        if (threshold != null && size >= threshold.toBytes()) {
+            copyParts(sourceBucketName, sourceObjectName, client.getObjectMetadata(sourceBucketName, sourceObjectName),
+                    bucketName, objectName, partExecutor);
+            return;
+        }
+        try {
+            client.copyObject(new CopyObjectRequest(sourceBucketName, sourceObjectName, bucketName, objectName));
+        } catch (AmazonS3Exception e) {
+            if (threshold == null || size >= 0 || !isCopySourceTooLarge(e)) {
+                throw e;
+            }
+            ObjectMetadata source = client.getObjectMetadata(sourceBucketName, sourceObjectName);
+            if (source.getContentLength() < threshold.toBytes()) {
+                throw e;
+            }
+            copyParts(sourceBucketName, sourceObjectName, source, bucketName, objectName, partExecutor);
+        }
+    }
+
+    private void copyParts(String sourceBucketName, String sourceObjectName, ObjectMetadata source,
+                           String bucketName, String objectName, Executor partExecutor) {
+        new ParallelCopier(client, partExecutor, configuration.getMultipartCopyPartSize().toBytes(),
+                configuration.getMultipartConcurrency(), configuration.getMultipartRetries())
+                .copy(sourceBucketName, sourceObjectName, source, bucketName, objectName);
+    }
+
+    /**
+     * 服务端是否因源对象过大拒绝单次复制(S3 返回 400 InvalidRequest, 部分兼容服务返回 EntityTooLarge)
+     *
+     * @param e 异常
+     * @return 是否因源对象过大拒绝
+     */
+    private static boolean isCopySourceTooLarge(AmazonS3Exception e) {
+        return "EntityTooLarge".equals(e.getErrorCode())
+                || e.getStatusCode() == HttpURLConnection.HTTP_BAD_REQUEST && "InvalidRequest".equals(e.getErrorCode());
+    }
+
+    @Override
+    public CopyPrefixResult copyPrefix(CopyPrefixArgs args) {
+        return copyPrefix(args, false);
+    }
+
+    @Override
+    public CopyPrefixResult movePrefix(CopyPrefixArgs args) {
+        return copyPrefix(args, true);
+    }
+
+    private CopyPrefixResult copyPrefix(CopyPrefixArgs args, boolean move) {
+        String destinationBucketName = args.getDestinationBucketName();
+        // 并发复制的对象已经占用了执行器, 单个大对象的分片在复制任务中顺序执行
+        PrefixCopier copier = new PrefixCopier(executor, configuration.getMaxConcurrency(),
+                (key, size, objectName) -> copy(args.getBucketName(), key, size, destinationBucketName, objectName, null),
+                move ? newBulkDeleter(args.getBucketName()) : null);
+        ListObjectsArgs listArgs = ListObjectsArgs.builder()
+                .bucketName(args.getBucketName())
+                .prefix(args.getPrefix())
+                .prefetch(true)
+                .build();
+        try (Stream<FileBasicInfo> stream = listObjectsStream(listArgs)) {
+            CopyPrefixResult result = copier.copy(stream.iterator(), args.getPrefix(), args.getDestinationPrefix());
+            result.setSourceBucketName(args.getBucketName());
+            result.setDestinationBucketName(destinationBucketName);
+            return result;
         } catch (Exception e) {
             throw new StorageException(e);
         }
@@ -267,24 +560,64 @@ public class DefaultS3Client implements Client {
 
     @Override
     public List<FileBasicInfo> listObjects(ListObjectsArgs args) {
-        ListObjectsV2Request req = new ListObjectsV2Request()
-                .withBucketName(args.getBucketName())
-                .withPrefix(args.getPrefix())
-                .withMaxKeys(args.getMaxKeys());
+        try (Stream<FileBasicInfo> stream = listObjectsStream(args)) {
+            return stream.collect(toList());
+        }
+    }
 
-        ListObjectsV2Result result;
-        List<FileBasicInfo> objectList = new ArrayList<>();
+    @Override
+    public Stream<FileBasicInfo> listObjectsStream(ListObjectsArgs args) {
+        return new ListObjectsIterator(client, args, args.isPrefetch() ? executor : null).stream();
+    }
+
+    @Override
+    public FolderListing listFolder(ListObjectsArgs args) {
+        FolderListing listing = new FolderListing();
+        listing.setBucketName(args.getBucketName());
+        listing.setPrefix(args.getPrefix());
+        FolderListing page;
+        String token = args.getContinuationToken();
         do {
-            result = client.listObjectsV2(req);
+            page = listFolderPage(args.toBuilder().continuationToken(token).build());
+            listing.getObjects().addAll(page.getObjects());
+            listing.getFolders().addAll(page.getFolders());
+            token = page.getNextContinuationToken();
+        } while (page.isTruncated());
+        return listing;
+    }
 
+    @Override
+    public FolderListing listFolderPage(ListObjectsArgs args) {
+        ListObjectsV2Request req = new ListObjectsV2Request()
+                .withBucketName(args.getBucketName())
+                .withPrefix(args.getPrefix())
+                .withDelimiter(args.getDelimiter())
+                .withMaxKeys(args.getMaxKeys())
+                .withContinuationToken(args.getContinuationToken());
+        FolderListing listing = new FolderListing();
+        listing.setBucketName(args.getBucketName());
+        listing.setPrefix(args.getPrefix());
+        try {
+            ListObjectsV2Result result = client.listObjectsV2(req);
             for (S3ObjectSummary object : result.getObjectSummaries()) {
-                objectList.add(StorageUtil.createFileBasicInfo(object, args));
+                listing.getObjects().add(StorageUtil.createFileBasicInfo(object, args));
             }
-            // If there are more than maxKeys keys in the bucket, get a continuation token
-            // and list the next objects.
-            req.setContinuationToken(result.getNextContinuationToken());
-        } while (result.isTruncated());
-        return objectList;
+            listing.getFolders().addAll(result.getCommonPrefixes());
+            listing.setTruncated(result.isTruncated());
+            listing.setNextContinuationToken(result.getNextContinuationToken());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+        return listing;
+    }
+
+    @Override
+    public Stream<FileBasicInfo> listObjectsParallel(ParallelListObjectsArgs args) {
+        // 非递归获取只有一层, 没有可拆分的分片
+        if (listPool == null || !args.isRecursive()) {
+            return listObjectsStream(args);
+        }
+        return new ParallelObjectLister(client, args, listPool).stream();
     }
 
     @Override
@@ -303,16 +636,43 @@ public class DefaultS3Client implements Client {
     private void checkObjectExist(ObjectArgs args) {
         boolean objectExist = client.doesObjectExist(args.getBucketName(), args.getObjectName());
         if (!objectExist) {
-            throw new StorageException("opcooc-storage - bucket name: [%s], object name [%s] does not exist", args.getBucketName(), args.getObjectName());
+            throw objectNotExist(args);
+        }
+    }
+
+    private StorageException objectNotExist(ObjectArgs args) {
+        return new StorageException("opcooc-storage - bucket name: [%s], object name [%s] does not exist", args.getBucketName(), args.getObjectName());
+    }
+
+    /**
+     * 读取对象
+     * 1.乐观读模式: 直接发起请求, 将404转换为对象不存在异常(只有一次请求)
+     * 2.非乐观读模式: 先判断对象是否存在再发起请求
+     *
+     * @param args    参数
+     * @param request 实际请求
+     * @param <T>     返回类型
+     * @return 请求结果
+     */
+    private <T> T readObject(ObjectArgs args, Supplier<T> request) {
+        if (!Boolean.TRUE.equals(configuration.getOptimisticRead())) {
+            checkObjectExist(args);
+            return request.get();
+        }
+        try {
+            return request.get();
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw objectNotExist(args);
+            }
+            throw e;
         }
     }
 
     @Override
     public FileBasicInfo getObjectMetadata(ObjectMetadataArgs args) {
         try {
-            //判断对象是否存在
-            checkObjectExist(args);
-            ObjectMetadata object = client.getObjectMetadata(args.getBucketName(), args.getObjectName());
+            ObjectMetadata object = readObject(args, () -> client.getObjectMetadata(args.getBucketName(), args.getObjectName()));
             return StorageUtil.createFileBasicInfo(object, args);
         } catch (Exception e) {
             throw new StorageException(e);
@@ -322,27 +682,131 @@ public class DefaultS3Client implements Client {
     @Override
     public InputStream getObjectToStream(GetObjectToStreamArgs args) {
         try {
-            //判断对象是否存在
-            checkObjectExist(args);
-            S3Object s3Object = client.getObject(args.getBucketName(), args.getObjectName());
+            if (args.isReadAhead() || args.getSuffixLength() >= 0) {
+                // 预读及后缀范围需要先获取对象大小
+                return readObject(args, () -> openRangeStream(args));
+            }
+            if (args.getLength() == 0) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            GetObjectRequest request = new GetObjectRequest(args.getBucketName(), args.getObjectName());
+            if (args.getLength() > 0) {
+                request.setRange(args.getOffset(), args.getOffset() + args.getLength() - 1);
+            } else if (args.getOffset() > 0) {
+                request.setRange(args.getOffset());
+            }
+            S3Object s3Object = readObject(args, () -> client.getObject(request));
             return s3Object.getObjectContent();
         } catch (Exception e) {
             throw new StorageException(e);
         }
     }
 
+    private InputStream openRangeStream(GetObjectToStreamArgs args) {
+        ObjectMetadata metadata = client.getObjectMetadata(args.getBucketName(), args.getObjectName());
+        long size = metadata.getContentLength();
+        long start;
+        long end;
+        if (args.getSuffixLength() >= 0) {
+            start = Math.max(0, size - args.getSuffixLength());
+            end = size;
+        } else {
+            start = Math.min(args.getOffset(), size);
+            end = args.getLength() >= 0 ? Math.min(size, start + args.getLength()) : size;
+        }
+        if (start >= end) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        if (!args.isReadAhead()) {
+            GetObjectRequest request = new GetObjectRequest(args.getBucketName(), args.getObjectName()).withRange(start, end - 1);
+            return client.getObject(request).getObjectContent();
+        }
+        RangeReader reader = rangeReader(args.getBucketName(), args.getObjectName(), metadata.getETag());
+        int chunkSize = (int) Math.min(configuration.getReadAheadChunkSize().toBytes(), Integer.MAX_VALUE - 8);
+        return new ReadAheadInputStream(reader, executor, start, end, chunkSize, configuration.getReadAheadChunks(), configuration.getMultipartRetries());
+    }
+
+    @Override
+    public SeekableByteChannel openChannel(OpenChannelArgs args) {
+        try {
+            ObjectMetadata metadata = readObject(args, () -> client.getObjectMetadata(args.getBucketName(), args.getObjectName()));
+            RangeReader reader = rangeReader(args.getBucketName(), args.getObjectName(), metadata.getETag());
+            int blockSize = (int) Math.min(configuration.getChannelBlockSize().toBytes(), Integer.MAX_VALUE - 8);
+            return new RangeSeekableByteChannel(reader, metadata.getContentLength(), blockSize,
+                    configuration.getChannelCacheBlocks(), configuration.getMultipartRetries());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public List<ByteBuffer> readVectored(ReadVectoredArgs args) {
+        try {
+            ObjectMetadata metadata = readObject(args, () -> client.getObjectMetadata(args.getBucketName(), args.getObjectName()));
+            RangeReader reader = rangeReader(args.getBucketName(), args.getObjectName(), metadata.getETag());
+            return new VectoredReader(reader, executor, configuration.getVectoredReadMaxGap().toBytes(),
+                    configuration.getVectoredReadMaxMergedSize().toBytes(), configuration.getMultipartRetries()).read(args.getRanges());
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 对象区间读取(带 If-Match 条件, 对象被修改时失败)
+     *
+     * @param bucketName 存储空间(主目录)名称
+     * @param objectName 对象名称
+     * @param eTag       对象 ETag
+     * @return 区间读取
+     */
+    private RangeReader rangeReader(String bucketName, String objectName, String eTag) {
+        return (position, length) -> {
+            GetObjectRequest request = new GetObjectRequest(bucketName, objectName).withRange(position, position + length - 1);
+            if (eTag != null) {
+                request.withMatchingETagConstraint(eTag);
+            }
+            S3Object object = client.getObject(request);
+            if (object == null) {
+                throw new StorageException("opcooc-storage - object name: [%s], object was modified during read", objectName);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            try (S3ObjectInputStream in = object.getObjectContent()) {
+                int n;
+                while (buffer.hasRemaining() && (n = in.read(buffer.array(), buffer.position(), buffer.remaining())) >= 0) {
+                    buffer.position(buffer.position() + n);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        };
+    }
+
     @Override
     public File geObjectToFile(GetObjectToFileArgs args) {
         try {
-            //判断对象是否存在
-            checkObjectExist(args);
-            client.getObject(new GetObjectRequest(args.getBucketName(), args.getObjectName()), args.getFile());
+            readObject(args, () -> newDownloader().download(args.getBucketName(), args.getObjectName(), args.getFile().toPath()));
             return args.getFile();
         } catch (Exception e) {
             throw new StorageException(e);
         }
     }
 
+    @Override
+    public Path getObjectToPath(GetObjectToPathArgs args) {
+        Path path = Paths.get(args.getPath());
+        try {
+            readObject(args, () -> newDownloader().download(args.getBucketName(), args.getObjectName(), path));
+            return path;
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    private ParallelDownloader newDownloader() {
+        return new ParallelDownloader(client, executor, configuration.getMultipartPartSize().toBytes(),
+                configuration.getMultipartConcurrency(), configuration.getMultipartRetries());
+    }
+
     @Override
     public void deleteObject(DeleteObjectArgs args) {
         try {
@@ -353,11 +817,13 @@ public class DefaultS3Client implements Client {
     }
 
     @Override
-    public void deleteObjects(DeleteObjectsArgs args) {
+    public DeleteResult deleteObjects(DeleteObjectsArgs args) {
         try {
             List<DeleteObjectsRequest.KeyVersion> objects = args.getObjects().stream().map(DeleteObjectsRequest.KeyVersion::new).collect(toList());
-            DeleteObjectsRequest request = new DeleteObjectsRequest(args.getBucketName()).withKeys(objects);
-            client.deleteObjects(request);
+            BulkDeleter deleter = newBulkDeleter(args.getBucketName());
+            deleter.setReportDeletedKeys(args.isReportDeletedKeys());
+            deleter.submit(objects);
+            return deleter.await();
         } catch (Exception e) {
             throw new StorageException(e);
         }
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.drivers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.util.StringUtils;
+
+import com.opcooc.storage.client.Client;
+import com.opcooc.storage.client.DefaultLocalClient;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 本地文件系统 ClientDriver, 存储空间(主目录)对应根目录(localRoot)下的子目录
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class DefaultLocalClientDriver implements ClientDriver {
+
+    private final ClientDriverProperty configuration;
+    @Getter
+    private final Path root;
+    private final Client client;
+    private final String name;
+
+    public DefaultLocalClientDriver(ClientDriverProperty configuration) {
+        this.name = configuration.getDriverName();
+        if (!StringUtils.hasText(configuration.getLocalRoot())) {
+            throw new StorageException("opcooc-storage - property pre check error, local root is required for driver type LOCAL.");
+        }
+        this.configuration = configuration;
+        this.root = Paths.get(configuration.getLocalRoot()).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new StorageException("opcooc-storage - local root [%s] could not be created", e, root);
+        }
+        this.client = new DefaultLocalClient(root);
+        log.debug("opcooc-storage - init local client driver [{}] success, root [{}]", name, root);
+    }
+
+    @Override
+    public Client connect() {
+        return client;
+    }
+
+    @Override
+    public ClientDriverProperty getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public void close() {
+        log.debug("opcooc-storage - shutdown [{}] local client driver", name);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.drivers;
+
+import com.opcooc.storage.client.Client;
+import com.opcooc.storage.client.DefaultMemoryClient;
+import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 内存 ClientDriver, 对象保存在内存中, 用于测试及基准测试(不依赖 S3 服务)
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class DefaultMemoryClientDriver implements ClientDriver {
+
+    private final ClientDriverProperty configuration;
+    private final DefaultMemoryClient client;
+    private final String name;
+
+    public DefaultMemoryClientDriver(ClientDriverProperty configuration) {
+        this.name = configuration.getDriverName();
+        this.configuration = configuration;
+        this.client = new DefaultMemoryClient(configuration.getMemoryLatency());
+        log.debug("opcooc-storage - init memory client driver [{}] success", name);
+    }
+
+    @Override
+    public Client connect() {
+        return client;
+    }
+
+    @Override
+    public ClientDriverProperty getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public void close() {
+        log.debug("opcooc-storage - shutdown [{}] memory client driver", name);
+        client.clear();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.drivers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.util.StringUtils;
+
+import com.opcooc.storage.client.Client;
+import com.opcooc.storage.client.DefaultS3AsyncClient;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+import com.opcooc.storage.toolkit.StorageUtil;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * 基于 AWS SDK v2 S3AsyncClient 的客户端驱动
+ * 1.HTTP 请求使用 Netty 非阻塞传输, 并发请求不再占用线程, 连接数由 maxConnections 限制
+ * 2.需要引入 software.amazon.awssdk:s3 及 software.amazon.awssdk:netty-nio-client 依赖
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class DefaultS3AsyncClientDriver implements ClientDriver {
+
+    /**
+     * 未配置区域时使用的默认区域
+     */
+    private static final String DEFAULT_REGION = "us-east-1";
+
+    private final ClientDriverProperty configuration;
+    private final SdkAsyncHttpClient httpClient;
+    @Getter
+    private final S3AsyncClient asyncClient;
+    private final S3Presigner presigner;
+    private final ExecutorService executor;
+    private final Client client;
+    private final String name;
+
+    public DefaultS3AsyncClientDriver(ClientDriverProperty configuration) {
+        this.name = configuration.getDriverName();
+        // 校验配置合法性
+        configuration.preCheckThrow();
+        this.configuration = configuration;
+        this.httpClient = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(configuration.getMaxConnections())
+                .build();
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(configuration.getAccessKey(), configuration.getSecretKey()));
+        URI endpoint = endpoint(configuration.getEndPoint());
+        Region region = Region.of(StringUtils.hasText(configuration.getRegion()) ? configuration.getRegion() : DEFAULT_REGION);
+        S3Configuration serviceConfiguration = S3Configuration.builder()
+                .pathStyleAccessEnabled(Boolean.TRUE.equals(configuration.getPathStyle()))
+                .build();
+        this.asyncClient = S3AsyncClient.builder()
+                .httpClient(httpClient)
+                .credentialsProvider(credentials)
+                .endpointOverride(endpoint)
+                .region(region)
+                .serviceConfiguration(serviceConfiguration)
+                .build();
+        this.presigner = S3Presigner.builder()
+                .credentialsProvider(credentials)
+                .endpointOverride(endpoint)
+                .region(region)
+                .serviceConfiguration(serviceConfiguration)
+                .build();
+        String threadNamePrefix = "opcooc-storage-" + (StringUtils.hasText(name) ? name : "s3-async") + "-";
+        this.executor = StorageUtil.createExecutor(threadNamePrefix, configuration.getMaxConcurrency());
+        this.client = new DefaultS3AsyncClient(asyncClient, presigner, endpoint, configuration, executor);
+        log.debug("opcooc-storage - init async client driver [{}] success", name);
+    }
+
+    /**
+     * SDK v2 要求访问域名包含协议, 未指定时使用 https
+     *
+     * @param endPoint 访问域名
+     * @return 访问地址
+     */
+    private static URI endpoint(String endPoint) {
+        return URI.create(endPoint.contains("://") ? endPoint : "https://" + endPoint);
+    }
+
+    @Override
+    public Client connect() {
+        return client;
+    }
+
+    @Override
+    public ClientDriverProperty getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.debug("opcooc-storage - shutdown [{}] async client driver", name);
+        try {
+            executor.shutdownNow();
+            presigner.close();
+            asyncClient.close();
+            httpClient.close();
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+}
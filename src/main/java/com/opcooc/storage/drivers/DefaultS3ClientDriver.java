@@ -16,6 +16,10 @@
 package com.opcooc.storage.drivers;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.util.StringUtils;
 
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
@@ -27,6 +31,7 @@ import com.opcooc.storage.client.Client;
 import com.opcooc.storage.client.DefaultS3Client;
 import com.opcooc.storage.exception.StorageException;
 import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+import com.opcooc.storage.toolkit.StorageUtil;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -39,6 +44,9 @@ public class DefaultS3ClientDriver implements ClientDriver {
 
     private final ClientDriverProperty configuration;
     private final AmazonS3 s3;
+    private final ExecutorService executor;
+    private final ForkJoinPool listPool;
+    private final Client client;
     private final String name;
 
     public DefaultS3ClientDriver(ClientDriverProperty configuration) {
@@ -47,11 +55,15 @@ public class DefaultS3ClientDriver implements ClientDriver {
         configuration.preCheckThrow();
         this.configuration = configuration;
         this.s3 = init(configuration);
+        String threadNamePrefix = "opcooc-storage-" + (StringUtils.hasText(name) ? name : "s3") + "-";
+        this.executor = StorageUtil.createExecutor(threadNamePrefix, configuration.getMaxConcurrency());
+        this.listPool = StorageUtil.createForkJoinPool(threadNamePrefix + "list-", configuration.getListConcurrency());
+        this.client = new DefaultS3Client(s3, configuration, executor, listPool);
     }
 
     @Override
     public Client connect() {
-        return new DefaultS3Client(s3);
+        return client;
     }
 
     @Override
@@ -59,6 +71,15 @@ public class DefaultS3ClientDriver implements ClientDriver {
         return configuration;
     }
 
+    /**
+     * 底层 AmazonS3 客户端(用于监控连接池等)
+     *
+     * @return AmazonS3 客户端
+     */
+    public AmazonS3 getAmazonS3() {
+        return s3;
+    }
+
     public AmazonS3 init(ClientDriverProperty configuration) {
 
         AWSCredentials credentials = new BasicAWSCredentials(configuration.getAccessKey(), configuration.getSecretKey());
@@ -80,6 +101,8 @@ public class DefaultS3ClientDriver implements ClientDriver {
     public void close() throws IOException {
         log.debug("opcooc-storage - shutdown [{}] client driver", name);
         try {
+            executor.shutdownNow();
+            listPool.shutdownNow();
             s3.shutdown();
         } catch (Exception e) {
             throw new StorageException(e);
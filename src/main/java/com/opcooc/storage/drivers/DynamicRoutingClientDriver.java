@@ -23,6 +23,7 @@ import java.util.Map;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.util.StringUtils;
@@ -40,7 +41,8 @@ import lombok.extern.slf4j.Slf4j;
  * @since 1.2.0
  */
 @Slf4j
-public class DynamicRoutingClientDriver extends AbstractRoutingClientDriver implements InitializingBean, DisposableBean, ApplicationContextAware {
+public class DynamicRoutingClientDriver extends AbstractRoutingClientDriver
+        implements InitializingBean, SmartInitializingSingleton, DisposableBean, ApplicationContextAware {
 
     /**
      * 所有客户端
@@ -54,6 +56,12 @@ public class DynamicRoutingClientDriver extends AbstractRoutingClientDriver impl
 
     private ApplicationContext applicationContext;
 
+    /**
+     * 初始化时加载驱动不立即发布事件, 所有单例创建完成后再发布
+     * 避免事件监听器(依赖 StorageClient)在驱动初始化过程中被创建, 与驱动形成循环依赖
+     */
+    private boolean deferEvents;
+
     @Override
     public ClientDriver determineClientDriver() {
         return getClientDriver(DynamicClientContextHolder.peek());
@@ -101,7 +109,9 @@ public class DynamicRoutingClientDriver extends AbstractRoutingClientDriver impl
     public synchronized void addClientDriver(String driverName, ClientDriver clientDriver) {
         if (!clientDriverMap.containsKey(driverName)) {
             clientDriverMap.put(driverName, clientDriver);
-            publishEvent(driverName, StorageConstant.EVENT_ADD);
+            if (!deferEvents) {
+                publishEvent(driverName, StorageConstant.EVENT_ADD);
+            }
             log.info("opcooc-storage - load a client driver named [{}] success", driverName);
         } else {
             log.warn("opcooc-storage - load a client driver named [{}] failed, because it already exist", driverName);
@@ -144,11 +154,16 @@ public class DynamicRoutingClientDriver extends AbstractRoutingClientDriver impl
     public void afterPropertiesSet() throws Exception {
         Map<String, ClientDriverProvider> validateCodeGeneratorMap = applicationContext.getBeansOfType(ClientDriverProvider.class);
         Collection<ClientDriverProvider> values = validateCodeGeneratorMap.values();
-        for (ClientDriverProvider provider : values) {
-            Map<String, ClientDriver> clientDrivers = provider.loadClientDrivers();
-            for (Map.Entry<String, ClientDriver> item : clientDrivers.entrySet()) {
-                addClientDriver(item.getKey(), item.getValue());
+        deferEvents = true;
+        try {
+            for (ClientDriverProvider provider : values) {
+                Map<String, ClientDriver> clientDrivers = provider.loadClientDrivers();
+                for (Map.Entry<String, ClientDriver> item : clientDrivers.entrySet()) {
+                    addClientDriver(item.getKey(), item.getValue());
+                }
             }
+        } finally {
+            deferEvents = false;
         }
         // 检测默认驱动是否设置
         if (clientDriverMap.containsKey(primary)) {
@@ -158,6 +173,13 @@ public class DynamicRoutingClientDriver extends AbstractRoutingClientDriver impl
         }
     }
 
+    @Override
+    public synchronized void afterSingletonsInstantiated() {
+        for (String driverName : clientDriverMap.keySet()) {
+            publishEvent(driverName, StorageConstant.EVENT_ADD);
+        }
+    }
+
     @Override
     public void close() throws IOException {
         log.info("opcooc-storage - start closing ....");
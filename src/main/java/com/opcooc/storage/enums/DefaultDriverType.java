@@ -21,5 +21,7 @@ package com.opcooc.storage.enums;
 public enum DefaultDriverType {
     /* */
     LOCAL,
-    S3;
+    S3,
+    S3_ASYNC,
+    MEMORY;
 }
@@ -29,7 +29,7 @@ public class StorageException extends RuntimeException {
     }
 
     public StorageException(Exception e) {
-        this("method: [%s] error message: [%s]", e.getClass().getSimpleName(), e.getMessage());
+        this(String.format("method: [%s] error message: [%s]", e.getClass().getSimpleName(), e.getMessage()), e);
     }
 
     public StorageException(String format, Object... args) {
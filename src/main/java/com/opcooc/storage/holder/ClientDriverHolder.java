@@ -15,11 +15,16 @@
  */
 package com.opcooc.storage.holder;
 
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 import com.opcooc.storage.drivers.ClientDriver;
+import com.opcooc.storage.drivers.DefaultLocalClientDriver;
+import com.opcooc.storage.drivers.DefaultMemoryClientDriver;
+import com.opcooc.storage.drivers.DefaultS3AsyncClientDriver;
 import com.opcooc.storage.drivers.DefaultS3ClientDriver;
 import com.opcooc.storage.enums.DefaultDriverType;
+import com.opcooc.storage.exception.StorageException;
 import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
 import com.opcooc.storage.spring.boot.autoconfigure.DynamicStorageProperties;
 import com.opcooc.storage.toolkit.StorageUtil;
@@ -35,6 +40,8 @@ import lombok.extern.slf4j.Slf4j;
 @Setter
 public class ClientDriverHolder {
 
+    private static final String S3_ASYNC_CLIENT_CLASS = "software.amazon.awssdk.services.s3.S3AsyncClient";
+
     private DynamicStorageProperties properties;
 
     public ClientDriver getClientDriver(ClientDriverProperty property) {
@@ -53,8 +60,19 @@ public class ClientDriverHolder {
             return getDefaultS3ClientDriver(property);
         }
 
+        if (property.getType() == DefaultDriverType.S3_ASYNC) {
+            //s3 async ClientDriver
+            return getDefaultS3AsyncClientDriver(property);
+        }
+
         if (property.getType() == DefaultDriverType.LOCAL) {
-            // ... todo 待实现
+            //本地文件系统 ClientDriver
+            return getDefaultLocalClientDriver(property);
+        }
+
+        if (property.getType() == DefaultDriverType.MEMORY) {
+            //内存 ClientDriver
+            return getDefaultMemoryClientDriver(property);
         }
 
         //默认s3 (将更改为local)
@@ -77,4 +95,34 @@ public class ClientDriverHolder {
         log.info("opcooc-storage - default s3 client driver instantiate success.");
         return driver;
     }
+
+    public ClientDriver getDefaultS3AsyncClientDriver(ClientDriverProperty property) {
+        if (!ClassUtils.isPresent(S3_ASYNC_CLIENT_CLASS, ClientDriverHolder.class.getClassLoader())) {
+            throw new StorageException("opcooc-storage - driver type S3_ASYNC requires software.amazon.awssdk:s3 and software.amazon.awssdk:netty-nio-client");
+        }
+        //客户端驱动参数预处理
+        if (!property.preCheck()) {
+            log.error("opcooc-storage - default s3 async client driver property pre check error, params incomplete.");
+            return null;
+        }
+        ClientDriver driver = new DefaultS3AsyncClientDriver(property);
+        log.info("opcooc-storage - default s3 async client driver instantiate success.");
+        return driver;
+    }
+
+    public ClientDriver getDefaultLocalClientDriver(ClientDriverProperty property) {
+        if (!StringUtils.hasText(property.getLocalRoot())) {
+            log.error("opcooc-storage - default local client driver property pre check error, local root is required.");
+            return null;
+        }
+        ClientDriver driver = new DefaultLocalClientDriver(property);
+        log.info("opcooc-storage - default local client driver instantiate success.");
+        return driver;
+    }
+
+    public ClientDriver getDefaultMemoryClientDriver(ClientDriverProperty property) {
+        ClientDriver driver = new DefaultMemoryClientDriver(property);
+        log.info("opcooc-storage - default memory client driver instantiate success.");
+        return driver;
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+import com.opcooc.storage.exception.StorageException;
+
+/**
+ * 固定大小的缓冲区池(每个客户端驱动一份)
+ * 1.缓冲区按需创建, 最多创建 maxBuffers 个, 归还后重复使用
+ * 2.缓冲区全部被占用时 acquire 阻塞, 从而限制写入速度(背压)
+ * 3.可以使用堆外内存(direct), 避免大缓冲区占用堆空间
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+
+    private final boolean direct;
+
+    private final Semaphore permits;
+
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param bufferSize 缓冲区大小
+     * @param maxBuffers 最多同时使用的缓冲区数量
+     * @param direct     是否使用堆外内存
+     */
+    public BufferPool(int bufferSize, int maxBuffers, boolean direct) {
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+        this.permits = new Semaphore(Math.max(1, maxBuffers));
+    }
+
+    /**
+     * 获取一个已清空的缓冲区, 没有可用的缓冲区时等待
+     *
+     * @return 缓冲区
+     */
+    public ByteBuffer acquire() {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("opcooc-storage - acquire buffer interrupted", e);
+        }
+        ByteBuffer buffer = free.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        try {
+            return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        } catch (OutOfMemoryError e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还缓冲区
+     *
+     * @param buffer 缓冲区
+     */
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        free.offer(buffer);
+        permits.release();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 当前可立即获取的缓冲区数量
+     *
+     * @return 数量
+     */
+    public int available() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 读取文件指定区间的输入流
+ * 1.使用 FileChannel 的定位读取, 不修改通道位置, 多个流可以在同一个通道上并发读取
+ * 2.支持 mark/reset, 上传失败重试时无需重新打开文件
+ * 3.关闭流不会关闭通道
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class FileRegionInputStream extends InputStream {
+
+    private final FileChannel channel;
+
+    private final long start;
+
+    private final long end;
+
+    private long position;
+
+    private long mark;
+
+    private boolean closed;
+
+    /**
+     * @param channel  文件通道
+     * @param position 区间起始位置
+     * @param length   区间长度
+     */
+    public FileRegionInputStream(FileChannel channel, long position, long length) {
+        this.channel = channel;
+        this.start = position;
+        this.end = position + length;
+        this.position = position;
+        this.mark = position;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        long remaining = end - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, remaining));
+        int n = channel.read(buffer, position);
+        if (n < 0) {
+            throw new EOFException("file truncated while reading region [" + start + ", " + end + ")");
+        }
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        ensureOpen();
+        long skipped = Math.max(0, Math.min(n, end - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        ensureOpen();
+        position = mark;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+
+/**
+ * 将已知长度的阻塞输入流转换为异步请求体(AWS SDK v2)
+ * 1.只在下游请求数据时才在执行器中读取, 读取线程不会阻塞 HTTP 的 IO 线程
+ * 2.每次读取一个块并发送, 内存中的数据量与下游请求的块数成正比
+ * 3.流只能被读取一次, 请求体不能用于重试
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class InputStreamRequestBody implements AsyncRequestBody {
+
+    private final InputStream stream;
+
+    private final long length;
+
+    private final Executor executor;
+
+    private final int chunkSize;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * @param stream    输入流
+     * @param length    流的长度
+     * @param executor  读取流的执行器
+     * @param chunkSize 每次读取的块大小
+     */
+    public InputStreamRequestBody(InputStream stream, long length, Executor executor, int chunkSize) {
+        this.stream = stream;
+        this.length = length;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Optional<Long> contentLength() {
+        return Optional.of(length);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IOException("input stream request body can only be subscribed once"));
+            return;
+        }
+        subscriber.onSubscribe(new StreamSubscription(subscriber));
+    }
+
+    /**
+     * 按需读取流的订阅, 同一时间只有一个读取任务在执行
+     */
+    private class StreamSubscription implements Subscription {
+
+        private final Subscriber<? super ByteBuffer> subscriber;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        private long remaining = length;
+
+        private boolean done;
+
+        StreamSubscription(Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelled = true;
+                subscriber.onError(new IllegalArgumentException("request must be positive, but was " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                executor.execute(this::emit);
+            } catch (RejectedExecutionException e) {
+                cancelled = true;
+                subscriber.onError(e);
+            }
+        }
+
+        private void emit() {
+            do {
+                while (!done && !cancelled && demand.get() > 0) {
+                    if (remaining == 0) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    ByteBuffer chunk;
+                    try {
+                        chunk = readChunk();
+                    } catch (IOException e) {
+                        done = true;
+                        subscriber.onError(e);
+                        return;
+                    }
+                    remaining -= chunk.remaining();
+                    demand.decrementAndGet();
+                    subscriber.onNext(chunk);
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private ByteBuffer readChunk() throws IOException {
+            byte[] buffer = new byte[(int) Math.min(chunkSize, remaining)];
+            int offset = 0;
+            while (offset < buffer.length) {
+                int n = stream.read(buffer, offset, buffer.length - offset);
+                if (n < 0) {
+                    throw new EOFException("stream ended before the declared length [" + length + "]");
+                }
+                offset += n;
+            }
+            return ByteBuffer.wrap(buffer);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.toolkit.StorageUtil;
+import com.opcooc.storage.transfer.MultipartUploadSession;
+
+import lombok.Getter;
+
+/**
+ * 写入对象的输出流(无需预先知道对象大小)
+ * 1.写入的数据先写到缓冲区池中的缓冲区, 缓冲区写满后作为一个分片并发上传, 上传结束后归还缓冲区
+ * 2.缓冲区池没有可用缓冲区或同时上传的分片数达到上限时写入阻塞
+ * 3.关闭时上传剩余数据并合并分片, 数据不足一个缓冲区时直接使用一次 putObject 上传
+ * 4.写入或关闭失败时取消分片上传, 也可以调用 abort 主动取消
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class MultipartOutputStream extends OutputStream {
+
+    private final AmazonS3 client;
+
+    private final String bucketName;
+
+    private final String objectName;
+
+    private final ObjectMetadata metadata;
+
+    private final BufferPool pool;
+
+    private final Executor executor;
+
+    private final int concurrency;
+
+    private final int retries;
+
+    private MultipartUploadSession session;
+
+    private ByteBuffer buffer;
+
+    private boolean closed;
+
+    /**
+     * 已写入的字节数
+     */
+    @Getter
+    private long size;
+
+    /**
+     * 上传完成后对象的ETag
+     */
+    @Getter
+    private String eTag;
+
+    /**
+     * @param client      客户端
+     * @param bucketName  存储空间(主目录)名称
+     * @param objectName  对象名称
+     * @param metadata    对象元数据
+     * @param pool        缓冲区池, 缓冲区大小即分片大小
+     * @param executor    执行器, 为null时在写入线程中上传
+     * @param concurrency 同时上传的最大分片数
+     * @param retries     单个分片失败后的最大重试次数
+     */
+    public MultipartOutputStream(AmazonS3 client, String bucketName, String objectName, ObjectMetadata metadata,
+                                 BufferPool pool, Executor executor, int concurrency, int retries) {
+        if (pool.getBufferSize() < MultipartUploadSession.MIN_PART_SIZE) {
+            throw new StorageException("opcooc-storage - part size [%s] is less than the minimum [%s]", pool.getBufferSize(), MultipartUploadSession.MIN_PART_SIZE);
+        }
+        this.client = client;
+        this.bucketName = bucketName;
+        this.objectName = objectName;
+        this.metadata = metadata;
+        this.pool = pool;
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.retries = retries;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureBuffer().put((byte) b);
+        size++;
+        flushIfFull();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ByteBuffer current = ensureBuffer();
+            int n = Math.min(len, current.remaining());
+            current.put(b, off, n);
+            off += n;
+            len -= n;
+            size += n;
+            flushIfFull();
+        }
+    }
+
+    /**
+     * 将输入流的全部内容写入(堆内缓冲区时直接读取到缓冲区中, 没有额外的复制)
+     *
+     * @param stream 输入流
+     * @return 写入的字节数
+     * @throws IOException 读取或写入失败
+     */
+    public long transferFrom(InputStream stream) throws IOException {
+        long total = 0;
+        byte[] chunk = null;
+        while (true) {
+            ByteBuffer current = ensureBuffer();
+            int n;
+            if (current.hasArray()) {
+                n = stream.read(current.array(), current.arrayOffset() + current.position(), current.remaining());
+                if (n > 0) {
+                    current.position(current.position() + n);
+                }
+            } else {
+                if (chunk == null) {
+                    chunk = new byte[8192];
+                }
+                n = stream.read(chunk, 0, Math.min(chunk.length, current.remaining()));
+                if (n > 0) {
+                    current.put(chunk, 0, n);
+                }
+            }
+            if (n < 0) {
+                return total;
+            }
+            total += n;
+            size += n;
+            flushIfFull();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (session == null) {
+                putSingle();
+                return;
+            }
+            if (buffer != null && buffer.position() > 0) {
+                submit();
+            }
+            releaseBuffer();
+            eTag = session.complete().getETag();
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 上传完成后的文件信息, 由关闭时得到的ETag及写入的字节数构建, 不再读取对象元数据
+     *
+     * @return 文件信息, 未关闭时为null
+     */
+    public FileBasicInfo getResult() {
+        return eTag == null ? null : StorageUtil.createFileBasicInfo(eTag, bucketName, objectName, metadata.getContentType(), size);
+    }
+
+    /**
+     * 取消上传, 已上传的分片会被删除
+     */
+    public void abort() {
+        closed = true;
+        releaseBuffer();
+        if (session != null) {
+            session.abort();
+        }
+    }
+
+    private ByteBuffer ensureBuffer() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+        if (buffer == null) {
+            buffer = pool.acquire();
+        }
+        return buffer;
+    }
+
+    private void flushIfFull() {
+        if (!buffer.hasRemaining()) {
+            try {
+                submit();
+            } catch (RuntimeException e) {
+                abort();
+                throw e;
+            }
+        }
+    }
+
+    private void submit() {
+        if (session == null) {
+            session = MultipartUploadSession.initiate(client, bucketName, objectName, metadata, executor, concurrency, retries);
+        }
+        ByteBuffer part = buffer;
+        buffer = null;
+        part.flip();
+        session.uploadPart(part.remaining(), () -> new ByteBufferInputStream(part), () -> pool.release(part));
+    }
+
+    private void putSingle() {
+        ObjectMetadata single = metadata.clone();
+        single.setContentLength(size);
+        try {
+            ByteBuffer content = buffer == null ? ByteBuffer.allocate(0) : (ByteBuffer) buffer.flip();
+            eTag = client.putObject(new PutObjectRequest(bucketName, objectName, new ByteBufferInputStream(content), single)).getETag();
+        } finally {
+            releaseBuffer();
+        }
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            ByteBuffer current = buffer;
+            buffer = null;
+            pool.release(current);
+        }
+    }
+}
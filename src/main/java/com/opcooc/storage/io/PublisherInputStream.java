@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * 将 ByteBuffer 发布者转换为阻塞输入流
+ * 1.每次只向上游请求一个缓冲区, 当前缓冲区开始被读取时才请求下一个, 内存中最多保留两个缓冲区
+ * 2.上游的错误在读取到该位置时以 IOException 抛出
+ * 3.未读取完毕时关闭流会取消订阅, 底层连接随之释放
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class PublisherInputStream extends InputStream implements Subscriber<ByteBuffer> {
+
+    /**
+     * 结束标记
+     */
+    private static final Object COMPLETE = new Object();
+
+    /**
+     * 上游发送的缓冲区, 错误或结束标记
+     */
+    private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+
+    private volatile Subscription subscription;
+
+    private volatile boolean closed;
+
+    private ByteBuffer current;
+
+    private boolean done;
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (subscription != null) {
+            s.cancel();
+            return;
+        }
+        subscription = s;
+        if (closed) {
+            s.cancel();
+            return;
+        }
+        s.request(1);
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer) {
+        signals.add(buffer);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        signals.add(t);
+    }
+
+    @Override
+    public void onComplete() {
+        signals.add(COMPLETE);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.remaining());
+        current.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.remaining();
+    }
+
+    /**
+     * 当前缓冲区读取完毕时等待上游发送下一个
+     *
+     * @return 是否还有可读内容
+     * @throws IOException 上游发生错误或等待被中断
+     */
+    private boolean fill() throws IOException {
+        while (current == null || !current.hasRemaining()) {
+            if (done) {
+                return false;
+            }
+            Object signal;
+            try {
+                signal = signals.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for data");
+            }
+            if (signal == COMPLETE) {
+                done = true;
+                current = null;
+                return false;
+            }
+            if (signal instanceof Throwable) {
+                done = true;
+                current = null;
+                Throwable cause = (Throwable) signal;
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            }
+            current = (ByteBuffer) signal;
+            subscription.request(1);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        current = null;
+        Subscription s = subscription;
+        if (s != null && !done) {
+            s.cancel();
+        }
+        signals.clear();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 读取对象指定区间的内容
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@FunctionalInterface
+public interface RangeReader {
+
+    /**
+     * 读取区间 [position, position + length) 的全部内容
+     *
+     * @param position 起始位置
+     * @param length   长度
+     * @return 区间内容(position 为0, limit 为实际读取的长度, 只有到达对象末尾时才会小于 length)
+     * @throws IOException 读取失败
+     */
+    ByteBuffer read(long position, int length) throws IOException;
+}
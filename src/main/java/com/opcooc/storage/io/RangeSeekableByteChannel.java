@@ -0,0 +1,232 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.opcooc.storage.toolkit.RetryUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于区间读取的只读 SeekableByteChannel
+ * 1.对象按块大小划分, 读取时按块获取并放入 LRU 缓存, 重复读取同一块不再请求
+ * 2.连续顺序读取时每次获取的块数翻倍(不超过缓存容量的一半), 随机读取时恢复为一块
+ * 3.单次获取失败时按退避时间重试
+ * 4.获取到的内容比对象大小短时抛出 EOFException
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class RangeSeekableByteChannel implements SeekableByteChannel {
+
+    /**
+     * 默认块大小
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * 默认最多缓存的块数
+     */
+    public static final int DEFAULT_CACHE_BLOCKS = 16;
+
+    private final RangeReader reader;
+
+    private final long size;
+
+    private final int blockSize;
+
+    private final int maxWindow;
+
+    private final int retries;
+
+    private final Map<Long, ByteBuffer> cache;
+
+    private long position;
+
+    /**
+     * 上一次读取的块, 用于判断是否为顺序读取
+     */
+    private long lastBlock = -2;
+
+    /**
+     * 缓存未命中时一次获取的块数
+     */
+    private int window = 1;
+
+    private boolean open = true;
+
+    /**
+     * @param reader      区间读取
+     * @param size        对象大小
+     * @param blockSize   块大小
+     * @param cacheBlocks 最多缓存的块数
+     * @param retries     单次获取失败后的最大重试次数
+     */
+    public RangeSeekableByteChannel(RangeReader reader, long size, int blockSize, int cacheBlocks, int retries) {
+        this.reader = reader;
+        this.size = size;
+        this.blockSize = Math.max(1, blockSize);
+        int capacity = Math.max(1, cacheBlocks);
+        this.maxWindow = Math.max(1, capacity / 2);
+        this.retries = Math.max(0, retries);
+        this.cache = new LinkedHashMap<Long, ByteBuffer>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ByteBuffer> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        int total = 0;
+        while (dst.hasRemaining() && position < size) {
+            long index = position / blockSize;
+            ByteBuffer block = block(index);
+            int offset = (int) (position - index * blockSize);
+            if (offset >= block.limit()) {
+                // 获取到的块比预期短(对象变小或内容被截断), 丢弃该块, 不能返回0导致调用方循环读取
+                cache.remove(index);
+                if (total > 0) {
+                    break;
+                }
+                throw new EOFException("premature end of object at position " + position + ", expected size " + size);
+            }
+            int n = Math.min(dst.remaining(), block.limit() - offset);
+            ByteBuffer slice = block.duplicate();
+            slice.position(offset).limit(offset + n);
+            dst.put(slice);
+            position += n;
+            total += n;
+        }
+        return total;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("position must not be negative");
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() {
+        open = false;
+        cache.clear();
+    }
+
+    private ByteBuffer block(long index) throws IOException {
+        boolean sequential = index == lastBlock + 1 || index == lastBlock;
+        lastBlock = index;
+        ByteBuffer block = cache.get(index);
+        if (block != null) {
+            return block;
+        }
+        window = sequential ? Math.min(maxWindow, window * 2) : 1;
+        long start = index * blockSize;
+        int count = window;
+        // 已缓存的块不再重复获取
+        for (int i = 1; i < count; i++) {
+            if (cache.containsKey(index + i)) {
+                count = i;
+                break;
+            }
+        }
+        int length = (int) Math.min((long) blockSize * count, size - start);
+        ByteBuffer data = fetch(start, length);
+        ByteBuffer first = null;
+        for (int i = 0; i * (long) blockSize < data.limit(); i++) {
+            ByteBuffer slice = data.duplicate();
+            slice.position(i * blockSize).limit((int) Math.min(data.limit(), (long) (i + 1) * blockSize));
+            ByteBuffer piece = slice.slice();
+            cache.put(index + i, piece);
+            if (i == 0) {
+                first = piece;
+            }
+        }
+        if (first == null) {
+            throw new IOException("premature end of object at position " + start);
+        }
+        // 刚放入的后续块可能挤掉当前块, 重新放入保证当前块可用
+        cache.put(index, first);
+        return first;
+    }
+
+    private ByteBuffer fetch(long start, int length) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return reader.read(start, length);
+            } catch (IOException | RuntimeException e) {
+                if (attempt >= retries || !RetryUtils.isRetryable(e)) {
+                    throw e;
+                }
+                log.warn("opcooc-storage - read range [{}, {}) failed, retry {}/{}", start, start + length, attempt + 1, retries, e);
+                RetryUtils.backoff(attempt);
+            }
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.toolkit.RetryUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 预读输入流
+ * 1.把区间 [start, end) 按块拆分, 在执行器中并发获取当前块之后的若干块
+ * 2.调用方按顺序读取, 读完一个块时补充提交下一个块, 始终保持固定数量的块在获取中
+ * 3.单个块获取失败时按退避时间重试
+ * 4.关闭后不再提交新的块, 已经在获取中的块完成后丢弃
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class ReadAheadInputStream extends InputStream {
+
+    private final RangeReader reader;
+
+    private final Executor executor;
+
+    private final long end;
+
+    private final int chunkSize;
+
+    private final int chunks;
+
+    private final int retries;
+
+    /**
+     * 下一个需要提交的块的起始位置
+     */
+    private long nextChunk;
+
+    private final Deque<CompletableFuture<ByteBuffer>> pending = new ArrayDeque<>();
+
+    private ByteBuffer current;
+
+    private boolean closed;
+
+    /**
+     * @param reader    区间读取
+     * @param executor  执行器, 为null时不预读(在读取线程中按块获取)
+     * @param start     起始位置
+     * @param end       结束位置(不包含)
+     * @param chunkSize 块大小
+     * @param chunks    同时获取的最大块数
+     * @param retries   单个块失败后的最大重试次数
+     */
+    public ReadAheadInputStream(RangeReader reader, Executor executor, long start, long end, int chunkSize, int chunks, int retries) {
+        this.reader = reader;
+        this.executor = executor;
+        this.end = end;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.chunks = executor == null ? 1 : Math.max(1, chunks);
+        this.retries = Math.max(0, retries);
+        this.nextChunk = start;
+        fill();
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer buffer = currentBuffer();
+        return buffer == null ? -1 : buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = currentBuffer();
+        if (buffer == null) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            ByteBuffer buffer = currentBuffer();
+            if (buffer == null) {
+                break;
+            }
+            int step = (int) Math.min(n - skipped, buffer.remaining());
+            buffer.position(buffer.position() + step);
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.remaining();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        current = null;
+        for (CompletableFuture<ByteBuffer> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    /**
+     * 当前可读的块, 当前块读完时切换到下一个块
+     *
+     * @return 当前块, 已读到末尾时返回null
+     */
+    private ByteBuffer currentBuffer() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+        while (current == null || !current.hasRemaining()) {
+            CompletableFuture<ByteBuffer> future = pending.poll();
+            if (future == null) {
+                return null;
+            }
+            current = await(future);
+            fill();
+        }
+        return current;
+    }
+
+    private void fill() {
+        while (!closed && pending.size() < chunks && nextChunk < end) {
+            long position = nextChunk;
+            int length = (int) Math.min(chunkSize, end - position);
+            nextChunk += length;
+            pending.add(submit(() -> readWithRetry(position, length)));
+        }
+    }
+
+    private ByteBuffer readWithRetry(long position, int length) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                ByteBuffer buffer = reader.read(position, length);
+                if (buffer.remaining() < length) {
+                    throw new StorageException("opcooc-storage - premature end of range [%s, %s)", position, position + length);
+                }
+                return buffer;
+            } catch (Exception e) {
+                if (closed || attempt >= retries || !RetryUtils.isRetryable(e)) {
+                    throw e instanceof RuntimeException ? (RuntimeException) e : new StorageException(e);
+                }
+                log.warn("opcooc-storage - read range [{}, {}) failed, retry {}/{}", position, position + length, attempt + 1, retries, e);
+                RetryUtils.backoff(attempt);
+            }
+        }
+    }
+
+    private CompletableFuture<ByteBuffer> submit(Supplier<ByteBuffer> task) {
+        if (executor == null) {
+            // 不预读时在读取线程中获取
+            return CompletableFuture.completedFuture(null).thenApply(v -> task.get());
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new StorageException("opcooc-storage - read ahead task rejected", e);
+        }
+    }
+
+    private static ByteBuffer await(CompletableFuture<ByteBuffer> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
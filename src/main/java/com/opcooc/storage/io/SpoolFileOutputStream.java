@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Function;
+
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.FileBasicInfo;
+
+import lombok.Getter;
+
+/**
+ * 先写入临时文件的输出流, 关闭时将临时文件交给回调处理(例如上传), 处理完毕后删除临时文件
+ * 回调返回的文件信息在关闭后通过 getResult 获取
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class SpoolFileOutputStream extends FilterOutputStream {
+
+    private final File file;
+
+    private final Function<File, FileBasicInfo> onClose;
+
+    private boolean closed;
+
+    /**
+     * 关闭后回调返回的文件信息
+     */
+    @Getter
+    private FileBasicInfo result;
+
+    public SpoolFileOutputStream(Function<File, FileBasicInfo> onClose) {
+        this(createTempFile(), onClose);
+    }
+
+    /**
+     * @param file    临时文件, 回调中可以将其移动到其他位置
+     * @param onClose 关闭时的回调, 返回上传后的文件信息
+     */
+    public SpoolFileOutputStream(File file, Function<File, FileBasicInfo> onClose) {
+        super(open(file));
+        this.file = file;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+            result = onClose.apply(file);
+        } finally {
+            if (file.exists() && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * 放弃写入的数据, 关闭输出流并删除临时文件, 不调用回调
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            // 临时文件随后被删除, 关闭失败无影响
+        } finally {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    private static File createTempFile() {
+        try {
+            return File.createTempFile("opcooc-storage-", ".tmp");
+        } catch (IOException e) {
+            throw new StorageException(e);
+        }
+    }
+
+    private static OutputStream open(File file) {
+        try {
+            return new BufferedOutputStream(new FileOutputStream(file));
+        } catch (IOException e) {
+            file.delete();
+            throw new StorageException(e);
+        }
+    }
+}
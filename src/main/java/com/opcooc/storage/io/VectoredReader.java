@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.ByteRange;
+import com.opcooc.storage.toolkit.RetryUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 批量区间读取
+ * 1.按起始位置排序后合并相邻区间: 间隔不超过 maxGap 且合并后不超过 maxMergedSize
+ * 2.合并后的区间在执行器中并发读取
+ * 3.每个原始区间按输入顺序返回合并区间缓冲区的切片(共享内存, 不复制)
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class VectoredReader {
+
+    /**
+     * 默认可以合并的最大间隔
+     */
+    public static final long DEFAULT_MAX_GAP = 64 * 1024;
+
+    /**
+     * 默认合并后区间的最大长度
+     */
+    public static final long DEFAULT_MAX_MERGED_SIZE = 8 * 1024 * 1024;
+
+    private final RangeReader reader;
+
+    private final Executor executor;
+
+    private final long maxGap;
+
+    private final long maxMergedSize;
+
+    private final int retries;
+
+    /**
+     * @param reader        区间读取
+     * @param executor      执行器, 为null时在调用线程中顺序读取
+     * @param maxGap        可以合并的最大间隔
+     * @param maxMergedSize 合并后区间的最大长度
+     * @param retries       单次读取失败后的最大重试次数
+     */
+    public VectoredReader(RangeReader reader, Executor executor, long maxGap, long maxMergedSize, int retries) {
+        this.reader = reader;
+        this.executor = executor;
+        this.maxGap = Math.max(0, maxGap);
+        this.maxMergedSize = Math.max(1, Math.min(maxMergedSize, Integer.MAX_VALUE - 8));
+        this.retries = Math.max(0, retries);
+    }
+
+    /**
+     * 读取所有区间
+     *
+     * @param ranges 区间
+     * @return 与输入顺序一致的区间内容
+     */
+    public List<ByteBuffer> read(List<ByteRange> ranges) {
+        List<Merged> merged = merge(ranges);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(merged.size());
+        for (Merged group : merged) {
+            futures.add(execute(() -> {
+                group.data = readWithRetry(group.offset, (int) (group.end - group.offset));
+                return null;
+            }));
+        }
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new StorageException("opcooc-storage - vectored read failed", cause);
+            }
+        }
+        ByteBuffer[] results = new ByteBuffer[ranges.size()];
+        for (Merged group : merged) {
+            for (int index : group.members) {
+                ByteRange range = ranges.get(index);
+                int start = (int) (range.getOffset() - group.offset);
+                if (start + range.getLength() > group.data.limit()) {
+                    throw new StorageException("opcooc-storage - range [%s, %s) exceeds the end of object", range.getOffset(), range.getEnd());
+                }
+                ByteBuffer slice = group.data.duplicate();
+                slice.position(start).limit(start + range.getLength());
+                results[index] = slice.slice();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 合并区间
+     *
+     * @param ranges 区间
+     * @return 合并后的区间
+     */
+    private List<Merged> merge(List<ByteRange> ranges) {
+        List<Integer> order = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingLong(i -> ranges.get(i).getOffset()));
+        List<Merged> merged = new ArrayList<>();
+        Merged current = null;
+        for (int index : order) {
+            ByteRange range = ranges.get(index);
+            long end = Math.max(range.getEnd(), current == null ? 0 : current.end);
+            if (current == null || range.getOffset() - current.end > maxGap || end - current.offset > maxMergedSize) {
+                current = new Merged(range.getOffset(), range.getEnd());
+                merged.add(current);
+            } else {
+                current.end = end;
+            }
+            current.members.add(index);
+        }
+        return merged;
+    }
+
+    private ByteBuffer readWithRetry(long position, int length) {
+        if (length == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return reader.read(position, length);
+            } catch (Exception e) {
+                if (attempt >= retries || !RetryUtils.isRetryable(e)) {
+                    throw e instanceof RuntimeException ? (RuntimeException) e : new StorageException(e);
+                }
+                log.warn("opcooc-storage - read range [{}, {}) failed, retry {}/{}", position, position + length, attempt + 1, retries, e);
+                RetryUtils.backoff(attempt);
+            }
+        }
+    }
+
+    private CompletableFuture<Void> execute(Supplier<Void> task) {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(null).thenApply(v -> task.get());
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new StorageException("opcooc-storage - vectored read task rejected", e);
+        }
+    }
+
+    private static final class Merged {
+
+        private final long offset;
+
+        private long end;
+
+        private final List<Integer> members = new ArrayList<>();
+
+        private volatile ByteBuffer data;
+
+        private Merged(long offset, long end) {
+            this.offset = offset;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.metrics;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.context.ApplicationListener;
+
+import com.amazonaws.AmazonWebServiceClient;
+import com.amazonaws.http.AmazonHttpClient;
+import com.amazonaws.http.apache.client.impl.ConnectionManagerAwareHttpClient;
+import com.amazonaws.services.s3.AmazonS3;
+import com.opcooc.storage.drivers.ClientDriver;
+import com.opcooc.storage.drivers.DefaultS3ClientDriver;
+import com.opcooc.storage.drivers.DynamicRoutingClientDriver;
+import com.opcooc.storage.event.ClientDriverEvent;
+import com.opcooc.storage.toolkit.StorageConstant;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于 Micrometer 的存储操作指标
+ * 1.opcooc.storage.operations 操作耗时(Timer), 标签 driver, operation, outcome(success/error)
+ * 2.opcooc.storage.errors 失败次数(Counter), 标签 driver, operation, exception(根异常类名)
+ * 3.opcooc.storage.bytes 传输字节数(DistributionSummary), 标签 driver, operation
+ * 4.opcooc.storage.operations.active 正在执行的操作数(Gauge), 标签 driver
+ * 5.opcooc.storage.http.connections 连接池连接数(Gauge), 标签 driver, state(leased/available/pending), 只统计 S3 驱动
+ * 6.opcooc.storage.http.connections.max 连接池最大连接数(Gauge), 标签 driver
+ * 驱动被移除时同时移除该驱动的所有指标, 新增驱动时注册连接池指标
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class MicrometerStorageMetrics implements StorageMetrics, ApplicationListener<ClientDriverEvent> {
+
+    public static final String OPERATIONS = "opcooc.storage.operations";
+
+    public static final String ERRORS = "opcooc.storage.errors";
+
+    public static final String BYTES = "opcooc.storage.bytes";
+
+    public static final String ACTIVE = "opcooc.storage.operations.active";
+
+    public static final String CONNECTIONS = "opcooc.storage.http.connections";
+
+    public static final String MAX_CONNECTIONS = "opcooc.storage.http.connections.max";
+
+    private static final String TAG_DRIVER = "driver";
+
+    private final MeterRegistry registry;
+
+    private final ClientDriver clientDriver;
+
+    private final Clock clock;
+
+    /**
+     * 按驱动及操作缓存的指标, 避免每次调用都到注册中心查找
+     */
+    private final Map<String, Map<String, OperationMeters>> operationMeters = new ConcurrentHashMap<>();
+
+    /**
+     * 正在执行的操作数(Gauge 只持有弱引用, 在这里保持强引用)
+     */
+    private final Map<String, AtomicInteger> activeOperations = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry     指标注册中心
+     * @param clientDriver 客户端驱动, 为 DynamicRoutingClientDriver 时注册每个 S3 驱动的连接池指标
+     */
+    public MicrometerStorageMetrics(MeterRegistry registry, ClientDriver clientDriver) {
+        this.registry = registry;
+        this.clientDriver = clientDriver;
+        this.clock = registry.config().clock();
+        if (clientDriver instanceof DynamicRoutingClientDriver) {
+            ((DynamicRoutingClientDriver) clientDriver).getCurrentClientDrivers().forEach(this::bindConnectionPool);
+        }
+    }
+
+    @Override
+    public Sample start(String driverName, String operation) {
+        OperationMeters meters = getMeters(driverName, operation);
+        meters.active.incrementAndGet();
+        long start = clock.monotonicTime();
+        return error -> {
+            meters.active.decrementAndGet();
+            long duration = clock.monotonicTime() - start;
+            if (error == null) {
+                meters.success.record(duration, TimeUnit.NANOSECONDS);
+                return;
+            }
+            meters.failure.record(duration, TimeUnit.NANOSECONDS);
+            Counter.builder(ERRORS)
+                    .description("opcooc-storage failed operations")
+                    .tag(TAG_DRIVER, driverName)
+                    .tag("operation", operation)
+                    .tag("exception", rootCause(error).getClass().getSimpleName())
+                    .register(registry)
+                    .increment();
+        };
+    }
+
+    @Override
+    public void recordBytes(String driverName, String operation, long bytes) {
+        getMeters(driverName, operation).getBytes().record(bytes);
+    }
+
+    @Override
+    public void onApplicationEvent(ClientDriverEvent event) {
+        String driverName = event.getDriverName();
+        if (StorageConstant.EVENT_DELETE.equals(event.getType())) {
+            operationMeters.remove(driverName);
+            activeOperations.remove(driverName);
+            List<Meter> meters = new ArrayList<>();
+            for (String name : new String[]{OPERATIONS, ERRORS, BYTES, ACTIVE, CONNECTIONS, MAX_CONNECTIONS}) {
+                meters.addAll(registry.find(name).tag(TAG_DRIVER, driverName).meters());
+            }
+            meters.forEach(registry::remove);
+            log.debug("opcooc-storage - remove [{}] meters of client driver [{}]", meters.size(), driverName);
+        } else if (StorageConstant.EVENT_ADD.equals(event.getType()) && clientDriver instanceof DynamicRoutingClientDriver) {
+            ClientDriver driver = ((DynamicRoutingClientDriver) clientDriver).getCurrentClientDrivers().get(driverName);
+            if (driver != null) {
+                bindConnectionPool(driverName, driver);
+            }
+        }
+    }
+
+    private OperationMeters getMeters(String driverName, String operation) {
+        return operationMeters.computeIfAbsent(driverName, d -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operation, o -> new OperationMeters(driverName, operation));
+    }
+
+    private AtomicInteger getActive(String driverName) {
+        return activeOperations.computeIfAbsent(driverName, d -> {
+            AtomicInteger active = new AtomicInteger();
+            Gauge.builder(ACTIVE, active, AtomicInteger::get)
+                    .description("opcooc-storage operations in flight")
+                    .tag(TAG_DRIVER, d)
+                    .register(registry);
+            return active;
+        });
+    }
+
+    /**
+     * 注册 S3 驱动的连接池指标, AmazonS3 没有公开连接池, 通过反射获取, 获取失败时不注册
+     *
+     * @param driverName 驱动名称
+     * @param driver     驱动
+     */
+    private void bindConnectionPool(String driverName, ClientDriver driver) {
+        if (!(driver instanceof DefaultS3ClientDriver)) {
+            return;
+        }
+        ConnPoolControl<?> pool = getConnectionPool(((DefaultS3ClientDriver) driver).getAmazonS3());
+        if (pool == null) {
+            log.debug("opcooc-storage - connection pool of client driver [{}] is not available", driverName);
+            return;
+        }
+        registerConnections(driverName, pool, "leased", PoolStats::getLeased);
+        registerConnections(driverName, pool, "available", PoolStats::getAvailable);
+        registerConnections(driverName, pool, "pending", PoolStats::getPending);
+        Gauge.builder(MAX_CONNECTIONS, pool, p -> p.getTotalStats().getMax())
+                .description("opcooc-storage max http connections")
+                .tag(TAG_DRIVER, driverName)
+                .register(registry);
+    }
+
+    private void registerConnections(String driverName, ConnPoolControl<?> pool, String state, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder(CONNECTIONS, pool, p -> value.applyAsDouble(p.getTotalStats()))
+                .description("opcooc-storage http connections")
+                .tag(TAG_DRIVER, driverName)
+                .tag("state", state)
+                .register(registry);
+    }
+
+    private static ConnPoolControl<?> getConnectionPool(AmazonS3 s3) {
+        if (!(s3 instanceof AmazonWebServiceClient)) {
+            return null;
+        }
+        try {
+            Field clientField = AmazonWebServiceClient.class.getDeclaredField("client");
+            clientField.setAccessible(true);
+            AmazonHttpClient client = (AmazonHttpClient) clientField.get(s3);
+            Field httpClientField = AmazonHttpClient.class.getDeclaredField("httpClient");
+            httpClientField.setAccessible(true);
+            ConnectionManagerAwareHttpClient httpClient = (ConnectionManagerAwareHttpClient) httpClientField.get(client);
+            HttpClientConnectionManager manager = httpClient.getHttpClientConnectionManager();
+            return manager instanceof ConnPoolControl ? (ConnPoolControl<?>) manager : null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("opcooc-storage - could not access the connection pool of amazon s3 client", e);
+            return null;
+        }
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 一个驱动的一种操作对应的指标
+     */
+    private final class OperationMeters {
+
+        private final Timer success;
+
+        private final Timer failure;
+
+        private final AtomicInteger active;
+
+        private final String driverName;
+
+        private final String operation;
+
+        /**
+         * 只有传输数据的操作才有, 第一次记录时注册
+         */
+        private volatile DistributionSummary bytes;
+
+        private OperationMeters(String driverName, String operation) {
+            this.driverName = driverName;
+            this.operation = operation;
+            this.success = timer(driverName, operation, "success");
+            this.failure = timer(driverName, operation, "error");
+            this.active = getActive(driverName);
+        }
+
+        private DistributionSummary getBytes() {
+            DistributionSummary summary = bytes;
+            if (summary == null) {
+                // 注册是幂等的, 并发时得到的是同一个指标
+                summary = DistributionSummary.builder(BYTES)
+                        .description("opcooc-storage bytes transferred")
+                        .baseUnit("bytes")
+                        .tag(TAG_DRIVER, driverName)
+                        .tag("operation", operation)
+                        .register(registry);
+                bytes = summary;
+            }
+            return summary;
+        }
+
+        private Timer timer(String driverName, String operation, String outcome) {
+            return Timer.builder(OPERATIONS)
+                    .description("opcooc-storage operations")
+                    .tag(TAG_DRIVER, driverName)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
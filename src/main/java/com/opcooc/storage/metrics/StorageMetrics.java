@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.metrics;
+
+/**
+ * 存储操作的指标记录, StorageClient 的每次调用都会经过这里
+ * 1.默认不记录(NOOP), 引入 Micrometer 且存在 MeterRegistry 时自动配置为 MicrometerStorageMetrics
+ * 2.不依赖具体的指标库, 可以自行实现接入其他监控系统
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public interface StorageMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    StorageMetrics NOOP = new StorageMetrics() {
+
+        @Override
+        public Sample start(String driverName, String operation) {
+            return error -> {
+            };
+        }
+
+        @Override
+        public void recordBytes(String driverName, String operation, long bytes) {
+        }
+    };
+
+    /**
+     * 开始一次操作
+     *
+     * @param driverName 客户端驱动名称
+     * @param operation  操作名称(StorageClient 的方法名, 例如 uploadObject、listObjects、deleteObject)
+     * @return 操作计时, 操作结束时调用 stop
+     */
+    Sample start(String driverName, String operation);
+
+    /**
+     * 记录一次操作传输的字节数
+     *
+     * @param driverName 客户端驱动名称
+     * @param operation  操作名称
+     * @param bytes      字节数
+     */
+    void recordBytes(String driverName, String operation, long bytes);
+
+    /**
+     * 一次操作的计时
+     */
+    @FunctionalInterface
+    interface Sample {
+
+        /**
+         * 操作结束
+         *
+         * @param error 失败原因, 成功时为null
+         */
+        void stop(Throwable error);
+    }
+}
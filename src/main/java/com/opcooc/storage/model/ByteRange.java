@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 对象中的字节区间 [offset, offset + length)
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ByteRange {
+
+    /**
+     * 起始位置
+     */
+    private long offset;
+
+    /**
+     * 长度
+     */
+    private int length;
+
+    /**
+     * 结束位置(不包含)
+     *
+     * @return 结束位置
+     */
+    public long getEnd() {
+        return offset + length;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 前缀复制(移动)结果
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Data
+public class CopyPrefixResult {
+
+    /**
+     * 源存储空间(主目录)名称
+     */
+    private String sourceBucketName;
+
+    /**
+     * 目标存储空间(主目录)名称
+     */
+    private String destinationBucketName;
+
+    /**
+     * 复制成功的数量
+     */
+    private long copiedCount;
+
+    /**
+     * 复制成功的字节数
+     */
+    private long copiedBytes;
+
+    /**
+     * 移动时删除成功的源对象数量
+     */
+    private long deletedCount;
+
+    /**
+     * 耗时(毫秒)
+     */
+    private long elapsedMillis;
+
+    /**
+     * 复制失败的对象
+     */
+    private List<CopyError> errors = new ArrayList<>();
+
+    /**
+     * 移动时删除失败的源对象(已复制成功)
+     */
+    private List<DeleteError> deleteErrors = new ArrayList<>();
+
+    /**
+     * 平均吞吐量(每秒复制的字节数)
+     *
+     * @return 吞吐量
+     */
+    public double getBytesPerSecond() {
+        return elapsedMillis <= 0 ? copiedBytes : copiedBytes * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * 是否全部成功
+     *
+     * @return 是否全部成功
+     */
+    public boolean isSuccess() {
+        return errors.isEmpty() && deleteErrors.isEmpty();
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 删除失败的对象信息
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeleteError {
+
+    /**
+     * 对象名称
+     */
+    private String key;
+
+    /**
+     * 对象版本(未开启版本控制时为null)
+     */
+    private String versionId;
+
+    /**
+     * 错误码
+     */
+    private String code;
+
+    /**
+     * 错误信息
+     */
+    private String message;
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 批量删除结果
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Data
+public class DeleteResult {
+
+    /**
+     * 存储空间(主目录)名称
+     */
+    private String bucketName;
+
+    /**
+     * 删除成功的数量
+     */
+    private long deletedCount;
+
+    /**
+     * 删除成功的对象名称
+     * 只有参数 reportDeletedKeys 为 true 时才记录(删除大量对象时避免占用内存), 否则为空, 数量见 deletedCount
+     * 删除历史版本时同一对象名称会出现多次
+     */
+    private List<String> deletedKeys = new ArrayList<>();
+
+    /**
+     * 删除失败的对象
+     */
+    private List<DeleteError> errors = new ArrayList<>();
+
+    /**
+     * 是否全部删除成功
+     *
+     * @return 是否全部删除成功
+     */
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 目录(单层)列表信息
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Data
+public class FolderListing {
+
+    /**
+     * 存储空间(主目录)名称
+     */
+    private String bucketName;
+
+    /**
+     * 当前目录前缀
+     */
+    private String prefix;
+
+    /**
+     * 当前目录下的文件
+     */
+    private List<FileBasicInfo> objects = new ArrayList<>();
+
+    /**
+     * 当前目录下的子目录(公共前缀, 以分隔符结尾)
+     */
+    private List<String> folders = new ArrayList<>();
+
+    /**
+     * 是否还有下一页(只在分页获取时可能为true)
+     */
+    private boolean truncated;
+
+    /**
+     * 下一页的续传标记
+     */
+    private String nextContinuationToken;
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 批量导入网络文件结果
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Data
+public class UploadUrlsResult {
+
+    /**
+     * 存储空间(主目录)名称
+     */
+    private String bucketName;
+
+    /**
+     * 导入成功的对象
+     */
+    private List<FileBasicInfo> objects = new ArrayList<>();
+
+    /**
+     * 导入成功的总字节数
+     */
+    private long uploadedBytes;
+
+    /**
+     * 耗时(毫秒)
+     */
+    private long elapsedMillis;
+
+    /**
+     * 导入失败的网络文件
+     */
+    private List<UploadError> errors = new ArrayList<>();
+
+    /**
+     * 是否全部导入成功
+     *
+     * @return 是否全部导入成功
+     */
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.nio;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.model.FolderListing;
+
+/**
+ * 对象存储目录流
+ * 1.按需分页获取目录内容, 只有在当前页消费完之后才会请求下一页, 不会一次性获取整个目录
+ * 2.子目录来自公共前缀, 文件路径携带列表中的文件属性
+ * 3.关闭后不再请求剩余的分页
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+final class StorageDirectoryStream implements DirectoryStream<Path> {
+
+    private final StoragePath dir;
+
+    private final Filter<? super Path> filter;
+
+    private FolderListing page;
+
+    private boolean iterated;
+
+    private volatile boolean closed;
+
+    /**
+     * @param dir    目录
+     * @param first  第一页目录内容
+     * @param filter 过滤器
+     */
+    StorageDirectoryStream(StoragePath dir, FolderListing first, Filter<? super Path> filter) {
+        this.dir = dir;
+        this.page = first;
+        this.filter = filter;
+    }
+
+    @Override
+    public synchronized Iterator<Path> iterator() {
+        if (closed) {
+            throw new IllegalStateException("directory stream is closed");
+        }
+        if (iterated) {
+            throw new IllegalStateException("iterator already obtained");
+        }
+        iterated = true;
+        return new EntryIterator();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private List<Path> entries(FolderListing listing) {
+        String prefix = dir.getPrefix();
+        List<Path> entries = new ArrayList<>(listing.getObjects().size() + listing.getFolders().size());
+        for (FileBasicInfo info : listing.getObjects()) {
+            String name = info.getKey().substring(prefix.length());
+            // 跳过目录自身的占位对象
+            if (!name.isEmpty()) {
+                entries.add(((StoragePath) dir.resolve(name)).withAttributes(StorageFileAttributes.object(info)));
+            }
+        }
+        for (String folder : listing.getFolders()) {
+            String name = folder.substring(prefix.length(), folder.length() - StoragePath.SEPARATOR.length());
+            if (!name.isEmpty()) {
+                entries.add(((StoragePath) dir.resolve(name)).withAttributes(StorageFileAttributes.directory()));
+            }
+        }
+        return entries;
+    }
+
+    private class EntryIterator implements Iterator<Path> {
+
+        private Iterator<Path> current = entries(page).iterator();
+
+        private Path next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !closed) {
+                if (current.hasNext()) {
+                    Path entry = current.next();
+                    if (accept(entry)) {
+                        next = entry;
+                    }
+                } else if (page.isTruncated()) {
+                    fetch();
+                } else {
+                    return false;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Path next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Path entry = next;
+            next = null;
+            return entry;
+        }
+
+        private void fetch() {
+            try {
+                page = dir.getFileSystem().listFolderPage(dir, page.getNextContinuationToken(), StorageFileSystem.PAGE_SIZE);
+            } catch (StorageException e) {
+                throw new DirectoryIteratorException(new IOException(e.getMessage(), e));
+            }
+            current = entries(page).iterator();
+        }
+
+        private boolean accept(Path entry) {
+            try {
+                return filter == null || filter.accept(entry);
+            } catch (IOException e) {
+                throw new DirectoryIteratorException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.nio;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.opcooc.storage.model.FileBasicInfo;
+
+/**
+ * 对象存储文件属性
+ * 1.对象只有最后修改时间, 创建时间与访问时间均返回最后修改时间
+ * 2.目录(存储空间及公共前缀)没有时间属性, 返回 epoch
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+final class StorageFileAttributes implements BasicFileAttributes {
+
+    private static final FileTime EPOCH = FileTime.fromMillis(0);
+
+    private final boolean directory;
+
+    private final long size;
+
+    private final FileTime lastModifiedTime;
+
+    private final Object fileKey;
+
+    private StorageFileAttributes(boolean directory, long size, FileTime lastModifiedTime, Object fileKey) {
+        this.directory = directory;
+        this.size = size;
+        this.lastModifiedTime = lastModifiedTime;
+        this.fileKey = fileKey;
+    }
+
+    static StorageFileAttributes directory() {
+        return new StorageFileAttributes(true, 0, EPOCH, null);
+    }
+
+    static StorageFileAttributes object(FileBasicInfo info) {
+        Date lastModified = info.getLastModified();
+        return new StorageFileAttributes(false, info.getContentLength(),
+                lastModified == null ? EPOCH : FileTime.fromMillis(lastModified.getTime()), info.getETag());
+    }
+
+    /**
+     * 按属性名称获取属性值, 用于 Files.readAttributes(path, "basic:*")
+     *
+     * @param attributes 属性名称, 以逗号分隔, * 表示全部
+     * @return 属性值
+     */
+    Map<String, Object> toMap(String attributes) {
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("lastModifiedTime", lastModifiedTime());
+        all.put("lastAccessTime", lastAccessTime());
+        all.put("creationTime", creationTime());
+        all.put("size", size());
+        all.put("isRegularFile", isRegularFile());
+        all.put("isDirectory", isDirectory());
+        all.put("isSymbolicLink", isSymbolicLink());
+        all.put("isOther", isOther());
+        all.put("fileKey", fileKey());
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String name : attributes.split(",")) {
+            name = name.trim();
+            if ("*".equals(name)) {
+                return all;
+            }
+            if (!all.containsKey(name)) {
+                throw new IllegalArgumentException("'" + name + "' not recognized");
+            }
+            result.put(name, all.get(name));
+        }
+        return result;
+    }
+
+    @Override
+    public FileTime lastModifiedTime() {
+        return lastModifiedTime;
+    }
+
+    @Override
+    public FileTime lastAccessTime() {
+        return lastModifiedTime;
+    }
+
+    @Override
+    public FileTime creationTime() {
+        return lastModifiedTime;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+        return !directory;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+        return false;
+    }
+
+    @Override
+    public boolean isOther() {
+        return false;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public Object fileKey() {
+        return fileKey;
+    }
+}
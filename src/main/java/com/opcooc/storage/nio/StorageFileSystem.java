@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.nio;
+
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.client.Client;
+import com.opcooc.storage.holder.DynamicClientContextHolder;
+import com.opcooc.storage.model.FolderListing;
+
+import lombok.Getter;
+
+/**
+ * 对象存储文件系统, 每个客户端驱动对应一个文件系统
+ * 1.URI 的 authority 部分为驱动名称, 为空时使用主驱动, 例如 opcooc://s3/bucket/dir/file.txt
+ * 2.所有操作都在切换到该驱动后通过 Client 执行
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class StorageFileSystem extends FileSystem {
+
+    private final StorageFileSystemProvider provider;
+
+    /**
+     * 客户端驱动名称, 为空字符串时使用主驱动
+     */
+    @Getter
+    private final String driverName;
+
+    @Getter
+    private final Client client;
+
+    /**
+     * 目录流每页获取的最大数量
+     */
+    static final int PAGE_SIZE = 1000;
+
+    private volatile boolean open = true;
+
+    StorageFileSystem(StorageFileSystemProvider provider, String driverName, Client client) {
+        this.provider = provider;
+        this.driverName = driverName;
+        this.client = client;
+    }
+
+    /**
+     * 切换到当前驱动后执行操作
+     *
+     * @param action 操作
+     * @param <T>    返回类型
+     * @return 操作结果
+     */
+    <T> T execute(Function<Client, T> action) {
+        if (!open) {
+            throw new ClosedFileSystemException();
+        }
+        DynamicClientContextHolder.push(driverName);
+        try {
+            return action.apply(client);
+        } finally {
+            DynamicClientContextHolder.poll();
+        }
+    }
+
+    /**
+     * 获取目录的一页内容, 根路径的内容为所有存储空间
+     *
+     * @param dir     目录(绝对路径)
+     * @param token   续传标记, 为null时获取第一页
+     * @param maxKeys 每页最大数量(不包含存储空间列表)
+     * @return 目录内容
+     */
+    FolderListing listFolderPage(StoragePath dir, String token, int maxKeys) {
+        if (dir.isRoot()) {
+            FolderListing listing = new FolderListing();
+            listing.setPrefix("");
+            execute(Client::listBuckets).forEach(bucket -> listing.getFolders().add(bucket + StoragePath.SEPARATOR));
+            return listing;
+        }
+        return execute(client -> client.listFolderPage(ListObjectsArgs.builder()
+                .bucketName(dir.getBucketName())
+                .prefix(dir.getPrefix())
+                .delimiter(StoragePath.SEPARATOR)
+                .recursive(false)
+                .maxKeys(maxKeys)
+                .continuationToken(token)
+                .build()));
+    }
+
+    Client getClient() {
+        return client;
+    }
+
+    @Override
+    public StorageFileSystemProvider provider() {
+        return provider;
+    }
+
+    @Override
+    public void close() {
+        if (open) {
+            open = false;
+            provider.removeFileSystem(driverName);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    @Override
+    public String getSeparator() {
+        return StoragePath.SEPARATOR;
+    }
+
+    @Override
+    public Iterable<Path> getRootDirectories() {
+        return Collections.singletonList(new StoragePath(this, StoragePath.SEPARATOR));
+    }
+
+    @Override
+    public Iterable<FileStore> getFileStores() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Set<String> supportedFileAttributeViews() {
+        return Collections.singleton("basic");
+    }
+
+    @Override
+    public Path getPath(String first, String... more) {
+        StringBuilder path = new StringBuilder(first);
+        for (String name : more) {
+            if (!name.isEmpty()) {
+                if (path.length() > 0) {
+                    path.append(StoragePath.SEPARATOR);
+                }
+                path.append(name);
+            }
+        }
+        return new StoragePath(this, path.toString());
+    }
+
+    @Override
+    public PathMatcher getPathMatcher(String syntaxAndPattern) {
+        // 默认文件系统的匹配器按路径字符串匹配, 分隔符同样为 /
+        return FileSystems.getDefault().getPathMatcher(syntaxAndPattern);
+    }
+
+    @Override
+    public UserPrincipalLookupService getUserPrincipalLookupService() {
+        throw new UnsupportedOperationException("opcooc-storage - user principal lookup is not supported");
+    }
+
+    @Override
+    public WatchService newWatchService() {
+        throw new UnsupportedOperationException("opcooc-storage - watch service is not supported");
+    }
+}
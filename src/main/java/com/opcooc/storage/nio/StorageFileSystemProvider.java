@@ -0,0 +1,597 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AccessMode;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.opcooc.storage.args.CopyObjectArgs;
+import com.opcooc.storage.args.CopySource;
+import com.opcooc.storage.args.CreateBucketArgs;
+import com.opcooc.storage.args.DeleteBucketArgs;
+import com.opcooc.storage.args.DeleteObjectArgs;
+import com.opcooc.storage.args.DoesBucketExistArgs;
+import com.opcooc.storage.args.DoesObjectExistArgs;
+import com.opcooc.storage.args.GetObjectToStreamArgs;
+import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.OpenChannelArgs;
+import com.opcooc.storage.args.OpenOutputStreamArgs;
+import com.opcooc.storage.args.SetFolderArgs;
+import com.opcooc.storage.client.Client;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.io.MultipartOutputStream;
+import com.opcooc.storage.io.SpoolFileOutputStream;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.model.FolderListing;
+
+/**
+ * 对象存储文件系统提供者, URI 格式为 opcooc://驱动名称/存储空间名称/对象名称
+ * 1.通过 META-INF/services 注册, 可以使用 Paths.get(URI) 及 Files 的各种方法操作对象存储
+ * 2.文件系统使用 newFileSystem 时 env 中的 client, 未指定时使用默认客户端(自动配置时为 StorageClient)
+ * 3.已设置默认客户端时, 访问尚未创建的文件系统会自动创建; 清除默认客户端时关闭使用该客户端的文件系统
+ * 4.同一驱动内的复制使用服务端复制, 跨驱动复制及与本地文件之间的复制通过流传输
+ * 5.目录为对象名称中以 / 分隔的公共前缀, 目录流按需分页获取
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class StorageFileSystemProvider extends FileSystemProvider {
+
+    /**
+     * URI scheme
+     */
+    public static final String SCHEME = "opcooc";
+
+    /**
+     * newFileSystem 时指定客户端的 env 键
+     */
+    public static final String ENV_CLIENT = "client";
+
+    private static final Set<OpenOption> DEFAULT_WRITE_OPTIONS = new HashSet<>(Arrays.asList(
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+
+    private static volatile Client defaultClient;
+
+    private final Map<String, StorageFileSystem> fileSystems = new ConcurrentHashMap<>();
+
+    /**
+     * 设置默认客户端
+     *
+     * @param client 客户端
+     */
+    public static synchronized void setDefaultClient(Client client) {
+        defaultClient = client;
+    }
+
+    /**
+     * 清除默认客户端(当前默认客户端为指定客户端时), 并关闭已安装的提供者中使用该客户端的文件系统
+     *
+     * @param client 客户端
+     */
+    public static synchronized void clearDefaultClient(Client client) {
+        if (defaultClient == client) {
+            defaultClient = null;
+        }
+        for (FileSystemProvider provider : FileSystemProvider.installedProviders()) {
+            if (provider instanceof StorageFileSystemProvider) {
+                ((StorageFileSystemProvider) provider).closeFileSystems(client);
+            }
+        }
+    }
+
+    @Override
+    public String getScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public StorageFileSystem newFileSystem(URI uri, Map<String, ?> env) {
+        String driverName = driverName(uri);
+        Object client = env.get(ENV_CLIENT);
+        if (client == null) {
+            client = defaultClient;
+        }
+        if (!(client instanceof Client)) {
+            throw new IllegalArgumentException("opcooc-storage - env [" + ENV_CLIENT + "] must be a " + Client.class.getName());
+        }
+        StorageFileSystem fileSystem = new StorageFileSystem(this, driverName, (Client) client);
+        if (fileSystems.putIfAbsent(driverName, fileSystem) != null) {
+            throw new FileSystemAlreadyExistsException(uri.toString());
+        }
+        return fileSystem;
+    }
+
+    @Override
+    public StorageFileSystem getFileSystem(URI uri) {
+        String driverName = driverName(uri);
+        Client client = defaultClient;
+        StorageFileSystem fileSystem = client == null ? fileSystems.get(driverName)
+                : fileSystems.computeIfAbsent(driverName, name -> new StorageFileSystem(this, name, client));
+        if (fileSystem == null) {
+            throw new FileSystemNotFoundException(uri.toString());
+        }
+        return fileSystem;
+    }
+
+    @Override
+    public Path getPath(URI uri) {
+        return getFileSystem(uri).getPath(uri.getPath());
+    }
+
+    void removeFileSystem(String driverName) {
+        fileSystems.remove(driverName);
+    }
+
+    private void closeFileSystems(Client client) {
+        for (StorageFileSystem fileSystem : new ArrayList<>(fileSystems.values())) {
+            if (fileSystem.getClient() == client) {
+                fileSystem.close();
+            }
+        }
+    }
+
+    private String driverName(URI uri) {
+        if (!SCHEME.equalsIgnoreCase(uri.getScheme())) {
+            throw new IllegalArgumentException("opcooc-storage - URI scheme must be " + SCHEME);
+        }
+        if (uri.isOpaque()) {
+            throw new IllegalArgumentException("opcooc-storage - URI must be hierarchical, e.g. " + SCHEME + "://driver/bucket/key");
+        }
+        return uri.getAuthority() == null ? "" : uri.getAuthority();
+    }
+
+    @Override
+    public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+        StoragePath file = toAbsolute(path);
+        if (options.contains(StandardOpenOption.WRITE) || options.contains(StandardOpenOption.APPEND)) {
+            return new StorageWriteChannel(openOutputStream(file, options));
+        }
+        try {
+            return file.getFileSystem().execute(client -> client.openChannel(OpenChannelArgs.builder()
+                    .bucketName(file.getBucketName())
+                    .objectName(file.getObjectName())
+                    .build()));
+        } catch (StorageException e) {
+            throw translate(file, e);
+        }
+    }
+
+    @Override
+    public InputStream newInputStream(Path path, OpenOption... options) throws IOException {
+        StoragePath file = toAbsolute(path);
+        for (OpenOption option : options) {
+            if (option == StandardOpenOption.WRITE || option == StandardOpenOption.APPEND) {
+                throw new UnsupportedOperationException("'" + option + "' not allowed");
+            }
+        }
+        requireObject(file);
+        try {
+            return file.getFileSystem().execute(client -> client.getObjectToStream(GetObjectToStreamArgs.builder()
+                    .bucketName(file.getBucketName())
+                    .objectName(file.getObjectName())
+                    .build()));
+        } catch (StorageException e) {
+            throw translate(file, e);
+        }
+    }
+
+    @Override
+    public OutputStream newOutputStream(Path path, OpenOption... options) throws IOException {
+        Set<OpenOption> set = options.length == 0 ? DEFAULT_WRITE_OPTIONS : new HashSet<>(Arrays.asList(options));
+        return openOutputStream(toAbsolute(path), set);
+    }
+
+    private OutputStream openOutputStream(StoragePath file, Set<? extends OpenOption> options) throws IOException {
+        if (options.contains(StandardOpenOption.APPEND)) {
+            throw new UnsupportedOperationException("opcooc-storage - object can not be appended");
+        }
+        if (options.contains(StandardOpenOption.READ)) {
+            throw new UnsupportedOperationException("opcooc-storage - object can not be opened for both reading and writing");
+        }
+        requireObject(file);
+        if (options.contains(StandardOpenOption.CREATE_NEW)) {
+            if (objectExists(file)) {
+                throw new FileAlreadyExistsException(file.toString());
+            }
+        } else if (!options.contains(StandardOpenOption.CREATE) && !objectExists(file)) {
+            throw new NoSuchFileException(file.toString());
+        }
+        try {
+            return file.getFileSystem().execute(client -> client.openOutputStream(OpenOutputStreamArgs.builder()
+                    .bucketName(file.getBucketName())
+                    .objectName(file.getObjectName())
+                    .build()));
+        } catch (StorageException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+        StoragePath directory = toAbsolute(dir);
+        FolderListing first;
+        try {
+            first = directory.getFileSystem().listFolderPage(directory, null, StorageFileSystem.PAGE_SIZE);
+        } catch (StorageException e) {
+            throw translate(directory, e);
+        }
+        if (directory.getObjectName() != null && first.getObjects().isEmpty() && first.getFolders().isEmpty()) {
+            if (objectExists(directory)) {
+                throw new NotDirectoryException(directory.toString());
+            }
+            throw new NoSuchFileException(directory.toString());
+        }
+        return new StorageDirectoryStream(directory, first, filter);
+    }
+
+    @Override
+    public void createDirectory(Path dir, FileAttribute<?>... attrs) throws IOException {
+        StoragePath directory = toAbsolute(dir);
+        if (exists(directory)) {
+            throw new FileAlreadyExistsException(directory.toString());
+        }
+        try {
+            directory.getFileSystem().execute(client -> {
+                if (directory.isBucket()) {
+                    client.createBucket(CreateBucketArgs.builder().bucketName(directory.getBucketName()).build());
+                } else {
+                    client.createFolder(SetFolderArgs.builder()
+                            .bucketName(directory.getBucketName())
+                            .folderName(directory.getPrefix())
+                            .build());
+                }
+                return null;
+            });
+        } catch (StorageException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(Path path) throws IOException {
+        StoragePath file = toAbsolute(path);
+        if (file.isRoot()) {
+            throw new FileSystemException(file.toString(), null, "root directory can not be deleted");
+        }
+        try {
+            if (file.isBucket()) {
+                if (!exists(file)) {
+                    throw new NoSuchFileException(file.toString());
+                }
+                if (hasEntries(file)) {
+                    throw new DirectoryNotEmptyException(file.toString());
+                }
+                file.getFileSystem().execute(client -> {
+                    client.deleteBucket(DeleteBucketArgs.builder().bucketName(file.getBucketName()).build());
+                    return null;
+                });
+                return;
+            }
+            if (objectExists(file)) {
+                deleteObject(file, file.getObjectName());
+                return;
+            }
+            if (hasEntries(file)) {
+                throw new DirectoryNotEmptyException(file.toString());
+            }
+            if (!isDirectory(file)) {
+                throw new NoSuchFileException(file.toString());
+            }
+            // 只剩下目录自身的占位对象
+            deleteObject(file, file.getPrefix());
+        } catch (StorageException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private void deleteObject(StoragePath file, String objectName) {
+        file.getFileSystem().execute(client -> {
+            client.deleteObject(DeleteObjectArgs.builder().bucketName(file.getBucketName()).objectName(objectName).build());
+            return null;
+        });
+    }
+
+    @Override
+    public void copy(Path source, Path target, CopyOption... options) throws IOException {
+        StoragePath from = toAbsolute(source);
+        StoragePath to = toAbsolute(target);
+        List<CopyOption> list = Arrays.asList(options);
+        if (list.contains(StandardCopyOption.ATOMIC_MOVE)) {
+            throw new UnsupportedOperationException("'" + StandardCopyOption.ATOMIC_MOVE + "' not allowed");
+        }
+        if (from.equals(to)) {
+            return;
+        }
+        BasicFileAttributes attributes = readAttributes(from);
+        boolean exists = exists(to);
+        if (exists && !list.contains(StandardCopyOption.REPLACE_EXISTING)) {
+            throw new FileAlreadyExistsException(to.toString());
+        }
+        if (attributes.isDirectory()) {
+            // 与本地文件系统一致, 只创建目录而不复制目录下的内容
+            if (!exists) {
+                createDirectory(to);
+            }
+            return;
+        }
+        requireObject(to);
+        try {
+            if (from.getFileSystem() == to.getFileSystem()) {
+                to.getFileSystem().execute(client -> {
+                    client.copyObject(CopyObjectArgs.builder()
+                            .bucketName(to.getBucketName())
+                            .objectName(to.getObjectName())
+                            .source(CopySource.builder().bucketName(from.getBucketName()).objectName(from.getObjectName()).build())
+                            .build());
+                    return null;
+                });
+            } else {
+                transfer(from, to);
+            }
+        } catch (StorageException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 跨驱动复制, 读取失败时取消上传, 避免写入不完整的对象
+     */
+    private void transfer(StoragePath from, StoragePath to) throws IOException {
+        OutputStream out = openOutputStream(to, DEFAULT_WRITE_OPTIONS);
+        try (InputStream in = newInputStream(from)) {
+            in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            abortQuietly(out);
+            throw e;
+        }
+        out.close();
+    }
+
+    private static void abortQuietly(OutputStream out) {
+        if (out instanceof MultipartOutputStream) {
+            ((MultipartOutputStream) out).abort();
+        } else if (out instanceof SpoolFileOutputStream) {
+            ((SpoolFileOutputStream) out).abort();
+        }
+    }
+
+    @Override
+    public void move(Path source, Path target, CopyOption... options) throws IOException {
+        if (Arrays.asList(options).contains(StandardCopyOption.ATOMIC_MOVE)) {
+            throw new AtomicMoveNotSupportedException(source.toString(), target.toString(), "object storage does not support atomic move");
+        }
+        StoragePath from = toAbsolute(source);
+        if (from.equals(toAbsolute(target))) {
+            return;
+        }
+        if (readAttributes(from).isDirectory() && hasEntries(from)) {
+            throw new DirectoryNotEmptyException(from.toString());
+        }
+        copy(source, target, options);
+        delete(source);
+    }
+
+    @Override
+    public boolean isSameFile(Path path, Path path2) {
+        return toAbsolute(path).equals(StoragePath.cast(path2).toAbsolutePath());
+    }
+
+    @Override
+    public boolean isHidden(Path path) {
+        return false;
+    }
+
+    @Override
+    public FileStore getFileStore(Path path) {
+        throw new UnsupportedOperationException("opcooc-storage - file store is not supported");
+    }
+
+    @Override
+    public void checkAccess(Path path, AccessMode... modes) throws IOException {
+        StoragePath file = toAbsolute(path);
+        readAttributes(file);
+        for (AccessMode mode : modes) {
+            if (mode == AccessMode.EXECUTE) {
+                throw new AccessDeniedException(file.toString());
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+        if (type != BasicFileAttributeView.class) {
+            return null;
+        }
+        StoragePath file = toAbsolute(path);
+        return (V) new BasicFileAttributeView() {
+            @Override
+            public String name() {
+                return "basic";
+            }
+
+            @Override
+            public BasicFileAttributes readAttributes() throws IOException {
+                return StorageFileSystemProvider.this.readAttributes(file);
+            }
+
+            @Override
+            public void setTimes(FileTime lastModifiedTime, FileTime lastAccessTime, FileTime createTime) {
+                throw new UnsupportedOperationException("opcooc-storage - file times can not be modified");
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+        if (!type.isAssignableFrom(StorageFileAttributes.class)) {
+            throw new UnsupportedOperationException("opcooc-storage - " + type.getName() + " is not supported");
+        }
+        return (A) readAttributes(toAbsolute(path));
+    }
+
+    @Override
+    public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+        int index = attributes.indexOf(':');
+        if (index >= 0 && !"basic".equals(attributes.substring(0, index))) {
+            throw new UnsupportedOperationException("opcooc-storage - view [" + attributes.substring(0, index) + "] is not supported");
+        }
+        return readAttributes(toAbsolute(path)).toMap(attributes.substring(index + 1));
+    }
+
+    @Override
+    public void setAttribute(Path path, String attribute, Object value, LinkOption... options) {
+        throw new UnsupportedOperationException("opcooc-storage - file attributes can not be modified");
+    }
+
+    /**
+     * 读取文件属性
+     * 1.目录列表产生的路径直接使用列表中的属性
+     * 2.先按对象获取元数据, 失败后再判断是否为目录
+     */
+    private StorageFileAttributes readAttributes(StoragePath file) throws IOException {
+        if (file.getAttributes() != null) {
+            return file.getAttributes();
+        }
+        if (file.isRoot()) {
+            return StorageFileAttributes.directory();
+        }
+        try {
+            if (file.isBucket()) {
+                if (exists(file)) {
+                    return StorageFileAttributes.directory();
+                }
+                throw new NoSuchFileException(file.toString());
+            }
+            StorageException failure;
+            try {
+                FileBasicInfo info = file.getFileSystem().execute(client -> client.getObjectMetadata(ObjectMetadataArgs.builder()
+                        .bucketName(file.getBucketName())
+                        .objectName(file.getObjectName())
+                        .build()));
+                return StorageFileAttributes.object(info);
+            } catch (StorageException e) {
+                failure = e;
+            }
+            if (isDirectory(file)) {
+                return StorageFileAttributes.directory();
+            }
+            if (objectExists(file)) {
+                throw new IOException(failure.getMessage(), failure);
+            }
+            throw new NoSuchFileException(file.toString());
+        } catch (StorageException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private boolean exists(StoragePath file) {
+        if (file.isRoot()) {
+            return true;
+        }
+        if (file.isBucket()) {
+            return file.getFileSystem().execute(client -> client.doesBucketExist(DoesBucketExistArgs.builder()
+                    .bucketName(file.getBucketName())
+                    .build()));
+        }
+        return objectExists(file) || isDirectory(file);
+    }
+
+    private boolean objectExists(StoragePath file) {
+        return file.getObjectName() != null && file.getFileSystem().execute(client -> client.objectExist(DoesObjectExistArgs.builder()
+                .bucketName(file.getBucketName())
+                .objectName(file.getObjectName())
+                .build()));
+    }
+
+    /**
+     * 目录下是否存在对象(包括目录自身的占位对象)
+     */
+    private boolean isDirectory(StoragePath dir) {
+        FolderListing listing = dir.getFileSystem().listFolderPage(dir, null, 1);
+        return !listing.getObjects().isEmpty() || !listing.getFolders().isEmpty();
+    }
+
+    /**
+     * 目录下是否存在除目录自身占位对象之外的内容
+     */
+    private boolean hasEntries(StoragePath dir) {
+        FolderListing listing = dir.getFileSystem().listFolderPage(dir, null, 2);
+        if (!listing.getFolders().isEmpty()) {
+            return true;
+        }
+        return listing.getObjects().stream().anyMatch(info -> !info.getKey().equals(dir.getPrefix()));
+    }
+
+    private static void requireObject(StoragePath file) throws FileSystemException {
+        if (file.getObjectName() == null) {
+            throw new FileSystemException(file.toString(), null, "is a directory");
+        }
+    }
+
+    /**
+     * 将读取失败转换为 IOException, 对象不存在时为 NoSuchFileException
+     */
+    private IOException translate(StoragePath file, StorageException e) {
+        try {
+            if (!exists(file)) {
+                return new NoSuchFileException(file.toString());
+            }
+        } catch (RuntimeException ignored) {
+            // 无法判断是否存在时保留原始异常
+        }
+        return new IOException(e.getMessage(), e);
+    }
+
+    private static StoragePath toAbsolute(Path path) {
+        return StoragePath.cast(path).toAbsolutePath();
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.nio;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 对象存储路径
+ * 1.绝对路径的第一级为存储空间(主目录)名称, 之后的部分为对象名称, 例如 /bucket/dir/file.txt
+ * 2.根路径 / 表示驱动下的所有存储空间
+ * 3.由目录列表产生的路径会携带列表中的文件属性, 遍历目录时无需再逐个请求元数据
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+final class StoragePath implements Path {
+
+    static final String SEPARATOR = "/";
+
+    private static final String[] EMPTY = new String[0];
+
+    private final StorageFileSystem fileSystem;
+
+    private final boolean absolute;
+
+    private final String[] names;
+
+    /**
+     * 目录列表中携带的文件属性(不参与路径比较)
+     */
+    private final StorageFileAttributes attributes;
+
+    StoragePath(StorageFileSystem fileSystem, String path) {
+        this(fileSystem, path.startsWith(SEPARATOR), split(path), null);
+    }
+
+    private StoragePath(StorageFileSystem fileSystem, boolean absolute, String[] names, StorageFileAttributes attributes) {
+        this.fileSystem = fileSystem;
+        this.absolute = absolute;
+        // 空的相对路径包含一个空名称
+        this.names = !absolute && names.length == 0 ? new String[]{""} : names;
+        this.attributes = attributes;
+    }
+
+    private static String[] split(String path) {
+        List<String> names = new ArrayList<>();
+        for (String name : path.split(SEPARATOR)) {
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names.toArray(EMPTY);
+    }
+
+    static StoragePath cast(Path path) {
+        if (!(path instanceof StoragePath)) {
+            throw new ProviderMismatchException();
+        }
+        return (StoragePath) path;
+    }
+
+    /**
+     * 创建携带文件属性的路径
+     *
+     * @param attributes 文件属性
+     * @return 路径
+     */
+    StoragePath withAttributes(StorageFileAttributes attributes) {
+        return new StoragePath(fileSystem, absolute, names, attributes);
+    }
+
+    StorageFileAttributes getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * 是否为根路径(所有存储空间)
+     *
+     * @return 是否为根路径
+     */
+    boolean isRoot() {
+        return absolute && names.length == 0;
+    }
+
+    /**
+     * 是否为存储空间路径
+     *
+     * @return 是否为存储空间路径
+     */
+    boolean isBucket() {
+        return absolute && names.length == 1;
+    }
+
+    /**
+     * 存储空间(主目录)名称, 只对绝对路径有效
+     *
+     * @return 存储空间名称, 根路径时为null
+     */
+    String getBucketName() {
+        return absolute && names.length > 0 ? names[0] : null;
+    }
+
+    /**
+     * 对象名称, 只对绝对路径有效
+     *
+     * @return 对象名称, 根路径及存储空间路径时为null
+     */
+    String getObjectName() {
+        return absolute && names.length > 1 ? String.join(SEPARATOR, Arrays.asList(names).subList(1, names.length)) : null;
+    }
+
+    /**
+     * 作为目录时下级对象的前缀
+     *
+     * @return 前缀
+     */
+    String getPrefix() {
+        String objectName = getObjectName();
+        return objectName == null ? "" : objectName + SEPARATOR;
+    }
+
+    private boolean isEmpty() {
+        return !absolute && names.length == 1 && names[0].isEmpty();
+    }
+
+    @Override
+    public StorageFileSystem getFileSystem() {
+        return fileSystem;
+    }
+
+    @Override
+    public boolean isAbsolute() {
+        return absolute;
+    }
+
+    @Override
+    public Path getRoot() {
+        return absolute ? new StoragePath(fileSystem, true, EMPTY, null) : null;
+    }
+
+    @Override
+    public Path getFileName() {
+        if (names.length == 0) {
+            return null;
+        }
+        return absolute || names.length > 1 ? new StoragePath(fileSystem, false, new String[]{names[names.length - 1]}, null) : this;
+    }
+
+    @Override
+    public Path getParent() {
+        if (names.length == 0 || (names.length == 1 && !absolute)) {
+            return null;
+        }
+        return new StoragePath(fileSystem, absolute, Arrays.copyOf(names, names.length - 1), null);
+    }
+
+    @Override
+    public int getNameCount() {
+        return names.length;
+    }
+
+    @Override
+    public Path getName(int index) {
+        return subpath(index, index + 1);
+    }
+
+    @Override
+    public Path subpath(int beginIndex, int endIndex) {
+        if (beginIndex < 0 || beginIndex >= names.length || endIndex > names.length || beginIndex >= endIndex) {
+            throw new IllegalArgumentException("invalid subpath [" + beginIndex + ", " + endIndex + ") of " + this);
+        }
+        return new StoragePath(fileSystem, false, Arrays.copyOfRange(names, beginIndex, endIndex), null);
+    }
+
+    @Override
+    public boolean startsWith(Path other) {
+        if (!(other instanceof StoragePath)) {
+            return false;
+        }
+        StoragePath that = (StoragePath) other;
+        if (that.fileSystem != fileSystem || that.absolute != absolute || that.names.length > names.length) {
+            return false;
+        }
+        if (that.isEmpty()) {
+            return isEmpty();
+        }
+        for (int i = 0; i < that.names.length; i++) {
+            if (!that.names[i].equals(names[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endsWith(Path other) {
+        if (!(other instanceof StoragePath)) {
+            return false;
+        }
+        StoragePath that = (StoragePath) other;
+        if (that.fileSystem != fileSystem) {
+            return false;
+        }
+        if (that.absolute) {
+            return equals(that);
+        }
+        if (that.isEmpty()) {
+            return isEmpty();
+        }
+        int offset = names.length - that.names.length;
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < that.names.length; i++) {
+            if (!that.names[i].equals(names[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Path normalize() {
+        List<String> normalized = new ArrayList<>(names.length);
+        for (String name : names) {
+            if (".".equals(name)) {
+                continue;
+            }
+            if ("..".equals(name)) {
+                int last = normalized.size() - 1;
+                if (last >= 0 && !"..".equals(normalized.get(last))) {
+                    normalized.remove(last);
+                    continue;
+                }
+                if (absolute) {
+                    // 根路径的上级仍然是根路径
+                    continue;
+                }
+            }
+            normalized.add(name);
+        }
+        return new StoragePath(fileSystem, absolute, normalized.toArray(EMPTY), null);
+    }
+
+    @Override
+    public Path resolve(Path other) {
+        StoragePath that = cast(other);
+        if (that.absolute) {
+            return that;
+        }
+        if (that.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return that;
+        }
+        String[] resolved = Arrays.copyOf(names, names.length + that.names.length);
+        System.arraycopy(that.names, 0, resolved, names.length, that.names.length);
+        return new StoragePath(fileSystem, absolute, resolved, null);
+    }
+
+    @Override
+    public Path relativize(Path other) {
+        StoragePath that = cast(other);
+        if (that.absolute != absolute) {
+            throw new IllegalArgumentException("'other' is different type of path");
+        }
+        if (isEmpty()) {
+            return that;
+        }
+        int common = 0;
+        while (common < names.length && common < that.names.length && names[common].equals(that.names[common])) {
+            common++;
+        }
+        List<String> relative = new ArrayList<>();
+        for (int i = common; i < names.length; i++) {
+            relative.add("..");
+        }
+        relative.addAll(Arrays.asList(that.names).subList(common, that.names.length));
+        return new StoragePath(fileSystem, false, relative.toArray(EMPTY), null);
+    }
+
+    @Override
+    public URI toUri() {
+        try {
+            return new URI(StorageFileSystemProvider.SCHEME, fileSystem.getDriverName(), toAbsolutePath().toString(), null, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public StoragePath toAbsolutePath() {
+        if (absolute) {
+            return this;
+        }
+        return new StoragePath(fileSystem, true, isEmpty() ? EMPTY : names, null);
+    }
+
+    @Override
+    public Path toRealPath(LinkOption... options) throws IOException {
+        Path path = toAbsolutePath().normalize();
+        fileSystem.provider().checkAccess(path);
+        return path;
+    }
+
+    @Override
+    public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers) {
+        throw new UnsupportedOperationException("opcooc-storage - watch service is not supported");
+    }
+
+    @Override
+    public int compareTo(Path other) {
+        return toString().compareTo(cast(other).toString());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StoragePath)) {
+            return false;
+        }
+        StoragePath that = (StoragePath) o;
+        return fileSystem == that.fileSystem && absolute == that.absolute && Arrays.equals(names, that.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * fileSystem.hashCode() + Boolean.hashCode(absolute)) + Arrays.hashCode(names);
+    }
+
+    @Override
+    public String toString() {
+        String path = String.join(SEPARATOR, names);
+        return absolute ? SEPARATOR + path : path;
+    }
+}
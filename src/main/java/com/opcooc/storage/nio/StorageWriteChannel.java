@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.nio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * 顺序写入对象的通道
+ * 1.写入委托给对象输出流, 关闭通道时完成上传
+ * 2.对象只能顺序写入, 不支持读取, 修改位置及截断
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+final class StorageWriteChannel implements SeekableByteChannel {
+
+    private static final int COPY_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+
+    private long position;
+
+    private boolean open = true;
+
+    StorageWriteChannel(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public synchronized int write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        int written = src.remaining();
+        if (src.hasArray()) {
+            out.write(src.array(), src.arrayOffset() + src.position(), written);
+            src.position(src.limit());
+        } else {
+            byte[] buffer = new byte[Math.min(written, COPY_SIZE)];
+            while (src.hasRemaining()) {
+                int n = Math.min(src.remaining(), buffer.length);
+                src.get(buffer, 0, n);
+                out.write(buffer, 0, n);
+            }
+        }
+        position += written;
+        return written;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+        throw new NonReadableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition != position) {
+            throw new UnsupportedOperationException("opcooc-storage - object can only be written sequentially");
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized long size() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new UnsupportedOperationException("opcooc-storage - object can not be truncated");
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (open) {
+            open = false;
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -42,10 +42,12 @@ public abstract class AbstractClientDriverProvider implements ClientDriverProvid
         for (Map.Entry<String, ClientDriverProperty> item : clientDriverMap.entrySet()) {
             ClientDriverProperty clientDriverProperty = item.getValue();
             String driverName = clientDriverProperty.getDriverName();
-            ClientDriver driver = clientDriverHolder.getClientDriver(item.getValue());
             if (StringUtils.isEmpty(driverName)) {
                 driverName = item.getKey();
+                // 驱动名称默认为配置文件key名称, 线程名称及监控指标都会用到
+                clientDriverProperty.setDriverName(driverName);
             }
+            ClientDriver driver = clientDriverHolder.getClientDriver(clientDriverProperty);
             if (driver != null) {
                 map.put(driverName, driver);
             }
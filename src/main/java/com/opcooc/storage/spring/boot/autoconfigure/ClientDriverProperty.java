@@ -15,9 +15,11 @@
  */
 package com.opcooc.storage.spring.boot.autoconfigure;
 
+import java.time.Duration;
 import java.util.function.Supplier;
 
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 
 import com.opcooc.storage.drivers.ClientDriver;
 import com.opcooc.storage.enums.DefaultDriverType;
@@ -91,6 +93,121 @@ public class ClientDriverProperty {
      */
     private Boolean autoCreateBucket = false;
 
+    /**
+     * bucket 存在时的缓存时间(默认10分钟, 为0时不缓存)
+     */
+    private Duration bucketCacheTtl = Duration.ofMinutes(10);
+
+    /**
+     * bucket 不存在时的缓存时间(默认5秒, 为0时不缓存)
+     */
+    private Duration bucketCacheNegativeTtl = Duration.ofSeconds(5);
+
+    /**
+     * 乐观读模式(默认为true), 读取对象时不再预先判断对象是否存在, 直接请求并将404转换为对象不存在异常
+     */
+    private Boolean optimisticRead = true;
+
+    /**
+     * 后台并发执行的最大线程数(默认16, 用于分页预读及并发请求)
+     */
+    private Integer maxConcurrency = 16;
+
+    /**
+     * 并发获取文件列表时的并行度(默认8)
+     */
+    private Integer listConcurrency = 8;
+
+    /**
+     * 超过该大小时使用分片上传(默认64MB)
+     */
+    private DataSize multipartThreshold = DataSize.ofMegabytes(64);
+
+    /**
+     * 分片上传/分段下载的分片大小(默认16MB, 最小5MB, 上传分片数超过10000时自动增大)
+     */
+    private DataSize multipartPartSize = DataSize.ofMegabytes(16);
+
+    /**
+     * 单个对象同时上传/下载的最大分片数(默认4)
+     */
+    private Integer multipartConcurrency = 4;
+
+    /**
+     * 单个分片上传/下载失败后的最大重试次数(默认3)
+     */
+    private Integer multipartRetries = 3;
+
+    /**
+     * 未知大小上传(输出流)时缓冲区池的最大缓冲区数量(默认8, 每个缓冲区大小为分片大小)
+     */
+    private Integer multipartBufferCount = 8;
+
+    /**
+     * 缓冲区池是否使用堆外内存(默认false)
+     */
+    private Boolean multipartDirectBuffer = false;
+
+    /**
+     * 预读输入流每次获取的块大小(默认8MB)
+     */
+    private DataSize readAheadChunkSize = DataSize.ofMegabytes(8);
+
+    /**
+     * 预读输入流同时获取的最大块数(默认4)
+     */
+    private Integer readAheadChunks = 4;
+
+    /**
+     * 随机读取通道的块大小(默认1MB)
+     */
+    private DataSize channelBlockSize = DataSize.ofMegabytes(1);
+
+    /**
+     * 随机读取通道最多缓存的块数(默认16)
+     */
+    private Integer channelCacheBlocks = 16;
+
+    /**
+     * 批量区间读取时可以合并的最大间隔(默认64KB)
+     */
+    private DataSize vectoredReadMaxGap = DataSize.ofKilobytes(64);
+
+    /**
+     * 批量区间读取时合并后区间的最大长度(默认8MB)
+     */
+    private DataSize vectoredReadMaxMergedSize = DataSize.ofMegabytes(8);
+
+    /**
+     * 复制对象时超过该大小使用分片复制(默认1GB, 单次复制最大支持5GB), 未指定源对象大小时先尝试单次复制, 服务端因源对象过大拒绝时改为分片复制
+     */
+    private DataSize multipartCopyThreshold = DataSize.ofGigabytes(1);
+
+    /**
+     * 分片复制的分片大小(默认128MB)
+     */
+    private DataSize multipartCopyPartSize = DataSize.ofMegabytes(128);
+
+    /**
+     * 异步客户端(AsyncStorageClient)执行请求的最大线程数(默认16)
+     */
+    private Integer asyncConcurrency = 16;
+
+    /**
+     * S3_ASYNC 驱动(非阻塞 HTTP)的最大连接数(默认64)
+     */
+    private Integer maxConnections = 64;
+
+    /**
+     * LOCAL 驱动的根目录, 存储空间(主目录)对应根目录下的子目录
+     */
+    private String localRoot;
+
+    /**
+     * MEMORY 驱动每次操作的模拟延迟(默认0, 不延迟), 用于模拟网络往返
+     */
+    private Duration memoryLatency = Duration.ZERO;
+
     /**
      * 解密回调(默认为 DefaultDecryptCallback )
      * 可通过 customizeDecryptCallback 覆盖
@@ -15,8 +15,12 @@
  */
 package com.opcooc.storage.spring.boot.autoconfigure;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -24,12 +28,16 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Role;
 
+import com.opcooc.storage.AsyncStorageClient;
+import com.opcooc.storage.ReactiveStorageClient;
 import com.opcooc.storage.StorageClient;
 import com.opcooc.storage.aop.DynamicClientAnnotationAdvisor;
 import com.opcooc.storage.aop.DynamicClientAnnotationInterceptor;
 import com.opcooc.storage.drivers.ClientDriver;
 import com.opcooc.storage.drivers.DynamicRoutingClientDriver;
 import com.opcooc.storage.holder.ClientDriverHolder;
+import com.opcooc.storage.metrics.MicrometerStorageMetrics;
+import com.opcooc.storage.metrics.StorageMetrics;
 import com.opcooc.storage.processor.OsHeaderProcessor;
 import com.opcooc.storage.processor.OsProcessor;
 import com.opcooc.storage.processor.OsSessionProcessor;
@@ -38,7 +46,9 @@ import com.opcooc.storage.provider.YmlClientDriverProvider;
 import com.opcooc.storage.support.BucketConverter;
 import com.opcooc.storage.support.ClientDriverHealthIndicator;
 import com.opcooc.storage.support.ObjectConverter;
+import com.opcooc.storage.support.StorageFileSystemRegistrar;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -50,6 +60,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @Configuration
 @EnableConfigurationProperties(DynamicStorageProperties.class)
+@AutoConfigureAfter(name = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration"})
 @ConditionalOnProperty(prefix = DynamicStorageProperties.PREFIX, name = DynamicStorageProperties.ENABLED, havingValue = "true", matchIfMissing = true)
 public class DynamicStorageAutoConfiguration {
 
@@ -98,15 +111,58 @@ public class DynamicStorageAutoConfiguration {
     }
 
     @Bean
-    public StorageClient storageClient(ClientDriver clientDriver) {
+    public StorageClient storageClient(ClientDriver clientDriver, ObjectProvider<StorageMetrics> storageMetrics) {
         StorageClient client = new StorageClient(clientDriver);
+        storageMetrics.ifAvailable(client::setMetrics);
         if (bucketConverter != null) {
             client.setBucketConverter(bucketConverter);
         }
         if (objectConverter != null) {
             client.setObjectConverter(objectConverter);
         }
-        return new StorageClient(clientDriver);
+        return client;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StorageFileSystemRegistrar storageFileSystemRegistrar(StorageClient storageClient) {
+        return new StorageFileSystemRegistrar(storageClient);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AsyncStorageClient asyncStorageClient(ObjectProvider<StorageClient> storageClient) {
+        // 延迟获取 StorageClient, 避免客户端驱动初始化时发布的事件创建监听器形成循环依赖
+        return new AsyncStorageClient(storageClient::getObject);
+    }
+
+    /**
+     * 引入 reactor-core 时注册响应式存储客户端
+     */
+    @Configuration
+    @ConditionalOnClass(name = "reactor.core.publisher.Flux")
+    static class ReactiveStorageClientConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ReactiveStorageClient reactiveStorageClient(StorageClient storageClient) {
+            return new ReactiveStorageClient(storageClient);
+        }
+    }
+
+    /**
+     * 引入 Micrometer 且存在 MeterRegistry 时记录存储操作指标
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnBean(type = "io.micrometer.core.instrument.MeterRegistry")
+    static class StorageMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public StorageMetrics storageMetrics(MeterRegistry meterRegistry, ClientDriver clientDriver) {
+            return new MicrometerStorageMetrics(meterRegistry, clientDriver);
+        }
     }
 
     @Bean
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.support;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import com.opcooc.storage.exception.StorageException;
+
+/**
+ * bucket 是否存在的缓存(每个客户端驱动一份)
+ * 1.存在/不存在 分别使用不同的过期时间, 过期时间为0时不缓存
+ * 2.同一个 bucket 并发加载时只有一个线程真正执行加载(single-flight), 其余线程等待其结果
+ * 3.移除缓存时同时作废正在进行的加载, 移除之前开始的加载结果不会写入缓存
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class BucketExistenceCache {
+
+    /**
+     * 已加载的结果
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 正在加载中的 bucket
+     */
+    private final Map<String, CompletableFuture<Boolean>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 每个 bucket 被移除缓存的次数, 加载前后不一致时说明加载期间缓存被移除
+     */
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    /**
+     * 清空缓存的次数
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final long positiveTtlNanos;
+
+    private final long negativeTtlNanos;
+
+    public BucketExistenceCache(Duration positiveTtl, Duration negativeTtl) {
+        this.positiveTtlNanos = positiveTtl == null ? 0L : positiveTtl.toNanos();
+        this.negativeTtlNanos = negativeTtl == null ? 0L : negativeTtl.toNanos();
+    }
+
+    /**
+     * 获取 bucket 是否存在, 缓存未命中时通过 loader 加载
+     *
+     * @param bucketName bucket名称
+     * @param loader     加载器(判断是否存在, 必要时创建 bucket)
+     * @return 是否存在
+     */
+    public boolean get(String bucketName, BooleanSupplier loader) {
+        Boolean cached = getIfPresent(bucketName);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = loading.putIfAbsent(bucketName, future);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            long generation = generation(bucketName);
+            // 抢到加载权之后再检查一次, 避免上一轮加载刚结束时重复加载
+            cached = getIfPresent(bucketName);
+            boolean exists = cached != null ? cached : loader.getAsBoolean();
+            // 加载期间缓存被移除(例如 bucket 被删除)时结果可能已经过时, 不写入缓存
+            if (generation(bucketName) == generation) {
+                Entry entry = store(bucketName, exists);
+                if (entry != null && generation(bucketName) != generation) {
+                    // 写入的同时被移除
+                    entries.remove(bucketName, entry);
+                }
+            }
+            future.complete(exists);
+            return exists;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(bucketName, future);
+        }
+    }
+
+    /**
+     * 获取未过期的缓存结果
+     *
+     * @param bucketName bucket名称
+     * @return 是否存在, 未缓存时返回null
+     */
+    public Boolean getIfPresent(String bucketName) {
+        Entry entry = entries.get(bucketName);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            entries.remove(bucketName, entry);
+            return null;
+        }
+        return entry.exists;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param bucketName bucket名称
+     * @param exists     是否存在
+     */
+    public void put(String bucketName, boolean exists) {
+        store(bucketName, exists);
+    }
+
+    /**
+     * 移除缓存, 并作废正在进行的加载
+     *
+     * @param bucketName bucket名称
+     */
+    public void invalidate(String bucketName) {
+        generations.merge(bucketName, 1L, Long::sum);
+        loading.remove(bucketName);
+        entries.remove(bucketName);
+    }
+
+    /**
+     * 清空缓存, 并作废正在进行的加载
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        loading.clear();
+        entries.clear();
+    }
+
+    private Entry store(String bucketName, boolean exists) {
+        long ttl = exists ? positiveTtlNanos : negativeTtlNanos;
+        if (ttl <= 0) {
+            entries.remove(bucketName);
+            return null;
+        }
+        Entry entry = new Entry(exists, System.nanoTime() + ttl);
+        entries.put(bucketName, entry);
+        return entry;
+    }
+
+    /**
+     * 两个计数都只增不减, 任意一个变化时和也会变化
+     */
+    private long generation(String bucketName) {
+        return epoch.get() + generations.getOrDefault(bucketName, 0L);
+    }
+
+    private static boolean await(CompletableFuture<Boolean> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new StorageException("opcooc-storage - load bucket existence failed", cause);
+        }
+    }
+
+    private static final class Entry {
+
+        private final boolean exists;
+
+        private final long expireAt;
+
+        private Entry(boolean exists, long expireAt) {
+            this.exists = exists;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expireAt >= 0;
+        }
+    }
+}
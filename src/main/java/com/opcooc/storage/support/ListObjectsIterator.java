@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.support;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.toolkit.StorageUtil;
+
+/**
+ * ListObjectsV2 分页迭代器
+ * 1.只有在当前页消费完之后才会请求下一页
+ * 2.开启预读时在消费当前页的同时后台请求下一页(最多预读一页)
+ * 3.关闭后不再请求剩余的分页
+ * 4.非递归获取时只返回当前目录下的文件(不包含子目录)
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class ListObjectsIterator implements Iterator<FileBasicInfo>, Closeable {
+
+    private final AmazonS3 client;
+
+    private final ListObjectsArgs args;
+
+    /**
+     * 预读执行器, 为null时不预读
+     */
+    private final Executor prefetchExecutor;
+
+    private Iterator<S3ObjectSummary> current = Collections.emptyIterator();
+
+    /**
+     * 下一页的 continuationToken, 第一页之前为null
+     */
+    private String continuationToken;
+
+    private boolean lastPage;
+
+    private CompletableFuture<ListObjectsV2Result> prefetch;
+
+    private volatile boolean closed;
+
+    public ListObjectsIterator(AmazonS3 client, ListObjectsArgs args, Executor prefetchExecutor) {
+        this.client = client;
+        this.args = args;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    /**
+     * 开启预读时立即在后台请求第一页
+     *
+     * @return 当前迭代器
+     */
+    public ListObjectsIterator prefetchFirstPage() {
+        if (prefetchExecutor != null && prefetch == null && continuationToken == null && !lastPage && !closed) {
+            prefetch = CompletableFuture.supplyAsync(() -> request(null), prefetchExecutor);
+        }
+        return this;
+    }
+
+    /**
+     * 转换为顺序流, 关闭流时同时关闭迭代器
+     *
+     * @return 流
+     */
+    public Stream<FileBasicInfo> stream() {
+        Spliterator<FileBasicInfo> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (closed || lastPage) {
+                return false;
+            }
+            ListObjectsV2Result result = nextPage();
+            continuationToken = result.getNextContinuationToken();
+            lastPage = !result.isTruncated();
+            current = result.getObjectSummaries().iterator();
+            if (!lastPage && prefetchExecutor != null) {
+                String token = continuationToken;
+                prefetch = CompletableFuture.supplyAsync(() -> request(token), prefetchExecutor);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public FileBasicInfo next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return StorageUtil.createFileBasicInfo(current.next(), args);
+    }
+
+    private ListObjectsV2Result nextPage() {
+        if (prefetch == null) {
+            return request(continuationToken);
+        }
+        CompletableFuture<ListObjectsV2Result> future = prefetch;
+        prefetch = null;
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new StorageException("opcooc-storage - list objects failed", e.getCause());
+        }
+    }
+
+    private ListObjectsV2Result request(String token) {
+        ListObjectsV2Request req = new ListObjectsV2Request()
+                .withBucketName(args.getBucketName())
+                .withPrefix(args.getPrefix())
+                .withDelimiter(args.isRecursive() ? null : args.getDelimiter())
+                .withMaxKeys(args.getMaxKeys())
+                .withContinuationToken(token);
+        try {
+            return client.listObjectsV2(req);
+        } catch (Exception e) {
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        current = Collections.emptyIterator();
+        if (prefetch != null) {
+            prefetch.cancel(false);
+            prefetch = null;
+        }
+    }
+}
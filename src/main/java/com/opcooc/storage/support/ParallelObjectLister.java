@@ -0,0 +1,535 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.support;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.opcooc.storage.args.ParallelListObjectsArgs;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.toolkit.StorageUtil;
+
+/**
+ * 按前缀分片的并发获取文件列表
+ * 1.使用分隔符获取下级公共前缀, 每个公共前缀作为一个分片提交到 ForkJoinPool 中并发获取
+ * 2.分片在未超过最大拆分层级时继续递归拆分, 超过后直接分页获取
+ * 3.无序模式: 所有分片写入同一个有界队列, 吞吐量最高
+ * 4.有序模式: 先并发发现所有分片, 再按 key 的字典序(与S3一致的 UTF-8 字节序)做多路归并
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class ParallelObjectLister {
+
+    /**
+     * 按 unicode 码点比较, 与S3使用的 UTF-8 字节序一致
+     */
+    public static final Comparator<String> KEY_ORDER = (a, b) -> {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    };
+
+    /**
+     * 按对象名称的 KEY_ORDER 比较
+     */
+    public static final Comparator<FileBasicInfo> FILE_KEY_ORDER = (a, b) -> KEY_ORDER.compare(a.getKey(), b.getKey());
+
+    private static final Object END = new Object();
+
+    private final AmazonS3 client;
+
+    private final ParallelListObjectsArgs args;
+
+    private final ForkJoinPool pool;
+
+    public ParallelObjectLister(AmazonS3 client, ParallelListObjectsArgs args, ForkJoinPool pool) {
+        this.client = client;
+        this.args = args;
+        this.pool = pool;
+    }
+
+    /**
+     * 获取文件信息流, 使用完毕后需要关闭流
+     *
+     * @return 文件信息流
+     */
+    public Stream<FileBasicInfo> stream() {
+        return args.isOrdered() ? ordered() : unordered();
+    }
+
+    private Stream<FileBasicInfo> unordered() {
+        UnorderedIterator iterator = new UnorderedIterator(args.getBufferSize());
+        pool.execute(ForkJoinTask.adapt(() -> {
+            try {
+                new ShardTask(iterator, args.getPrefix(), 0).invoke();
+            } catch (Throwable e) {
+                iterator.error.compareAndSet(null, e);
+            } finally {
+                iterator.finish();
+            }
+        }));
+        return toStream(iterator).onClose(iterator::close);
+    }
+
+    private Stream<FileBasicInfo> ordered() {
+        Discovery discovery = pool.invoke(new DiscoverTask(args.getPrefix(), 0));
+        discovery.directs.sort((a, b) -> KEY_ORDER.compare(a.getKey(), b.getKey()));
+        MergingIterator iterator = new MergingIterator(discovery);
+        // 按 KEY_ORDER 有序, 下游的 sorted() 及并行流可以保持顺序
+        Spliterator<FileBasicInfo> spliterator = new Spliterators.AbstractSpliterator<FileBasicInfo>(Long.MAX_VALUE,
+                Spliterator.NONNULL | Spliterator.ORDERED | Spliterator.SORTED) {
+
+            @Override
+            public boolean tryAdvance(Consumer<? super FileBasicInfo> action) {
+                if (!iterator.hasNext()) {
+                    return false;
+                }
+                action.accept(iterator.next());
+                return true;
+            }
+
+            @Override
+            public Comparator<? super FileBasicInfo> getComparator() {
+                return FILE_KEY_ORDER;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    private static Stream<FileBasicInfo> toStream(Iterator<FileBasicInfo> iterator) {
+        Spliterator<FileBasicInfo> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * 分页获取指定前缀下的所有结果
+     *
+     * @param prefix    前缀
+     * @param delimiter 分隔符, 为null时获取所有下级
+     * @param consumer  每页结果处理
+     * @param cancelled 是否已取消
+     */
+    private void forEachPage(String prefix, String delimiter, Consumer<ListObjectsV2Result> consumer, BooleanSupplier cancelled) {
+        ListObjectsV2Request req = new ListObjectsV2Request()
+                .withBucketName(args.getBucketName())
+                .withPrefix(prefix)
+                .withDelimiter(delimiter)
+                .withMaxKeys(args.getMaxKeys());
+        ListObjectsV2Result result;
+        do {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            try {
+                result = client.listObjectsV2(req);
+            } catch (Exception e) {
+                throw new StorageException(e);
+            }
+            consumer.accept(result);
+            req.setContinuationToken(result.getNextContinuationToken());
+        } while (result.isTruncated());
+    }
+
+    /**
+     * 无序模式分片任务
+     */
+    private final class ShardTask extends RecursiveAction {
+
+        private final UnorderedIterator sink;
+
+        private final String prefix;
+
+        private final int depth;
+
+        private ShardTask(UnorderedIterator sink, String prefix, int depth) {
+            this.sink = sink;
+            this.prefix = prefix;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (depth >= args.getSplitDepth()) {
+                forEachPage(prefix, null, page -> page.getObjectSummaries().forEach(sink::put), sink::isClosed);
+                return;
+            }
+            List<ShardTask> subTasks = new ArrayList<>();
+            forEachPage(prefix, args.getDelimiter(), page -> {
+                page.getObjectSummaries().forEach(sink::put);
+                for (String commonPrefix : page.getCommonPrefixes()) {
+                    ShardTask task = new ShardTask(sink, commonPrefix, depth + 1);
+                    task.fork();
+                    subTasks.add(task);
+                }
+            }, sink::isClosed);
+            for (ShardTask task : subTasks) {
+                task.join();
+            }
+        }
+    }
+
+    /**
+     * 无序模式结果迭代器(所有分片共用一个有界队列)
+     */
+    private final class UnorderedIterator implements Iterator<FileBasicInfo> {
+
+        private final BlockingQueue<Object> queue;
+
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        private volatile boolean closed;
+
+        private Object next;
+
+        private UnorderedIterator(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private boolean isClosed() {
+            return closed;
+        }
+
+        private void put(S3ObjectSummary summary) {
+            offer(StorageUtil.createFileBasicInfo(summary, args));
+        }
+
+        private void finish() {
+            offer(END);
+        }
+
+        private void offer(Object item) {
+            try {
+                while (!closed && !queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    // 等待消费者消费或者关闭
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StorageException("opcooc-storage - parallel list objects interrupted", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !closed) {
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new StorageException("opcooc-storage - parallel list objects interrupted", e);
+                }
+            }
+            if (next == END) {
+                closed = true;
+                Throwable e = error.get();
+                if (e != null) {
+                    throw e instanceof RuntimeException ? (RuntimeException) e : new StorageException("opcooc-storage - parallel list objects failed", e);
+                }
+            }
+            return next != null && next != END;
+        }
+
+        @Override
+        public FileBasicInfo next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            FileBasicInfo info = (FileBasicInfo) next;
+            next = null;
+            return info;
+        }
+
+        private void close() {
+            closed = true;
+            queue.clear();
+        }
+    }
+
+    /**
+     * 分片发现结果
+     */
+    private static final class Discovery {
+
+        /**
+         * 拆分层级以上直接存在的文件
+         */
+        private final List<S3ObjectSummary> directs = new ArrayList<>();
+
+        /**
+         * 需要分页获取的叶子分片(按前缀排序)
+         */
+        private final List<String> leaves = new ArrayList<>();
+    }
+
+    /**
+     * 有序模式分片发现任务
+     */
+    private final class DiscoverTask extends RecursiveTask<Discovery> {
+
+        private final String prefix;
+
+        private final int depth;
+
+        private DiscoverTask(String prefix, int depth) {
+            this.prefix = prefix;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Discovery compute() {
+            Discovery discovery = new Discovery();
+            if (depth >= args.getSplitDepth()) {
+                discovery.leaves.add(prefix);
+                return discovery;
+            }
+            List<DiscoverTask> subTasks = new ArrayList<>();
+            forEachPage(prefix, args.getDelimiter(), page -> {
+                discovery.directs.addAll(page.getObjectSummaries());
+                for (String commonPrefix : page.getCommonPrefixes()) {
+                    DiscoverTask task = new DiscoverTask(commonPrefix, depth + 1);
+                    task.fork();
+                    subTasks.add(task);
+                }
+            }, () -> false);
+            // 公共前缀本身按字典序返回, 按顺序合并即可保证叶子分片有序
+            for (DiscoverTask task : subTasks) {
+                Discovery sub = task.join();
+                discovery.directs.addAll(sub.directs);
+                discovery.leaves.addAll(sub.leaves);
+            }
+            return discovery;
+        }
+    }
+
+    /**
+     * 有序模式多路归并迭代器
+     * 未开始获取的叶子分片以前缀作为下界参与排序, 到达队首时才开始获取, 并预读其后若干分片的第一页
+     */
+    private final class MergingIterator implements Iterator<FileBasicInfo> {
+
+        private final PriorityQueue<Source> queue = new PriorityQueue<>((a, b) -> KEY_ORDER.compare(a.key(), b.key()));
+
+        private final List<LeafSource> leaves = new ArrayList<>();
+
+        private final int window;
+
+        private int nextToStart;
+
+        private MergingIterator(Discovery discovery) {
+            this.window = Math.max(1, pool.getParallelism());
+            if (!discovery.directs.isEmpty()) {
+                queue.add(new DirectSource(discovery.directs.iterator()));
+            }
+            for (String prefix : discovery.leaves) {
+                LeafSource leaf = new LeafSource(prefix, leaves.size());
+                leaves.add(leaf);
+                queue.add(leaf);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!queue.isEmpty()) {
+                Source source = queue.peek();
+                if (source.started()) {
+                    return true;
+                }
+                queue.poll();
+                startWindow((LeafSource) source);
+                if (source.advance()) {
+                    queue.add(source);
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public FileBasicInfo next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Source source = queue.poll();
+            FileBasicInfo head = source.head();
+            if (source.advance()) {
+                queue.add(source);
+            }
+            return head;
+        }
+
+        private void startWindow(LeafSource current) {
+            current.start();
+            int limit = Math.min(leaves.size(), current.index + window + 1);
+            nextToStart = Math.max(nextToStart, current.index + 1);
+            while (nextToStart < limit) {
+                leaves.get(nextToStart++).start();
+            }
+        }
+
+        private void close() {
+            queue.clear();
+            leaves.forEach(LeafSource::close);
+        }
+    }
+
+    private interface Source {
+
+        /**
+         * 排序使用的 key (未开始时为下界)
+         *
+         * @return key
+         */
+        String key();
+
+        /**
+         * 是否已经开始获取(head 可用)
+         *
+         * @return 是否已开始
+         */
+        boolean started();
+
+        /**
+         * 当前元素
+         *
+         * @return 当前元素
+         */
+        FileBasicInfo head();
+
+        /**
+         * 移动到下一个元素
+         *
+         * @return 是否还有元素
+         */
+        boolean advance();
+    }
+
+    private final class DirectSource implements Source {
+
+        private final Iterator<S3ObjectSummary> iterator;
+
+        private FileBasicInfo head;
+
+        private DirectSource(Iterator<S3ObjectSummary> iterator) {
+            this.iterator = iterator;
+            advance();
+        }
+
+        @Override
+        public String key() {
+            return head.getKey();
+        }
+
+        @Override
+        public boolean started() {
+            return true;
+        }
+
+        @Override
+        public FileBasicInfo head() {
+            return head;
+        }
+
+        @Override
+        public boolean advance() {
+            head = iterator.hasNext() ? StorageUtil.createFileBasicInfo(iterator.next(), args) : null;
+            return head != null;
+        }
+    }
+
+    private final class LeafSource implements Source {
+
+        private final String prefix;
+
+        private final int index;
+
+        private ListObjectsIterator iterator;
+
+        private FileBasicInfo head;
+
+        private LeafSource(String prefix, int index) {
+            this.prefix = prefix;
+            this.index = index;
+        }
+
+        private void start() {
+            if (iterator == null) {
+                iterator = new ListObjectsIterator(client, args.toBuilder().prefix(prefix).recursive(true).build(), pool).prefetchFirstPage();
+            }
+        }
+
+        @Override
+        public String key() {
+            return head == null ? prefix : head.getKey();
+        }
+
+        @Override
+        public boolean started() {
+            return head != null;
+        }
+
+        @Override
+        public FileBasicInfo head() {
+            return head;
+        }
+
+        @Override
+        public boolean advance() {
+            start();
+            head = iterator.hasNext() ? iterator.next() : null;
+            if (head == null) {
+                iterator.close();
+            }
+            return head != null;
+        }
+
+        private void close() {
+            if (iterator != null) {
+                iterator.close();
+            }
+        }
+    }
+}
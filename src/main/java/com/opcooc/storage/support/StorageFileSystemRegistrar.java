@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.support;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.opcooc.storage.client.Client;
+import com.opcooc.storage.nio.StorageFileSystemProvider;
+
+/**
+ * 将客户端注册为 java.nio.file 文件系统的默认客户端, 容器关闭时清除
+ * 避免容器重启(测试, devtools)后文件系统仍然使用已关闭的客户端
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class StorageFileSystemRegistrar implements InitializingBean, DisposableBean {
+
+    private final Client client;
+
+    public StorageFileSystemRegistrar(Client client) {
+        this.client = client;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        StorageFileSystemProvider.setDefaultClient(client);
+    }
+
+    @Override
+    public void destroy() {
+        StorageFileSystemProvider.clearDefaultClient(client);
+    }
+}
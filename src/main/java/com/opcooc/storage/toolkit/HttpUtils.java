@@ -48,6 +48,25 @@ public class HttpUtils {
         }
     }
 
+    /**
+     * 发起 GET 请求并返回响应, 由调用方读取响应体并在结束后 disconnect
+     *
+     * @param urlStr 地址
+     * @return 已连接的 http 连接, 响应码为 2xx
+     * @throws IOException 请求失败
+     */
+    public static HttpURLConnection openStream(String urlStr) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(urlStr).openConnection();
+        connection.setUseCaches(false);
+        connection.setRequestMethod("GET");
+        int code = connection.getResponseCode();
+        if (code < HttpURLConnection.HTTP_OK || code >= HttpURLConnection.HTTP_MULT_CHOICE) {
+            connection.disconnect();
+            throw new StorageException("opcooc-storage - url: [%s], unexpected response code [%s]", urlStr, code);
+        }
+        return connection;
+    }
+
     public static Boolean httpUploadFile(String urlStr, File file) {
         try {
             URL url = new URL(urlStr);
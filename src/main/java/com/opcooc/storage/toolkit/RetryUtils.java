@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.toolkit;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.opcooc.storage.exception.StorageException;
+
+/**
+ * 分片请求重试工具类
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class RetryUtils {
+
+    private static final long BASE_BACKOFF_MILLIS = 200L;
+
+    private static final long MAX_BACKOFF_MILLIS = 5000L;
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private RetryUtils() {
+    }
+
+    /**
+     * 判断异常是否可以重试(服务端错误, 限流, 超时及可重试的客户端异常)
+     *
+     * @param e 异常
+     * @return 是否可以重试
+     */
+    public static boolean isRetryable(Exception e) {
+        if (e instanceof AmazonServiceException) {
+            int status = ((AmazonServiceException) e).getStatusCode();
+            return status >= HttpURLConnection.HTTP_INTERNAL_ERROR || status == HttpURLConnection.HTTP_CLIENT_TIMEOUT || status == HTTP_TOO_MANY_REQUESTS;
+        }
+        if (e instanceof SdkClientException) {
+            return ((SdkClientException) e).isRetryable();
+        }
+        return e instanceof IOException;
+    }
+
+    /**
+     * 按指数退避等待(200ms 起, 最长5秒)
+     *
+     * @param attempt 已失败的次数(从0开始)
+     */
+    public static void backoff(int attempt) {
+        try {
+            Thread.sleep(Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt, 16)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("opcooc-storage - retry interrupted", e);
+        }
+    }
+}
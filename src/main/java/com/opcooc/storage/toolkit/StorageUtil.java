@@ -16,10 +16,19 @@
 package com.opcooc.storage.toolkit;
 
 import java.lang.reflect.Constructor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.BeanUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.ClassUtils;
 
+import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
@@ -47,6 +56,20 @@ public class StorageUtil {
         return info;
     }
 
+    public static FileBasicInfo createFileBasicInfo(String eTag, ObjectArgs args, Long contentLength) {
+        return createFileBasicInfo(eTag, args.getBucketName(), args.getObjectName(), args.getContentType(), contentLength);
+    }
+
+    public static FileBasicInfo createFileBasicInfo(String eTag, String bucketName, String objectName, String contentType, Long contentLength) {
+        FileBasicInfo info = new FileBasicInfo();
+        info.setBucketName(bucketName);
+        info.setKey(objectName);
+        info.setContentLength(contentLength);
+        info.getMetadata().put(Headers.ETAG, eTag);
+        info.getMetadata().put(Headers.CONTENT_TYPE, contentType);
+        return info;
+    }
+
     public static FileBasicInfo createFileBasicInfo(S3ObjectSummary result, BucketArgs args) {
         FileBasicInfo info = new FileBasicInfo();
         info.setKey(result.getKey());
@@ -88,6 +111,37 @@ public class StorageUtil {
         return classes;
     }
 
+    /**
+     * 创建有界线程池(线程空闲60秒后回收, 线程为守护线程)
+     *
+     * @param threadNamePrefix 线程名称前缀
+     * @param threads          最大线程数
+     * @return 线程池
+     */
+    public static ExecutorService createExecutor(String threadNamePrefix, int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 创建 ForkJoinPool(异步模式, 任务按提交顺序执行)
+     *
+     * @param threadNamePrefix 线程名称前缀
+     * @param parallelism      并行度
+     * @return ForkJoinPool
+     */
+    public static ForkJoinPool createForkJoinPool(String threadNamePrefix, int parallelism) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(threadNamePrefix + threadCount.incrementAndGet());
+            return thread;
+        }, null, true);
+    }
+
     public static <T> T instantiateClass(Class<T> clazz, Object... params) {
         try {
             if (params == null || params.length == 0) {
@@ -0,0 +1,320 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.transfer;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.MultipartUpload;
+import com.amazonaws.services.s3.model.MultipartUploadListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.amazonaws.services.s3.model.VersionListing;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.DeleteError;
+import com.opcooc.storage.model.DeleteResult;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 批量删除引擎(一次删除操作使用一个实例)
+ * 1.提交的对象按每批1000个拆分为 DeleteObjectsRequest(quiet 模式)
+ * 2.批次在执行器中并发执行, 同时执行的批次数有上限, 达到上限时提交线程等待
+ * 3.单个对象删除失败不影响其他对象, 失败信息汇总到删除结果中
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class BulkDeleter {
+
+    /**
+     * 单次 DeleteObjectsRequest 最多包含的对象数量
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private static final String NOT_IMPLEMENTED = "NotImplemented";
+
+    private final AmazonS3 client;
+
+    private final String bucketName;
+
+    private final Executor executor;
+
+    private final int concurrency;
+
+    private final Semaphore permits;
+
+    private final AtomicLong deletedCount = new AtomicLong();
+
+    private final Queue<DeleteError> errors = new ConcurrentLinkedQueue<>();
+
+    private final Queue<String> deletedKeys = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 是否记录删除成功的对象名称
+     */
+    @Setter
+    private boolean reportDeletedKeys;
+
+    /**
+     * @param client      客户端
+     * @param bucketName  存储空间(主目录)名称
+     * @param executor    执行器, 为null时在提交线程中执行
+     * @param concurrency 同时执行的最大批次数
+     */
+    public BulkDeleter(AmazonS3 client, String bucketName, Executor executor, int concurrency) {
+        this.client = client;
+        this.bucketName = bucketName;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.permits = new Semaphore(this.concurrency);
+    }
+
+    /**
+     * 提交需要删除的对象
+     *
+     * @param keys 对象集合
+     */
+    public void submit(Collection<KeyVersion> keys) {
+        List<KeyVersion> batch = new ArrayList<>(Math.min(keys.size(), MAX_BATCH_SIZE));
+        for (KeyVersion key : keys) {
+            batch.add(key);
+            if (batch.size() == MAX_BATCH_SIZE) {
+                submitBatch(batch);
+                batch = new ArrayList<>(MAX_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            submitBatch(batch);
+        }
+    }
+
+    /**
+     * 分页获取前缀下的所有对象并删除
+     *
+     * @param prefix      前缀
+     * @param allVersions 是否删除所有历史版本
+     */
+    public void submitPrefix(String prefix, boolean allVersions) {
+        if (allVersions && submitVersions(prefix)) {
+            return;
+        }
+        ListObjectsV2Request req = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(prefix)
+                .withMaxKeys(MAX_BATCH_SIZE);
+        ListObjectsV2Result result;
+        do {
+            result = client.listObjectsV2(req);
+            List<KeyVersion> keys = new ArrayList<>(result.getObjectSummaries().size());
+            for (S3ObjectSummary summary : result.getObjectSummaries()) {
+                keys.add(new KeyVersion(summary.getKey()));
+            }
+            submit(keys);
+            req.setContinuationToken(result.getNextContinuationToken());
+        } while (result.isTruncated());
+    }
+
+    /**
+     * 分页获取前缀下的所有版本并删除
+     *
+     * @param prefix 前缀
+     * @return 服务端是否支持版本列表
+     */
+    private boolean submitVersions(String prefix) {
+        VersionListing listing;
+        try {
+            listing = client.listVersions(new ListVersionsRequest()
+                    .withBucketName(bucketName)
+                    .withPrefix(prefix)
+                    .withMaxResults(MAX_BATCH_SIZE));
+        } catch (AmazonS3Exception e) {
+            if (isNotSupported(e)) {
+                log.debug("opcooc-storage - bucket [{}] does not support list versions, fall back to list objects", bucketName);
+                return false;
+            }
+            throw e;
+        }
+        while (true) {
+            List<KeyVersion> keys = new ArrayList<>(listing.getVersionSummaries().size());
+            for (S3VersionSummary summary : listing.getVersionSummaries()) {
+                keys.add(new KeyVersion(summary.getKey(), summary.getVersionId()));
+            }
+            submit(keys);
+            if (!listing.isTruncated()) {
+                return true;
+            }
+            listing = client.listNextBatchOfVersions(listing);
+        }
+    }
+
+    /**
+     * 取消前缀下所有未完成的分片上传
+     *
+     * @param prefix 前缀, 为null时取消整个存储空间的分片上传
+     */
+    public void abortMultipartUploads(String prefix) {
+        ListMultipartUploadsRequest req = new ListMultipartUploadsRequest(bucketName).withPrefix(prefix);
+        MultipartUploadListing listing;
+        do {
+            try {
+                listing = client.listMultipartUploads(req);
+            } catch (AmazonS3Exception e) {
+                if (isNotSupported(e)) {
+                    log.debug("opcooc-storage - bucket [{}] does not support list multipart uploads, skip abort", bucketName);
+                    return;
+                }
+                throw e;
+            }
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (MultipartUpload upload : listing.getMultipartUploads()) {
+                futures.add(execute(() -> client.abortMultipartUpload(
+                        new AbortMultipartUploadRequest(bucketName, upload.getKey(), upload.getUploadId()))));
+            }
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            req.setKeyMarker(listing.getNextKeyMarker());
+            req.setUploadIdMarker(listing.getNextUploadIdMarker());
+        } while (listing.isTruncated());
+    }
+
+    /**
+     * 等待所有批次执行完毕
+     *
+     * @return 删除结果
+     */
+    public DeleteResult await() {
+        acquire(concurrency);
+        permits.release(concurrency);
+        DeleteResult result = new DeleteResult();
+        result.setBucketName(bucketName);
+        result.setDeletedCount(deletedCount.get());
+        result.getDeletedKeys().addAll(deletedKeys);
+        result.getErrors().addAll(errors);
+        return result;
+    }
+
+    private void submitBatch(List<KeyVersion> batch) {
+        acquire(1);
+        try {
+            execute(() -> deleteBatch(batch)).whenComplete((r, e) -> permits.release());
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void deleteBatch(List<KeyVersion> batch) {
+        // quiet 模式下响应只包含删除失败的对象
+        DeleteObjectsRequest request = new DeleteObjectsRequest(bucketName).withKeys(batch).withQuiet(true);
+        try {
+            client.deleteObjects(request);
+            deleted(batch, Collections.emptySet());
+        } catch (MultiObjectDeleteException e) {
+            Set<String> failed = new HashSet<>();
+            for (MultiObjectDeleteException.DeleteError error : e.getErrors()) {
+                errors.add(new DeleteError(error.getKey(), error.getVersionId(), error.getCode(), error.getMessage()));
+                failed.add(error.getKey() + '\0' + error.getVersionId());
+            }
+            deleted(batch, failed);
+        } catch (Exception e) {
+            String code = e instanceof AmazonServiceException ? ((AmazonServiceException) e).getErrorCode() : e.getClass().getSimpleName();
+            for (KeyVersion key : batch) {
+                errors.add(new DeleteError(key.getKey(), key.getVersion(), code, e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * 记录一批中删除成功的对象
+     *
+     * @param batch  批次
+     * @param failed 删除失败的对象(对象名称 + '\0' + 版本)
+     */
+    private void deleted(List<KeyVersion> batch, Set<String> failed) {
+        deletedCount.addAndGet(batch.size() - failed.size());
+        if (!reportDeletedKeys) {
+            return;
+        }
+        for (KeyVersion key : batch) {
+            if (!failed.contains(key.getKey() + '\0' + key.getVersion())) {
+                deletedKeys.add(key.getKey());
+            }
+        }
+    }
+
+    private CompletableFuture<Void> execute(Runnable task) {
+        if (executor == null) {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.runAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new StorageException("opcooc-storage - bulk delete task rejected", e);
+        }
+    }
+
+    private void acquire(int count) {
+        try {
+            permits.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("opcooc-storage - bulk delete interrupted", e);
+        }
+    }
+
+    /**
+     * 服务端是否不支持该接口(501, 405 或 NotImplemented 错误码), 其他错误(例如400 InvalidArgument)不能当作不支持而跳过
+     *
+     * @param e 异常
+     * @return 是否不支持
+     */
+    private static boolean isNotSupported(AmazonS3Exception e) {
+        int status = e.getStatusCode();
+        return status == HttpURLConnection.HTTP_NOT_IMPLEMENTED || status == HttpURLConnection.HTTP_BAD_METHOD
+                || NOT_IMPLEMENTED.equals(e.getErrorCode());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.transfer;
+
+import com.opcooc.storage.exception.StorageException;
+
+/**
+ * 字节预算, 限制同时处理中的数据总量
+ * 1.申请的字节数超过总预算时按总预算申请(大对象独占预算, 但不会永远等待)
+ * 2.预算不足时申请线程等待, 直到其他任务归还足够的预算
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class ByteBudget {
+
+    private final long capacity;
+
+    private long available;
+
+    /**
+     * @param capacity 总预算(字节)
+     */
+    public ByteBudget(long capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.available = this.capacity;
+    }
+
+    /**
+     * 申请预算, 预算不足时等待
+     *
+     * @param bytes 需要的字节数
+     * @return 实际申请到的字节数, 归还时使用
+     */
+    public synchronized long acquire(long bytes) {
+        long size = Math.min(Math.max(bytes, 0), capacity);
+        try {
+            while (available < size) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("opcooc-storage - waiting for byte budget interrupted", e);
+        }
+        available -= size;
+        return size;
+    }
+
+    /**
+     * 归还预算
+     *
+     * @param bytes acquire 返回的字节数
+     */
+    public synchronized void release(long bytes) {
+        if (bytes > 0) {
+            available = Math.min(capacity, available + bytes);
+            notifyAll();
+        }
+    }
+
+    /**
+     * 当前可用的预算
+     *
+     * @return 可用字节数
+     */
+    public synchronized long available() {
+        return available;
+    }
+}
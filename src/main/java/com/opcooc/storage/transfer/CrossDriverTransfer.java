@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+
+import org.springframework.util.StringUtils;
+
+import com.opcooc.storage.args.CopyObjectArgs;
+import com.opcooc.storage.args.CopyPrefixArgs;
+import com.opcooc.storage.args.CopySource;
+import com.opcooc.storage.args.GetObjectToStreamArgs;
+import com.opcooc.storage.args.ListObjectsArgs;
+import com.opcooc.storage.args.ObjectMetadataArgs;
+import com.opcooc.storage.args.UploadObjectArgs;
+import com.opcooc.storage.client.Client;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.CopyPrefixResult;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.spring.boot.autoconfigure.ClientDriverProperty;
+import com.opcooc.storage.toolkit.StorageUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 跨客户端驱动传输引擎(一次传输使用一个实例)
+ * 1.两个驱动的服务地址及访问凭证相同时, 由目标驱动执行服务端复制, 数据不经过应用
+ * 2.否则将源对象的 GET 响应流直接作为目标对象的上传流(大对象由目标驱动分片上传), 不落地到本地磁盘,
+ *   目标对象使用源对象 HEAD 得到的 Content-Type 及用户元数据(列表结果不包含这些信息)
+ * 3.传输任务在独立的线程池中并发执行, 同时传输中的对象总字节数受字节预算限制
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class CrossDriverTransfer {
+
+    private final Client source;
+
+    private final Client target;
+
+    private final boolean serverSide;
+
+    private final int concurrency;
+
+    private final ByteBudget budget;
+
+    /**
+     * @param source           源客户端
+     * @param target           目标客户端
+     * @param serverSide       是否使用服务端复制
+     * @param concurrency      同时传输的最大对象数
+     * @param maxInFlightBytes 同时传输中的对象总字节数上限
+     */
+    public CrossDriverTransfer(Client source, Client target, boolean serverSide, int concurrency, long maxInFlightBytes) {
+        this.source = source;
+        this.target = target;
+        this.serverSide = serverSide;
+        this.concurrency = Math.max(1, concurrency);
+        this.budget = new ByteBudget(maxInFlightBytes);
+    }
+
+    /**
+     * 两个驱动之间是否可以使用服务端复制(服务地址及访问凭证相同)
+     *
+     * @param source 源驱动配置
+     * @param target 目标驱动配置
+     * @return 是否可以使用服务端复制
+     */
+    public static boolean supportsServerSideCopy(ClientDriverProperty source, ClientDriverProperty target) {
+        return source == target || (StringUtils.hasText(source.getEndPoint())
+                && source.getEndPoint().equals(target.getEndPoint())
+                && StringUtils.hasText(source.getAccessKey())
+                && source.getAccessKey().equals(target.getAccessKey()));
+    }
+
+    /**
+     * 传输单个对象
+     *
+     * @param sourceBucketName 源存储空间(主目录)名称
+     * @param sourceObjectName 源对象名称
+     * @param bucketName       目标存储空间(主目录)名称
+     * @param objectName       目标对象名称
+     * @return 传输结果
+     */
+    public CopyPrefixResult transferObject(String sourceBucketName, String sourceObjectName, String bucketName, String objectName) {
+        FileBasicInfo info = source.getObjectMetadata(ObjectMetadataArgs.builder()
+                .bucketName(sourceBucketName)
+                .objectName(sourceObjectName)
+                .build());
+        info.setKey(sourceObjectName);
+        // 单个对象视为以对象名称为前缀的列表, 目标名称即为目标前缀
+        return run(sourceBucketName, bucketName, Collections.singletonList(info).stream(), sourceObjectName, objectName, info);
+    }
+
+    /**
+     * 传输前缀下的所有对象, 源对象列表按需流式获取
+     *
+     * @param sourceBucketName 源存储空间(主目录)名称
+     * @param prefix           源前缀
+     * @param bucketName       目标存储空间(主目录)名称
+     * @param targetPrefix     目标前缀
+     * @return 传输结果
+     */
+    public CopyPrefixResult transferPrefix(String sourceBucketName, String prefix, String bucketName, String targetPrefix) {
+        if (serverSide) {
+            CopyPrefixArgs args = CopyPrefixArgs.builder()
+                    .bucketName(sourceBucketName)
+                    .prefix(prefix)
+                    .destinationBucketName(bucketName)
+                    .destinationPrefix(targetPrefix)
+                    .build();
+            args.validate();
+            return target.copyPrefix(args);
+        }
+        ListObjectsArgs listArgs = ListObjectsArgs.builder()
+                .bucketName(sourceBucketName)
+                .prefix(prefix)
+                .prefetch(true)
+                .build();
+        return run(sourceBucketName, bucketName, source.listObjectsStream(listArgs), prefix, targetPrefix, null);
+    }
+
+    /**
+     * 并发传输对象
+     *
+     * @param head 单个对象传输时已经获取的源对象元数据, 前缀传输时为null
+     */
+    private CopyPrefixResult run(String sourceBucketName, String bucketName, Stream<FileBasicInfo> objects, String prefix,
+                                 String targetPrefix, FileBasicInfo head) {
+        ExecutorService executor = StorageUtil.createExecutor("opcooc-storage-transfer-", concurrency);
+        PrefixCopier copier = new PrefixCopier(executor, concurrency,
+                (key, size, objectName) -> transfer(sourceBucketName, key, size, bucketName, objectName, head), null);
+        try (Stream<FileBasicInfo> stream = objects) {
+            CopyPrefixResult result = copier.copy(stream.iterator(), prefix, targetPrefix);
+            result.setSourceBucketName(sourceBucketName);
+            result.setDestinationBucketName(bucketName);
+            log.debug("opcooc-storage - transferred [{}] objects, [{}] bytes in [{}] ms, [{}] failed",
+                    result.getCopiedCount(), result.getCopiedBytes(), result.getElapsedMillis(), result.getErrors().size());
+            return result;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void transfer(String sourceBucketName, String sourceObjectName, long size, String bucketName, String objectName,
+                          FileBasicInfo head) {
+        if (serverSide) {
+            target.copyObject(CopyObjectArgs.builder()
+                    .bucketName(bucketName)
+                    .objectName(objectName)
+                    .source(CopySource.builder().bucketName(sourceBucketName).objectName(sourceObjectName).objectSize(size).build())
+                    .build());
+            return;
+        }
+        // 上传时不指定 Content-Type 会按扩展名重新推断, 需要使用源对象的 Content-Type 及用户元数据
+        FileBasicInfo info = head != null ? head : source.getObjectMetadata(ObjectMetadataArgs.builder()
+                .bucketName(sourceBucketName)
+                .objectName(sourceObjectName)
+                .build());
+        long acquired = budget.acquire(size);
+        try (InputStream stream = source.getObjectToStream(GetObjectToStreamArgs.builder()
+                .bucketName(sourceBucketName)
+                .objectName(sourceObjectName)
+                .build())) {
+            target.uploadObject(UploadObjectArgs.builder()
+                    .bucketName(bucketName)
+                    .objectName(objectName)
+                    .objectSize(size)
+                    .contentType(info.getContentType())
+                    .userMetadata(info.getUserMetadata())
+                    .stream(stream)
+                    .build());
+        } catch (IOException e) {
+            throw new StorageException(e);
+        } finally {
+            budget.release(acquired);
+        }
+    }
+}
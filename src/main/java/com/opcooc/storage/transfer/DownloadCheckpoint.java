@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Properties;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 分片下载断点记录
+ * 记录对象的 ETag, 大小, 分片大小及已完成的分片, 三者与当前对象一致时才能继续下载
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+@Getter
+public class DownloadCheckpoint {
+
+    private static final String ETAG = "etag";
+
+    private static final String SIZE = "size";
+
+    private static final String PART_SIZE = "partSize";
+
+    private static final String COMPLETED = "completed";
+
+    private final String eTag;
+
+    private final long size;
+
+    private final long partSize;
+
+    private final BitSet completed;
+
+    public DownloadCheckpoint(String eTag, long size, long partSize) {
+        this(eTag, size, partSize, new BitSet());
+    }
+
+    private DownloadCheckpoint(String eTag, long size, long partSize, BitSet completed) {
+        this.eTag = eTag;
+        this.size = size;
+        this.partSize = partSize;
+        this.completed = completed;
+    }
+
+    /**
+     * 读取断点记录
+     *
+     * @param path 断点文件
+     * @return 断点记录, 文件不存在或无法解析时返回null
+     */
+    public static DownloadCheckpoint load(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+            BitSet completed = new BitSet();
+            String parts = properties.getProperty(COMPLETED, "");
+            for (String part : parts.split(",")) {
+                if (!part.isEmpty()) {
+                    completed.set(Integer.parseInt(part));
+                }
+            }
+            return new DownloadCheckpoint(properties.getProperty(ETAG), Long.parseLong(properties.getProperty(SIZE)),
+                    Long.parseLong(properties.getProperty(PART_SIZE)), completed);
+        } catch (IOException | RuntimeException e) {
+            log.warn("opcooc-storage - ignore unreadable download checkpoint [{}]", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * 判断断点记录是否对应同一个对象及分片方式
+     *
+     * @param eTag     对象 ETag
+     * @param size     对象大小
+     * @param partSize 分片大小
+     * @return 是否一致
+     */
+    public boolean matches(String eTag, long size, long partSize) {
+        return this.eTag != null && this.eTag.equals(eTag) && this.size == size && this.partSize == partSize;
+    }
+
+    public synchronized boolean isCompleted(int part) {
+        return completed.get(part);
+    }
+
+    public synchronized void complete(int part) {
+        completed.set(part);
+    }
+
+    /**
+     * 写入断点文件(先写临时文件再替换, 避免中断时留下不完整的记录)
+     *
+     * @param path 断点文件
+     * @throws IOException 写入失败
+     */
+    public synchronized void save(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(ETAG, eTag);
+        properties.setProperty(SIZE, String.valueOf(size));
+        properties.setProperty(PART_SIZE, String.valueOf(partSize));
+        StringBuilder parts = new StringBuilder();
+        for (int i = completed.nextSetBit(0); i >= 0; i = completed.nextSetBit(i + 1)) {
+            if (parts.length() > 0) {
+                parts.append(',');
+            }
+            parts.append(i);
+        }
+        properties.setProperty(COMPLETED, parts.toString());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, null);
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
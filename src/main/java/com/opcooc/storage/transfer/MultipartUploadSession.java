@@ -0,0 +1,370 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.transfer;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.CopyPartResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.toolkit.RetryUtils;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 一次分片上传会话
+ * 1.分片按提交顺序编号, 在执行器中并发上传, 同时上传的分片数有上限, 达到上限时提交线程等待
+ * 2.单个分片失败时按退避时间重试, 重试时重新获取分片内容
+ * 3.任一分片最终失败后不再接受新的分片, complete 时取消整个分片上传
+ * 4.分片可以是上传的数据, 也可以是服务端复制的源对象区间(UploadPartCopy)
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class MultipartUploadSession {
+
+    /**
+     * 除最后一个分片外每个分片的最小大小
+     */
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    /**
+     * 单个对象最多的分片数量
+     */
+    public static final int MAX_PARTS = 10000;
+
+    private final AmazonS3 client;
+
+    @Getter
+    private final String bucketName;
+
+    @Getter
+    private final String objectName;
+
+    @Getter
+    private final String uploadId;
+
+    private final Executor executor;
+
+    private final int concurrency;
+
+    private final int retries;
+
+    private final Semaphore permits;
+
+    /**
+     * 已提交的分片(只在提交线程中访问)
+     */
+    private final List<CompletableFuture<PartETag>> parts = new ArrayList<>();
+
+    private volatile Throwable failure;
+
+    private boolean finished;
+
+    private MultipartUploadSession(AmazonS3 client, String bucketName, String objectName, String uploadId,
+                                   Executor executor, int concurrency, int retries) {
+        this.client = client;
+        this.bucketName = bucketName;
+        this.objectName = objectName;
+        this.uploadId = uploadId;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.retries = Math.max(0, retries);
+        this.permits = new Semaphore(this.concurrency);
+    }
+
+    /**
+     * 初始化分片上传
+     *
+     * @param client      客户端
+     * @param bucketName  存储空间(主目录)名称
+     * @param objectName  对象名称
+     * @param metadata    对象元数据(不能包含 Content-Length)
+     * @param executor    执行器, 为null时在提交线程中上传
+     * @param concurrency 同时上传的最大分片数
+     * @param retries     单个分片失败后的最大重试次数
+     * @return 分片上传会话
+     */
+    public static MultipartUploadSession initiate(AmazonS3 client, String bucketName, String objectName, ObjectMetadata metadata,
+                                                  Executor executor, int concurrency, int retries) {
+        String uploadId = client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, objectName, metadata)).getUploadId();
+        return new MultipartUploadSession(client, bucketName, objectName, uploadId, executor, concurrency, retries);
+    }
+
+    /**
+     * 计算分片大小, 保证分片数量不超过 MAX_PARTS 且分片不小于 MIN_PART_SIZE
+     *
+     * @param objectSize 对象大小
+     * @param partSize   期望的分片大小
+     * @return 分片大小
+     */
+    public static long partSize(long objectSize, long partSize) {
+        long minimum = (objectSize + MAX_PARTS - 1) / MAX_PARTS;
+        return Math.max(Math.max(partSize, MIN_PART_SIZE), minimum);
+    }
+
+    /**
+     * 已提交的分片数量
+     *
+     * @return 分片数量
+     */
+    public int getPartCount() {
+        return parts.size();
+    }
+
+    /**
+     * 提交一个分片
+     *
+     * @param size    分片大小
+     * @param content 分片内容, 每次尝试上传时获取一次
+     */
+    public void uploadPart(long size, Supplier<InputStream> content) {
+        uploadPart(size, content, null);
+    }
+
+    /**
+     * 提交一个分片
+     *
+     * @param size     分片大小
+     * @param content  分片内容, 每次尝试上传时获取一次
+     * @param callback 分片上传结束(成功或失败)后的回调, 用于释放分片内容占用的资源
+     */
+    public void uploadPart(long size, Supplier<InputStream> content, Runnable callback) {
+        submit(partNumber -> {
+            try (InputStream stream = content.get()) {
+                UploadPartRequest request = new UploadPartRequest()
+                        .withBucketName(bucketName)
+                        .withKey(objectName)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber)
+                        .withPartSize(size)
+                        .withInputStream(stream);
+                return client.uploadPart(request).getPartETag();
+            }
+        }, callback);
+    }
+
+    /**
+     * 提交一个服务端复制分片(UploadPartCopy), 源对象的 ETag 发生变化时复制失败
+     *
+     * @param sourceBucketName 源存储空间(主目录)名称
+     * @param sourceObjectName 源对象名称
+     * @param sourceETag       源对象的 ETag, 为null时不校验
+     * @param firstByte        分片在源对象中的起始位置
+     * @param lastByte         分片在源对象中的结束位置(包含)
+     */
+    public void copyPart(String sourceBucketName, String sourceObjectName, String sourceETag, long firstByte, long lastByte) {
+        submit(partNumber -> {
+            CopyPartRequest request = new CopyPartRequest()
+                    .withSourceBucketName(sourceBucketName)
+                    .withSourceKey(sourceObjectName)
+                    .withDestinationBucketName(bucketName)
+                    .withDestinationKey(objectName)
+                    .withUploadId(uploadId)
+                    .withPartNumber(partNumber)
+                    .withFirstByte(firstByte)
+                    .withLastByte(lastByte);
+            if (sourceETag != null) {
+                request.withMatchingETagConstraint(sourceETag);
+            }
+            CopyPartResult result = client.copyPart(request);
+            if (result == null) {
+                throw new StorageException("opcooc-storage - object name: [%s], copy source [%s] was modified during copy", objectName, sourceObjectName);
+            }
+            return result.getPartETag();
+        }, null);
+    }
+
+    private void submit(PartTask task, Runnable callback) {
+        try {
+            checkState();
+            if (parts.size() >= MAX_PARTS) {
+                throw new StorageException("opcooc-storage - object name: [%s], the number of parts exceeds %s", objectName, MAX_PARTS);
+            }
+            acquire(1);
+        } catch (RuntimeException e) {
+            runQuietly(callback);
+            throw e;
+        }
+        int partNumber = parts.size() + 1;
+        CompletableFuture<PartETag> future;
+        try {
+            future = execute(() -> runWithRetry(partNumber, task));
+        } catch (RuntimeException e) {
+            permits.release();
+            runQuietly(callback);
+            throw e;
+        }
+        parts.add(future.whenComplete((r, e) -> {
+            if (e != null && failure == null) {
+                failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            }
+            permits.release();
+            runQuietly(callback);
+        }));
+    }
+
+    /**
+     * 等待所有分片上传完毕并合并分片, 失败时取消分片上传
+     *
+     * @return 合并结果
+     */
+    public CompleteMultipartUploadResult complete() {
+        checkNotFinished();
+        List<PartETag> etags = awaitParts();
+        if (failure != null) {
+            abort();
+            throw new StorageException("opcooc-storage - object name: [%s], multipart upload failed", failure, objectName);
+        }
+        if (etags.isEmpty()) {
+            abort();
+            throw new StorageException("opcooc-storage - object name: [%s], multipart upload has no parts", objectName);
+        }
+        try {
+            CompleteMultipartUploadResult result = client.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, etags));
+            finished = true;
+            return result;
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 取消分片上传, 等待正在上传的分片结束后删除已上传的分片
+     */
+    public void abort() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (failure == null) {
+            failure = new StorageException("opcooc-storage - object name: [%s], multipart upload aborted", objectName);
+        }
+        awaitParts();
+        try {
+            client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectName, uploadId));
+        } catch (Exception e) {
+            log.warn("opcooc-storage - abort multipart upload [{}] of object [{}] failed", uploadId, objectName, e);
+        }
+    }
+
+    private PartETag runWithRetry(int partNumber, PartTask task) {
+        for (int attempt = 0; ; attempt++) {
+            if (failure != null) {
+                throw new StorageException("opcooc-storage - object name: [%s], multipart upload aborted", objectName);
+            }
+            try {
+                return task.run(partNumber);
+            } catch (Exception e) {
+                if (attempt >= retries || !RetryUtils.isRetryable(e)) {
+                    throw e instanceof RuntimeException ? (RuntimeException) e : new StorageException(e);
+                }
+                log.warn("opcooc-storage - upload part [{}] of object [{}] failed, retry {}/{}", partNumber, objectName, attempt + 1, retries, e);
+                RetryUtils.backoff(attempt);
+            }
+        }
+    }
+
+    private List<PartETag> awaitParts() {
+        List<PartETag> etags = new ArrayList<>(parts.size());
+        for (CompletableFuture<PartETag> part : parts) {
+            try {
+                etags.add(part.join());
+            } catch (CompletionException e) {
+                // 失败原因已经记录在 failure 中
+            }
+        }
+        return etags;
+    }
+
+    private CompletableFuture<PartETag> execute(Supplier<PartETag> task) {
+        if (executor == null) {
+            CompletableFuture<PartETag> future = new CompletableFuture<>();
+            try {
+                future.complete(task.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new StorageException("opcooc-storage - upload part task rejected", e);
+        }
+    }
+
+    private void checkState() {
+        checkNotFinished();
+        if (failure != null) {
+            throw new StorageException("opcooc-storage - object name: [%s], multipart upload failed", failure, objectName);
+        }
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new StorageException("opcooc-storage - object name: [%s], multipart upload [%s] already finished", objectName, uploadId);
+        }
+    }
+
+    private void acquire(int count) {
+        try {
+            permits.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("opcooc-storage - multipart upload interrupted", e);
+        }
+    }
+
+    /**
+     * 单个分片的一次上传尝试
+     */
+    @FunctionalInterface
+    private interface PartTask {
+
+        PartETag run(int partNumber) throws Exception;
+    }
+
+    private static void runQuietly(Runnable callback) {
+        if (callback != null) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.warn("opcooc-storage - multipart upload callback failed", e);
+            }
+        }
+    }
+}
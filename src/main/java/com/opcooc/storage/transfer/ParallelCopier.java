@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.transfer;
+
+import java.util.concurrent.Executor;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.SSEAlgorithm;
+
+/**
+ * 服务端分片复制引擎
+ * 1.按源对象大小拆分为多个 UploadPartCopy 分片, 在执行器中并发复制, 数据不经过客户端
+ * 2.分片复制时校验源对象 ETag, 复制过程中源对象被修改时复制失败
+ * 3.分片复制不会复制源对象元数据, 初始化时将源对象的 Content-Type 及用户元数据等写入目标对象
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class ParallelCopier {
+
+    /**
+     * 初始化分片复制时从源对象复制的请求头
+     */
+    private static final String[] COPIED_HEADERS = {Headers.CONTENT_TYPE, Headers.CONTENT_ENCODING,
+            Headers.CONTENT_DISPOSITION, Headers.CONTENT_LANGUAGE, Headers.CACHE_CONTROL};
+
+    private final AmazonS3 client;
+
+    private final Executor executor;
+
+    private final long partSize;
+
+    private final int concurrency;
+
+    private final int retries;
+
+    /**
+     * @param client      客户端
+     * @param executor    执行器, 为null时在调用线程中复制
+     * @param partSize    期望的分片大小
+     * @param concurrency 单个对象同时复制的最大分片数
+     * @param retries     单个分片失败后的最大重试次数
+     */
+    public ParallelCopier(AmazonS3 client, Executor executor, long partSize, int concurrency, int retries) {
+        this.client = client;
+        this.executor = executor;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.retries = retries;
+    }
+
+    /**
+     * 分片复制对象
+     *
+     * @param sourceBucketName 源存储空间(主目录)名称
+     * @param sourceObjectName 源对象名称
+     * @param source           源对象元数据
+     * @param bucketName       目标存储空间(主目录)名称
+     * @param objectName       目标对象名称
+     * @return 合并结果
+     */
+    public CompleteMultipartUploadResult copy(String sourceBucketName, String sourceObjectName, ObjectMetadata source,
+                                              String bucketName, String objectName) {
+        long size = source.getContentLength();
+        long part = MultipartUploadSession.partSize(size, partSize);
+        MultipartUploadSession session = MultipartUploadSession.initiate(client, bucketName, objectName, copyMetadata(source),
+                executor, concurrency, retries);
+        try {
+            for (long position = 0; position < size; position += part) {
+                session.copyPart(sourceBucketName, sourceObjectName, source.getETag(), position, Math.min(position + part, size) - 1);
+            }
+            return session.complete();
+        } catch (RuntimeException e) {
+            session.abort();
+            throw e;
+        }
+    }
+
+    private static ObjectMetadata copyMetadata(ObjectMetadata source) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        // 值为null的请求头会导致 SDK 签名时空指针, 只复制源对象存在的请求头
+        for (String header : COPIED_HEADERS) {
+            Object value = source.getRawMetadataValue(header);
+            if (value != null) {
+                metadata.setHeader(header, value);
+            }
+        }
+        if (source.getHttpExpiresDate() != null) {
+            metadata.setHttpExpiresDate(source.getHttpExpiresDate());
+        }
+        if (SSEAlgorithm.AES256.getAlgorithm().equals(source.getSSEAlgorithm())) {
+            metadata.setSSEAlgorithm(source.getSSEAlgorithm());
+        }
+        metadata.setUserMetadata(source.getUserMetadata());
+        return metadata;
+    }
+}
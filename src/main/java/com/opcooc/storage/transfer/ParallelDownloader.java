@@ -0,0 +1,480 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.util.BinaryUtils;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.toolkit.RetryUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 并发分段下载引擎
+ * 1.先请求第一个分片的区间, 从 Content-Range 及 ETag 得到对象大小及版本(不单独发送 HEAD), 对象不大于一个分片时只有一次请求
+ * 2.其余分片在执行器中并发下载, 每个区间通过 FileChannel 定位写入预分配的临时文件
+ * 3.其余分片请求都带有 If-Match(ETag) 条件, 下载过程中对象被修改时立即失败
+ * 4.多个分片时记录断点文件, 中断后再次下载同一个对象时跳过已完成的分片
+ * 5.下载完毕后校验大小(普通上传的对象同时校验MD5), 然后原子重命名为目标文件
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+@Slf4j
+public class ParallelDownloader {
+
+    /**
+     * 临时文件后缀
+     */
+    public static final String TEMP_SUFFIX = ".download";
+
+    /**
+     * 断点文件后缀
+     */
+    public static final String CHECKPOINT_SUFFIX = ".download.checkpoint";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    /**
+     * 普通上传(非分片上传, 非KMS加密)的对象 ETag 为内容的MD5
+     */
+    private static final Pattern MD5_ETAG = Pattern.compile("^[0-9a-fA-F]{32}$");
+
+    private final AmazonS3 client;
+
+    private final Executor executor;
+
+    private final long partSize;
+
+    private final int concurrency;
+
+    private final int retries;
+
+    /**
+     * @param client      客户端
+     * @param executor    执行器, 为null时在调用线程中下载
+     * @param partSize    分片大小
+     * @param concurrency 单个对象同时下载的最大分片数
+     * @param retries     单个分片失败后的最大重试次数
+     */
+    public ParallelDownloader(AmazonS3 client, Executor executor, long partSize, int concurrency, int retries) {
+        this.client = client;
+        this.executor = executor;
+        this.partSize = Math.max(MultipartUploadSession.MIN_PART_SIZE, partSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.retries = Math.max(0, retries);
+    }
+
+    /**
+     * 下载对象到指定文件(目标文件存在时覆盖)
+     *
+     * @param bucketName 存储空间(主目录)名称
+     * @param objectName 对象名称
+     * @param target     目标文件
+     * @return 对象元数据
+     */
+    public ObjectMetadata download(String bucketName, String objectName, Path target) {
+        S3Object first = getFirstPart(bucketName, objectName);
+        try {
+            Task task = new Task(bucketName, objectName, target, first.getObjectMetadata());
+            task.run(first.getObjectContent());
+            return task.metadata;
+        } catch (IOException e) {
+            throw new StorageException(e);
+        } finally {
+            closeQuietly(first);
+        }
+    }
+
+    /**
+     * 请求第一个分片的区间
+     *
+     * @param bucketName 存储空间(主目录)名称
+     * @param objectName 对象名称
+     * @return 第一个分片(响应中包含对象的大小及 ETag)
+     */
+    private S3Object getFirstPart(String bucketName, String objectName) {
+        try {
+            return client.getObject(new GetObjectRequest(bucketName, objectName).withRange(0, partSize - 1));
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() != HTTP_RANGE_NOT_SATISFIABLE) {
+                throw e;
+            }
+            // 空对象不能指定区间
+            return client.getObject(new GetObjectRequest(bucketName, objectName));
+        }
+    }
+
+    private final class Task {
+
+        private final String bucketName;
+
+        private final String objectName;
+
+        private final Path target;
+
+        private final Path temp;
+
+        private final Path checkpointFile;
+
+        private final ObjectMetadata metadata;
+
+        private final long size;
+
+        private final String eTag;
+
+        /**
+         * 第一个请求返回的内容结束位置(服务端不支持区间请求时为整个对象)
+         */
+        private final long firstEnd;
+
+        private final int parts;
+
+        private final boolean resumable;
+
+        private final Semaphore permits = new Semaphore(concurrency);
+
+        private volatile Throwable failure;
+
+        private DownloadCheckpoint checkpoint;
+
+        private FileChannel channel;
+
+        private Task(String bucketName, String objectName, Path target, ObjectMetadata metadata) {
+            this.bucketName = bucketName;
+            this.objectName = objectName;
+            this.target = target.toAbsolutePath();
+            this.temp = sibling(this.target, TEMP_SUFFIX);
+            this.checkpointFile = sibling(this.target, CHECKPOINT_SUFFIX);
+            this.metadata = metadata;
+            boolean ranged = metadata.getRawMetadataValue(Headers.CONTENT_RANGE) != null;
+            this.firstEnd = metadata.getContentLength();
+            this.size = ranged ? metadata.getInstanceLength() : firstEnd;
+            // 返回的元数据为整个对象的大小
+            metadata.setContentLength(size);
+            this.eTag = metadata.getETag();
+            this.parts = (int) ((size + partSize - 1) / partSize);
+            this.resumable = parts > 1 && eTag != null;
+        }
+
+        private void run(S3ObjectInputStream first) throws IOException {
+            try {
+                prepare();
+                try (FileChannel fileChannel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    channel = fileChannel;
+                    preallocate();
+                    writeFirst(first);
+                    downloadParts();
+                    channel.force(true);
+                }
+                verify();
+                move(temp, target);
+                Files.deleteIfExists(checkpointFile);
+            } catch (IOException | RuntimeException e) {
+                if (!resumable) {
+                    // 无法断点续传时不保留临时文件
+                    discardQuietly(e);
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 断点记录与当前对象一致时继续下载, 否则重新开始
+         */
+        private void prepare() throws IOException {
+            Path parent = target.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            DownloadCheckpoint existing = resumable ? DownloadCheckpoint.load(checkpointFile) : null;
+            if (existing != null && existing.matches(eTag, size, partSize) && Files.isRegularFile(temp) && Files.size(temp) == size) {
+                checkpoint = existing;
+                log.info("opcooc-storage - resume download of object [{}] from [{}]/[{}] completed parts",
+                        objectName, existing.getCompleted().cardinality(), parts);
+                return;
+            }
+            checkpoint = new DownloadCheckpoint(eTag, size, partSize);
+            Files.deleteIfExists(checkpointFile);
+            Files.deleteIfExists(temp);
+        }
+
+        private void preallocate() throws IOException {
+            if (channel.size() > size) {
+                channel.truncate(size);
+            } else if (channel.size() < size) {
+                // 写入最后一个字节, 文件系统支持时为稀疏文件
+                channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            }
+        }
+
+        /**
+         * 写入第一个请求返回的内容, 失败时由 downloadParts 重新下载对应的分片
+         */
+        private void writeFirst(S3ObjectInputStream first) {
+            if (firstEnd <= 0 || checkpoint.isCompleted(0)) {
+                return;
+            }
+            try {
+                write(first, 0, firstEnd);
+            } catch (IOException | RuntimeException e) {
+                log.warn("opcooc-storage - download first part of object [{}] failed, retry with ranged request", objectName, e);
+                return;
+            }
+            boolean completed = false;
+            for (int part = 0; part < parts && Math.min(size, (part + 1) * partSize) <= firstEnd; part++) {
+                checkpoint.complete(part);
+                completed = true;
+            }
+            if (completed && resumable) {
+                saveCheckpoint();
+            }
+        }
+
+        private void downloadParts() {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(parts);
+            for (int part = 0; part < parts && failure == null; part++) {
+                if (checkpoint.isCompleted(part)) {
+                    continue;
+                }
+                acquire();
+                int index = part;
+                CompletableFuture<Void> future;
+                try {
+                    future = execute(() -> downloadWithRetry(index));
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+                futures.add(future.whenComplete((r, e) -> {
+                    if (e != null && failure == null) {
+                        failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    }
+                    permits.release();
+                }));
+            }
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.join();
+                } catch (CompletionException e) {
+                    // 失败原因已经记录在 failure 中
+                }
+            }
+            if (failure != null) {
+                throw new StorageException("opcooc-storage - object name: [%s], download failed", failure, objectName);
+            }
+        }
+
+        private void downloadWithRetry(int part) {
+            for (int attempt = 0; ; attempt++) {
+                if (failure != null) {
+                    throw new StorageException("opcooc-storage - object name: [%s], download aborted", objectName);
+                }
+                try {
+                    downloadPart(part);
+                    break;
+                } catch (Exception e) {
+                    if (attempt >= retries || !RetryUtils.isRetryable(e)) {
+                        throw e instanceof RuntimeException ? (RuntimeException) e : new StorageException(e);
+                    }
+                    log.warn("opcooc-storage - download part [{}] of object [{}] failed, retry {}/{}", part, objectName, attempt + 1, retries, e);
+                    RetryUtils.backoff(attempt);
+                }
+            }
+            checkpoint.complete(part);
+            if (resumable) {
+                saveCheckpoint();
+            }
+        }
+
+        private void downloadPart(int part) throws IOException {
+            long start = part * partSize;
+            long end = Math.min(size, start + partSize);
+            GetObjectRequest request = new GetObjectRequest(bucketName, objectName);
+            if (parts > 1) {
+                request.setRange(start, end - 1);
+            }
+            if (eTag != null) {
+                request.withMatchingETagConstraint(eTag);
+            }
+            S3Object object = client.getObject(request);
+            if (object == null) {
+                // 不满足 If-Match 条件时 SDK 返回null
+                throw new StorageException("opcooc-storage - object name: [%s], object was modified during download", objectName);
+            }
+            write(object.getObjectContent(), start, end);
+        }
+
+        /**
+         * 将响应内容写入临时文件的指定区间
+         */
+        private void write(S3ObjectInputStream in, long start, long end) throws IOException {
+            long position = start;
+            try {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int n;
+                while (position < end && (n = in.read(buffer, 0, (int) Math.min(buffer.length, end - position))) >= 0) {
+                    ByteBuffer src = ByteBuffer.wrap(buffer, 0, n);
+                    while (src.hasRemaining()) {
+                        position += channel.write(src, position);
+                    }
+                }
+            } finally {
+                if (position < end) {
+                    // 未读完时中止连接, 避免读完剩余内容
+                    in.abort();
+                }
+                in.close();
+            }
+            if (position < end) {
+                throw new IOException("premature end of content for range [" + start + ", " + end + ") of object " + objectName);
+            }
+        }
+
+        private void saveCheckpoint() {
+            try {
+                // 数据落盘后再记录断点, 保证断点中的分片一定已经写入
+                channel.force(false);
+                checkpoint.save(checkpointFile);
+            } catch (IOException e) {
+                log.warn("opcooc-storage - save download checkpoint [{}] failed", checkpointFile, e);
+            }
+        }
+
+        private void verify() throws IOException {
+            long actual = Files.size(temp);
+            if (actual != size) {
+                discard();
+                throw new StorageException("opcooc-storage - object name: [%s], downloaded size [%s] does not match [%s]", objectName, actual, size);
+            }
+            if (eTag == null || !MD5_ETAG.matcher(eTag).matches()
+                    || metadata.getSSEAwsKmsKeyId() != null || metadata.getSSECustomerAlgorithm() != null) {
+                return;
+            }
+            String md5 = md5Hex(temp);
+            if (!md5.equalsIgnoreCase(eTag)) {
+                discard();
+                throw new StorageException("opcooc-storage - object name: [%s], downloaded md5 [%s] does not match etag [%s]", objectName, md5, eTag);
+            }
+        }
+
+        private void discard() throws IOException {
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(checkpointFile);
+        }
+
+        private void discardQuietly(Exception cause) {
+            try {
+                discard();
+            } catch (IOException e) {
+                cause.addSuppressed(e);
+            }
+        }
+
+        private void acquire() {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StorageException("opcooc-storage - download interrupted", e);
+            }
+        }
+    }
+
+    private CompletableFuture<Void> execute(Runnable task) {
+        if (executor == null) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            try {
+                task.run();
+                future.complete(null);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        try {
+            return CompletableFuture.runAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new StorageException("opcooc-storage - download part task rejected", e);
+        }
+    }
+
+    private static void closeQuietly(S3Object object) {
+        try {
+            // 未读完(例如断点续传时跳过第一个分片)时中止连接
+            object.getObjectContent().abort();
+            object.close();
+        } catch (IOException e) {
+            log.debug("opcooc-storage - close object [{}] failed", object.getKey(), e);
+        }
+    }
+
+    private static Path sibling(Path target, String suffix) {
+        return target.resolveSibling(target.getFileName() + suffix);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String md5Hex(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                while (in.read(buffer) >= 0) {
+                    // 只计算摘要
+                }
+            }
+            return BinaryUtils.toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new StorageException(e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.io.FileRegionInputStream;
+
+/**
+ * 并发分片上传引擎
+ * 1.文件: 各分片在上传线程中通过 FileChannel 定位读取, 不占用额外内存, 重试时重新读取
+ * 2.流: 提交线程按顺序读取分片到内存, 同时在内存中的分片数不超过并发上传数
+ * 3.任一分片最终失败时取消整个分片上传
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class ParallelUploader {
+
+    private final AmazonS3 client;
+
+    private final Executor executor;
+
+    private final long partSize;
+
+    private final int concurrency;
+
+    private final int retries;
+
+    /**
+     * @param client      客户端
+     * @param executor    执行器, 为null时在调用线程中上传
+     * @param partSize    期望的分片大小
+     * @param concurrency 单个对象同时上传的最大分片数
+     * @param retries     单个分片失败后的最大重试次数
+     */
+    public ParallelUploader(AmazonS3 client, Executor executor, long partSize, int concurrency, int retries) {
+        this.client = client;
+        this.executor = executor;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.retries = retries;
+    }
+
+    /**
+     * 分片上传文件
+     *
+     * @param bucketName 存储空间(主目录)名称
+     * @param objectName 对象名称
+     * @param file       文件
+     * @param metadata   对象元数据
+     * @return 合并结果
+     */
+    public CompleteMultipartUploadResult uploadFile(String bucketName, String objectName, File file, ObjectMetadata metadata) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long part = MultipartUploadSession.partSize(size, partSize);
+            MultipartUploadSession session = initiate(bucketName, objectName, metadata);
+            try {
+                for (long position = 0; position < size; position += part) {
+                    long offset = position;
+                    long length = Math.min(part, size - position);
+                    session.uploadPart(length, () -> new FileRegionInputStream(channel, offset, length));
+                }
+                // complete 会等待所有分片结束, 之后才能关闭文件通道
+                return session.complete();
+            } catch (RuntimeException e) {
+                session.abort();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * 分片上传已知长度的流
+     *
+     * @param bucketName 存储空间(主目录)名称
+     * @param objectName 对象名称
+     * @param stream     输入流
+     * @param size       流的长度
+     * @param metadata   对象元数据
+     * @return 合并结果
+     */
+    public CompleteMultipartUploadResult uploadStream(String bucketName, String objectName, InputStream stream, long size, ObjectMetadata metadata) {
+        long part = MultipartUploadSession.partSize(size, partSize);
+        MultipartUploadSession session = initiate(bucketName, objectName, metadata);
+        try {
+            for (long position = 0; position < size; position += part) {
+                byte[] buffer = new byte[(int) Math.min(part, size - position)];
+                readFully(stream, buffer, objectName, size);
+                session.uploadPart(buffer.length, () -> new ByteArrayInputStream(buffer));
+            }
+            return session.complete();
+        } catch (RuntimeException e) {
+            session.abort();
+            throw e;
+        }
+    }
+
+    private MultipartUploadSession initiate(String bucketName, String objectName, ObjectMetadata metadata) {
+        return MultipartUploadSession.initiate(client, bucketName, objectName, metadata, executor, concurrency, retries);
+    }
+
+    private static void readFully(InputStream stream, byte[] buffer, String objectName, long size) {
+        int offset = 0;
+        try {
+            while (offset < buffer.length) {
+                int n = stream.read(buffer, offset, buffer.length - offset);
+                if (n < 0) {
+                    throw new StorageException("opcooc-storage - object name: [%s], stream ended before the declared size [%s]", objectName, size);
+                }
+                offset += n;
+            }
+        } catch (IOException e) {
+            throw new StorageException(e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.transfer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.CopyError;
+import com.opcooc.storage.model.CopyPrefixResult;
+import com.opcooc.storage.model.DeleteResult;
+import com.opcooc.storage.model.FileBasicInfo;
+
+/**
+ * 前缀复制(移动)引擎(一次复制操作使用一个实例)
+ * 1.源对象列表按需流式获取, 每个对象作为一个复制任务在执行器中并发执行, 同时执行的任务数有上限, 达到上限时获取列表的线程等待
+ * 2.单个对象复制失败不影响其他对象, 失败信息汇总到复制结果中
+ * 3.移动时复制成功的源对象每1000个一批交给批量删除引擎, 复制失败的源对象不会被删除
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class PrefixCopier {
+
+    /**
+     * 单个对象的复制操作
+     */
+    @FunctionalInterface
+    public interface ObjectCopier {
+
+        /**
+         * 复制对象
+         *
+         * @param sourceObjectName 源对象名称
+         * @param size             源对象大小
+         * @param objectName       目标对象名称
+         */
+        void copy(String sourceObjectName, long size, String objectName);
+    }
+
+    private final Executor executor;
+
+    private final int concurrency;
+
+    private final Semaphore permits;
+
+    private final ObjectCopier copier;
+
+    /**
+     * 批量删除引擎, 为null时只复制不删除
+     */
+    private final BulkDeleter deleter;
+
+    private final AtomicLong copiedCount = new AtomicLong();
+
+    private final AtomicLong copiedBytes = new AtomicLong();
+
+    private final Queue<CopyError> errors = new ConcurrentLinkedQueue<>();
+
+    private final Queue<String> pendingDeletes = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingDeleteCount = new AtomicInteger();
+
+    /**
+     * @param executor    执行器, 为null时在获取列表的线程中复制
+     * @param concurrency 同时复制的最大对象数
+     * @param copier      单个对象的复制操作
+     * @param deleter     批量删除引擎, 为null时只复制不删除
+     */
+    public PrefixCopier(Executor executor, int concurrency, ObjectCopier copier, BulkDeleter deleter) {
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.permits = new Semaphore(this.concurrency);
+        this.copier = copier;
+        this.deleter = deleter;
+    }
+
+    /**
+     * 复制源对象列表中的所有对象并等待结束
+     *
+     * @param objects           源对象列表
+     * @param prefix            源前缀
+     * @param destinationPrefix 目标前缀
+     * @return 复制结果
+     */
+    public CopyPrefixResult copy(Iterator<FileBasicInfo> objects, String prefix, String destinationPrefix) {
+        long start = System.nanoTime();
+        try {
+            while (objects.hasNext()) {
+                FileBasicInfo info = objects.next();
+                String key = info.getKey();
+                submit(key, info.getContentLength(), destinationPrefix + key.substring(prefix.length()));
+                submitDeletes(false);
+            }
+        } finally {
+            // 获取列表失败时也要等待已提交的任务结束
+            acquire(concurrency);
+            permits.release(concurrency);
+        }
+        submitDeletes(true);
+        CopyPrefixResult result = new CopyPrefixResult();
+        if (deleter != null) {
+            DeleteResult deleted = deleter.await();
+            result.setDeletedCount(deleted.getDeletedCount());
+            result.getDeleteErrors().addAll(deleted.getErrors());
+        }
+        result.setCopiedCount(copiedCount.get());
+        result.setCopiedBytes(copiedBytes.get());
+        result.getErrors().addAll(errors);
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private void submit(String key, long size, String objectName) {
+        acquire(1);
+        try {
+            execute(() -> copyObject(key, size, objectName)).whenComplete((r, e) -> permits.release());
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void copyObject(String key, long size, String objectName) {
+        try {
+            copier.copy(key, size, objectName);
+            copiedCount.incrementAndGet();
+            copiedBytes.addAndGet(size);
+            if (deleter != null) {
+                pendingDeletes.add(key);
+                pendingDeleteCount.incrementAndGet();
+            }
+        } catch (Exception e) {
+            String code = e instanceof AmazonServiceException ? ((AmazonServiceException) e).getErrorCode() : e.getClass().getSimpleName();
+            errors.add(new CopyError(key, code, e.getMessage()));
+        }
+    }
+
+    /**
+     * 在获取列表的线程中提交删除批次, 避免复制任务阻塞在删除引擎上
+     *
+     * @param all 是否提交所有剩余的对象(否则只提交满1000个的批次)
+     */
+    private void submitDeletes(boolean all) {
+        if (deleter == null) {
+            return;
+        }
+        while (pendingDeleteCount.get() >= BulkDeleter.MAX_BATCH_SIZE || (all && pendingDeleteCount.get() > 0)) {
+            List<KeyVersion> batch = new ArrayList<>(BulkDeleter.MAX_BATCH_SIZE);
+            String key;
+            while (batch.size() < BulkDeleter.MAX_BATCH_SIZE && (key = pendingDeletes.poll()) != null) {
+                batch.add(new KeyVersion(key));
+            }
+            pendingDeleteCount.addAndGet(-batch.size());
+            deleter.submit(batch);
+        }
+    }
+
+    private CompletableFuture<Void> execute(Runnable task) {
+        if (executor == null) {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.runAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new StorageException("opcooc-storage - copy task rejected", e);
+        }
+    }
+
+    private void acquire(int count) {
+        try {
+            permits.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("opcooc-storage - prefix copy interrupted", e);
+        }
+    }
+}
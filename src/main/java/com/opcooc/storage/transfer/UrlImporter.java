@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2020-2029 organization opcooc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.opcooc.storage.transfer;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import com.amazonaws.AmazonServiceException;
+import com.opcooc.storage.exception.StorageException;
+import com.opcooc.storage.model.FileBasicInfo;
+import com.opcooc.storage.model.UploadError;
+import com.opcooc.storage.model.UploadUrlsResult;
+
+/**
+ * 批量导入网络文件引擎(一次导入操作使用一个实例)
+ * 1.每个网络文件作为一个导入任务在执行器中并发执行, 同时执行的任务数有上限, 达到上限时提交线程等待
+ * 2.单个文件导入失败不影响其他文件, 失败信息汇总到导入结果中
+ *
+ * @author shenqicheng
+ * @since 1.2.4
+ */
+public class UrlImporter {
+
+    private final Executor executor;
+
+    private final int concurrency;
+
+    private final Semaphore permits;
+
+    /**
+     * 单个文件的导入操作(对象名称, 网络文件地址) -> 对象信息
+     */
+    private final BiFunction<String, String, FileBasicInfo> uploader;
+
+    private final AtomicLong uploadedBytes = new AtomicLong();
+
+    private final Queue<FileBasicInfo> objects = new ConcurrentLinkedQueue<>();
+
+    private final Queue<UploadError> errors = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param executor    执行器, 为null时在提交线程中导入
+     * @param concurrency 同时导入的最大文件数
+     * @param uploader    单个文件的导入操作
+     */
+    public UrlImporter(Executor executor, int concurrency, BiFunction<String, String, FileBasicInfo> uploader) {
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.permits = new Semaphore(this.concurrency);
+        this.uploader = uploader;
+    }
+
+    /**
+     * 导入所有网络文件并等待结束
+     *
+     * @param urls 对象名称 -> 网络文件地址
+     * @return 导入结果
+     */
+    public UploadUrlsResult upload(Map<String, String> urls) {
+        long start = System.nanoTime();
+        try {
+            for (Map.Entry<String, String> entry : urls.entrySet()) {
+                submit(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            acquire(concurrency);
+            permits.release(concurrency);
+        }
+        UploadUrlsResult result = new UploadUrlsResult();
+        result.getObjects().addAll(objects);
+        result.setUploadedBytes(uploadedBytes.get());
+        result.getErrors().addAll(errors);
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private void submit(String objectName, String url) {
+        acquire(1);
+        try {
+            execute(() -> uploadObject(objectName, url)).whenComplete((r, e) -> permits.release());
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void uploadObject(String objectName, String url) {
+        try {
+            FileBasicInfo info = uploader.apply(objectName, url);
+            objects.add(info);
+            if (info.getContentLength() != null) {
+                uploadedBytes.addAndGet(info.getContentLength());
+            }
+        } catch (Exception e) {
+            Throwable cause = e instanceof StorageException && e.getCause() != null ? e.getCause() : e;
+            String code = cause instanceof AmazonServiceException ? ((AmazonServiceException) cause).getErrorCode() : cause.getClass().getSimpleName();
+            errors.add(new UploadError(objectName, url, code, e.getMessage()));
+        }
+    }
+
+    private CompletableFuture<Void> execute(Runnable task) {
+        if (executor == null) {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.runAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new StorageException("opcooc-storage - upload url task rejected", e);
+        }
+    }
+
+    private void acquire(int count) {
+        try {
+            permits.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("opcooc-storage - upload urls interrupted", e);
+        }
+    }
+}